@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.netty;
+
+import io.atomix.messaging.Endpoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request/reply benchmark for the Netty messaging manager.
+ * <p>
+ * Measures the cost of sending requests and correlating replies over a loopback connection. Run with the JMH
+ * GC profiler ({@code java -jar benchmarks/target/benchmarks.jar NettyMessagingManagerBenchmark -prof gc}) to
+ * report the bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NettyMessagingManagerBenchmark {
+  private static final String TYPE = "benchmark";
+  private static final int BATCH_SIZE = 128;
+
+  @Param({"16", "1024"})
+  private int payloadSize;
+
+  private NettyMessagingManager client;
+  private NettyMessagingManager server;
+  private Endpoint serverEndpoint;
+  private byte[] payload;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Endpoint clientEndpoint = new Endpoint(InetAddress.getLoopbackAddress(), 5678);
+    serverEndpoint = new Endpoint(InetAddress.getLoopbackAddress(), 5679);
+    client = new NettyMessagingManager(clientEndpoint);
+    server = new NettyMessagingManager(serverEndpoint);
+    server.registerHandler(TYPE, (endpoint, bytes) -> CompletableFuture.completedFuture(bytes));
+    payload = new byte[payloadSize];
+
+    // Establish the pooled connection before measuring.
+    client.sendAndReceive(serverEndpoint, TYPE, payload).join();
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    client.close();
+    server.close();
+  }
+
+  /**
+   * Sends a single request and waits for the reply.
+   */
+  @Benchmark
+  public byte[] sendAndReceive() {
+    return client.sendAndReceive(serverEndpoint, TYPE, payload).join();
+  }
+
+  /**
+   * Sends a batch of concurrent requests and waits for all replies.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  @SuppressWarnings("unchecked")
+  public void sendAndReceiveBatch() {
+    CompletableFuture<byte[]>[] futures = new CompletableFuture[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      futures[i] = client.sendAndReceive(serverEndpoint, TYPE, payload);
+    }
+    CompletableFuture.allOf(futures).join();
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.AntiEntropyAdvertisement;
+import io.atomix.protocols.gossip.protocol.AntiEntropyProtocol;
+import io.atomix.protocols.gossip.protocol.AntiEntropyResponse;
+import io.atomix.protocols.gossip.protocol.GossipMessage;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.time.HybridTimestamp;
+import io.atomix.utils.Identifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Gossip ingest benchmark.
+ * <p>
+ * Measures the rate at which gossip services apply inbound gossip messages delivered concurrently by multiple
+ * threads, as when messages from many peers are handled on separate messaging threads. Each message contains
+ * {@code batchSize} updates to random keys. Run with {@code -t} to vary the number of ingest threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class GossipIngestBenchmark {
+
+  /**
+   * Gossip service type.
+   */
+  public enum ServiceType {
+    ANTI_ENTROPY,
+    DISSEMINATION,
+  }
+
+  @Param({"ANTI_ENTROPY", "DISSEMINATION"})
+  private ServiceType serviceType;
+
+  @Param({"100000"})
+  private int keys;
+
+  @Param({"16"})
+  private int batchSize;
+
+  private final AtomicLong timestamp = new AtomicLong();
+  private ScheduledExecutorService executor;
+  private BenchmarkProtocol protocol;
+  private GossipService<String, String> service;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    executor = Executors.newSingleThreadScheduledExecutor();
+    protocol = new BenchmarkProtocol();
+    if (serviceType == ServiceType.ANTI_ENTROPY) {
+      service = new AntiEntropyService.Builder<String, String>()
+          .withProtocol(protocol)
+          .withPeerProvider(Collections::emptyList)
+          .withCommunicationExecutor(executor)
+          .withAntiEntropyInterval(Duration.ofDays(1))
+          .build();
+    } else {
+      service = DisseminationService.<String, String>builder()
+          .withProtocol(protocol)
+          .withPeerProvider(Collections::emptyList)
+          .withCommunicationExecutor(executor)
+          .withUpdateInterval(Duration.ofDays(1))
+          .build();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    service.close();
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  public void ingest() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<GossipUpdate<String, String>> updates = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      updates.add(new GossipUpdate<>(
+          String.valueOf(random.nextInt(keys)),
+          "value",
+          new HybridTimestamp(timestamp.incrementAndGet())));
+    }
+    protocol.listener.accept(new GossipMessage<>(new HybridTimestamp(timestamp.get()), updates));
+  }
+
+  /**
+   * Protocol that captures the service's gossip listener.
+   */
+  @SuppressWarnings("unchecked")
+  private static class BenchmarkProtocol implements AntiEntropyProtocol<Identifier> {
+    private volatile Consumer<GossipMessage<String, String>> listener;
+
+    @Override
+    public <K> CompletableFuture<AntiEntropyResponse<K>> advertise(Identifier identifier, AntiEntropyAdvertisement<K> advertisement) {
+      return new CompletableFuture<>();
+    }
+
+    @Override
+    public <K> void registerAdvertisementHandler(Function<AntiEntropyAdvertisement<K>, AntiEntropyResponse<K>> handler) {
+    }
+
+    @Override
+    public void unregisterAdvertisementHandler() {
+    }
+
+    @Override
+    public <K, V> void gossip(Identifier identifier, GossipMessage<K, V> message) {
+    }
+
+    @Override
+    public <K, V> void registerGossipListener(Consumer<GossipMessage<K, V>> listener) {
+      this.listener = (Consumer) listener;
+    }
+
+    @Override
+    public void unregisterGossipListener() {
+    }
+  }
+}
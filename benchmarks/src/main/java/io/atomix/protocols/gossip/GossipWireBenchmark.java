@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.crdt.ORSet;
+import io.atomix.protocols.gossip.crdt.PNCounter;
+import io.atomix.protocols.gossip.protocol.GossipMessage;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.serializer.kryo.KryoNamespace;
+import io.atomix.time.HybridLogicalClock;
+import io.atomix.utils.AbstractIdentifier;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gossip wire size benchmark.
+ * <p>
+ * Compares the bytes on the wire of gossiping an increment of a counter or an addition to a set of
+ * {@code size} elements as a
+ * last-writer-wins value, which ships the full value, and as a delta-state CRDT, which ships only the delta. The
+ * {@code bytes} counter reports the serialized message bytes per second alongside the operations per second, so the
+ * bytes per mutation is their ratio.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GossipWireBenchmark {
+  private static final String SUBJECT = "subject";
+  private static final MemberId MEMBER = new MemberId("1");
+
+  /**
+   * Replicated value type.
+   */
+  public enum Type {
+    COUNTER,
+    SET,
+  }
+
+  /**
+   * Gossip mode.
+   */
+  public enum GossipMode {
+    LWW,
+    DELTA,
+  }
+
+  /**
+   * Wire counters.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class WireCounters {
+    public long bytes;
+  }
+
+  @Param({"COUNTER", "SET"})
+  private Type type;
+
+  @Param({"LWW", "DELTA"})
+  private GossipMode mode;
+
+  @Param({"1000"})
+  private int size;
+
+  private KryoNamespace namespace;
+  private HybridLogicalClock clock;
+  private long counterValue;
+  private Set<String> set;
+  private PNCounter<MemberId> counter;
+  private ORSet<MemberId, String> orSet;
+  private int next;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    namespace = KryoNamespace.newBuilder()
+        .setRegistrationRequired(false)
+        .build();
+    clock = new HybridLogicalClock();
+    counterValue = 0;
+    counter = new PNCounter<>(MEMBER);
+    set = new HashSet<>();
+    orSet = new ORSet<>(MEMBER);
+    for (int i = 0; i < size; i++) {
+      set.add(String.valueOf(i));
+      orSet.add(String.valueOf(i));
+    }
+    next = size;
+  }
+
+  @Benchmark
+  public byte[] gossip(WireCounters counters) {
+    Object value;
+    String element = String.valueOf(next++);
+    if (type == Type.COUNTER) {
+      if (mode == GossipMode.LWW) {
+        value = ++counterValue;
+      } else {
+        value = counter.increment(1);
+      }
+    } else {
+      if (mode == GossipMode.LWW) {
+        set.add(element);
+        value = new HashSet<>(set);
+      } else {
+        value = orSet.add(element);
+      }
+    }
+    GossipMessage<String, Object> message = new GossipMessage<>(clock.increment(),
+        Collections.singletonList(new GossipUpdate<>(SUBJECT, value, clock.getTime())));
+    byte[] bytes = namespace.serialize(message);
+    counters.bytes += bytes.length;
+    return bytes;
+  }
+
+  /**
+   * Benchmark member identifier.
+   */
+  public static class MemberId extends AbstractIdentifier<String> {
+    public MemberId(String value) {
+      super(value);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi;
+
+import io.atomix.utils.AbstractIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phi accrual failure detector benchmark.
+ * <p>
+ * Measures the cost of a heartbeat round, in which phi is computed for every peer, and of reporting a heartbeat from
+ * every peer, with a full window of heartbeat history for each peer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhiAccrualFailureDetectorBenchmark {
+  private static final int WINDOW_SIZE = 250;
+
+  @Param({"1000"})
+  private int peers;
+
+  private PhiAccrualFailureDetector<NodeId> detector;
+  private List<NodeId> nodes;
+  private long time;
+
+  @Setup
+  public void setupDetector() {
+    detector = new PhiAccrualFailureDetector<>();
+    nodes = new ArrayList<>(peers);
+    for (int i = 0; i < peers; i++) {
+      nodes.add(new NodeId(String.valueOf(i)));
+    }
+    for (int i = 0; i <= WINDOW_SIZE; i++) {
+      report();
+    }
+  }
+
+  @Benchmark
+  public void phi(Blackhole blackhole) {
+    for (NodeId node : nodes) {
+      blackhole.consume(detector.phi(node, time + 50));
+    }
+  }
+
+  @Benchmark
+  public void report() {
+    time += 100;
+    for (NodeId node : nodes) {
+      detector.report(node, time + ThreadLocalRandom.current().nextInt(10));
+    }
+  }
+
+  /**
+   * Benchmark node identifier.
+   */
+  private static class NodeId extends AbstractIdentifier<String> {
+    NodeId(String id) {
+      super(id);
+    }
+  }
+}
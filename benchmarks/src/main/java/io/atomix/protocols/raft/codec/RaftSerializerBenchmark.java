@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.codec;
+
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.operation.OperationId;
+import io.atomix.protocols.raft.operation.RaftOperation;
+import io.atomix.protocols.raft.protocol.AppendRequest;
+import io.atomix.protocols.raft.protocol.CommandRequest;
+import io.atomix.protocols.raft.protocol.KeepAliveRequest;
+import io.atomix.protocols.raft.protocol.QueryResponse;
+import io.atomix.protocols.raft.protocol.RaftResponse;
+import io.atomix.protocols.raft.storage.log.entry.CommandEntry;
+import io.atomix.protocols.raft.storage.log.entry.RaftLogEntry;
+import io.atomix.serializer.Serializer;
+import io.atomix.serializer.kryo.KryoNamespace;
+import io.atomix.serializer.kryo.KryoNamespaceBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raft serializer benchmark.
+ * <p>
+ * Compares the Raft codecs with Kryo on the hottest Raft messages. Run with the JMH GC profiler
+ * ({@code java -jar benchmarks/target/benchmarks.jar RaftSerializerBenchmark -prof gc}) to report the bytes allocated
+ * per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaftSerializerBenchmark {
+  private static final int APPEND_ENTRIES = 16;
+
+  /**
+   * Serializer implementation.
+   */
+  public enum Implementation {
+    KRYO,
+    RAFT,
+  }
+
+  @Param({"KRYO", "RAFT"})
+  private Implementation implementation;
+
+  @Param({"128"})
+  private int operationSize;
+
+  private Serializer serializer;
+  private AppendRequest appendRequest;
+  private CommandRequest commandRequest;
+  private QueryResponse queryResponse;
+  private KeepAliveRequest keepAliveRequest;
+  private byte[] appendRequestBytes;
+  private byte[] commandRequestBytes;
+  private byte[] queryResponseBytes;
+  private byte[] keepAliveRequestBytes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    if (implementation == Implementation.KRYO) {
+      serializer = Serializer.using(KryoNamespaceBenchmark.newRaftNamespace(KryoNamespace.PoolMode.THREAD_LOCAL));
+    } else {
+      serializer = new RaftSerializer();
+    }
+
+    RaftOperation operation = new RaftOperation(OperationId.command("put"), new byte[operationSize]);
+    commandRequest = new CommandRequest(1, 1, operation);
+    List<RaftLogEntry> entries = new ArrayList<>(APPEND_ENTRIES);
+    for (int i = 0; i < APPEND_ENTRIES; i++) {
+      entries.add(new CommandEntry(1, System.currentTimeMillis(), 1, i + 1, new RaftOperation(operation.id(), new byte[operationSize])));
+    }
+    appendRequest = AppendRequest.newBuilder()
+        .withTerm(1)
+        .withLeader(MemberId.from("1"))
+        .withPrevLogIndex(1000)
+        .withPrevLogTerm(1)
+        .withEntries(entries)
+        .withCommitIndex(1000)
+        .build();
+    queryResponse = new QueryResponse(RaftResponse.Status.OK, null, 1000, 900, new byte[operationSize], 10);
+    long[] sessions = new long[16];
+    for (int i = 0; i < sessions.length; i++) {
+      sessions[i] = i + 1;
+    }
+    keepAliveRequest = new KeepAliveRequest(sessions, sessions, sessions);
+
+    appendRequestBytes = serializer.encode(appendRequest);
+    commandRequestBytes = serializer.encode(commandRequest);
+    queryResponseBytes = serializer.encode(queryResponse);
+    keepAliveRequestBytes = serializer.encode(keepAliveRequest);
+  }
+
+  @Benchmark
+  public byte[] encodeAppendRequest() {
+    return serializer.encode(appendRequest);
+  }
+
+  @Benchmark
+  public AppendRequest decodeAppendRequest() {
+    return serializer.decode(appendRequestBytes);
+  }
+
+  @Benchmark
+  public byte[] encodeCommandRequest() {
+    return serializer.encode(commandRequest);
+  }
+
+  @Benchmark
+  public CommandRequest decodeCommandRequest() {
+    return serializer.decode(commandRequestBytes);
+  }
+
+  @Benchmark
+  public byte[] encodeQueryResponse() {
+    return serializer.encode(queryResponse);
+  }
+
+  @Benchmark
+  public QueryResponse decodeQueryResponse() {
+    return serializer.decode(queryResponseBytes);
+  }
+
+  @Benchmark
+  public byte[] encodeKeepAliveRequest() {
+    return serializer.encode(keepAliveRequest);
+  }
+
+  @Benchmark
+  public KeepAliveRequest decodeKeepAliveRequest() {
+    return serializer.decode(keepAliveRequestBytes);
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.serializer.kryo;
+
+import io.atomix.protocols.raft.RaftError;
+import io.atomix.protocols.raft.ReadConsistency;
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.cluster.RaftMember;
+import io.atomix.protocols.raft.cluster.impl.DefaultRaftMember;
+import io.atomix.protocols.raft.operation.OperationType;
+import io.atomix.protocols.raft.operation.RaftOperation;
+import io.atomix.protocols.raft.operation.impl.DefaultOperationId;
+import io.atomix.protocols.raft.protocol.AppendRequest;
+import io.atomix.protocols.raft.protocol.AppendResponse;
+import io.atomix.protocols.raft.protocol.CloseSessionRequest;
+import io.atomix.protocols.raft.protocol.CloseSessionResponse;
+import io.atomix.protocols.raft.protocol.CommandRequest;
+import io.atomix.protocols.raft.protocol.CommandResponse;
+import io.atomix.protocols.raft.protocol.ConfigureRequest;
+import io.atomix.protocols.raft.protocol.ConfigureResponse;
+import io.atomix.protocols.raft.protocol.InstallRequest;
+import io.atomix.protocols.raft.protocol.InstallResponse;
+import io.atomix.protocols.raft.protocol.JoinRequest;
+import io.atomix.protocols.raft.protocol.JoinResponse;
+import io.atomix.protocols.raft.protocol.KeepAliveRequest;
+import io.atomix.protocols.raft.protocol.KeepAliveResponse;
+import io.atomix.protocols.raft.protocol.LeaveRequest;
+import io.atomix.protocols.raft.protocol.LeaveResponse;
+import io.atomix.protocols.raft.protocol.MetadataRequest;
+import io.atomix.protocols.raft.protocol.MetadataResponse;
+import io.atomix.protocols.raft.protocol.OpenSessionRequest;
+import io.atomix.protocols.raft.protocol.OpenSessionResponse;
+import io.atomix.protocols.raft.protocol.PollRequest;
+import io.atomix.protocols.raft.protocol.PollResponse;
+import io.atomix.protocols.raft.protocol.PublishRequest;
+import io.atomix.protocols.raft.protocol.QueryRequest;
+import io.atomix.protocols.raft.protocol.QueryResponse;
+import io.atomix.protocols.raft.protocol.RaftResponse;
+import io.atomix.protocols.raft.protocol.ReconfigureRequest;
+import io.atomix.protocols.raft.protocol.ReconfigureResponse;
+import io.atomix.protocols.raft.protocol.ResetRequest;
+import io.atomix.protocols.raft.protocol.VoteRequest;
+import io.atomix.protocols.raft.protocol.VoteResponse;
+import io.atomix.protocols.raft.session.SessionId;
+import io.atomix.protocols.raft.storage.log.entry.CloseSessionEntry;
+import io.atomix.protocols.raft.storage.log.entry.CommandEntry;
+import io.atomix.protocols.raft.storage.log.entry.ConfigurationEntry;
+import io.atomix.protocols.raft.storage.log.entry.InitializeEntry;
+import io.atomix.protocols.raft.storage.log.entry.KeepAliveEntry;
+import io.atomix.protocols.raft.storage.log.entry.MetadataEntry;
+import io.atomix.protocols.raft.storage.log.entry.OpenSessionEntry;
+import io.atomix.protocols.raft.storage.log.entry.QueryEntry;
+import io.atomix.protocols.raft.storage.log.entry.RaftLogEntry;
+import io.atomix.protocols.raft.storage.system.Configuration;
+import io.atomix.storage.buffer.HeapBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kryo namespace benchmark for the Raft protocol types.
+ * <p>
+ * Measures the cost of serializing and deserializing Raft requests and log entries under each {@link KryoNamespace}
+ * pool mode. The namespace registers the same types as the Raft performance test. Run with the JMH GC profiler
+ * ({@code java -jar benchmarks/target/benchmarks.jar KryoNamespaceBenchmark -prof gc}) to report the bytes allocated
+ * per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KryoNamespaceBenchmark {
+  private static final int APPEND_ENTRIES = 16;
+
+  @Param({"SOFT_REFERENCE", "STRONG_REFERENCE", "THREAD_LOCAL"})
+  private KryoNamespace.PoolMode poolMode;
+
+  @Param({"128", "4096"})
+  private int operationSize;
+
+  private KryoNamespace namespace;
+  private CommandRequest commandRequest;
+  private AppendRequest appendRequest;
+  private CommandEntry commandEntry;
+  private byte[] commandRequestBytes;
+  private byte[] appendRequestBytes;
+  private HeapBuffer buffer;
+
+  /**
+   * Returns a namespace registering the Raft protocol types.
+   *
+   * @param poolMode the Kryo instance pooling mode
+   * @return the Raft protocol namespace
+   */
+  public static KryoNamespace newRaftNamespace(KryoNamespace.PoolMode poolMode) {
+    return KryoNamespace.newBuilder()
+        .register(OpenSessionRequest.class)
+        .register(OpenSessionResponse.class)
+        .register(CloseSessionRequest.class)
+        .register(CloseSessionResponse.class)
+        .register(KeepAliveRequest.class)
+        .register(KeepAliveResponse.class)
+        .register(QueryRequest.class)
+        .register(QueryResponse.class)
+        .register(CommandRequest.class)
+        .register(CommandResponse.class)
+        .register(MetadataRequest.class)
+        .register(MetadataResponse.class)
+        .register(JoinRequest.class)
+        .register(JoinResponse.class)
+        .register(LeaveRequest.class)
+        .register(LeaveResponse.class)
+        .register(ConfigureRequest.class)
+        .register(ConfigureResponse.class)
+        .register(ReconfigureRequest.class)
+        .register(ReconfigureResponse.class)
+        .register(InstallRequest.class)
+        .register(InstallResponse.class)
+        .register(PollRequest.class)
+        .register(PollResponse.class)
+        .register(VoteRequest.class)
+        .register(VoteResponse.class)
+        .register(AppendRequest.class)
+        .register(AppendResponse.class)
+        .register(PublishRequest.class)
+        .register(ResetRequest.class)
+        .register(RaftResponse.Status.class)
+        .register(RaftError.class)
+        .register(RaftError.Type.class)
+        .register(RaftOperation.class)
+        .register(ReadConsistency.class)
+        .register(byte[].class)
+        .register(long[].class)
+        .register(CloseSessionEntry.class)
+        .register(CommandEntry.class)
+        .register(ConfigurationEntry.class)
+        .register(InitializeEntry.class)
+        .register(KeepAliveEntry.class)
+        .register(MetadataEntry.class)
+        .register(OpenSessionEntry.class)
+        .register(QueryEntry.class)
+        .register(RaftOperation.class)
+        .register(DefaultOperationId.class)
+        .register(OperationType.class)
+        .register(ReadConsistency.class)
+        .register(ArrayList.class)
+        .register(Collections.emptyList().getClass())
+        .register(HashSet.class)
+        .register(DefaultRaftMember.class)
+        .register(MemberId.class)
+        .register(SessionId.class)
+        .register(RaftMember.Type.class)
+        .register(Instant.class)
+        .register(Configuration.class)
+        .setPoolMode(poolMode)
+        .build();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    namespace = newRaftNamespace(poolMode);
+
+    RaftOperation operation = new RaftOperation(new DefaultOperationId("put", OperationType.COMMAND), new byte[operationSize]);
+    commandRequest = new CommandRequest(1, 1, operation);
+    commandEntry = new CommandEntry(1, System.currentTimeMillis(), 1, 1, operation);
+
+    List<RaftLogEntry> entries = new ArrayList<>(APPEND_ENTRIES);
+    for (int i = 0; i < APPEND_ENTRIES; i++) {
+      entries.add(new CommandEntry(1, System.currentTimeMillis(), 1, i + 1, new RaftOperation(operation.id(), new byte[operationSize])));
+    }
+    appendRequest = AppendRequest.newBuilder()
+        .withTerm(1)
+        .withLeader(MemberId.from("1"))
+        .withPrevLogIndex(0)
+        .withPrevLogTerm(0)
+        .withEntries(entries)
+        .withCommitIndex(0)
+        .build();
+
+    commandRequestBytes = namespace.serialize(commandRequest);
+    appendRequestBytes = namespace.serialize(appendRequest);
+    buffer = HeapBuffer.allocate(operationSize * 2);
+  }
+
+  /**
+   * Serializes a client command request.
+   */
+  @Benchmark
+  public byte[] serializeCommandRequest() {
+    return namespace.serialize(commandRequest);
+  }
+
+  /**
+   * Deserializes a client command request.
+   */
+  @Benchmark
+  public CommandRequest deserializeCommandRequest() {
+    return namespace.deserialize(commandRequestBytes);
+  }
+
+  /**
+   * Serializes an append request carrying a batch of command entries.
+   */
+  @Benchmark
+  public byte[] serializeAppendRequest() {
+    return namespace.serialize(appendRequest);
+  }
+
+  /**
+   * Deserializes an append request carrying a batch of command entries.
+   */
+  @Benchmark
+  public AppendRequest deserializeAppendRequest() {
+    return namespace.deserialize(appendRequestBytes);
+  }
+
+  /**
+   * Writes a command entry to a buffer and reads it back as the Raft log does.
+   */
+  @Benchmark
+  public CommandEntry writeReadCommandEntry() {
+    buffer.clear();
+    namespace.serialize(commandEntry, buffer);
+    int length = (int) buffer.position();
+    buffer.flip();
+    return namespace.deserialize(buffer, length);
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.journal;
+
+import io.atomix.serializer.Serializer;
+import io.atomix.serializer.kryo.KryoNamespace;
+import io.atomix.storage.StorageLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal append benchmark.
+ * <p>
+ * Measures the rate at which entries are appended to a segmented journal for each {@link StorageLevel}. Run with the
+ * JMH GC profiler ({@code java -jar benchmarks/target/benchmarks.jar JournalBenchmark -prof gc}) to report the bytes
+ * allocated per append.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+  private static final int COMPACT_INTERVAL = 10000;
+
+  static final Serializer SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
+      .register(TestEntry.class)
+      .register(byte[].class)
+      .build());
+
+  @Param({"MEMORY", "OFF_HEAP", "DISK", "MAPPED"})
+  private StorageLevel storageLevel;
+
+  @Param({"64", "1024"})
+  private int entrySize;
+
+  private File directory;
+  private SegmentedJournal<TestEntry> journal;
+  private JournalWriter<TestEntry> writer;
+  private TestEntry entry;
+
+  @Setup(Level.Iteration)
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("journal-benchmark").toFile();
+    journal = SegmentedJournal.<TestEntry>newBuilder()
+        .withName("benchmark")
+        .withDirectory(directory)
+        .withSerializer(SERIALIZER)
+        .withStorageLevel(storageLevel)
+        .build();
+    writer = journal.writer();
+    entry = new TestEntry(entrySize);
+  }
+
+  @TearDown(Level.Iteration)
+  public void teardown() {
+    journal.close();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  /**
+   * Appends a single entry to the journal.
+   */
+  @Benchmark
+  public Indexed<TestEntry> append() {
+    Indexed<TestEntry> indexed = writer.append(entry);
+    if (indexed.index() % COMPACT_INTERVAL == 0) {
+      journal.compact(indexed.index());
+    }
+    return indexed;
+  }
+
+  /**
+   * Journal entry.
+   */
+  public static class TestEntry {
+    private final byte[] bytes;
+
+    public TestEntry(int size) {
+      this.bytes = new byte[size];
+    }
+  }
+}
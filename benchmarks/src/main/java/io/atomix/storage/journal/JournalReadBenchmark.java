@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.journal;
+
+import io.atomix.storage.StorageLevel;
+import io.atomix.storage.journal.JournalBenchmark.TestEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal read benchmark.
+ * <p>
+ * Measures the rate at which entries are read sequentially from a segmented journal for each
+ * {@link StorageLevel} and {@link ChecksumPolicy}. The journal is populated once per trial, and readers wrap back
+ * to the first entry when they reach the end of the journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalReadBenchmark {
+  private static final int ENTRIES = 100000;
+
+  @Param({"MEMORY", "OFF_HEAP", "DISK", "MAPPED"})
+  private StorageLevel storageLevel;
+
+  @Param({"64", "1024"})
+  private int entrySize;
+
+  @Param({"ALWAYS", "NONE"})
+  private ChecksumPolicy checksumPolicy;
+
+  private File directory;
+  private SegmentedJournal<TestEntry> journal;
+  private JournalReader<TestEntry> reader;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("journal-benchmark").toFile();
+    journal = SegmentedJournal.<TestEntry>newBuilder()
+        .withName("benchmark")
+        .withDirectory(directory)
+        .withSerializer(JournalBenchmark.SERIALIZER)
+        .withStorageLevel(storageLevel)
+        .withChecksumPolicy(checksumPolicy)
+        .build();
+    JournalWriter<TestEntry> writer = journal.writer();
+    TestEntry entry = new TestEntry(entrySize);
+    for (int i = 0; i < ENTRIES; i++) {
+      writer.append(entry);
+    }
+    writer.flush();
+    reader = journal.openReader(1);
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    reader.close();
+    journal.close();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  /**
+   * Reads a single entry from the journal.
+   */
+  @Benchmark
+  public Indexed<TestEntry> read() {
+    if (!reader.hasNext()) {
+      reader.reset();
+    }
+    return reader.next();
+  }
+}
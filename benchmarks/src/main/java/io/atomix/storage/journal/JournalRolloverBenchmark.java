@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.journal;
+
+import io.atomix.storage.StorageLevel;
+import io.atomix.storage.journal.JournalBenchmark.TestEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal segment rollover benchmark.
+ * <p>
+ * Measures the latency of the append that rolls the journal over to a new segment. Before each invocation the
+ * current segment is filled and older segments are compacted, so only the rollover append is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalRolloverBenchmark {
+  private static final int ENTRY_SIZE = 1024;
+  private static final int MAX_SEGMENT_SIZE = 1024 * 1024 * 8;
+  private static final int RETAINED_SEGMENTS = 4;
+
+  @Param({"MEMORY", "OFF_HEAP", "DISK", "MAPPED"})
+  private StorageLevel storageLevel;
+
+  private File directory;
+  private SegmentedJournal<TestEntry> journal;
+  private JournalWriter<TestEntry> writer;
+  private TestEntry entry;
+  private int entriesPerSegment;
+
+  @Setup(Level.Iteration)
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("journal-benchmark").toFile();
+    journal = SegmentedJournal.<TestEntry>newBuilder()
+        .withName("benchmark")
+        .withDirectory(directory)
+        .withSerializer(JournalBenchmark.SERIALIZER)
+        .withStorageLevel(storageLevel)
+        .withMaxSegmentSize(MAX_SEGMENT_SIZE)
+        .build();
+    writer = journal.writer();
+    entry = new TestEntry(ENTRY_SIZE);
+
+    // Fill the first segment to determine how many entries fit in a segment.
+    long firstSegment = journal.getLastSegment().index();
+    while (journal.getLastSegment().index() == firstSegment) {
+      writer.append(entry);
+    }
+    entriesPerSegment = (int) (journal.getLastSegment().index() - firstSegment);
+  }
+
+  @TearDown(Level.Iteration)
+  public void teardown() {
+    journal.close();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Setup(Level.Invocation)
+  public void fill() {
+    Indexed<TestEntry> indexed = null;
+    for (int i = 0; i < entriesPerSegment - 1; i++) {
+      indexed = writer.append(entry);
+    }
+    journal.compact(indexed.index() - (long) entriesPerSegment * RETAINED_SEGMENTS);
+  }
+
+  /**
+   * Appends the first entry to a new segment.
+   */
+  @Benchmark
+  public Indexed<TestEntry> rollover() {
+    return writer.append(entry);
+  }
+}
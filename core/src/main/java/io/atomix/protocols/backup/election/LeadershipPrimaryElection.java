@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.election;
+
+import io.atomix.cluster.NodeId;
+import io.atomix.leadership.Leadership;
+import io.atomix.leadership.LeadershipEvent;
+import io.atomix.leadership.LeadershipEventListener;
+import io.atomix.leadership.LeadershipService;
+import io.atomix.protocols.backup.PrimaryElection;
+import io.atomix.protocols.backup.PrimaryTerm;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Primary election backed by a {@link LeadershipService} topic.
+ * <p>
+ * The leader for the topic is the primary, the leader's term is the primary term, and backups are chosen from the
+ * topic's candidates in preference order.
+ */
+public class LeadershipPrimaryElection implements PrimaryElection<NodeId> {
+  private final LeadershipService leadershipService;
+  private final String topic;
+  private final Map<Consumer<PrimaryTerm<NodeId>>, LeadershipEventListener> listeners = new ConcurrentHashMap<>();
+
+  public LeadershipPrimaryElection(LeadershipService leadershipService, String topic) {
+    this.leadershipService = checkNotNull(leadershipService, "leadershipService cannot be null");
+    this.topic = checkNotNull(topic, "topic cannot be null");
+  }
+
+  @Override
+  public PrimaryTerm<NodeId> enter() {
+    return toTerm(leadershipService.runForLeadership(topic));
+  }
+
+  @Override
+  public void withdraw() {
+    leadershipService.withdraw(topic);
+  }
+
+  @Override
+  public PrimaryTerm<NodeId> getTerm() {
+    return toTerm(leadershipService.getLeadership(topic));
+  }
+
+  @Override
+  public void addListener(Consumer<PrimaryTerm<NodeId>> listener) {
+    LeadershipEventListener leadershipListener = new LeadershipEventListener() {
+      @Override
+      public boolean isRelevant(LeadershipEvent event) {
+        return event.subject() != null && topic.equals(event.subject().topic());
+      }
+
+      @Override
+      public void onEvent(LeadershipEvent event) {
+        listener.accept(toTerm(event.subject()));
+      }
+    };
+    if (listeners.putIfAbsent(listener, leadershipListener) == null) {
+      leadershipService.addListener(leadershipListener);
+    }
+  }
+
+  @Override
+  public void removeListener(Consumer<PrimaryTerm<NodeId>> listener) {
+    LeadershipEventListener leadershipListener = listeners.remove(listener);
+    if (leadershipListener != null) {
+      leadershipService.removeListener(leadershipListener);
+    }
+  }
+
+  /**
+   * Converts a leadership to a primary term.
+   */
+  private static PrimaryTerm<NodeId> toTerm(Leadership leadership) {
+    if (leadership == null) {
+      return new PrimaryTerm<>(0, null, Collections.emptyList());
+    }
+    return new PrimaryTerm<>(
+        leadership.leader() != null ? leadership.leader().term() : 0,
+        leadership.leaderNodeId(),
+        leadership.candidates());
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Message handler dispatch policy.
+ * <p>
+ * The dispatch policy controls the thread on which a message handler is invoked. {@link Mode#INLINE} handlers are
+ * invoked directly on the I/O thread that received the message and should only be used for handlers that do
+ * trivial work. {@link Mode#ORDERED} handlers are invoked off the I/O thread, and messages from the same sender are
+ * handled in the order in which they were received. {@link Mode#UNORDERED} handlers are invoked off the I/O thread
+ * with no ordering guarantees.
+ * <p>
+ * Handlers with {@link Priority#HIGH} priority are dispatched on threads that are never shared with normal priority
+ * handlers, so a backlog of expensive messages can't delay them. Failure detector heartbeats should always be
+ * registered with high priority.
+ * <p>
+ * The queue depth limits the number of messages for a single message type that may be waiting for or running in its
+ * handler. Messages received once the limit has been reached are rejected, and the sender of a request is failed
+ * with {@link MessagingException.TooManyRequests}.
+ */
+public final class DispatchPolicy {
+  private static final DispatchPolicy INLINE = builder().withMode(Mode.INLINE).build();
+  private static final DispatchPolicy ORDERED = builder().withMode(Mode.ORDERED).build();
+  private static final DispatchPolicy UNORDERED = builder().withMode(Mode.UNORDERED).build();
+
+  /**
+   * Returns a policy that invokes the handler on the I/O thread.
+   *
+   * @return the inline dispatch policy
+   */
+  public static DispatchPolicy inline() {
+    return INLINE;
+  }
+
+  /**
+   * Returns a policy that invokes the handler in order for each sender.
+   *
+   * @return the ordered dispatch policy
+   */
+  public static DispatchPolicy ordered() {
+    return ORDERED;
+  }
+
+  /**
+   * Returns a policy that invokes the handler with no ordering guarantees.
+   *
+   * @return the unordered dispatch policy
+   */
+  public static DispatchPolicy unordered() {
+    return UNORDERED;
+  }
+
+  /**
+   * Returns a new dispatch policy builder.
+   *
+   * @return a new dispatch policy builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Dispatch mode.
+   */
+  public enum Mode {
+    /**
+     * Invokes the handler directly on the I/O thread.
+     */
+    INLINE,
+
+    /**
+     * Invokes the handler on a handler thread, preserving the order of messages from each sender.
+     */
+    ORDERED,
+
+    /**
+     * Invokes the handler on a handler thread with no ordering guarantees.
+     */
+    UNORDERED,
+  }
+
+  /**
+   * Dispatch priority.
+   */
+  public enum Priority {
+    /**
+     * Dispatches messages on threads reserved for high priority handlers.
+     */
+    HIGH,
+
+    /**
+     * Dispatches messages on the shared handler threads.
+     */
+    NORMAL,
+  }
+
+  private final Mode mode;
+  private final Priority priority;
+  private final int maxQueueDepth;
+
+  private DispatchPolicy(Mode mode, Priority priority, int maxQueueDepth) {
+    this.mode = mode;
+    this.priority = priority;
+    this.maxQueueDepth = maxQueueDepth;
+  }
+
+  /**
+   * Returns the dispatch mode.
+   *
+   * @return the dispatch mode
+   */
+  public Mode mode() {
+    return mode;
+  }
+
+  /**
+   * Returns the dispatch priority.
+   *
+   * @return the dispatch priority
+   */
+  public Priority priority() {
+    return priority;
+  }
+
+  /**
+   * Returns the maximum number of messages that may be queued for the handler.
+   *
+   * @return the maximum number of queued messages
+   */
+  public int maxQueueDepth() {
+    return maxQueueDepth;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(mode, priority, maxQueueDepth);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof DispatchPolicy) {
+      DispatchPolicy policy = (DispatchPolicy) object;
+      return policy.mode == mode && policy.priority == priority && policy.maxQueueDepth == maxQueueDepth;
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("mode", mode)
+        .add("priority", priority)
+        .add("maxQueueDepth", maxQueueDepth)
+        .toString();
+  }
+
+  /**
+   * Dispatch policy builder.
+   */
+  public static class Builder implements io.atomix.utils.Builder<DispatchPolicy> {
+    private Mode mode = Mode.INLINE;
+    private Priority priority = Priority.NORMAL;
+    private int maxQueueDepth = Integer.MAX_VALUE;
+
+    /**
+     * Sets the dispatch mode.
+     *
+     * @param mode the dispatch mode
+     * @return the dispatch policy builder
+     * @throws NullPointerException if the mode is null
+     */
+    public Builder withMode(Mode mode) {
+      this.mode = checkNotNull(mode, "mode cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the dispatch priority.
+     *
+     * @param priority the dispatch priority
+     * @return the dispatch policy builder
+     * @throws NullPointerException if the priority is null
+     */
+    public Builder withPriority(Priority priority) {
+      this.priority = checkNotNull(priority, "priority cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of messages that may be queued for the handler.
+     *
+     * @param maxQueueDepth the maximum number of queued messages
+     * @return the dispatch policy builder
+     * @throws IllegalArgumentException if the queue depth is not positive
+     */
+    public Builder withMaxQueueDepth(int maxQueueDepth) {
+      checkArgument(maxQueueDepth > 0, "maxQueueDepth must be positive");
+      this.maxQueueDepth = maxQueueDepth;
+      return this;
+    }
+
+    @Override
+    public DispatchPolicy build() {
+      return new DispatchPolicy(mode, priority, maxQueueDepth);
+    }
+  }
+}
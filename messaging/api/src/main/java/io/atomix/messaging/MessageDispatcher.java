@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging;
+
+import io.atomix.utils.concurrent.OrderedExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.atomix.utils.concurrent.Threads.namedThreads;
+
+/**
+ * Dispatches inbound messages to handlers according to their {@link DispatchPolicy}.
+ * <p>
+ * The dispatcher owns two handler thread pools: one shared by all normal priority handlers and a smaller one
+ * reserved for high priority handlers. Ordered handlers are striped by sender across a fixed set of
+ * {@link OrderedExecutor}s on top of the pool, so messages from one sender are handled in order while messages from
+ * different senders are handled in parallel. Pools are only started once a handler that needs them is registered.
+ * <p>
+ * This class is intended for use by {@link MessagingService} implementations.
+ */
+public class MessageDispatcher {
+  private static final int ORDERED_STRIPES = 16;
+  private static final int HIGH_PRIORITY_THREADS = 2;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final String name;
+  private ExecutorService normalPriorityExecutor;
+  private ExecutorService highPriorityExecutor;
+  private boolean closed;
+
+  public MessageDispatcher(String name) {
+    this.name = checkNotNull(name, "name cannot be null");
+  }
+
+  /**
+   * Returns a new handler queue for the given dispatch policy.
+   * <p>
+   * A handler queue should be created for each registered handler.
+   *
+   * @param policy the handler dispatch policy
+   * @return a new handler queue
+   * @throws NullPointerException if the policy is null
+   */
+  public HandlerQueue newHandlerQueue(DispatchPolicy policy) {
+    checkNotNull(policy, "policy cannot be null");
+    switch (policy.mode()) {
+      case INLINE:
+        return new HandlerQueue(policy, null);
+      case ORDERED:
+        Executor executor = getExecutor(policy.priority());
+        Executor[] stripes = new Executor[ORDERED_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+          stripes[i] = new OrderedExecutor(executor);
+        }
+        return new HandlerQueue(policy, stripes);
+      case UNORDERED:
+        return new HandlerQueue(policy, new Executor[]{getExecutor(policy.priority())});
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  /**
+   * Returns the handler thread pool for the given priority, starting it if necessary.
+   *
+   * @param priority the dispatch priority
+   * @return the handler thread pool for the given priority
+   */
+  private synchronized Executor getExecutor(DispatchPolicy.Priority priority) {
+    if (closed) {
+      throw new IllegalStateException("dispatcher is closed");
+    }
+    if (priority == DispatchPolicy.Priority.HIGH) {
+      if (highPriorityExecutor == null) {
+        highPriorityExecutor = Executors.newFixedThreadPool(HIGH_PRIORITY_THREADS,
+            namedThreads("atomix-messaging-" + name + "-priority-handler-%d", log));
+      }
+      return highPriorityExecutor;
+    } else {
+      if (normalPriorityExecutor == null) {
+        normalPriorityExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+            namedThreads("atomix-messaging-" + name + "-handler-%d", log));
+      }
+      return normalPriorityExecutor;
+    }
+  }
+
+  /**
+   * Closes the dispatcher, stopping all handler threads.
+   */
+  public synchronized void close() {
+    closed = true;
+    if (normalPriorityExecutor != null) {
+      normalPriorityExecutor.shutdown();
+    }
+    if (highPriorityExecutor != null) {
+      highPriorityExecutor.shutdown();
+    }
+  }
+
+  /**
+   * Queue of messages awaiting a single handler.
+   */
+  public final class HandlerQueue {
+    private final DispatchPolicy policy;
+    private final Executor[] executors;
+    private final int mask;
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private HandlerQueue(DispatchPolicy policy, Executor[] executors) {
+      this.policy = policy;
+      this.executors = executors;
+      this.mask = executors != null ? executors.length - 1 : 0;
+    }
+
+    /**
+     * Returns the handler dispatch policy.
+     *
+     * @return the handler dispatch policy
+     */
+    public DispatchPolicy policy() {
+      return policy;
+    }
+
+    /**
+     * Returns the number of messages waiting for or running in the handler.
+     *
+     * @return the number of queued messages
+     */
+    public int depth() {
+      return depth.get();
+    }
+
+    /**
+     * Dispatches a message from the given sender to the handler.
+     *
+     * @param sender the message sender
+     * @param task   the task that invokes the handler
+     * @return indicates whether the message was dispatched or rejected because the queue is full
+     */
+    public boolean execute(Endpoint sender, Runnable task) {
+      if (depth.incrementAndGet() > policy.maxQueueDepth()) {
+        depth.decrementAndGet();
+        return false;
+      }
+
+      if (executors == null) {
+        run(task);
+        return true;
+      }
+
+      try {
+        executors[stripe(sender)].execute(() -> run(task));
+        return true;
+      } catch (RejectedExecutionException e) {
+        depth.decrementAndGet();
+        return false;
+      }
+    }
+
+    /**
+     * Returns the index of the executor for the given sender.
+     */
+    private int stripe(Endpoint sender) {
+      int hash = sender.hashCode();
+      return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Runs the given handler task and removes it from the queue.
+     */
+    private void run(Runnable task) {
+      try {
+        task.run();
+      } catch (Exception e) {
+        log.warn("Uncaught exception in message handler", e);
+      } finally {
+        depth.decrementAndGet();
+      }
+    }
+  }
+}
@@ -64,4 +64,13 @@ public class MessagingException extends IOException {
       super("Failed to process message due to invalid message structure");
     }
   }
+
+  /**
+   * Exception indicating a request was rejected due to back-pressure from the remote endpoint.
+   */
+  public static class TooManyRequests extends MessagingException {
+    public TooManyRequests() {
+      super("Too many requests in flight to the remote endpoint");
+    }
+  }
 }
@@ -15,6 +15,8 @@
  */
 package io.atomix.messaging;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
@@ -83,6 +85,35 @@ public interface MessagingService {
    */
   void registerHandler(String type, BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler);
 
+  /**
+   * Registers a new message handler for message type.
+   * <p>
+   * Implementations that don't support dispatch policies ignore the policy and invoke the handler directly on the
+   * thread that received the message.
+   *
+   * @param type    message type.
+   * @param handler message handler
+   * @param policy  policy controlling how messages are dispatched to the handler.
+   */
+  default void registerHandler(String type, BiConsumer<Endpoint, byte[]> handler, DispatchPolicy policy) {
+    registerHandler(type, handler, MoreExecutors.directExecutor());
+  }
+
+  /**
+   * Registers a new message handler for message type.
+   * <p>
+   * Implementations that don't support dispatch policies ignore the policy and invoke the handler directly on the
+   * thread that received the message.
+   *
+   * @param type    message type.
+   * @param handler message handler
+   * @param policy  policy controlling how messages are dispatched to the handler.
+   */
+  default void registerHandler(
+      String type, BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler, DispatchPolicy policy) {
+    registerHandler(type, handler);
+  }
+
   /**
    * Unregister current handler, if one exists for message type.
    *
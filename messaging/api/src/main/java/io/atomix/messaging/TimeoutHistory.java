@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Adaptive request-reply timeout history for a single message type.
+ * <p>
+ * Each history starts with a {@code 500} millisecond timeout. Reply times are recorded lock-free by any thread, and
+ * once every {@link #INTERVAL_MILLIS} the transport calls {@link #recomputeTimeout()} to store the maximum reply
+ * time of the interval, scaled by {@code 2.5} and bounded between {@code 100} and {@code 5000} milliseconds, in a
+ * fixed window of intervals. Once the window is full, the current timeout is the maximum over the window.
+ * {@link #recomputeTimeout()} must only be called by a single thread.
+ * <p>
+ * This class is intended for use by {@link MessagingService} implementations.
+ */
+public final class TimeoutHistory {
+
+  /**
+   * Interval in milliseconds at which transports should recompute timeouts.
+   */
+  public static final long INTERVAL_MILLIS = 50;
+
+  /**
+   * Time in milliseconds after which transports may discard the history of an unused message type.
+   */
+  public static final long EXPIRE_MILLIS = Duration.ofMinutes(10).toMillis();
+
+  private static final long DEFAULT_TIMEOUT_MILLIS = 500;
+  private static final long MIN_TIMEOUT_MILLIS = 100;
+  private static final long MAX_TIMEOUT_MILLIS = 5000;
+  private static final int WINDOW_SIZE = 100;
+  private static final double TIMEOUT_MULTIPLIER = 2.5;
+
+  private final AtomicLongArray timeoutHistory = new AtomicLongArray(WINDOW_SIZE);
+  private final AtomicLong maxReplyTime = new AtomicLong();
+  private long intervals;
+  private volatile long currentTimeout = DEFAULT_TIMEOUT_MILLIS;
+
+  /**
+   * Returns the current timeout.
+   *
+   * @return the current timeout in milliseconds
+   */
+  public long currentTimeout() {
+    return currentTimeout;
+  }
+
+  /**
+   * Adds a reply time to the history.
+   *
+   * @param replyTime the reply time to add to the history in milliseconds
+   */
+  public void addReplyTime(long replyTime) {
+    maxReplyTime.getAndAccumulate(replyTime, Math::max);
+  }
+
+  /**
+   * Records the maximum reply time of the elapsed interval and recomputes the current timeout.
+   */
+  public void recomputeTimeout() {
+    long nextTimeout = (long) (maxReplyTime.getAndSet(0) * TIMEOUT_MULTIPLIER);
+    timeoutHistory.set((int) (intervals++ % WINDOW_SIZE),
+        Math.min(Math.max(nextTimeout, MIN_TIMEOUT_MILLIS), MAX_TIMEOUT_MILLIS));
+    if (intervals >= WINDOW_SIZE) {
+      long maxTimeout = 0;
+      for (int i = 0; i < WINDOW_SIZE; i++) {
+        maxTimeout = Math.max(maxTimeout, timeoutHistory.get(i));
+      }
+      this.currentTimeout = maxTimeout;
+    }
+  }
+}
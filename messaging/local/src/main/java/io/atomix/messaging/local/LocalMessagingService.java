@@ -0,0 +1,473 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.local;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.atomix.messaging.DispatchPolicy;
+import io.atomix.messaging.Endpoint;
+import io.atomix.messaging.MessageDispatcher;
+import io.atomix.messaging.MessagingException;
+import io.atomix.messaging.MessagingService;
+import io.atomix.messaging.TimeoutHistory;
+import io.atomix.utils.concurrent.Futures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+import static io.atomix.utils.concurrent.Threads.namedThreads;
+
+/**
+ * In-process {@link MessagingService} implementation.
+ * <p>
+ * Each service owns a single dispatch thread, which plays the role of the Netty event loop and on which
+ * {@link io.atomix.messaging.DispatchPolicy.Mode#INLINE inline} handlers are invoked. Messages are passed between services through a
+ * lock-free queue per sender/receiver endpoint pair, and payloads are handed to the receiver by reference rather
+ * than being encoded and copied. Callers transfer ownership of the payload array when sending a message and must
+ * not modify it afterwards.
+ * <p>
+ * Requests are timed out with the same adaptive per-type timeouts as the Netty messaging service: each message type
+ * starts with a {@code 500} millisecond timeout, which is then recomputed from the maximum reply time over a sliding
+ * window and bounded between {@code 100} and {@code 5000} milliseconds.
+ * <p>
+ * Services are created and connected to each other by a {@link LocalMessagingServiceFactory}.
+ */
+public class LocalMessagingService implements MessagingService {
+  private static final int MAX_BATCH_SIZE = 64;
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
+  /**
+   * Scheduler shared by all local messaging services in the JVM to time out requests.
+   */
+  private static final ScheduledThreadPoolExecutor TIMEOUT_EXECUTOR = newTimeoutExecutor();
+
+  private static ScheduledThreadPoolExecutor newTimeoutExecutor() {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+        new ThreadFactoryBuilder().setNameFormat("atomix-messaging-local-timeout-%d").setDaemon(true).build());
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final Endpoint localEndpoint;
+  private final Map<Endpoint, LocalMessagingService> services;
+  private final Map<Endpoint, Queue<LocalMessage>> inboundQueues = Maps.newConcurrentMap();
+  private final Map<String, BiConsumer<LocalMessage, LocalMessagingService>> handlers = Maps.newConcurrentMap();
+  private final MessageDispatcher dispatcher;
+  private final Thread dispatchThread;
+  private final Cache<String, TimeoutHistory> timeoutHistories = CacheBuilder.newBuilder()
+      .expireAfterAccess(TimeoutHistory.EXPIRE_MILLIS, TimeUnit.MILLISECONDS)
+      .build();
+  private ScheduledFuture<?> timeoutFuture;
+  private volatile boolean waiting;
+  private volatile boolean running = true;
+
+  /**
+   * Creates a new service. The service doesn't dispatch messages until it's {@link #start() started}.
+   *
+   * @param localEndpoint the endpoint to which the service is bound
+   * @param services      the services created by the factory, by endpoint
+   */
+  LocalMessagingService(Endpoint localEndpoint, Map<Endpoint, LocalMessagingService> services) {
+    this.localEndpoint = localEndpoint;
+    this.services = services;
+    this.dispatcher = new MessageDispatcher("local-" + localEndpoint.port());
+    this.dispatchThread = namedThreads("atomix-messaging-local-" + localEndpoint.port() + "-%d", log)
+        .newThread(this::dispatchLoop);
+  }
+
+  /**
+   * Starts the dispatch thread and the timeout recomputation task once the service is bound to its endpoint.
+   */
+  void start() {
+    dispatchThread.start();
+    timeoutFuture = TIMEOUT_EXECUTOR.scheduleAtFixedRate(
+        this::recomputeTimeouts, TimeoutHistory.INTERVAL_MILLIS, TimeoutHistory.INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Recomputes the adaptive timeouts for all message types.
+   */
+  private void recomputeTimeouts() {
+    for (TimeoutHistory timeoutHistory : timeoutHistories.asMap().values()) {
+      timeoutHistory.recomputeTimeout();
+    }
+  }
+
+  /**
+   * Returns the timeout history for the given message type.
+   *
+   * @param type the message type
+   * @return the timeout history for the given message type
+   */
+  private TimeoutHistory getTimeoutHistory(String type) {
+    try {
+      return timeoutHistories.get(type, TimeoutHistory::new);
+    } catch (ExecutionException e) {
+      throw new AssertionError();
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> sendAsync(Endpoint ep, String type, byte[] payload) {
+    LocalMessagingService service = services.get(ep);
+    if (service == null || !service.running) {
+      return Futures.exceptionalFuture(new ConnectException());
+    }
+    service.enqueue(localEndpoint, LocalMessage.request(localEndpoint, type, payload, null));
+    // If the receiver was closed before the message was enqueued, the message won't be dispatched.
+    if (!service.running) {
+      return Futures.exceptionalFuture(new ConnectException());
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload) {
+    return sendAndReceive(ep, type, payload, MoreExecutors.directExecutor());
+  }
+
+  @Override
+  public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload, Executor executor) {
+    LocalMessagingService service = services.get(ep);
+    if (service == null || !service.running) {
+      return Futures.exceptionalFutureAsync(new ConnectException(), executor);
+    }
+
+    CompletableFuture<byte[]> responseFuture = newResponseFuture(type);
+    service.enqueue(localEndpoint, LocalMessage.request(localEndpoint, type, payload, responseFuture));
+
+    // If the receiver was closed before the request was enqueued, its pending requests may already have been failed.
+    if (!service.running) {
+      responseFuture.completeExceptionally(new ConnectException());
+    }
+
+    if (executor == MoreExecutors.directExecutor()) {
+      return responseFuture;
+    }
+    CompletableFuture<byte[]> future = new CompletableFuture<>();
+    responseFuture.whenComplete((result, error) -> {
+      if (error == null) {
+        executor.execute(() -> future.complete(result));
+      } else {
+        executor.execute(() -> future.completeExceptionally(error));
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Returns a new response future that's failed with a {@link TimeoutException} if no reply is received within the
+   * current timeout for the given message type.
+   *
+   * @param type the message type
+   * @return the response future
+   */
+  private CompletableFuture<byte[]> newResponseFuture(String type) {
+    TimeoutHistory timeoutHistory = getTimeoutHistory(type);
+    long startTime = System.currentTimeMillis();
+    CompletableFuture<byte[]> future = new CompletableFuture<>();
+    ScheduledFuture<?> timeout = TIMEOUT_EXECUTOR.schedule(() -> future.completeExceptionally(
+        new TimeoutException("Request timed out in " + (System.currentTimeMillis() - startTime) + " milliseconds")),
+        timeoutHistory.currentTimeout(), TimeUnit.MILLISECONDS);
+    future.whenComplete((result, error) -> {
+      timeout.cancel(false);
+      timeoutHistory.addReplyTime(System.currentTimeMillis() - startTime);
+    });
+    return future;
+  }
+
+  @Override
+  public void registerHandler(String type, BiConsumer<Endpoint, byte[]> handler, Executor executor) {
+    handlers.put(type, (message, sender) -> executor.execute(() -> handler.accept(message.sender, message.payload)));
+  }
+
+  @Override
+  public void registerHandler(String type, BiFunction<Endpoint, byte[], byte[]> handler, Executor executor) {
+    handlers.put(type, (message, sender) -> executor.execute(() -> {
+      byte[] responsePayload;
+      try {
+        responsePayload = handler.apply(message.sender, message.payload);
+      } catch (Exception e) {
+        sender.reply(message, null, new MessagingException.RemoteHandlerFailure());
+        return;
+      }
+      sender.reply(message, responsePayload, null);
+    }));
+  }
+
+  @Override
+  public void registerHandler(String type, BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler) {
+    handlers.put(type, (message, sender) -> handler.apply(message.sender, message.payload)
+        .whenComplete((result, error) -> {
+          if (error == null) {
+            sender.reply(message, result, null);
+          } else {
+            sender.reply(message, null, new MessagingException.RemoteHandlerFailure());
+          }
+        }));
+  }
+
+  @Override
+  public void registerHandler(String type, BiConsumer<Endpoint, byte[]> handler, DispatchPolicy policy) {
+    MessageDispatcher.HandlerQueue queue = dispatcher.newHandlerQueue(policy);
+    handlers.put(type, (message, sender) -> {
+      if (!queue.execute(message.sender, () -> handler.accept(message.sender, message.payload))) {
+        log.debug("Dropped {} from {}: handler queue is full", message.type, message.sender);
+      }
+    });
+  }
+
+  @Override
+  public void registerHandler(String type, BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler, DispatchPolicy policy) {
+    MessageDispatcher.HandlerQueue queue = dispatcher.newHandlerQueue(policy);
+    handlers.put(type, (message, sender) -> {
+      boolean dispatched = queue.execute(message.sender, () -> {
+        CompletableFuture<byte[]> future;
+        try {
+          future = handler.apply(message.sender, message.payload);
+        } catch (Exception e) {
+          sender.reply(message, null, new MessagingException.RemoteHandlerFailure());
+          return;
+        }
+        future.whenComplete((result, error) -> {
+          if (error == null) {
+            sender.reply(message, result, null);
+          } else {
+            sender.reply(message, null, new MessagingException.RemoteHandlerFailure());
+          }
+        });
+      });
+      if (!dispatched) {
+        log.debug("Rejected {} from {}: handler queue is full", message.type, message.sender);
+        sender.reply(message, null, new MessagingException.TooManyRequests());
+      }
+    });
+  }
+
+  @Override
+  public void unregisterHandler(String type) {
+    handlers.remove(type);
+  }
+
+  /**
+   * Enqueues a message on the inbound queue for the given sender and wakes up the dispatch thread if necessary.
+   *
+   * @param sender  the sender endpoint
+   * @param message the message to enqueue
+   */
+  private void enqueue(Endpoint sender, LocalMessage message) {
+    Queue<LocalMessage> queue = inboundQueues.get(sender);
+    if (queue == null) {
+      queue = inboundQueues.computeIfAbsent(sender, e -> new ConcurrentLinkedQueue<>());
+    }
+    queue.offer(message);
+    if (waiting) {
+      LockSupport.unpark(dispatchThread);
+    }
+  }
+
+  /**
+   * Sends a reply for the given request back to the requesting service.
+   *
+   * @param request the request to which to reply
+   * @param payload the response payload
+   * @param error   the response error
+   */
+  private void reply(LocalMessage request, byte[] payload, Throwable error) {
+    if (request.future == null) {
+      return;
+    }
+    LocalMessagingService sender = services.get(request.sender);
+    if (sender != null && sender.running) {
+      sender.enqueue(localEndpoint, LocalMessage.reply(localEndpoint, request, payload, error));
+      if (!sender.running) {
+        request.future.completeExceptionally(new ConnectException());
+      }
+    } else {
+      request.future.completeExceptionally(new ConnectException());
+    }
+  }
+
+  /**
+   * Dispatches messages from all inbound queues until the service is closed.
+   */
+  private void dispatchLoop() {
+    while (running) {
+      if (!drainQueues()) {
+        waiting = true;
+        if (!drainQueues()) {
+          LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        }
+        waiting = false;
+      }
+    }
+    failPending();
+  }
+
+  /**
+   * Drains a bounded batch of messages from each inbound queue.
+   *
+   * @return indicates whether any messages were dispatched
+   */
+  private boolean drainQueues() {
+    boolean dispatched = false;
+    for (Queue<LocalMessage> queue : inboundQueues.values()) {
+      LocalMessage message;
+      int count = 0;
+      while (count++ < MAX_BATCH_SIZE && (message = queue.poll()) != null) {
+        dispatch(message);
+        dispatched = true;
+      }
+    }
+    return dispatched;
+  }
+
+  /**
+   * Dispatches a single inbound message.
+   *
+   * @param message the message to dispatch
+   */
+  private void dispatch(LocalMessage message) {
+    try {
+      if (message.isReply()) {
+        if (message.error == null) {
+          message.future.complete(message.payload != null ? message.payload : EMPTY_PAYLOAD);
+        } else {
+          message.future.completeExceptionally(message.error);
+        }
+        return;
+      }
+
+      BiConsumer<LocalMessage, LocalMessagingService> handler = handlers.get(message.type);
+      if (handler != null) {
+        handler.accept(message, this);
+      } else {
+        log.debug("No handler for message type {} from {}", message.type, message.sender);
+        reply(message, null, new MessagingException.NoRemoteHandler());
+      }
+    } catch (Exception e) {
+      log.warn("Unable to dispatch message due to {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Fails any requests left in the inbound queues once the service has been closed.
+   */
+  private void failPending() {
+    for (Queue<LocalMessage> queue : inboundQueues.values()) {
+      LocalMessage message;
+      while ((message = queue.poll()) != null) {
+        if (message.future != null) {
+          message.future.completeExceptionally(new ConnectException());
+        }
+      }
+    }
+  }
+
+  /**
+   * Closes the messaging service.
+   */
+  public void close() {
+    if (running) {
+      running = false;
+      services.remove(localEndpoint, this);
+      if (timeoutFuture != null) {
+        timeoutFuture.cancel(false);
+      }
+      dispatcher.close();
+      LockSupport.unpark(dispatchThread);
+    }
+  }
+
+  /**
+   * In-process message.
+   * <p>
+   * Requests and replies share the same representation: a request awaiting a reply carries the future to be
+   * completed, and the reply carries the same future back to the requesting service's dispatch thread.
+   */
+  private static final class LocalMessage {
+    private final Endpoint sender;
+    private final String type;
+    private final byte[] payload;
+    private final Throwable error;
+    private final CompletableFuture<byte[]> future;
+    private final boolean reply;
+
+    /**
+     * Returns a new request message.
+     *
+     * @param sender  the sender endpoint
+     * @param type    the message type
+     * @param payload the request payload
+     * @param future  the future to complete with the reply, or {@code null} if no reply is expected
+     * @return the request message
+     */
+    static LocalMessage request(Endpoint sender, String type, byte[] payload, CompletableFuture<byte[]> future) {
+      return new LocalMessage(sender, type, payload, null, future, false);
+    }
+
+    /**
+     * Returns a new reply message.
+     *
+     * @param sender  the sender endpoint
+     * @param request the request to which to reply
+     * @param payload the reply payload
+     * @param error   the reply error
+     * @return the reply message
+     */
+    static LocalMessage reply(Endpoint sender, LocalMessage request, byte[] payload, Throwable error) {
+      return new LocalMessage(sender, request.type, payload, error, request.future, true);
+    }
+
+    private LocalMessage(
+        Endpoint sender,
+        String type,
+        byte[] payload,
+        Throwable error,
+        CompletableFuture<byte[]> future,
+        boolean reply) {
+      this.sender = sender;
+      this.type = type;
+      this.payload = payload;
+      this.error = error;
+      this.future = future;
+      this.reply = reply;
+    }
+
+    boolean isReply() {
+      return reply;
+    }
+  }
+}
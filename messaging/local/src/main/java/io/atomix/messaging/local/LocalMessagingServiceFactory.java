@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.local;
+
+import com.google.common.collect.Maps;
+import io.atomix.messaging.Endpoint;
+import io.atomix.messaging.MessagingService;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Factory for in-process messaging services.
+ * <p>
+ * All messaging services created by the same factory can communicate with each other by {@link Endpoint}
+ * without touching the network. Services created by different factories are isolated from one another.
+ */
+public class LocalMessagingServiceFactory {
+  private final Map<Endpoint, LocalMessagingService> services = Maps.newConcurrentMap();
+
+  /**
+   * Returns a new in-process messaging service bound to the given endpoint.
+   *
+   * @param endpoint the local endpoint
+   * @return a new in-process messaging service
+   * @throws IllegalArgumentException if a service is already bound to the endpoint
+   */
+  public MessagingService newMessagingService(Endpoint endpoint) {
+    checkNotNull(endpoint, "endpoint cannot be null");
+    // Bind the endpoint before starting the service so a service that fails to bind never starts its thread.
+    LocalMessagingService service = new LocalMessagingService(endpoint, services);
+    checkArgument(services.putIfAbsent(endpoint, service) == null, "endpoint " + endpoint + " is already bound");
+    service.start();
+    return service;
+  }
+
+  /**
+   * Closes all messaging services created by this factory.
+   */
+  public void close() {
+    new ArrayList<>(services.values()).forEach(LocalMessagingService::close);
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.local;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.atomix.messaging.DispatchPolicy;
+import io.atomix.messaging.Endpoint;
+import io.atomix.messaging.MessagingException;
+import io.atomix.messaging.MessagingService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Local messaging service test.
+ */
+public class LocalMessagingServiceTest {
+  private LocalMessagingServiceFactory factory;
+  private Endpoint endpoint1;
+  private Endpoint endpoint2;
+  private MessagingService service1;
+  private MessagingService service2;
+
+  @Before
+  public void setUp() throws Exception {
+    factory = new LocalMessagingServiceFactory();
+    endpoint1 = new Endpoint(InetAddress.getLoopbackAddress(), 5001);
+    endpoint2 = new Endpoint(InetAddress.getLoopbackAddress(), 5002);
+    service1 = factory.newMessagingService(endpoint1);
+    service2 = factory.newMessagingService(endpoint2);
+  }
+
+  @After
+  public void tearDown() {
+    factory.close();
+  }
+
+  @Test
+  public void testSendAndReceive() throws Exception {
+    byte[] payload = "Hello world!".getBytes();
+    service2.registerHandler("echo", (ep, bytes) -> CompletableFuture.completedFuture(bytes));
+    byte[] response = service1.sendAndReceive(endpoint2, "echo", payload).get(10, TimeUnit.SECONDS);
+    assertSame(payload, response);
+  }
+
+  @Test
+  public void testSyncHandler() throws Exception {
+    BiFunction<Endpoint, byte[], byte[]> handler = (ep, bytes) -> new StringBuilder(new String(bytes)).reverse().toString().getBytes();
+    service2.registerHandler("reverse", handler, Runnable::run);
+    byte[] response = service1.sendAndReceive(endpoint2, "reverse", "abc".getBytes()).get(10, TimeUnit.SECONDS);
+    assertArrayEquals("cba".getBytes(), response);
+  }
+
+  @Test
+  public void testSendAsync() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1000);
+    BiConsumer<Endpoint, byte[]> handler = (ep, bytes) -> latch.countDown();
+    service2.registerHandler("async", handler, Runnable::run);
+    for (int i = 0; i < 1000; i++) {
+      service1.sendAsync(endpoint2, "async", new byte[]{(byte) i});
+    }
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testOrderedDispatch() throws Exception {
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(1000);
+    BiConsumer<Endpoint, byte[]> handler = (ep, bytes) -> {
+      received.add(ByteBuffer.wrap(bytes).getInt());
+      latch.countDown();
+    };
+    service2.registerHandler("ordered", handler, DispatchPolicy.ordered());
+    for (int i = 0; i < 1000; i++) {
+      service1.sendAsync(endpoint2, "ordered", ByteBuffer.allocate(4).putInt(i).array());
+    }
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, received.get(i).intValue());
+    }
+  }
+
+  @Test
+  public void testQueueDepthLimit() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler = (ep, bytes) -> {
+      Uninterruptibles.awaitUninterruptibly(blocked);
+      return CompletableFuture.completedFuture(bytes);
+    };
+    service2.registerHandler("limited", handler, DispatchPolicy.builder()
+        .withMode(DispatchPolicy.Mode.UNORDERED)
+        .withMaxQueueDepth(1)
+        .build());
+    CompletableFuture<byte[]> first = service1.sendAndReceive(endpoint2, "limited", new byte[0]);
+    try {
+      service1.sendAndReceive(endpoint2, "limited", new byte[0]).get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof MessagingException.TooManyRequests);
+    } finally {
+      blocked.countDown();
+    }
+    first.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testNoHandler() throws Exception {
+    try {
+      service1.sendAndReceive(endpoint2, "missing", new byte[0]).get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof MessagingException.NoRemoteHandler);
+    }
+  }
+
+  @Test
+  public void testUnknownEndpoint() throws Exception {
+    try {
+      service1.sendAndReceive(new Endpoint(InetAddress.getLoopbackAddress(), 5003), "echo", new byte[0])
+          .get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ConnectException);
+    }
+  }
+
+  @Test
+  public void testEndpointAlreadyBound() throws Exception {
+    try {
+      factory.newMessagingService(endpoint1);
+      fail();
+    } catch (IllegalArgumentException e) {
+    }
+
+    // The rejected service must not have started a dispatch thread.
+    long threads = Thread.getAllStackTraces().keySet().stream()
+        .filter(thread -> thread.getName().startsWith("atomix-messaging-local-" + endpoint1.port() + "-"))
+        .count();
+    assertEquals(1, threads);
+  }
+
+  @Test
+  public void testRequestTimeout() throws Exception {
+    service2.registerHandler("never", (ep, bytes) -> new CompletableFuture<>());
+    try {
+      service1.sendAndReceive(endpoint2, "never", new byte[0]).get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+  }
+
+  @Test
+  public void testCloseWhileSending() throws Exception {
+    service2.registerHandler("echo", (ep, bytes) -> CompletableFuture.completedFuture(bytes));
+    List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+    CountDownLatch sending = new CountDownLatch(1);
+    Thread sender = new Thread(() -> {
+      for (int i = 0; i < 20000; i++) {
+        futures.add(service1.sendAndReceive(endpoint2, "echo", new byte[0]));
+        if (i == 1000) {
+          sending.countDown();
+        }
+      }
+    });
+    sender.start();
+    sending.await(10, TimeUnit.SECONDS);
+    ((LocalMessagingService) service2).close();
+    sender.join();
+
+    // Every request must complete, either with a reply or with a connection failure.
+    for (CompletableFuture<byte[]> future : futures) {
+      try {
+        future.get(10, TimeUnit.SECONDS);
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof ConnectException);
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.netty;
+
+import io.atomix.messaging.Endpoint;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Per-endpoint back-pressure state and statistics.
+ * <p>
+ * Tracks the number of requests in flight to a remote endpoint, the number of writes queued in the outbound
+ * channel buffer, and the number of requests rejected because either the in-flight limit was reached or the
+ * channel was not writable.
+ */
+public final class EndpointStats {
+  private final Endpoint endpoint;
+  private final int maxInFlightRequests;
+  private final AtomicInteger inFlightRequests = new AtomicInteger();
+  private final AtomicInteger pendingWrites = new AtomicInteger();
+  private final LongAdder rejectedRequests = new LongAdder();
+
+  EndpointStats(Endpoint endpoint, int maxInFlightRequests) {
+    this.endpoint = endpoint;
+    this.maxInFlightRequests = maxInFlightRequests;
+  }
+
+  /**
+   * Returns the endpoint to which the statistics apply.
+   *
+   * @return the remote endpoint
+   */
+  public Endpoint endpoint() {
+    return endpoint;
+  }
+
+  /**
+   * Returns the maximum number of requests allowed in flight to the endpoint.
+   *
+   * @return the maximum number of in-flight requests
+   */
+  public int maxInFlightRequests() {
+    return maxInFlightRequests;
+  }
+
+  /**
+   * Returns the number of requests currently in flight to the endpoint.
+   *
+   * @return the number of in-flight requests
+   */
+  public int inFlightRequests() {
+    return inFlightRequests.get();
+  }
+
+  /**
+   * Returns the number of messages written to the channel that have not yet been flushed to the network.
+   *
+   * @return the outbound queue depth
+   */
+  public int pendingWrites() {
+    return pendingWrites.get();
+  }
+
+  /**
+   * Returns the total number of requests rejected due to back-pressure.
+   *
+   * @return the number of rejected requests
+   */
+  public long rejectedRequests() {
+    return rejectedRequests.sum();
+  }
+
+  /**
+   * Attempts to reserve an in-flight request slot.
+   *
+   * @return indicates whether a slot was reserved
+   */
+  boolean tryAcquire() {
+    for (;;) {
+      int current = inFlightRequests.get();
+      if (current >= maxInFlightRequests) {
+        rejectedRequests.increment();
+        return false;
+      }
+      if (inFlightRequests.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases a previously reserved in-flight request slot.
+   */
+  void release() {
+    inFlightRequests.decrementAndGet();
+  }
+
+  /**
+   * Records a request rejected because the channel was not writable.
+   */
+  void reject() {
+    rejectedRequests.increment();
+  }
+
+  /**
+   * Records a write queued on the channel.
+   */
+  void writeQueued() {
+    pendingWrites.incrementAndGet();
+  }
+
+  /**
+   * Records a write completed by the channel.
+   */
+  void writeCompleted() {
+    pendingWrites.decrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("endpoint", endpoint)
+        .add("inFlightRequests", inFlightRequests())
+        .add("maxInFlightRequests", maxInFlightRequests)
+        .add("pendingWrites", pendingWrites())
+        .add("rejectedRequests", rejectedRequests())
+        .toString();
+  }
+}
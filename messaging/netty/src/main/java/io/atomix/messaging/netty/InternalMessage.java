@@ -51,7 +51,12 @@ public final class InternalMessage {
     /**
      * Response status signifying invalid message structure.
      */
-    PROTOCOL_EXCEPTION(3);
+    PROTOCOL_EXCEPTION(3),
+
+    /**
+     * Response status signifying the handler rejected the message because its queue is full.
+     */
+    ERROR_HANDLER_OVERLOADED(4);
 
     private final int id;
 
@@ -84,6 +89,8 @@ public final class InternalMessage {
           return ERROR_HANDLER_EXCEPTION;
         case 3:
           return PROTOCOL_EXCEPTION;
+        case 4:
+          return ERROR_HANDLER_OVERLOADED;
         default:
           throw new IllegalArgumentException("Unknown status ID " + id);
       }
@@ -15,20 +15,28 @@
  */
 package io.atomix.messaging.netty;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.atomix.messaging.DispatchPolicy;
 import io.atomix.messaging.Endpoint;
+import io.atomix.messaging.MessageDispatcher;
 import io.atomix.messaging.MessagingException;
 import io.atomix.messaging.MessagingService;
+import io.atomix.messaging.TimeoutHistory;
+import io.atomix.utils.concurrent.Futures;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
@@ -49,9 +57,13 @@ import io.netty.channel.pool.SimpleChannelPool;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.AttributeKey;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Recycler;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
 import io.netty.util.concurrent.FutureListener;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
-import org.apache.commons.math3.stat.descriptive.SynchronizedDescriptiveStatistics;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
@@ -60,8 +72,8 @@ import javax.net.ssl.TrustManagerFactory;
 import java.io.FileInputStream;
 import java.net.ConnectException;
 import java.security.KeyStore;
-import java.time.Duration;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -75,11 +87,15 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.atomix.utils.concurrent.Threads.namedThreads;
 
@@ -87,18 +103,32 @@ import static io.atomix.utils.concurrent.Threads.namedThreads;
  * Netty based MessagingService.
  */
 public class NettyMessagingManager implements MessagingService {
+
+  /**
+   * Returns a new Netty messaging manager builder.
+   *
+   * @return a new Netty messaging manager builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
   private static final String DEFAULT_NAME = "atomix";
-  private static final long DEFAULT_TIMEOUT_MILLIS = 500;
-  private static final long HISTORY_EXPIRE_MILLIS = Duration.ofMinutes(10).toMillis();
-  private static final long MIN_TIMEOUT_MILLIS = 100;
-  private static final long MAX_TIMEOUT_MILLIS = 5000;
-  private static final long TIMEOUT_INTERVAL = 50;
-  private static final int WINDOW_SIZE = 100;
-  private static final double TIMEOUT_MULTIPLIER = 2.5;
+  private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 10000;
+  private static final AttributeKey<EndpointStats> ENDPOINT_STATS = AttributeKey.valueOf("atomix-endpoint-stats");
+  private static final long TIMEOUT_TICK_MILLIS = 10;
+  private static final int TIMEOUT_WHEEL_SIZE = 512;
   private static final short MIN_KS_LENGTH = 6;
 
   private static final byte[] EMPTY_PAYLOAD = new byte[0];
 
+  /**
+   * Timing wheel shared by all messaging managers in the JVM to time out requests.
+   */
+  private static final Timer TIMEOUT_TIMER = new HashedWheelTimer(
+      new ThreadFactoryBuilder().setNameFormat("atomix-messaging-timeout-wheel-%d").setDaemon(true).build(),
+      TIMEOUT_TICK_MILLIS, TimeUnit.MILLISECONDS, TIMEOUT_WHEEL_SIZE);
+
   private final Logger log = LoggerFactory.getLogger(getClass());
 
   private final ClientConnection localClientConnection = new LocalClientConnection();
@@ -106,14 +136,17 @@ public class NettyMessagingManager implements MessagingService {
 
   private final Endpoint localEndpoint;
   private final int preamble;
+  private final int maxInFlightRequests;
   private final AtomicBoolean started = new AtomicBoolean(false);
   private final Map<String, BiConsumer<InternalMessage, ServerConnection>> handlers = new ConcurrentHashMap<>();
   private final Map<Channel, RemoteClientConnection> clientConnections = Maps.newConcurrentMap();
   private final Map<Channel, RemoteServerConnection> serverConnections = Maps.newConcurrentMap();
+  private final Map<Endpoint, EndpointStats> endpointStats = Maps.newConcurrentMap();
+  private final MessageDispatcher dispatcher;
   private final AtomicLong messageIdGenerator = new AtomicLong(0);
 
   private final Cache<String, TimeoutHistory> timeoutHistories = CacheBuilder.newBuilder()
-      .expireAfterAccess(HISTORY_EXPIRE_MILLIS, TimeUnit.MILLISECONDS)
+      .expireAfterAccess(TimeoutHistory.EXPIRE_MILLIS, TimeUnit.MILLISECONDS)
       .build();
   private ScheduledFuture<?> timeoutFuture;
 
@@ -121,7 +154,7 @@ public class NettyMessagingManager implements MessagingService {
       new AbstractChannelPoolMap<Endpoint, SimpleChannelPool>() {
         @Override
         protected SimpleChannelPool newPool(Endpoint endpoint) {
-          return new SimpleChannelPool(bootstrapClient(endpoint), new ClientChannelPoolHandler());
+          return new SimpleChannelPool(bootstrapClient(endpoint), new ClientChannelPoolHandler(endpoint));
         }
       };
 
@@ -144,8 +177,15 @@ public class NettyMessagingManager implements MessagingService {
   }
 
   public NettyMessagingManager(String name, Endpoint localEndpoint) {
+    this(name, localEndpoint, DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+  }
+
+  public NettyMessagingManager(String name, Endpoint localEndpoint, int maxInFlightRequests) {
+    checkArgument(maxInFlightRequests > 0, "maxInFlightRequests must be positive");
     this.preamble = name.hashCode();
     this.localEndpoint = checkNotNull(localEndpoint, "localEndpoint cannot be null");
+    this.maxInFlightRequests = maxInFlightRequests;
+    this.dispatcher = new MessageDispatcher(name);
 
     try {
       activate();
@@ -168,7 +208,7 @@ public class NettyMessagingManager implements MessagingService {
     timeoutExecutor = Executors.newSingleThreadScheduledExecutor(
         namedThreads("atomix-messaging-timeout-%d", log));
     timeoutFuture = timeoutExecutor.scheduleAtFixedRate(
-        this::timeoutAllCallbacks, TIMEOUT_INTERVAL, TIMEOUT_INTERVAL, TimeUnit.MILLISECONDS);
+        this::recomputeTimeouts, TimeoutHistory.INTERVAL_MILLIS, TimeoutHistory.INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
     started.set(true);
     log.info("Started");
   }
@@ -182,6 +222,7 @@ public class NettyMessagingManager implements MessagingService {
       clientGroup.shutdownGracefully();
       timeoutFuture.cancel(false);
       timeoutExecutor.shutdown();
+      dispatcher.close();
       started.set(false);
     }
     log.info("Stopped");
@@ -234,17 +275,47 @@ public class NettyMessagingManager implements MessagingService {
   }
 
   /**
-   * Times out response callbacks.
+   * Recomputes the adaptive timeouts for all message types.
+   * <p>
+   * Individual requests are timed out by the shared {@link #TIMEOUT_TIMER}, so this task only touches the
+   * per-type timeout histories and is independent of the number of in-flight requests.
    */
-  private void timeoutAllCallbacks() {
-    // Iterate through all connections and time out callbacks.
-    for (RemoteClientConnection connection : clientConnections.values()) {
-      connection.timeoutCallbacks();
+  private void recomputeTimeouts() {
+    for (TimeoutHistory timeoutHistory : timeoutHistories.asMap().values()) {
+      timeoutHistory.recomputeTimeout();
     }
+  }
 
-    // Iterate through all timeout histories and recompute the timeout.
-    for (TimeoutHistory timeoutHistory : timeoutHistories.asMap().values()) {
-      timeoutHistory.recomputeTimeoutMillis();
+  /**
+   * Returns the back-pressure statistics for the given remote endpoint.
+   *
+   * @param endpoint the remote endpoint
+   * @return the back-pressure statistics for the given endpoint
+   */
+  public EndpointStats getEndpointStats(Endpoint endpoint) {
+    return endpointStats.computeIfAbsent(endpoint, e -> new EndpointStats(e, maxInFlightRequests));
+  }
+
+  /**
+   * Returns the back-pressure statistics for all remote endpoints to which messages have been sent.
+   *
+   * @return the back-pressure statistics for all known remote endpoints
+   */
+  public Collection<EndpointStats> getEndpointStats() {
+    return Collections.unmodifiableCollection(endpointStats.values());
+  }
+
+  /**
+   * Returns the timeout history for the given message type.
+   *
+   * @param type the message type
+   * @return the timeout history for the given message type
+   */
+  private TimeoutHistory getTimeoutHistory(String type) {
+    try {
+      return timeoutHistories.get(type, TimeoutHistory::new);
+    } catch (ExecutionException e) {
+      throw new AssertionError();
     }
   }
 
@@ -265,20 +336,20 @@ public class NettyMessagingManager implements MessagingService {
 
   @Override
   public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload, Executor executor) {
-    Long messageId = messageIdGenerator.incrementAndGet();
-    InternalMessage message = new InternalMessage(preamble,
-        messageId,
-        localEndpoint,
-        type,
-        payload);
-    return executeOnPooledConnection(ep, c -> c.sendAndReceive(message), executor);
+    return executeOnPooledConnection(ep, c -> c.sendAndReceive(type, payload), executor);
   }
 
   /**
    * Executes the given callback on a pooled connection.
+   * <p>
+   * Messages to remote endpoints are subject to back-pressure: if the number of requests in flight to the
+   * endpoint has reached the configured limit or the pooled channel's outbound buffer is above its high
+   * water mark, the returned future is failed with {@link io.atomix.messaging.MessagingException.TooManyRequests}
+   * rather than queueing the message in the channel.
    *
    * @param endpoint the endpoint to which to send a message
    * @param callback the callback to execute to send the message
+   * @param executor the executor on which to complete the returned future
    * @param <T>      the send result type
    * @return a completable future to be completed with the result of the supplied function
    */
@@ -299,12 +370,27 @@ public class NettyMessagingManager implements MessagingService {
     }
 
     CompletableFuture<T> future = new CompletableFuture<>();
+    EndpointStats stats = getEndpointStats(endpoint);
+    if (!stats.tryAcquire()) {
+      executor.execute(() -> future.completeExceptionally(new MessagingException.TooManyRequests()));
+      return future;
+    }
+
     ChannelPool pool = channels.get(endpoint);
     pool.acquire().addListener((FutureListener<Channel>) channelResult -> {
       if (channelResult.isSuccess()) {
         Channel channel = channelResult.getNow();
+        if (!channel.isWritable()) {
+          pool.release(channel);
+          stats.release();
+          stats.reject();
+          executor.execute(() -> future.completeExceptionally(new MessagingException.TooManyRequests()));
+          return;
+        }
+
         ClientConnection connection = clientConnections.computeIfAbsent(channel, RemoteClientConnection::new);
         callback.apply(connection).whenComplete((result, error) -> {
+          stats.release();
           pool.release(channel).addListener(releaseResult -> {
             if (!releaseResult.isSuccess()) {
               clientConnections.remove(channel);
@@ -319,6 +405,7 @@ public class NettyMessagingManager implements MessagingService {
           }
         });
       } else {
+        stats.release();
         executor.execute(() -> future.completeExceptionally(channelResult.cause()));
       }
     });
@@ -355,6 +442,40 @@ public class NettyMessagingManager implements MessagingService {
     });
   }
 
+  @Override
+  public void registerHandler(String type, BiConsumer<Endpoint, byte[]> handler, DispatchPolicy policy) {
+    MessageDispatcher.HandlerQueue queue = dispatcher.newHandlerQueue(policy);
+    handlers.put(type, (message, connection) -> {
+      if (!queue.execute(message.sender(), () -> handler.accept(message.sender(), message.payload()))) {
+        log.debug("Dropped {} from {}: handler queue is full", message.type(), message.sender());
+      }
+    });
+  }
+
+  @Override
+  public void registerHandler(String type, BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler, DispatchPolicy policy) {
+    MessageDispatcher.HandlerQueue queue = dispatcher.newHandlerQueue(policy);
+    handlers.put(type, (message, connection) -> {
+      boolean dispatched = queue.execute(message.sender(), () -> {
+        CompletableFuture<byte[]> future;
+        try {
+          future = handler.apply(message.sender(), message.payload());
+        } catch (Exception e) {
+          connection.reply(message, InternalMessage.Status.ERROR_HANDLER_EXCEPTION, Optional.empty());
+          return;
+        }
+        future.whenComplete((result, error) -> {
+          InternalMessage.Status status = error == null ? InternalMessage.Status.OK : InternalMessage.Status.ERROR_HANDLER_EXCEPTION;
+          connection.reply(message, status, Optional.ofNullable(result));
+        });
+      });
+      if (!dispatched) {
+        log.debug("Rejected {} from {}: handler queue is full", message.type(), message.sender());
+        connection.reply(message, InternalMessage.Status.ERROR_HANDLER_OVERLOADED, Optional.empty());
+      }
+    });
+  }
+
   @Override
   public void unregisterHandler(String type) {
     handlers.remove(type);
@@ -409,8 +530,15 @@ public class NettyMessagingManager implements MessagingService {
    * Channel pool handler.
    */
   private class ClientChannelPoolHandler extends AbstractChannelPoolHandler {
+    private final Endpoint endpoint;
+
+    ClientChannelPoolHandler(Endpoint endpoint) {
+      this.endpoint = endpoint;
+    }
+
     @Override
     public void channelCreated(Channel channel) throws Exception {
+      channel.attr(ENDPOINT_STATS).set(getEndpointStats(endpoint));
       if (enableNettyTls) {
         new SslClientCommunicationChannelInitializer().initChannel((SocketChannel) channel);
       } else {
@@ -564,24 +692,260 @@ public class NettyMessagingManager implements MessagingService {
   }
 
   /**
-   * Wraps a {@link CompletableFuture} and tracks its type and creation time.
+   * Wraps a {@link CompletableFuture} and tracks its id, creation time and pending timeout.
+   * <p>
+   * Callbacks are recycled once the request has been completed and neither the channel write listener nor the
+   * timeout task still holds a reference to the callback. Each of the three holders releases one reference. The
+   * callback is completed only by the thread that removes it from its ring, so a reply racing a timeout or a failed
+   * write completes the future exactly once.
    */
-  private final class Callback {
-    private final String type;
-    private final CompletableFuture<byte[]> future;
-    private final long time = System.currentTimeMillis();
+  @VisibleForTesting
+  static final class Callback implements TimerTask, ChannelFutureListener {
+    private static final int REFERENCES = 3;
+    private static final Recycler<Callback> RECYCLER = new Recycler<Callback>() {
+      @Override
+      protected Callback newObject(Handle<Callback> handle) {
+        return new Callback(handle);
+      }
+    };
 
-    Callback(String type, CompletableFuture<byte[]> future) {
-      this.type = type;
-      this.future = future;
+    /**
+     * Returns a new or recycled callback for the given ring.
+     *
+     * @param ring           the ring of pending callbacks for the connection on which the request is sent
+     * @param timeoutHistory the timeout history for the request type
+     * @return the callback
+     */
+    static Callback newCallback(CallbackRing ring, TimeoutHistory timeoutHistory) {
+      Callback callback = RECYCLER.get();
+      callback.ring = ring;
+      callback.timeoutHistory = timeoutHistory;
+      callback.future = new CompletableFuture<>();
+      callback.time = System.currentTimeMillis();
+      callback.references.set(REFERENCES);
+      return callback;
+    }
+
+    private final Recycler.Handle<Callback> handle;
+    private final AtomicInteger references = new AtomicInteger();
+    private CallbackRing ring;
+    private TimeoutHistory timeoutHistory;
+    private CompletableFuture<byte[]> future;
+    private long id;
+    private long time;
+    private volatile Timeout timeout;
+
+    private Callback(Recycler.Handle<Callback> handle) {
+      this.handle = handle;
+    }
+
+    /**
+     * Returns the request ID assigned by the callback's ring.
+     *
+     * @return the request ID
+     */
+    long id() {
+      return id;
+    }
+
+    /**
+     * Returns the future to be completed with the response.
+     *
+     * @return the response future
+     */
+    CompletableFuture<byte[]> future() {
+      return future;
+    }
+
+    /**
+     * Returns the number of unreleased references to the callback.
+     *
+     * @return the number of references to the callback
+     */
+    int references() {
+      return references.get();
+    }
+
+    /**
+     * Schedules the request timeout on the given timer. The timer holds a reference until the task runs or is
+     * cancelled.
+     *
+     * @param timer         the timer on which to schedule the timeout
+     * @param timeoutMillis the request timeout in milliseconds
+     */
+    void scheduleTimeout(Timer timer, long timeoutMillis) {
+      timeout = timer.newTimeout(this, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the time elapsed since the request was sent.
+     *
+     * @return the time elapsed since the request was sent in milliseconds
+     */
+    long elapsedTime() {
+      return System.currentTimeMillis() - time;
     }
 
-    public void complete(byte[] value) {
+    /**
+     * Completes the callback. Must only be called by the thread that removed the callback from its connection.
+     *
+     * @param value the response value
+     */
+    void complete(byte[] value) {
+      cancelTimeout();
       future.complete(value);
+      release();
     }
 
-    public void completeExceptionally(Throwable error) {
+    /**
+     * Fails the callback. Must only be called by the thread that removed the callback from its connection.
+     *
+     * @param error the response error
+     */
+    void completeExceptionally(Throwable error) {
+      cancelTimeout();
       future.completeExceptionally(error);
+      release();
+    }
+
+    /**
+     * Cancels the pending timeout for the callback, releasing the timer's reference if the task will never run.
+     */
+    private void cancelTimeout() {
+      Timeout timeout = this.timeout;
+      if (timeout != null && timeout.cancel()) {
+        release();
+      }
+    }
+
+    /**
+     * Discards a callback that was never registered with a connection.
+     */
+    void discard() {
+      references.set(1);
+      release();
+    }
+
+    /**
+     * Releases a reference to the callback, recycling it once all references have been released.
+     *
+     * @throws IllegalStateException if all references to the callback have already been released
+     */
+    private void release() {
+      int remaining = references.decrementAndGet();
+      if (remaining < 0) {
+        throw new IllegalStateException("Callback released more than once");
+      }
+      if (remaining == 0) {
+        ring = null;
+        timeoutHistory = null;
+        future = null;
+        timeout = null;
+        handle.recycle(this);
+      }
+    }
+
+    /**
+     * Times out the callback if it's still pending.
+     * <p>
+     * The callback is only timed out if it has not already been removed by a reply or by the connection being closed.
+     */
+    @Override
+    public void run(Timeout timeout) {
+      if (ring.remove(this)) {
+        long elapsedTime = elapsedTime();
+        timeoutHistory.addReplyTime(elapsedTime);
+        completeExceptionally(new TimeoutException("Request timed out in " + elapsedTime + " milliseconds"));
+      }
+      release();
+    }
+
+    @Override
+    public void operationComplete(ChannelFuture channelFuture) {
+      if (!channelFuture.isSuccess() && ring.remove(this)) {
+        completeExceptionally(channelFuture.cause());
+      }
+      release();
+    }
+  }
+
+  /**
+   * Lock-free ring of pending request callbacks indexed by a per-connection request sequence.
+   * <p>
+   * Request IDs are assigned from the connection's sequence when a callback is added, and the ID maps directly to
+   * a slot in a pre-sized array, avoiding boxed keys and map nodes on the request path. If the slot for an ID is
+   * still occupied by a long-running request, the next ID is tried instead.
+   */
+  @VisibleForTesting
+  static final class CallbackRing {
+    private final AtomicReferenceArray<Callback> slots;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    CallbackRing(int minCapacity) {
+      int capacity = Integer.highestOneBit(Math.max(minCapacity, 2) - 1) << 1;
+      this.slots = new AtomicReferenceArray<>(capacity);
+      this.mask = capacity - 1;
+    }
+
+    private int index(long id) {
+      return (int) (id & mask);
+    }
+
+    /**
+     * Assigns a request ID to the given callback and adds it to the ring.
+     *
+     * @param callback the callback to add
+     * @return indicates whether a free slot was found for the callback
+     */
+    boolean add(Callback callback) {
+      for (int i = 0; i <= mask; i++) {
+        long id = sequence.incrementAndGet();
+        callback.id = id;
+        if (slots.compareAndSet(index(id), null, callback)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Removes the callback for the given request ID.
+     *
+     * @param id the request ID
+     * @return the removed callback or {@code null} if no callback is pending for the ID
+     */
+    Callback remove(long id) {
+      int index = index(id);
+      Callback callback = slots.get(index);
+      if (callback != null && callback.id == id && slots.compareAndSet(index, callback, null)) {
+        return callback;
+      }
+      return null;
+    }
+
+    /**
+     * Removes the given callback.
+     *
+     * @param callback the callback to remove
+     * @return indicates whether the callback was removed by the caller
+     */
+    boolean remove(Callback callback) {
+      return slots.compareAndSet(index(callback.id), callback, null);
+    }
+
+    /**
+     * Removes all pending callbacks, passing each to the given consumer.
+     *
+     * @param consumer the consumer to which to pass removed callbacks
+     */
+    void removeAll(Consumer<Callback> consumer) {
+      for (int i = 0; i <= mask; i++) {
+        Callback callback = slots.get(i);
+        if (callback != null && slots.compareAndSet(i, callback, null)) {
+          consumer.accept(callback);
+        }
+      }
     }
   }
 
@@ -601,10 +965,11 @@ public class NettyMessagingManager implements MessagingService {
     /**
      * Sends a message to the other side of the connection, awaiting a reply.
      *
-     * @param message the message to send
+     * @param type    the message type
+     * @param payload the message payload
      * @return a completable future to be completed once a reply is received or the request times out
      */
-    CompletableFuture<byte[]> sendAndReceive(InternalMessage message);
+    CompletableFuture<byte[]> sendAndReceive(String type, byte[] payload);
 
     /**
      * Closes the connection.
@@ -650,7 +1015,12 @@ public class NettyMessagingManager implements MessagingService {
     }
 
     @Override
-    public CompletableFuture<byte[]> sendAndReceive(InternalMessage message) {
+    public CompletableFuture<byte[]> sendAndReceive(String type, byte[] payload) {
+      InternalMessage message = new InternalMessage(preamble,
+          messageIdGenerator.incrementAndGet(),
+          localEndpoint,
+          type,
+          payload);
       CompletableFuture<byte[]> future = new CompletableFuture<>();
       BiConsumer<InternalMessage, ServerConnection> handler = handlers.get(message.type());
       if (handler != null) {
@@ -684,6 +1054,8 @@ public class NettyMessagingManager implements MessagingService {
           future.completeExceptionally(new MessagingException.RemoteHandlerFailure());
         } else if (status == InternalMessage.Status.PROTOCOL_EXCEPTION) {
           future.completeExceptionally(new MessagingException.ProtocolException());
+        } else if (status == InternalMessage.Status.ERROR_HANDLER_OVERLOADED) {
+          future.completeExceptionally(new MessagingException.TooManyRequests());
         }
       }
     }
@@ -694,45 +1066,35 @@ public class NettyMessagingManager implements MessagingService {
    */
   private final class RemoteClientConnection implements ClientConnection {
     private final Channel channel;
-    private final Map<Long, Callback> futures = Maps.newConcurrentMap();
+    private final EndpointStats stats;
+    private final ChannelFutureListener writeListener;
+    private final CallbackRing callbacks = new CallbackRing(maxInFlightRequests);
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
     RemoteClientConnection(Channel channel) {
       this.channel = channel;
+      this.stats = channel.attr(ENDPOINT_STATS).get();
+      this.writeListener = stats != null ? f -> stats.writeCompleted() : null;
     }
 
     /**
-     * Times out callbacks for this connection.
+     * Writes the given message to the channel, tracking the outbound queue depth for the endpoint.
+     *
+     * @param message the message to write
+     * @return the channel write future
      */
-    private void timeoutCallbacks() {
-      // Store the current time.
-      long currentTime = System.currentTimeMillis();
-
-      // Iterate through future callbacks and time out callbacks that have been alive
-      // longer than the current timeout according to the message type.
-      Iterator<Map.Entry<Long, Callback>> iterator = futures.entrySet().iterator();
-      while (iterator.hasNext()) {
-        Callback callback = iterator.next().getValue();
-        try {
-          TimeoutHistory timeoutHistory = timeoutHistories.get(callback.type, TimeoutHistory::new);
-          long currentTimeout = timeoutHistory.currentTimeout;
-          if (currentTime - callback.time > currentTimeout) {
-            iterator.remove();
-            long elapsedTime = currentTime - callback.time;
-            timeoutHistory.addReplyTime(elapsedTime);
-            callback.completeExceptionally(
-                new TimeoutException("Request timed out in " + elapsedTime + " milliseconds"));
-          }
-        } catch (ExecutionException e) {
-          throw new AssertionError();
-        }
+    private ChannelFuture write(InternalMessage message) {
+      if (stats == null) {
+        return channel.writeAndFlush(message);
       }
+      stats.writeQueued();
+      return channel.writeAndFlush(message).addListener(writeListener);
     }
 
     @Override
     public CompletableFuture<Void> sendAsync(InternalMessage message) {
       CompletableFuture<Void> future = new CompletableFuture<>();
-      channel.writeAndFlush(message).addListener(channelFuture -> {
+      write(message).addListener(channelFuture -> {
         if (!channelFuture.isSuccess()) {
           future.completeExceptionally(channelFuture.cause());
         } else {
@@ -743,16 +1105,17 @@ public class NettyMessagingManager implements MessagingService {
     }
 
     @Override
-    public CompletableFuture<byte[]> sendAndReceive(InternalMessage message) {
-      CompletableFuture<byte[]> future = new CompletableFuture<>();
-      Callback callback = new Callback(message.type(), future);
-      futures.put(message.id(), callback);
-      channel.writeAndFlush(message).addListener(channelFuture -> {
-        if (!channelFuture.isSuccess()) {
-          futures.remove(message.id());
-          callback.completeExceptionally(channelFuture.cause());
-        }
-      });
+    public CompletableFuture<byte[]> sendAndReceive(String type, byte[] payload) {
+      Callback callback = Callback.newCallback(callbacks, getTimeoutHistory(type));
+      CompletableFuture<byte[]> future = callback.future;
+      if (!callbacks.add(callback)) {
+        callback.discard();
+        return Futures.exceptionalFuture(new MessagingException.TooManyRequests());
+      }
+
+      InternalMessage message = new InternalMessage(preamble, callback.id, localEndpoint, type, payload);
+      callback.scheduleTimeout(TIMEOUT_TIMER, callback.timeoutHistory.currentTimeout());
+      write(message).addListener(callback);
       return future;
     }
 
@@ -767,8 +1130,9 @@ public class NettyMessagingManager implements MessagingService {
         return;
       }
 
-      Callback callback = futures.remove(message.id());
+      Callback callback = callbacks.remove(message.id());
       if (callback != null) {
+        callback.timeoutHistory.addReplyTime(callback.elapsedTime());
         if (message.status() == InternalMessage.Status.OK) {
           callback.complete(message.payload());
         } else if (message.status() == InternalMessage.Status.ERROR_NO_HANDLER) {
@@ -777,13 +1141,8 @@ public class NettyMessagingManager implements MessagingService {
           callback.completeExceptionally(new MessagingException.RemoteHandlerFailure());
         } else if (message.status() == InternalMessage.Status.PROTOCOL_EXCEPTION) {
           callback.completeExceptionally(new MessagingException.ProtocolException());
-        }
-
-        try {
-          TimeoutHistory timeoutHistory = timeoutHistories.get(callback.type, TimeoutHistory::new);
-          timeoutHistory.addReplyTime(System.currentTimeMillis() - callback.time);
-        } catch (ExecutionException e) {
-          throw new AssertionError();
+        } else if (message.status() == InternalMessage.Status.ERROR_HANDLER_OVERLOADED) {
+          callback.completeExceptionally(new MessagingException.TooManyRequests());
         }
       } else {
         log.debug("Received a reply for message id:[{}]. "
@@ -795,10 +1154,7 @@ public class NettyMessagingManager implements MessagingService {
     @Override
     public void close() {
       if (closed.compareAndSet(false, true)) {
-        timeoutFuture.cancel(false);
-        for (Callback callback : futures.values()) {
-          callback.completeExceptionally(new ConnectException());
-        }
+        callbacks.removeAll(callback -> callback.completeExceptionally(new ConnectException()));
       }
     }
   }
@@ -846,32 +1202,56 @@ public class NettyMessagingManager implements MessagingService {
   }
 
   /**
-   * Request-reply timeout history tracker.
+   * Netty messaging manager builder.
    */
-  private static final class TimeoutHistory {
-    private final DescriptiveStatistics timeoutHistory = new SynchronizedDescriptiveStatistics(WINDOW_SIZE);
-    private final AtomicLong maxReplyTime = new AtomicLong();
-    private volatile long currentTimeout = DEFAULT_TIMEOUT_MILLIS;
+  public static class Builder implements io.atomix.utils.Builder<NettyMessagingManager> {
+    private String name = DEFAULT_NAME;
+    private Endpoint endpoint;
+    private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
 
     /**
-     * Adds a reply time to the history.
+     * Sets the cluster name.
      *
-     * @param replyTime the reply time to add to the history
+     * @param name the cluster name
+     * @return the Netty messaging manager builder
+     * @throws NullPointerException if the name is null
      */
-    void addReplyTime(long replyTime) {
-      maxReplyTime.getAndAccumulate(replyTime, Math::max);
+    public Builder withName(String name) {
+      this.name = checkNotNull(name, "name cannot be null");
+      return this;
     }
 
     /**
-     * Computes the current timeout.
+     * Sets the local endpoint.
+     *
+     * @param endpoint the local endpoint
+     * @return the Netty messaging manager builder
+     * @throws NullPointerException if the endpoint is null
      */
-    private void recomputeTimeoutMillis() {
-      double nextTimeout = maxReplyTime.getAndSet(0) * TIMEOUT_MULTIPLIER;
-      timeoutHistory.addValue(
-          Math.min(Math.max(nextTimeout, MIN_TIMEOUT_MILLIS), MAX_TIMEOUT_MILLIS));
-      if (timeoutHistory.getN() == WINDOW_SIZE) {
-        this.currentTimeout = (long) timeoutHistory.getMax();
-      }
+    public Builder withEndpoint(Endpoint endpoint) {
+      this.endpoint = checkNotNull(endpoint, "endpoint cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of requests in flight to any single remote endpoint.
+     * <p>
+     * Requests sent once the limit has been reached are failed with
+     * {@link io.atomix.messaging.MessagingException.TooManyRequests}.
+     *
+     * @param maxInFlightRequests the maximum number of in-flight requests per endpoint
+     * @return the Netty messaging manager builder
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public Builder withMaxInFlightRequests(int maxInFlightRequests) {
+      checkArgument(maxInFlightRequests > 0, "maxInFlightRequests must be positive");
+      this.maxInFlightRequests = maxInFlightRequests;
+      return this;
+    }
+
+    @Override
+    public NettyMessagingManager build() {
+      return new NettyMessagingManager(name, endpoint, maxInFlightRequests);
     }
   }
 }
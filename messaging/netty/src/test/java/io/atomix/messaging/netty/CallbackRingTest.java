@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.netty;
+
+import io.atomix.messaging.netty.NettyMessagingManager.Callback;
+import io.atomix.messaging.netty.NettyMessagingManager.CallbackRing;
+import io.atomix.messaging.TimeoutHistory;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Callback ring test.
+ */
+public class CallbackRingTest {
+  private HashedWheelTimer timer;
+  private EmbeddedChannel channel;
+
+  @Before
+  public void setUp() {
+    timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS);
+    channel = new EmbeddedChannel();
+  }
+
+  @After
+  public void tearDown() {
+    timer.stop();
+    channel.close();
+  }
+
+  /**
+   * Tests that request IDs keep increasing as they wrap around the ring's slots.
+   */
+  @Test
+  public void testWraparound() throws Exception {
+    CallbackRing ring = new CallbackRing(4);
+    long lastId = 0;
+    for (int i = 0; i < 100; i++) {
+      Callback callback = newCallback(ring);
+      assertTrue(ring.add(callback));
+      assertTrue(callback.id() > lastId);
+      lastId = callback.id();
+
+      // The ID of the request that last used the slot no longer maps to a callback.
+      assertNull(ring.remove(callback.id() - 4));
+      assertSame(callback, ring.remove(callback.id()));
+      assertNull(ring.remove(callback.id()));
+      callback.discard();
+    }
+  }
+
+  /**
+   * Tests that a slot held by a long-running request is skipped rather than overwritten.
+   */
+  @Test
+  public void testSkipOccupiedSlot() throws Exception {
+    CallbackRing ring = new CallbackRing(4);
+    Callback longRunning = newCallback(ring);
+    assertTrue(ring.add(longRunning));
+    for (int i = 0; i < 20; i++) {
+      Callback callback = newCallback(ring);
+      assertTrue(ring.add(callback));
+      assertNotEquals(0, (callback.id() - longRunning.id()) % 4);
+      assertSame(callback, ring.remove(callback.id()));
+      callback.discard();
+    }
+    assertSame(longRunning, ring.remove(longRunning.id()));
+    longRunning.discard();
+  }
+
+  /**
+   * Tests that a full ring rejects new requests, which the messaging manager reports as back-pressure.
+   */
+  @Test
+  public void testFullRingRejectsRequests() throws Exception {
+    CallbackRing ring = new CallbackRing(4);
+    List<Callback> callbacks = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Callback callback = newCallback(ring);
+      assertTrue(ring.add(callback));
+      callbacks.add(callback);
+    }
+
+    Callback rejected = newCallback(ring);
+    assertFalse(ring.add(rejected));
+    rejected.discard();
+
+    // Freeing a single slot admits a single request.
+    assertSame(callbacks.get(2), ring.remove(callbacks.get(2).id()));
+    callbacks.get(2).discard();
+    Callback admitted = newCallback(ring);
+    assertTrue(ring.add(admitted));
+    Callback rejectedAgain = newCallback(ring);
+    assertFalse(ring.add(rejectedAgain));
+    rejectedAgain.discard();
+  }
+
+  /**
+   * Tests that timed out requests are removed from the ring and free their slots for new requests.
+   */
+  @Test
+  public void testTimeoutsFreeSlots() throws Exception {
+    CallbackRing ring = new CallbackRing(8);
+    List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+    List<Callback> callbacks = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Callback callback = newCallback(ring);
+      assertTrue(ring.add(callback));
+      futures.add(callback.future());
+      callbacks.add(callback);
+      callback.scheduleTimeout(timer, 5);
+      callback.operationComplete(channel.newSucceededFuture());
+    }
+
+    for (CompletableFuture<byte[]> future : futures) {
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        fail();
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof TimeoutException);
+      }
+    }
+    for (Callback callback : callbacks) {
+      for (int i = 0; i < 1000 && callback.references() > 0; i++) {
+        Thread.sleep(1);
+      }
+      assertEquals(0, callback.references());
+    }
+
+    // Every slot has been freed.
+    for (int i = 0; i < 8; i++) {
+      assertTrue(ring.add(newCallback(ring)));
+    }
+  }
+
+  /**
+   * Tests that removing all callbacks empties the ring.
+   */
+  @Test
+  public void testRemoveAll() throws Exception {
+    CallbackRing ring = new CallbackRing(4);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(ring.add(newCallback(ring)));
+    }
+    List<Callback> removed = new ArrayList<>();
+    ring.removeAll(removed::add);
+    assertEquals(4, removed.size());
+    removed.clear();
+    ring.removeAll(removed::add);
+    assertTrue(removed.isEmpty());
+  }
+
+  private static Callback newCallback(CallbackRing ring) {
+    return Callback.newCallback(ring, new TimeoutHistory());
+  }
+}
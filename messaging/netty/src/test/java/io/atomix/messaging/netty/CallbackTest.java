@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.netty;
+
+import io.atomix.messaging.netty.NettyMessagingManager.Callback;
+import io.atomix.messaging.netty.NettyMessagingManager.CallbackRing;
+import io.atomix.messaging.TimeoutHistory;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pooled request callback test.
+ */
+public class CallbackTest {
+  private HashedWheelTimer timer;
+  private EmbeddedChannel channel;
+
+  @Before
+  public void setUp() {
+    timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS);
+    channel = new EmbeddedChannel();
+  }
+
+  @After
+  public void tearDown() {
+    timer.stop();
+    channel.close();
+  }
+
+  /**
+   * Tests that a callback is recycled once the reply, the timer and the write listener have released it.
+   */
+  @Test
+  public void testRecycleAfterAllReferencesReleased() throws Exception {
+    CallbackRing ring = new CallbackRing(4);
+    Callback callback = Callback.newCallback(ring, new TimeoutHistory());
+    assertEquals(3, callback.references());
+    assertTrue(ring.add(callback));
+    callback.scheduleTimeout(timer, 10000);
+    CompletableFuture<byte[]> future = callback.future();
+
+    // A reply cancels the timeout, releasing the timer's reference along with its own.
+    assertSame(callback, ring.remove(callback.id()));
+    byte[] payload = {1, 2, 3};
+    callback.complete(payload);
+    assertArrayEquals(payload, future.get());
+    assertEquals(1, callback.references());
+
+    // The write listener releases the last reference.
+    callback.operationComplete(channel.newSucceededFuture());
+    assertEquals(0, callback.references());
+    assertNull(callback.future());
+  }
+
+  /**
+   * Tests that releasing a recycled callback fails rather than recycling it twice.
+   */
+  @Test
+  public void testDoubleRelease() throws Exception {
+    Callback callback = Callback.newCallback(new CallbackRing(4), new TimeoutHistory());
+    callback.discard();
+    assertEquals(0, callback.references());
+    try {
+      callback.operationComplete(channel.newSucceededFuture());
+      fail();
+    } catch (IllegalStateException e) {
+    }
+  }
+
+  /**
+   * Tests that a reply to a request that has been timed out doesn't complete a recycled callback.
+   */
+  @Test
+  public void testStaleReplyAfterRecycle() throws Exception {
+    CallbackRing ring = new CallbackRing(1);
+    Callback callback = Callback.newCallback(ring, new TimeoutHistory());
+    assertTrue(ring.add(callback));
+    long staleId = callback.id();
+    CompletableFuture<byte[]> staleFuture = callback.future();
+    callback.scheduleTimeout(timer, 1);
+    awaitReferences(callback, 1);
+    assertTrue(isTimedOut(staleFuture));
+    callback.operationComplete(channel.newSucceededFuture());
+
+    // The next request reuses the slot, and possibly the recycled callback.
+    Callback next = Callback.newCallback(ring, new TimeoutHistory());
+    assertTrue(ring.add(next));
+    assertNull(ring.remove(staleId));
+    assertSame(next, ring.remove(next.id()));
+    next.complete(new byte[]{4});
+    assertArrayEquals(new byte[]{4}, next.future().get());
+    assertTrue(isTimedOut(staleFuture));
+  }
+
+  /**
+   * Tests that each request is completed exactly once when its timeout races its reply.
+   */
+  @Test
+  public void testTimeoutRacesReply() throws Exception {
+    CallbackRing ring = new CallbackRing(4);
+    int replies = 0;
+    int timeouts = 0;
+    for (int i = 0; i < 500; i++) {
+      Callback callback = Callback.newCallback(ring, new TimeoutHistory());
+      assertTrue(ring.add(callback));
+      CompletableFuture<byte[]> future = callback.future();
+      callback.scheduleTimeout(timer, 1);
+      LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toNanos(3)));
+
+      byte[] payload = {(byte) i};
+      Callback replied = ring.remove(callback.id());
+      if (replied != null) {
+        replied.complete(payload);
+      }
+      awaitReferences(callback, 1);
+      callback.operationComplete(channel.newSucceededFuture());
+      assertEquals(0, callback.references());
+
+      if (isTimedOut(future)) {
+        assertNull(replied);
+        timeouts++;
+      } else {
+        assertArrayEquals(payload, future.get());
+        replies++;
+      }
+    }
+    assertEquals(500, replies + timeouts);
+  }
+
+  /**
+   * Waits for the given callback to be released down to the given number of references.
+   */
+  private static void awaitReferences(Callback callback, int references) throws InterruptedException {
+    for (int i = 0; i < 1000 && callback.references() > references; i++) {
+      Thread.sleep(1);
+    }
+    assertEquals(references, callback.references());
+  }
+
+  /**
+   * Returns a boolean indicating whether the given future was failed with a timeout.
+   */
+  private static boolean isTimedOut(CompletableFuture<byte[]> future) throws InterruptedException {
+    assertTrue(future.isDone());
+    try {
+      future.get();
+      return false;
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+      return true;
+    }
+  }
+}
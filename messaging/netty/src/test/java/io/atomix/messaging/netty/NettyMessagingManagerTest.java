@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.messaging.netty;
+
+import io.atomix.messaging.Endpoint;
+import io.atomix.messaging.MessagingException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Netty messaging manager test.
+ */
+public class NettyMessagingManagerTest {
+  private static final String TYPE = "test";
+
+  private Endpoint clientEndpoint;
+  private Endpoint serverEndpoint;
+  private NettyMessagingManager client;
+  private NettyMessagingManager server;
+  private final BlockingQueue<CompletableFuture<byte[]>> requests = new LinkedBlockingQueue<>();
+
+  @Before
+  public void setUp() throws Exception {
+    clientEndpoint = new Endpoint(InetAddress.getLoopbackAddress(), 5678);
+    serverEndpoint = new Endpoint(InetAddress.getLoopbackAddress(), 5679);
+    server = new NettyMessagingManager(serverEndpoint);
+
+    // Requests are held by the server until the test completes them.
+    server.registerHandler(TYPE, (endpoint, payload) -> {
+      CompletableFuture<byte[]> future = new CompletableFuture<>();
+      requests.add(future);
+      return future;
+    });
+  }
+
+  @After
+  public void tearDown() {
+    if (client != null) {
+      client.close();
+    }
+    server.close();
+  }
+
+  /**
+   * Tests that a reply arriving after its request timed out doesn't complete the next request.
+   */
+  @Test
+  public void testLateReplyAfterTimeout() throws Exception {
+    client = new NettyMessagingManager(clientEndpoint);
+    CompletableFuture<byte[]> timedOut = client.sendAndReceive(serverEndpoint, TYPE, new byte[]{1});
+    CompletableFuture<byte[]> lateReply = requests.poll(10, TimeUnit.SECONDS);
+    try {
+      timedOut.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+
+    // The timed out request's callback has been released and may have been recycled for the next request.
+    CompletableFuture<byte[]> next = client.sendAndReceive(serverEndpoint, TYPE, new byte[]{2});
+    CompletableFuture<byte[]> nextReply = requests.poll(10, TimeUnit.SECONDS);
+    lateReply.complete(new byte[]{1});
+    Thread.sleep(100);
+    nextReply.complete(new byte[]{2});
+    assertArrayEquals(new byte[]{2}, next.get(10, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Tests that requests beyond the in-flight limit for an endpoint are rejected without being sent, and that
+   * completed requests free their slots.
+   */
+  @Test
+  public void testInFlightLimit() throws Exception {
+    client = NettyMessagingManager.builder()
+        .withEndpoint(clientEndpoint)
+        .withMaxInFlightRequests(2)
+        .build();
+    CompletableFuture<byte[]> first = client.sendAndReceive(serverEndpoint, TYPE, new byte[]{1});
+    CompletableFuture<byte[]> second = client.sendAndReceive(serverEndpoint, TYPE, new byte[]{2});
+    CompletableFuture<byte[]> firstReply = requests.poll(10, TimeUnit.SECONDS);
+    CompletableFuture<byte[]> secondReply = requests.poll(10, TimeUnit.SECONDS);
+
+    EndpointStats stats = client.getEndpointStats(serverEndpoint);
+    assertEquals(2, stats.inFlightRequests());
+    try {
+      client.sendAndReceive(serverEndpoint, TYPE, new byte[]{3}).get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof MessagingException.TooManyRequests);
+    }
+    assertEquals(1, stats.rejectedRequests());
+    assertEquals(2, stats.inFlightRequests());
+
+    // The rejected request was never delivered to the server.
+    Thread.sleep(100);
+    assertTrue(requests.isEmpty());
+
+    firstReply.complete(new byte[]{1});
+    secondReply.complete(new byte[]{2});
+    assertArrayEquals(new byte[]{1}, first.get(10, TimeUnit.SECONDS));
+    assertArrayEquals(new byte[]{2}, second.get(10, TimeUnit.SECONDS));
+    assertEquals(0, stats.inFlightRequests());
+
+    CompletableFuture<byte[]> third = client.sendAndReceive(serverEndpoint, TYPE, new byte[]{3});
+    requests.poll(10, TimeUnit.SECONDS).complete(new byte[]{3});
+    assertArrayEquals(new byte[]{3}, third.get(10, TimeUnit.SECONDS));
+    assertEquals(1, stats.rejectedRequests());
+  }
+}
@@ -17,11 +17,24 @@ package io.atomix.protocols.backup;
 
 import io.atomix.event.ListenerService;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Primary backup service.
  */
 public interface BackupService<T> extends ListenerService<BackupEvent<T>, BackupEventListener<T>> {
 
+  /**
+   * Executes an operation on the primary.
+   * <p>
+   * If the local node is not the primary, the operation is forwarded to the primary.
+   *
+   * @param operation the operation to execute
+   * @return a future to be completed with the index of the operation once it has been replicated according to the
+   * service's {@link Replication replication strategy}
+   */
+  CompletableFuture<Long> execute(T operation);
+
   /**
    * Closes the service.
    */
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+import java.util.Collection;
+
+/**
+ * Replicated state machine.
+ * <p>
+ * Operations are applied to the primary's state machine when they're executed and to each backup's state machine in
+ * the same order as they're replicated.
+ *
+ * @param <T> the operation type
+ */
+public interface BackupStateMachine<T> {
+
+  /**
+   * Applies an operation to the state machine.
+   *
+   * @param operation the operation to apply
+   */
+  void apply(T operation);
+
+  /**
+   * Takes a snapshot of the state machine.
+   * <p>
+   * The snapshot is a collection of operations which, when applied to an empty state machine, reproduce the current
+   * state. Snapshots are used to catch up backups that join the primary's backup set.
+   *
+   * @return a snapshot of the state machine
+   */
+  Collection<T> snapshot();
+
+  /**
+   * Replaces the state of the state machine with the given snapshot.
+   *
+   * @param snapshot the snapshot from which to restore the state machine
+   */
+  void restore(Collection<T> snapshot);
+
+}
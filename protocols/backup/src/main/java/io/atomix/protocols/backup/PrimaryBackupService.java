@@ -0,0 +1,612 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+import io.atomix.event.AbstractListenerManager;
+import io.atomix.protocols.backup.protocol.BackupProtocol;
+import io.atomix.protocols.backup.protocol.BackupResponse;
+import io.atomix.protocols.backup.protocol.ExecuteRequest;
+import io.atomix.protocols.backup.protocol.ExecuteResponse;
+import io.atomix.protocols.backup.protocol.ReplicateRequest;
+import io.atomix.protocols.backup.protocol.ReplicateResponse;
+import io.atomix.protocols.backup.protocol.RestoreRequest;
+import io.atomix.utils.Identifier;
+import io.atomix.utils.concurrent.SingleThreadContext;
+import io.atomix.utils.concurrent.ThreadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Primary-backup replication service.
+ * <p>
+ * The primary for each term is determined by the {@link PrimaryElection}, and its backups are the highest ranked
+ * candidates other than the primary. Operations are executed by the primary, which applies them to its state machine
+ * and assigns each an index. Operations executed on other nodes are forwarded to the primary.
+ * <p>
+ * The primary maintains an ordered replication stream to each backup. Streams send batches of operations without
+ * waiting for prior batches to be acknowledged, up to a fixed number of requests in flight, and backups apply
+ * operations strictly in index order, rejecting batches that don't follow the last operation they applied. When a
+ * backup joins the primary's backup set, or falls too far behind to be caught up from the operations the primary
+ * retains, it's restored from a snapshot of the primary's state machine before the stream resumes.
+ * <p>
+ * With {@link Replication#SYNCHRONOUS synchronous} replication, operations are completed once every backup has
+ * acknowledged them. With {@link Replication#ASYNCHRONOUS asynchronous} replication, operations are completed as soon
+ * as the primary has applied them.
+ *
+ * @param <N> the node type
+ * @param <T> the operation type
+ */
+public class PrimaryBackupService<N extends Identifier, T>
+    extends AbstractListenerManager<BackupEvent<T>, BackupEventListener<T>>
+    implements BackupService<T> {
+
+  /**
+   * Returns a new primary-backup service builder.
+   *
+   * @param <N> the node type
+   * @param <T> the operation type
+   * @return a new primary-backup service builder
+   */
+  public static <N extends Identifier, T> Builder<N, T> builder() {
+    return new Builder<>();
+  }
+
+  private static final int MAX_BATCH_SIZE = 1024;
+  private static final int MAX_IN_FLIGHT_REQUESTS = 4;
+  private static final int MAX_RETAINED_OPERATIONS = 1024 * 64;
+  private static final Duration RETRY_DELAY = Duration.ofMillis(100);
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final N localNode;
+  private final BackupProtocol<N, T> protocol;
+  private final PrimaryElection<N> election;
+  private final BackupStateMachine<T> stateMachine;
+  private final ThreadContext context;
+  private final boolean closeContext;
+  private final int numBackups;
+  private final Replication replication;
+  private final Consumer<PrimaryTerm<N>> termListener;
+
+  private PrimaryTerm<N> term;
+  private long currentTerm;
+  private long index;
+  private long firstRetainedIndex = 1;
+  private final List<T> retainedOperations = new ArrayList<>();
+  private final Map<N, BackupStream> streams = new HashMap<>();
+  private final TreeMap<Long, CompletableFuture<Long>> pendingOperations = new TreeMap<>();
+  private boolean flushScheduled;
+  private volatile boolean open = true;
+
+  public PrimaryBackupService(
+      BackupProtocol<N, T> protocol,
+      PrimaryElection<N> election,
+      N localNode,
+      BackupStateMachine<T> stateMachine,
+      ThreadContext context,
+      boolean closeContext,
+      int numBackups,
+      Replication replication) {
+    checkArgument(numBackups >= 0, "numBackups cannot be negative");
+    this.protocol = checkNotNull(protocol, "protocol cannot be null");
+    this.election = checkNotNull(election, "election cannot be null");
+    this.localNode = checkNotNull(localNode, "localNode cannot be null");
+    this.stateMachine = checkNotNull(stateMachine, "stateMachine cannot be null");
+    this.context = checkNotNull(context, "context cannot be null");
+    this.closeContext = closeContext;
+    this.numBackups = numBackups;
+    this.replication = checkNotNull(replication, "replication cannot be null");
+    this.termListener = term -> context.execute(() -> updateTerm(term));
+    protocol.registerReplicateHandler(this::handleReplicate);
+    protocol.registerRestoreHandler(this::handleRestore);
+    protocol.registerExecuteHandler(this::handleExecute);
+    election.addListener(termListener);
+    context.execute(() -> updateTerm(election.enter()));
+  }
+
+  /**
+   * Returns a boolean indicating whether the local node is the primary.
+   */
+  private boolean isPrimary() {
+    return term != null && localNode.equals(term.primary());
+  }
+
+  /**
+   * Updates the primary term, starting or stopping replication streams as the local node's role or its backups change.
+   */
+  private void updateTerm(PrimaryTerm<N> term) {
+    if (!open || term == null || this.term != null && term.term() < this.term.term()) {
+      return;
+    }
+
+    boolean wasPrimary = isPrimary();
+    this.term = term;
+    this.currentTerm = Math.max(currentTerm, term.term());
+
+    if (isPrimary()) {
+      if (!wasPrimary) {
+        log.debug("{} - Became primary for term {}", localNode, term.term());
+        firstRetainedIndex = index + 1;
+        retainedOperations.clear();
+      }
+
+      // Stop streams to nodes that are no longer backups and start streams to new backups.
+      Set<N> backups = new LinkedHashSet<>(term.backups(numBackups));
+      streams.entrySet().removeIf(entry -> {
+        if (!backups.contains(entry.getKey())) {
+          entry.getValue().close();
+          return true;
+        }
+        return false;
+      });
+      for (N backup : backups) {
+        if (!streams.containsKey(backup)) {
+          BackupStream stream = new BackupStream(backup);
+          streams.put(backup, stream);
+          stream.restore();
+        }
+      }
+      commit();
+    } else if (wasPrimary) {
+      log.debug("{} - Stepped down as primary in term {}", localNode, term.term());
+      streams.values().forEach(BackupStream::close);
+      streams.clear();
+      retainedOperations.clear();
+      pendingOperations.values().forEach(future -> future.completeExceptionally(new IllegalStateException("not the primary")));
+      pendingOperations.clear();
+    }
+  }
+
+  @Override
+  public CompletableFuture<Long> execute(T operation) {
+    checkNotNull(operation, "operation cannot be null");
+    CompletableFuture<Long> future = new CompletableFuture<>();
+    context.execute(() -> {
+      if (!open) {
+        future.completeExceptionally(new IllegalStateException("service closed"));
+      } else if (isPrimary()) {
+        executeLocal(operation, future);
+      } else if (term == null || term.primary() == null) {
+        future.completeExceptionally(new IllegalStateException("no primary"));
+      } else {
+        protocol.execute(term.primary(), new ExecuteRequest<>(operation)).whenComplete((response, error) -> {
+          if (error != null) {
+            future.completeExceptionally(error);
+          } else if (response.status() == BackupResponse.Status.OK) {
+            future.complete(response.index());
+          } else {
+            future.completeExceptionally(new IllegalStateException("primary rejected operation"));
+          }
+        });
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Executes an operation on the primary.
+   */
+  private void executeLocal(T operation, CompletableFuture<Long> future) {
+    long index = ++this.index;
+    stateMachine.apply(operation);
+
+    if (streams.isEmpty()) {
+      firstRetainedIndex = index + 1;
+      future.complete(index);
+      return;
+    }
+
+    retainedOperations.add(operation);
+    if (retainedOperations.size() > MAX_RETAINED_OPERATIONS) {
+      discardRetainedOperations(retainedOperations.size() - MAX_RETAINED_OPERATIONS);
+    }
+    scheduleFlush();
+
+    if (replication == Replication.ASYNCHRONOUS) {
+      future.complete(index);
+    } else {
+      pendingOperations.put(index, future);
+    }
+  }
+
+  /**
+   * Schedules the replication streams to be flushed once the operations currently queued on the context have run,
+   * so operations executed together are replicated in the same batch.
+   */
+  private void scheduleFlush() {
+    if (!flushScheduled) {
+      flushScheduled = true;
+      context.execute(() -> {
+        flushScheduled = false;
+        streams.values().forEach(BackupStream::flush);
+      });
+    }
+  }
+
+  /**
+   * Completes operations acknowledged by all backups and discards operations no longer needed by any backup.
+   */
+  private void commit() {
+    long commitIndex = streams.values().stream().mapToLong(stream -> stream.matchIndex).min().orElse(index);
+    if (!pendingOperations.isEmpty()) {
+      Map<Long, CompletableFuture<Long>> committed = pendingOperations.headMap(commitIndex, true);
+      committed.forEach((index, future) -> future.complete(index));
+      committed.clear();
+    }
+
+    // Discard retained operations in chunks to amortize the cost of shifting the remaining operations.
+    int discard = (int) Math.min(commitIndex - firstRetainedIndex + 1, retainedOperations.size());
+    if (discard == retainedOperations.size() || discard >= MAX_BATCH_SIZE) {
+      discardRetainedOperations(discard);
+    }
+  }
+
+  /**
+   * Discards the given number of the oldest retained operations.
+   */
+  private void discardRetainedOperations(int count) {
+    if (count > 0) {
+      retainedOperations.subList(0, count).clear();
+      firstRetainedIndex += count;
+    }
+  }
+
+  /**
+   * Handles an execute request forwarded to the primary.
+   */
+  private CompletableFuture<ExecuteResponse> handleExecute(ExecuteRequest<T> request) {
+    CompletableFuture<ExecuteResponse> future = new CompletableFuture<>();
+    context.execute(() -> {
+      if (!open || !isPrimary()) {
+        future.complete(new ExecuteResponse(BackupResponse.Status.ERROR, 0));
+        return;
+      }
+      CompletableFuture<Long> result = new CompletableFuture<>();
+      executeLocal(request.operation(), result);
+      result.whenComplete((index, error) -> future.complete(error == null
+          ? new ExecuteResponse(BackupResponse.Status.OK, index)
+          : new ExecuteResponse(BackupResponse.Status.ERROR, 0)));
+    });
+    return future;
+  }
+
+  /**
+   * Handles a replicate request from the primary.
+   */
+  private CompletableFuture<ReplicateResponse> handleReplicate(ReplicateRequest<N, T> request) {
+    CompletableFuture<ReplicateResponse> future = new CompletableFuture<>();
+    context.execute(() -> {
+      if (!acceptTerm(request.term(), request.primary())) {
+        future.complete(new ReplicateResponse(BackupResponse.Status.ERROR, index));
+        return;
+      }
+
+      // Reject the batch if operations are missing between the last applied operation and the batch, and skip
+      // operations that have already been applied.
+      if (request.index() > index + 1) {
+        future.complete(new ReplicateResponse(BackupResponse.Status.ERROR, index));
+        return;
+      }
+
+      List<T> operations = request.operations();
+      for (int i = (int) (index + 1 - request.index()); i < operations.size(); i++) {
+        T operation = operations.get(i);
+        index++;
+        stateMachine.apply(operation);
+        post(new BackupEvent<>(BackupEvent.Type.BACKUP, operation));
+      }
+      future.complete(new ReplicateResponse(BackupResponse.Status.OK, index));
+    });
+    return future;
+  }
+
+  /**
+   * Handles a restore request from the primary.
+   */
+  private CompletableFuture<ReplicateResponse> handleRestore(RestoreRequest<N, T> request) {
+    CompletableFuture<ReplicateResponse> future = new CompletableFuture<>();
+    context.execute(() -> {
+      if (!acceptTerm(request.term(), request.primary())) {
+        future.complete(new ReplicateResponse(BackupResponse.Status.ERROR, index));
+        return;
+      }
+
+      log.debug("{} - Restoring from snapshot at index {}", localNode, request.index());
+      stateMachine.restore(request.snapshot());
+      index = request.index();
+      future.complete(new ReplicateResponse(BackupResponse.Status.OK, index));
+    });
+    return future;
+  }
+
+  /**
+   * Returns a boolean indicating whether to accept a request from the given primary in the given term.
+   * <p>
+   * If the local node believes it's the primary in an earlier term, it steps down.
+   */
+  private boolean acceptTerm(long term, N primary) {
+    if (!open || term < currentTerm || term == currentTerm && isPrimary()) {
+      return false;
+    }
+    if (isPrimary()) {
+      updateTerm(new PrimaryTerm<>(term, primary, this.term.candidates()));
+    }
+    currentTerm = term;
+    return true;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+    election.removeListener(termListener);
+    election.withdraw();
+    protocol.unregisterReplicateHandler();
+    protocol.unregisterRestoreHandler();
+    protocol.unregisterExecuteHandler();
+    context.execute(() -> {
+      streams.values().forEach(BackupStream::close);
+      streams.clear();
+      pendingOperations.values().forEach(future -> future.completeExceptionally(new IllegalStateException("service closed")));
+      pendingOperations.clear();
+      if (closeContext) {
+        context.close();
+      }
+    });
+  }
+
+  /**
+   * Ordered replication stream from the primary to a single backup.
+   */
+  private class BackupStream {
+    private final N backup;
+    private long nextIndex;
+    private long matchIndex;
+    private int inFlight;
+    private boolean restoring;
+    private boolean paused;
+    private boolean closed;
+
+    BackupStream(N backup) {
+      this.backup = backup;
+    }
+
+    /**
+     * Restores the backup from a snapshot of the primary's state machine.
+     */
+    void restore() {
+      long snapshotIndex = index;
+      restoring = true;
+      log.debug("{} - Restoring {} from snapshot at index {}", localNode, backup, snapshotIndex);
+      protocol.restore(backup, new RestoreRequest<>(term.term(), localNode, snapshotIndex, stateMachine.snapshot()))
+          .whenCompleteAsync((response, error) -> {
+            if (closed) {
+              return;
+            }
+            if (error == null && response.status() == BackupResponse.Status.OK) {
+              restoring = false;
+              matchIndex = response.index();
+              nextIndex = matchIndex + 1;
+              commit();
+              flush();
+            } else {
+              retry();
+            }
+          }, context);
+    }
+
+    /**
+     * Sends batches of operations to the backup until the maximum number of requests is in flight.
+     */
+    void flush() {
+      while (!closed && !restoring && !paused && inFlight < MAX_IN_FLIGHT_REQUESTS && nextIndex <= index) {
+        // If the operations the backup needs have been discarded, restore it from a snapshot.
+        if (nextIndex < firstRetainedIndex) {
+          restore();
+          return;
+        }
+
+        long batchIndex = nextIndex;
+        int from = (int) (nextIndex - firstRetainedIndex);
+        int to = Math.min(retainedOperations.size(), from + MAX_BATCH_SIZE);
+        List<T> batch = new ArrayList<>(retainedOperations.subList(from, to));
+        nextIndex += batch.size();
+        inFlight++;
+        protocol.replicate(backup, new ReplicateRequest<>(term.term(), localNode, batchIndex, batch))
+            .whenCompleteAsync((response, error) -> {
+              if (closed) {
+                return;
+              }
+              inFlight--;
+              if (error == null && response.status() == BackupResponse.Status.OK) {
+                matchIndex = Math.max(matchIndex, response.index());
+                commit();
+                flush();
+              } else if (error == null && response.index() < batchIndex - 1 && response.index() >= matchIndex) {
+                // The backup is missing operations preceding the batch because an earlier batch was reordered or
+                // lost in transit. Resume the stream from the backup's last applied operation.
+                matchIndex = response.index();
+                nextIndex = Math.min(nextIndex, matchIndex + 1);
+                commit();
+                flush();
+              } else {
+                log.trace("{} - Replicating to {} failed", localNode, backup, error);
+                retry();
+              }
+            }, context);
+      }
+    }
+
+    /**
+     * Resumes the stream from the backup's last acknowledged operation after a delay.
+     */
+    private void retry() {
+      if (paused) {
+        return;
+      }
+      paused = true;
+      context.schedule(RETRY_DELAY, () -> {
+        paused = false;
+        if (!closed) {
+          if (restoring) {
+            restore();
+          } else {
+            nextIndex = matchIndex + 1;
+            flush();
+          }
+        }
+      });
+    }
+
+    /**
+     * Closes the stream.
+     */
+    void close() {
+      closed = true;
+    }
+  }
+
+  /**
+   * Primary-backup service builder.
+   *
+   * @param <N> the node type
+   * @param <T> the operation type
+   */
+  public static class Builder<N extends Identifier, T> implements BackupService.Builder<T> {
+    private static final int DEFAULT_NUM_BACKUPS = 1;
+
+    private BackupProtocol<N, T> protocol;
+    private PrimaryElection<N> election;
+    private N localNode;
+    private BackupStateMachine<T> stateMachine;
+    private ThreadContext threadContext;
+    private int numBackups = DEFAULT_NUM_BACKUPS;
+    private Replication replication = Replication.SYNCHRONOUS;
+
+    /**
+     * Sets the primary-backup protocol.
+     *
+     * @param protocol the primary-backup protocol
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the protocol is null
+     */
+    public Builder<N, T> withProtocol(BackupProtocol<N, T> protocol) {
+      this.protocol = checkNotNull(protocol, "protocol cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the primary election.
+     *
+     * @param election the primary election
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the election is null
+     */
+    public Builder<N, T> withElection(PrimaryElection<N> election) {
+      this.election = checkNotNull(election, "election cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the local node identifier.
+     *
+     * @param identifier the local identifier
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the identifier is null
+     */
+    public Builder<N, T> withLocalNode(N identifier) {
+      this.localNode = checkNotNull(identifier, "identifier cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the replicated state machine.
+     *
+     * @param stateMachine the replicated state machine
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the state machine is null
+     */
+    public Builder<N, T> withStateMachine(BackupStateMachine<T> stateMachine) {
+      this.stateMachine = checkNotNull(stateMachine, "stateMachine cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the thread context on which the service and its state machine are run.
+     * <p>
+     * If no thread context is provided, the service creates and closes its own single threaded context.
+     *
+     * @param threadContext the service thread context
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the thread context is null
+     */
+    public Builder<N, T> withThreadContext(ThreadContext threadContext) {
+      this.threadContext = checkNotNull(threadContext, "threadContext cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the number of backups.
+     *
+     * @param numBackups the number of backups
+     * @return the primary-backup service builder
+     * @throws IllegalArgumentException if the number of backups is negative
+     */
+    public Builder<N, T> withNumBackups(int numBackups) {
+      checkArgument(numBackups >= 0, "numBackups cannot be negative");
+      this.numBackups = numBackups;
+      return this;
+    }
+
+    /**
+     * Sets the replication strategy.
+     *
+     * @param replication the replication strategy
+     * @return the primary-backup service builder
+     * @throws NullPointerException if the replication strategy is null
+     */
+    public Builder<N, T> withReplication(Replication replication) {
+      this.replication = checkNotNull(replication, "replication cannot be null");
+      return this;
+    }
+
+    @Override
+    public BackupService<T> build() {
+      boolean closeContext = threadContext == null;
+      return new PrimaryBackupService<>(
+          protocol,
+          election,
+          localNode,
+          stateMachine,
+          closeContext ? new SingleThreadContext("atomix-backup-%d") : threadContext,
+          closeContext,
+          numBackups,
+          replication);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+import io.atomix.utils.Identifier;
+
+import java.util.function.Consumer;
+
+/**
+ * Primary election.
+ * <p>
+ * The election determines the primary and the ranked candidates from which backups are chosen in each term. Terms
+ * must increase monotonically with each change of primary.
+ *
+ * @param <N> the node type
+ */
+public interface PrimaryElection<N extends Identifier> {
+
+  /**
+   * Enters the local node in the election.
+   *
+   * @return the current term
+   */
+  PrimaryTerm<N> enter();
+
+  /**
+   * Withdraws the local node from the election.
+   */
+  void withdraw();
+
+  /**
+   * Returns the current term.
+   *
+   * @return the current term
+   */
+  PrimaryTerm<N> getTerm();
+
+  /**
+   * Adds a listener to be called when the term or candidates change.
+   *
+   * @param listener the term listener
+   */
+  void addListener(Consumer<PrimaryTerm<N>> listener);
+
+  /**
+   * Removes a term listener.
+   *
+   * @param listener the term listener
+   */
+  void removeListener(Consumer<PrimaryTerm<N>> listener);
+
+}
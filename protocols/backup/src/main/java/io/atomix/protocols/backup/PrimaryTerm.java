@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+import com.google.common.collect.ImmutableList;
+import io.atomix.utils.Identifier;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Primary election term.
+ * <p>
+ * A term has a single primary, and the backups for the term are the highest ranked candidates other than the primary.
+ *
+ * @param <N> the node type
+ */
+public class PrimaryTerm<N extends Identifier> {
+  private final long term;
+  private final N primary;
+  private final List<N> candidates;
+
+  public PrimaryTerm(long term, N primary, List<N> candidates) {
+    this.term = term;
+    this.primary = primary;
+    this.candidates = ImmutableList.copyOf(checkNotNull(candidates, "candidates cannot be null"));
+  }
+
+  /**
+   * Returns the term number.
+   *
+   * @return the term number
+   */
+  public long term() {
+    return term;
+  }
+
+  /**
+   * Returns the primary for the term.
+   *
+   * @return the primary for the term or {@code null} if there is no primary
+   */
+  public N primary() {
+    return primary;
+  }
+
+  /**
+   * Returns the candidates in preference order.
+   *
+   * @return the candidates in preference order
+   */
+  public List<N> candidates() {
+    return candidates;
+  }
+
+  /**
+   * Returns the backups for the term.
+   *
+   * @param numBackups the number of backups
+   * @return the highest ranked candidates other than the primary, up to the given number of backups
+   */
+  public List<N> backups(int numBackups) {
+    return candidates.stream()
+        .filter(candidate -> !candidate.equals(primary))
+        .limit(numBackups)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(term, primary, candidates);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof PrimaryTerm) {
+      PrimaryTerm that = (PrimaryTerm) object;
+      return this.term == that.term && Objects.equals(this.primary, that.primary) && this.candidates.equals(that.candidates);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("term", term)
+        .add("primary", primary)
+        .add("candidates", candidates)
+        .toString();
+  }
+}
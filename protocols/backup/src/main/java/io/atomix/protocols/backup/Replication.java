@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+/**
+ * Primary-backup replication strategy.
+ */
+public enum Replication {
+
+  /**
+   * Operations are completed once they've been applied by the primary and acknowledged by all of its backups.
+   */
+  SYNCHRONOUS,
+
+  /**
+   * Operations are completed once they've been applied by the primary and are replicated to backups in the
+   * background. Operations acknowledged by the primary may be lost if it fails before they're replicated.
+   */
+  ASYNCHRONOUS,
+
+}
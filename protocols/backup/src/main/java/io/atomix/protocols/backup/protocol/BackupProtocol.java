@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Primary-backup protocol.
+ *
+ * @param <N> the node type
+ * @param <T> the operation type
+ */
+public interface BackupProtocol<N extends Identifier, T> {
+
+  /**
+   * Sends a batch of operations to a backup.
+   *
+   * @param backup the backup to which to send the operations
+   * @param request the replicate request
+   * @return a future to be completed with the replicate response
+   */
+  CompletableFuture<ReplicateResponse> replicate(N backup, ReplicateRequest<N, T> request);
+
+  /**
+   * Sends a snapshot to a backup.
+   *
+   * @param backup the backup to which to send the snapshot
+   * @param request the restore request
+   * @return a future to be completed with the restore response
+   */
+  CompletableFuture<ReplicateResponse> restore(N backup, RestoreRequest<N, T> request);
+
+  /**
+   * Forwards an operation to the primary.
+   *
+   * @param primary the primary to which to forward the operation
+   * @param request the execute request
+   * @return a future to be completed with the execute response
+   */
+  CompletableFuture<ExecuteResponse> execute(N primary, ExecuteRequest<T> request);
+
+  /**
+   * Registers a replicate request handler.
+   *
+   * @param handler the replicate request handler
+   */
+  void registerReplicateHandler(Function<ReplicateRequest<N, T>, CompletableFuture<ReplicateResponse>> handler);
+
+  /**
+   * Unregisters the replicate request handler.
+   */
+  void unregisterReplicateHandler();
+
+  /**
+   * Registers a restore request handler.
+   *
+   * @param handler the restore request handler
+   */
+  void registerRestoreHandler(Function<RestoreRequest<N, T>, CompletableFuture<ReplicateResponse>> handler);
+
+  /**
+   * Unregisters the restore request handler.
+   */
+  void unregisterRestoreHandler();
+
+  /**
+   * Registers an execute request handler.
+   *
+   * @param handler the execute request handler
+   */
+  void registerExecuteHandler(Function<ExecuteRequest<T>, CompletableFuture<ExecuteResponse>> handler);
+
+  /**
+   * Unregisters the execute request handler.
+   */
+  void unregisterExecuteHandler();
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Base class for primary-backup responses.
+ */
+public abstract class BackupResponse {
+
+  /**
+   * Response status.
+   */
+  public enum Status {
+    OK,
+    ERROR,
+  }
+
+  private final Status status;
+
+  protected BackupResponse(Status status) {
+    this.status = checkNotNull(status, "status cannot be null");
+  }
+
+  /**
+   * Returns the response status.
+   *
+   * @return the response status
+   */
+  public Status status() {
+    return status;
+  }
+}
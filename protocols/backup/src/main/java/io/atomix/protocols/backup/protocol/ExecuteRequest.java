@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Request to execute an operation, forwarded to the primary.
+ */
+public class ExecuteRequest<T> {
+  private final T operation;
+
+  public ExecuteRequest(T operation) {
+    this.operation = checkNotNull(operation, "operation cannot be null");
+  }
+
+  /**
+   * Returns the operation to execute.
+   *
+   * @return the operation to execute
+   */
+  public T operation() {
+    return operation;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("operation", operation)
+        .toString();
+  }
+}
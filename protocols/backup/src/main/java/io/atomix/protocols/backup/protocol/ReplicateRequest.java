@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Request to replicate a contiguous batch of operations from the primary to a backup.
+ */
+public class ReplicateRequest<N extends Identifier, T> {
+  private final long term;
+  private final N primary;
+  private final long index;
+  private final List<T> operations;
+
+  public ReplicateRequest(long term, N primary, long index, List<T> operations) {
+    this.term = term;
+    this.primary = checkNotNull(primary, "primary cannot be null");
+    this.index = index;
+    this.operations = checkNotNull(operations, "operations cannot be null");
+  }
+
+  /**
+   * Returns the primary's term.
+   *
+   * @return the primary's term
+   */
+  public long term() {
+    return term;
+  }
+
+  /**
+   * Returns the primary.
+   *
+   * @return the primary
+   */
+  public N primary() {
+    return primary;
+  }
+
+  /**
+   * Returns the index of the first operation in the request.
+   *
+   * @return the index of the first operation in the request
+   */
+  public long index() {
+    return index;
+  }
+
+  /**
+   * Returns the operations to replicate.
+   *
+   * @return the operations to replicate, in index order
+   */
+  public List<T> operations() {
+    return operations;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("term", term)
+        .add("primary", primary)
+        .add("index", index)
+        .add("operations", operations.size())
+        .toString();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Request to restore a backup from a snapshot of the primary's state.
+ */
+public class RestoreRequest<N extends Identifier, T> {
+  private final long term;
+  private final N primary;
+  private final long index;
+  private final Collection<T> snapshot;
+
+  public RestoreRequest(long term, N primary, long index, Collection<T> snapshot) {
+    this.term = term;
+    this.primary = checkNotNull(primary, "primary cannot be null");
+    this.index = index;
+    this.snapshot = checkNotNull(snapshot, "snapshot cannot be null");
+  }
+
+  /**
+   * Returns the primary's term.
+   *
+   * @return the primary's term
+   */
+  public long term() {
+    return term;
+  }
+
+  /**
+   * Returns the primary.
+   *
+   * @return the primary
+   */
+  public N primary() {
+    return primary;
+  }
+
+  /**
+   * Returns the index of the last operation reflected in the snapshot.
+   *
+   * @return the snapshot index
+   */
+  public long index() {
+    return index;
+  }
+
+  /**
+   * Returns the snapshot.
+   *
+   * @return the operations from which to restore the state
+   */
+  public Collection<T> snapshot() {
+    return snapshot;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("term", term)
+        .add("primary", primary)
+        .add("index", index)
+        .add("snapshot", snapshot.size())
+        .toString();
+  }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+import io.atomix.protocols.backup.protocol.BackupProtocol;
+import io.atomix.protocols.backup.protocol.ExecuteRequest;
+import io.atomix.protocols.backup.protocol.ExecuteResponse;
+import io.atomix.protocols.backup.protocol.ReplicateRequest;
+import io.atomix.protocols.backup.protocol.ReplicateResponse;
+import io.atomix.protocols.backup.protocol.RestoreRequest;
+import io.atomix.utils.AbstractIdentifier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Primary-backup service test.
+ */
+public class PrimaryBackupServiceTest {
+  private ExecutorService executor;
+  private TestElectionGroup elections;
+  private Map<NodeId, TestProtocol> protocols;
+  private Map<NodeId, TestStateMachine> stateMachines;
+  private Map<NodeId, BackupService<String>> services;
+
+  @Before
+  public void setup() {
+    executor = Executors.newFixedThreadPool(2);
+    elections = new TestElectionGroup();
+    protocols = new ConcurrentHashMap<>();
+    stateMachines = new ConcurrentHashMap<>();
+    services = new ConcurrentHashMap<>();
+  }
+
+  @After
+  public void teardown() {
+    services.values().forEach(BackupService::close);
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testSynchronousReplication() throws Exception {
+    createServices(3, 2, Replication.SYNCHRONOUS);
+
+    // Operations are completed once they've been applied by every backup, whether executed on the primary or
+    // forwarded by a backup.
+    List<String> operations = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      String operation = String.valueOf(i);
+      operations.add(operation);
+      services.get(NodeId.from(i % 2 == 0 ? 1 : 2)).execute(operation).get(10, TimeUnit.SECONDS);
+      for (TestStateMachine stateMachine : stateMachines.values()) {
+        assertEquals(operations, stateMachine.operations);
+      }
+    }
+  }
+
+  @Test
+  public void testAsynchronousReplication() throws Exception {
+    createServices(3, 2, Replication.ASYNCHRONOUS);
+
+    List<String> operations = new ArrayList<>();
+    List<CompletableFuture<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      operations.add(String.valueOf(i));
+      futures.add(services.get(NodeId.from(1)).execute(String.valueOf(i)));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      assertEquals(i + 1, futures.get(i).get(10, TimeUnit.SECONDS).longValue());
+    }
+    awaitOperations(operations, NodeId.from(1), NodeId.from(2), NodeId.from(3));
+  }
+
+  @Test
+  public void testBackupRestoredOnJoin() throws Exception {
+    createServices(1, 1, Replication.SYNCHRONOUS);
+
+    List<String> operations = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      operations.add(String.valueOf(i));
+      services.get(NodeId.from(1)).execute(String.valueOf(i)).get(10, TimeUnit.SECONDS);
+    }
+
+    // The new backup is restored from a snapshot and then receives subsequent operations.
+    createService(NodeId.from(2), 1, Replication.SYNCHRONOUS);
+    awaitOperations(operations, NodeId.from(2));
+    for (int i = 10; i < 20; i++) {
+      operations.add(String.valueOf(i));
+      services.get(NodeId.from(1)).execute(String.valueOf(i)).get(10, TimeUnit.SECONDS);
+    }
+    assertEquals(operations, stateMachines.get(NodeId.from(2)).operations);
+  }
+
+  @Test
+  public void testFailover() throws Exception {
+    createServices(3, 2, Replication.SYNCHRONOUS);
+
+    List<String> operations = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      operations.add(String.valueOf(i));
+      services.get(NodeId.from(1)).execute(String.valueOf(i)).get(10, TimeUnit.SECONDS);
+    }
+
+    // Fail the primary. The next candidate becomes the primary and continues replicating to the remaining backup.
+    protocols.get(NodeId.from(1)).failed = true;
+    services.remove(NodeId.from(1)).close();
+    for (int i = 10; i < 20; i++) {
+      operations.add(String.valueOf(i));
+      assertEquals(i + 1, services.get(NodeId.from(3)).execute(String.valueOf(i)).get(10, TimeUnit.SECONDS).longValue());
+    }
+    assertEquals(operations, stateMachines.get(NodeId.from(2)).operations);
+    assertEquals(operations, stateMachines.get(NodeId.from(3)).operations);
+  }
+
+  @Test
+  public void testFailoverWithOperationsInFlight() throws Exception {
+    createServices(3, 2, Replication.SYNCHRONOUS);
+
+    List<CompletableFuture<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      futures.add(services.get(NodeId.from(1)).execute(String.valueOf(i)));
+    }
+
+    // Fail the primary once some operations have been committed, while later operations are still being replicated.
+    futures.get(100).get(10, TimeUnit.SECONDS);
+    protocols.get(NodeId.from(1)).failed = true;
+    services.remove(NodeId.from(1)).close();
+
+    // Operations still pending on the failed primary are rejected once it steps down or is closed.
+    Map<Long, String> committed = new ConcurrentHashMap<>();
+    int rejected = 0;
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        committed.put(futures.get(i).get(10, TimeUnit.SECONDS), String.valueOf(i));
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertTrue(e.getCause().getMessage(), e.getCause().getMessage().equals("not the primary")
+            || e.getCause().getMessage().equals("service closed"));
+        rejected++;
+      }
+    }
+    assertEquals(futures.size(), committed.size() + rejected);
+    assertTrue(rejected > 0);
+
+    // The new primary restores the remaining backup, so both nodes agree on a history that includes every
+    // operation acknowledged by the failed primary at the index at which it was acknowledged.
+    String operation = "failover";
+    long index = services.get(NodeId.from(3)).execute(operation).get(10, TimeUnit.SECONDS);
+    List<String> operations = stateMachines.get(NodeId.from(2)).operations;
+    assertEquals(index, operations.size());
+    assertEquals(operation, operations.get(operations.size() - 1));
+    awaitOperations(operations, NodeId.from(3));
+    committed.forEach((committedIndex, committedOperation) ->
+        assertEquals(committedOperation, operations.get((int) (committedIndex - 1))));
+  }
+
+  /**
+   * Creates the given number of services, the first of which is the primary.
+   */
+  private void createServices(int nodes, int numBackups, Replication replication) throws InterruptedException {
+    for (int i = 1; i <= nodes; i++) {
+      createService(NodeId.from(i), numBackups, replication);
+    }
+  }
+
+  /**
+   * Creates a service for the given node and waits for it to enter the election.
+   */
+  private void createService(NodeId nodeId, int numBackups, Replication replication) throws InterruptedException {
+    TestProtocol protocol = new TestProtocol();
+    TestStateMachine stateMachine = new TestStateMachine();
+    protocols.put(nodeId, protocol);
+    stateMachines.put(nodeId, stateMachine);
+    services.put(nodeId, PrimaryBackupService.<NodeId, String>builder()
+        .withProtocol(protocol)
+        .withElection(elections.election(nodeId))
+        .withLocalNode(nodeId)
+        .withStateMachine(stateMachine)
+        .withNumBackups(numBackups)
+        .withReplication(replication)
+        .build());
+    for (int i = 0; i < 100 && !elections.term().candidates().contains(nodeId); i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Waits for the given nodes to apply the given operations.
+   */
+  private void awaitOperations(List<String> operations, NodeId... nodes) throws InterruptedException {
+    for (NodeId node : nodes) {
+      for (int i = 0; i < 100 && !operations.equals(stateMachines.get(node).operations); i++) {
+        Thread.sleep(100);
+      }
+      assertEquals(operations, stateMachines.get(node).operations);
+    }
+  }
+
+  /**
+   * Test state machine that records the operations applied to it.
+   */
+  private static class TestStateMachine implements BackupStateMachine<String> {
+    private final List<String> operations = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void apply(String operation) {
+      operations.add(operation);
+    }
+
+    @Override
+    public Collection<String> snapshot() {
+      return new ArrayList<>(operations);
+    }
+
+    @Override
+    public void restore(Collection<String> snapshot) {
+      operations.clear();
+      operations.addAll(snapshot);
+    }
+  }
+
+  /**
+   * Test election in which candidates are ranked in the order in which they entered.
+   */
+  private static class TestElectionGroup {
+    private final List<NodeId> candidates = new ArrayList<>();
+    private final List<Consumer<PrimaryTerm<NodeId>>> listeners = new CopyOnWriteArrayList<>();
+    private PrimaryTerm<NodeId> term = new PrimaryTerm<>(0, null, new ArrayList<>());
+
+    synchronized PrimaryTerm<NodeId> term() {
+      return term;
+    }
+
+    synchronized PrimaryTerm<NodeId> enter(NodeId nodeId) {
+      candidates.add(nodeId);
+      update();
+      return term;
+    }
+
+    synchronized void withdraw(NodeId nodeId) {
+      candidates.remove(nodeId);
+      update();
+    }
+
+    private void update() {
+      NodeId primary = candidates.isEmpty() ? null : candidates.get(0);
+      long termNumber = primary != null && primary.equals(term.primary()) ? term.term() : term.term() + 1;
+      term = new PrimaryTerm<>(termNumber, primary, candidates);
+      listeners.forEach(listener -> listener.accept(term));
+    }
+
+    PrimaryElection<NodeId> election(NodeId nodeId) {
+      return new PrimaryElection<NodeId>() {
+        @Override
+        public PrimaryTerm<NodeId> enter() {
+          return TestElectionGroup.this.enter(nodeId);
+        }
+
+        @Override
+        public void withdraw() {
+          TestElectionGroup.this.withdraw(nodeId);
+        }
+
+        @Override
+        public PrimaryTerm<NodeId> getTerm() {
+          return term();
+        }
+
+        @Override
+        public void addListener(Consumer<PrimaryTerm<NodeId>> listener) {
+          listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(Consumer<PrimaryTerm<NodeId>> listener) {
+          listeners.remove(listener);
+        }
+      };
+    }
+  }
+
+  /**
+   * In-memory protocol that delivers messages asynchronously.
+   */
+  private class TestProtocol implements BackupProtocol<NodeId, String> {
+    private volatile boolean failed;
+    private volatile Function<ReplicateRequest<NodeId, String>, CompletableFuture<ReplicateResponse>> replicateHandler;
+    private volatile Function<RestoreRequest<NodeId, String>, CompletableFuture<ReplicateResponse>> restoreHandler;
+    private volatile Function<ExecuteRequest<String>, CompletableFuture<ExecuteResponse>> executeHandler;
+
+    private <T, U> CompletableFuture<U> send(NodeId nodeId, T request, Function<TestProtocol, Function<T, CompletableFuture<U>>> handler) {
+      TestProtocol protocol = protocols.get(nodeId);
+      if (failed || protocol == null || protocol.failed || handler.apply(protocol) == null) {
+        CompletableFuture<U> future = new CompletableFuture<>();
+        future.completeExceptionally(new ConnectException());
+        return future;
+      }
+      return CompletableFuture.supplyAsync(() -> request, executor)
+          .thenCompose(handler.apply(protocol))
+          .thenApplyAsync(response -> response, executor);
+    }
+
+    @Override
+    public CompletableFuture<ReplicateResponse> replicate(NodeId backup, ReplicateRequest<NodeId, String> request) {
+      return send(backup, request, protocol -> protocol.replicateHandler);
+    }
+
+    @Override
+    public CompletableFuture<ReplicateResponse> restore(NodeId backup, RestoreRequest<NodeId, String> request) {
+      return send(backup, request, protocol -> protocol.restoreHandler);
+    }
+
+    @Override
+    public CompletableFuture<ExecuteResponse> execute(NodeId primary, ExecuteRequest<String> request) {
+      return send(primary, request, protocol -> protocol.executeHandler);
+    }
+
+    @Override
+    public void registerReplicateHandler(Function<ReplicateRequest<NodeId, String>, CompletableFuture<ReplicateResponse>> handler) {
+      this.replicateHandler = handler;
+    }
+
+    @Override
+    public void unregisterReplicateHandler() {
+      this.replicateHandler = null;
+    }
+
+    @Override
+    public void registerRestoreHandler(Function<RestoreRequest<NodeId, String>, CompletableFuture<ReplicateResponse>> handler) {
+      this.restoreHandler = handler;
+    }
+
+    @Override
+    public void unregisterRestoreHandler() {
+      this.restoreHandler = null;
+    }
+
+    @Override
+    public void registerExecuteHandler(Function<ExecuteRequest<String>, CompletableFuture<ExecuteResponse>> handler) {
+      this.executeHandler = handler;
+    }
+
+    @Override
+    public void unregisterExecuteHandler() {
+      this.executeHandler = null;
+    }
+  }
+
+  /**
+   * Test node identifier.
+   */
+  private static class NodeId extends AbstractIdentifier<String> {
+    static NodeId from(int id) {
+      return new NodeId(String.valueOf(id));
+    }
+
+    NodeId(String id) {
+      super(id);
+    }
+  }
+}
@@ -73,14 +73,16 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
       Duration heartbeatInterval,
       int phiFailureThreshold,
       int minSamples,
-      double phiFactor,
-      double bootstrapPhiValue) {
+      double bootstrapPhiValue,
+      Duration minStandardDeviation,
+      Duration acceptableHeartbeatPause) {
     checkArgument(phiFailureThreshold > 0, "phiFailureThreshold must be positive");
     this.localNode = checkNotNull(localNode, "localNode cannot be null");
     this.protocol = checkNotNull(protocol, "protocol cannot be null");
     this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
     this.phiFailureThreshold = phiFailureThreshold;
-    this.failureDetector = new PhiAccrualFailureDetector<>(minSamples, phiFactor, bootstrapPhiValue);
+    this.failureDetector = new PhiAccrualFailureDetector<>(
+        minSamples, bootstrapPhiValue, minStandardDeviation, acceptableHeartbeatPause);
     this.heartbeatFuture = heartbeatExecutor.scheduleAtFixedRate(
         this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
     protocol.registerHeartbeatListener(new HeartbeatMessageHandler());
@@ -152,8 +154,9 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
     private static final Duration DEFAULT_HEARTBEAT_INTERVAL = Duration.ofMillis(100);
     private static final int DEFAULT_PHI_FAILURE_THRESHOLD = 10;
     private static final int DEFAULT_MIN_SAMPLES = 25;
-    private static final double DEFAULT_PHI_FACTOR = 1.0 / Math.log(10.0);
     private static final double DEFAULT_BOOTSTRAP_PHI_VALUE = 100.0;
+    private static final Duration DEFAULT_MIN_STANDARD_DEVIATION = Duration.ofMillis(50);
+    private static final Duration DEFAULT_ACCEPTABLE_HEARTBEAT_PAUSE = Duration.ofSeconds(2);
 
     private FailureDetectionProtocol<T> protocol;
     private T localNode;
@@ -162,8 +165,9 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
     private Duration heartbeatInterval = DEFAULT_HEARTBEAT_INTERVAL;
     private int phiFailureThreshold = DEFAULT_PHI_FAILURE_THRESHOLD;
     private int minSamples = DEFAULT_MIN_SAMPLES;
-    private double phiFactor = DEFAULT_PHI_FACTOR;
     private double bootstrapPhiValue = DEFAULT_BOOTSTRAP_PHI_VALUE;
+    private Duration minStandardDeviation = DEFAULT_MIN_STANDARD_DEVIATION;
+    private Duration acceptableHeartbeatPause = DEFAULT_ACCEPTABLE_HEARTBEAT_PAUSE;
 
     /**
      * Sets the failure detection protocol.
@@ -253,14 +257,19 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
 
     /**
      * Sets the phi factor.
+     * <p>
+     * Phi is now computed from a normal distribution of heartbeat intervals, which has no phi factor, so the factor
+     * is ignored.
      *
      * @param phiFactor the phi factor
      * @return the failure detection service builder
      * @throws IllegalArgumentException if the phi factor is not positive
+     * @deprecated use {@link #withAcceptableHeartbeatPause(Duration)} and {@link #withMinStandardDeviation(Duration)}
+     *     to tune failure detection instead
      */
+    @Deprecated
     public Builder<T> withPhiFactor(double phiFactor) {
       checkArgument(phiFactor > 0, "phiFactor must be positive");
-      this.phiFactor = phiFactor;
       return this;
     }
 
@@ -277,6 +286,38 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
       return this;
     }
 
+    /**
+     * Sets the minimum standard deviation of heartbeat intervals.
+     * <p>
+     * The minimum standard deviation keeps phi from growing too quickly when heartbeats are very regular.
+     *
+     * @param minStandardDeviation the minimum standard deviation
+     * @return the failure detection service builder
+     * @throws IllegalArgumentException if the minimum standard deviation is not positive
+     */
+    public Builder<T> withMinStandardDeviation(Duration minStandardDeviation) {
+      checkArgument(!minStandardDeviation.isNegative() && !minStandardDeviation.isZero(), "minStandardDeviation must be positive");
+      this.minStandardDeviation = minStandardDeviation;
+      return this;
+    }
+
+    /**
+     * Sets the acceptable heartbeat pause.
+     * <p>
+     * The acceptable pause is added to the mean heartbeat interval, allowing for pauses such as garbage collection
+     * without the node being detected as failed. The default pause of two seconds detects a failure about 2.4 seconds
+     * after the last heartbeat with the default heartbeat interval and phi failure threshold.
+     *
+     * @param acceptableHeartbeatPause the acceptable heartbeat pause
+     * @return the failure detection service builder
+     * @throws IllegalArgumentException if the acceptable heartbeat pause is negative
+     */
+    public Builder<T> withAcceptableHeartbeatPause(Duration acceptableHeartbeatPause) {
+      checkArgument(!acceptableHeartbeatPause.isNegative(), "acceptableHeartbeatPause cannot be negative");
+      this.acceptableHeartbeatPause = acceptableHeartbeatPause;
+      return this;
+    }
+
     @Override
     public FailureDetectionService<T> build() {
       return new PhiAccrualFailureDetectionService<>(
@@ -287,8 +328,9 @@ public class PhiAccrualFailureDetectionService<T extends Identifier>
           heartbeatInterval,
           phiFailureThreshold,
           minSamples,
-          phiFactor,
-          bootstrapPhiValue);
+          bootstrapPhiValue,
+          minStandardDeviation,
+          acceptableHeartbeatPause);
     }
   }
 }
@@ -17,9 +17,11 @@ package io.atomix.protocols.phi;
 
 import com.google.common.collect.Maps;
 import io.atomix.utils.Identifier;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -28,6 +30,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Phi Accrual failure detector.
  * <p>
  * Based on a paper titled: "The φ Accrual Failure Detector" by Hayashibara, et al.
+ * <p>
+ * Heartbeat intervals are assumed to be normally distributed, and phi is computed from the mean and standard deviation
+ * of the intervals in a sliding window. The window is a ring buffer of primitive intervals that maintains a running
+ * sum and sum of squares, so both {@link #report(Identifier) reporting} a heartbeat and computing {@link
+ * #phi(Identifier) phi} take constant time and neither blocks.
  */
 public class PhiAccrualFailureDetector<T extends Identifier> {
   private final Map<T, History> states = Maps.newConcurrentMap();
@@ -35,7 +42,10 @@ public class PhiAccrualFailureDetector<T extends Identifier> {
   // Default value
   private static final int DEFAULT_WINDOW_SIZE = 250;
   private static final int DEFAULT_MIN_SAMPLES = 25;
-  private static final double DEFAULT_PHI_FACTOR = 1.0 / Math.log(10.0);
+  private static final Duration DEFAULT_MIN_STANDARD_DEVIATION = Duration.ofMillis(50);
+  // The default pause keeps the time to detect a failure at the default 100ms heartbeat interval and phi threshold
+  // of 10 close to the 2.3 seconds of the exponential distribution formerly used to compute phi.
+  private static final Duration DEFAULT_ACCEPTABLE_HEARTBEAT_PAUSE = Duration.ofSeconds(2);
 
   // If a node does not have any heartbeats, this is the phi
   // value to report. Indicates the node is inactive (from the
@@ -43,27 +53,51 @@ public class PhiAccrualFailureDetector<T extends Identifier> {
   private static final double DEFAULT_BOOTSTRAP_PHI_VALUE = 100.0;
 
   private final int minSamples;
-  private final double phiFactor;
   private final double bootstrapPhiValue;
+  private final double minStandardDeviation;
+  private final long acceptableHeartbeatPause;
 
   /**
    * Creates a new failure detector with the default configuration.
    */
   public PhiAccrualFailureDetector() {
-    this(DEFAULT_MIN_SAMPLES, DEFAULT_PHI_FACTOR, DEFAULT_BOOTSTRAP_PHI_VALUE);
+    this(DEFAULT_MIN_SAMPLES, DEFAULT_BOOTSTRAP_PHI_VALUE, DEFAULT_MIN_STANDARD_DEVIATION, DEFAULT_ACCEPTABLE_HEARTBEAT_PAUSE);
   }
 
   /**
    * Creates a new failure detector.
+   * <p>
+   * Phi is now computed from a normal distribution of heartbeat intervals, which has no phi factor, so the factor
+   * is ignored and the detector uses the default minimum standard deviation and acceptable heartbeat pause.
    *
    * @param minSamples the minimum number of samples required to compute phi
    * @param phiFactor the phi factor
    * @param bootstrapPhiValue the phi value with which to bootstrap the detector
+   * @deprecated use {@link #PhiAccrualFailureDetector(int, double, Duration, Duration)} instead
    */
+  @Deprecated
   public PhiAccrualFailureDetector(int minSamples, double phiFactor, double bootstrapPhiValue) {
+    this(minSamples, bootstrapPhiValue, DEFAULT_MIN_STANDARD_DEVIATION, DEFAULT_ACCEPTABLE_HEARTBEAT_PAUSE);
+  }
+
+  /**
+   * Creates a new failure detector.
+   *
+   * @param minSamples the minimum number of samples required to compute phi
+   * @param bootstrapPhiValue the phi value with which to bootstrap the detector
+   * @param minStandardDeviation the minimum standard deviation of heartbeat intervals, which keeps phi from growing
+   *                             too quickly when heartbeats are very regular
+   * @param acceptableHeartbeatPause the heartbeat pause to tolerate in addition to the mean heartbeat interval
+   */
+  public PhiAccrualFailureDetector(
+      int minSamples, double bootstrapPhiValue, Duration minStandardDeviation, Duration acceptableHeartbeatPause) {
+    checkArgument(minSamples > 0 && minSamples <= DEFAULT_WINDOW_SIZE, "minSamples must be positive and no greater than the window size");
+    checkArgument(!minStandardDeviation.isNegative() && !minStandardDeviation.isZero(), "minStandardDeviation must be positive");
+    checkArgument(!acceptableHeartbeatPause.isNegative(), "acceptableHeartbeatPause cannot be negative");
     this.minSamples = minSamples;
-    this.phiFactor = phiFactor;
     this.bootstrapPhiValue = bootstrapPhiValue;
+    this.minStandardDeviation = minStandardDeviation.toMillis();
+    this.acceptableHeartbeatPause = acceptableHeartbeatPause.toMillis();
   }
 
   /**
@@ -84,15 +118,7 @@ public class PhiAccrualFailureDetector<T extends Identifier> {
   public void report(T nodeId, long arrivalTime) {
     checkNotNull(nodeId, "NodeId must not be null");
     checkArgument(arrivalTime >= 0, "arrivalTime must not be negative");
-
-    History nodeState = states.computeIfAbsent(nodeId, key -> new History());
-    synchronized (nodeState) {
-      long latestHeartbeat = nodeState.latestHeartbeatTime();
-      if (latestHeartbeat != -1) {
-        nodeState.samples().addValue(arrivalTime - latestHeartbeat);
-      }
-      nodeState.setLatestHeartbeatTime(arrivalTime);
-    }
+    states.computeIfAbsent(nodeId, key -> new History(DEFAULT_WINDOW_SIZE)).report(arrivalTime);
   }
 
   /**
@@ -102,55 +128,97 @@ public class PhiAccrualFailureDetector<T extends Identifier> {
    * @return phi value
    */
   public double phi(T nodeId) {
+    return phi(nodeId, System.currentTimeMillis());
+  }
+
+  /**
+   * Compute phi for the specified node id at the given time.
+   *
+   * @param nodeId      node id
+   * @param currentTime the time at which to compute phi
+   * @return phi value
+   */
+  public double phi(T nodeId, long currentTime) {
     checkNotNull(nodeId, "NodeId must not be null");
-    if (!states.containsKey(nodeId)) {
+    History nodeState = states.get(nodeId);
+    if (nodeState == null) {
       return bootstrapPhiValue;
     }
 
-    History nodeState = states.get(nodeId);
-    synchronized (nodeState) {
-      long latestHeartbeat = nodeState.latestHeartbeatTime();
-      DescriptiveStatistics samples = nodeState.samples();
-      if (latestHeartbeat == -1 || samples.getN() < minSamples) {
-        return 0.0;
-      }
-      return computePhi(samples, latestHeartbeat, System.currentTimeMillis());
+    long latestHeartbeat = nodeState.latestHeartbeatTime();
+    int size = nodeState.size();
+    if (latestHeartbeat == -1 || size < minSamples) {
+      return 0.0;
     }
+
+    double mean = (double) nodeState.sum() / size;
+    double variance = (double) nodeState.sumOfSquares() / size - mean * mean;
+    double standardDeviation = Math.max(Math.sqrt(Math.max(variance, 0)), minStandardDeviation);
+    return computePhi(currentTime - latestHeartbeat, mean + acceptableHeartbeatPause, standardDeviation);
   }
 
   /**
-   * Computes the phi value from the given samples.
+   * Computes phi for the time since the last heartbeat, using a logistic approximation of the cumulative distribution
+   * function of the normal distribution with the given mean and standard deviation.
    *
-   * @param samples the samples from which to compute phi
-   * @param lastHeartbeat the last heartbeat
-   * @param currentTime the current time
+   * @param timeSinceLastHeartbeat the time since the last heartbeat
+   * @param mean the mean heartbeat interval
+   * @param standardDeviation the standard deviation of heartbeat intervals
    * @return phi
    */
-  private double computePhi(DescriptiveStatistics samples, long lastHeartbeat, long currentTime) {
-    long size = samples.getN();
-    long t = currentTime - lastHeartbeat;
-    return (size > 0)
-        ? phiFactor * t / samples.getMean()
-        : bootstrapPhiValue;
+  private static double computePhi(long timeSinceLastHeartbeat, double mean, double standardDeviation) {
+    double y = (timeSinceLastHeartbeat - mean) / standardDeviation;
+    double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+    if (timeSinceLastHeartbeat > mean) {
+      return -Math.log10(e / (1.0 + e));
+    } else {
+      return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
   }
 
   /**
    * Stores the history of heartbeats for a node.
+   * <p>
+   * Each report claims a unique slot in the ring buffer and atomically swaps its interval for the interval it evicts,
+   * so every interval is added to and later removed from the running sums exactly once without locking. Concurrent
+   * readers may observe the sums between updates, which only perturbs phi by a single sample.
    */
   private static class History {
-    DescriptiveStatistics samples = new DescriptiveStatistics(DEFAULT_WINDOW_SIZE);
-    long lastHeartbeatTime = -1;
+    private final AtomicLongArray intervals;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong sumOfSquares = new AtomicLong();
+    private final AtomicLong lastHeartbeatTime = new AtomicLong(-1);
+
+    History(int windowSize) {
+      this.intervals = new AtomicLongArray(windowSize);
+    }
 
-    DescriptiveStatistics samples() {
-      return samples;
+    void report(long arrivalTime) {
+      long latestHeartbeat = lastHeartbeatTime.getAndSet(arrivalTime);
+      if (latestHeartbeat != -1) {
+        long interval = arrivalTime - latestHeartbeat;
+        int slot = (int) (count.getAndIncrement() % intervals.length());
+        long evicted = intervals.getAndSet(slot, interval);
+        sum.addAndGet(interval - evicted);
+        sumOfSquares.addAndGet(interval * interval - evicted * evicted);
+      }
     }
 
-    long latestHeartbeatTime() {
-      return lastHeartbeatTime;
+    int size() {
+      return (int) Math.min(count.get(), intervals.length());
+    }
+
+    long sum() {
+      return sum.get();
+    }
+
+    long sumOfSquares() {
+      return sumOfSquares.get();
     }
 
-    void setLatestHeartbeatTime(long value) {
-      lastHeartbeatTime = value;
+    long latestHeartbeatTime() {
+      return lastHeartbeatTime.get();
     }
   }
-}
\ No newline at end of file
+}
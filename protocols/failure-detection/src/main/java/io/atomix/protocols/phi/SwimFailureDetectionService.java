@@ -0,0 +1,661 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi;
+
+import io.atomix.event.AbstractListenerManager;
+import io.atomix.protocols.phi.protocol.MemberUpdate;
+import io.atomix.protocols.phi.protocol.ProbeMessage;
+import io.atomix.protocols.phi.protocol.ProbeRequest;
+import io.atomix.protocols.phi.protocol.SwimProtocol;
+import io.atomix.utils.Identifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * SWIM failure detection service.
+ * <p>
+ * Rather than heartbeating every peer, each period the service pings a single member chosen in randomized round-robin
+ * order. If the member doesn't acknowledge the ping within the probe timeout, {@code k} other members are asked to
+ * probe it indirectly, and if no acknowledgement is received by the end of the period the member is suspected.
+ * Suspected members are declared {@link FailureDetectionEvent.State#INACTIVE inactive} if they don't refute the
+ * suspicion within the suspicion timeout. Membership updates are disseminated by piggybacking them on probe messages,
+ * so the number of messages sent by each member per period is constant regardless of the size of the cluster.
+ * <p>
+ * Members are {@link FailureDetectionEvent.State#ACTIVE active} while they're alive or suspected, so suspicion alone
+ * does not produce a {@link FailureDetectionEvent}.
+ * <p>
+ * Dead members that are still returned by the peer provider continue to be probed at a lower rate. Probes of a dead
+ * member carry its death, so once a partition heals the member refutes it with a new incarnation and is declared
+ * active again.
+ */
+public class SwimFailureDetectionService<T extends Identifier>
+    extends AbstractListenerManager<FailureDetectionEvent<T>, FailureDetectionEventListener<T>>
+    implements FailureDetectionService<T> {
+
+  /**
+   * Returns a new SWIM failure detection service builder.
+   *
+   * @param <T> the node type
+   * @return a new SWIM failure detection service builder
+   */
+  public static <T extends Identifier> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  private static final int MAX_PIGGYBACK_UPDATES = 8;
+  private static final int DEAD_PROBE_RATIO = 4;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final T localNode;
+  private final SwimProtocol<T> protocol;
+  private final Supplier<Collection<T>> peerProvider;
+  private final ScheduledExecutorService probeExecutor;
+  private final Duration probeInterval;
+  private final Duration probeTimeout;
+  private final int indirectProbes;
+  private final int suspicionMultiplier;
+  private final int retransmitMultiplier;
+  private final ScheduledFuture<?> probeFuture;
+
+  private final Map<T, Member<T>> members = new HashMap<>();
+  private final List<T> probeOrder = new ArrayList<>();
+  private final Map<T, Broadcast<T>> broadcasts = new LinkedHashMap<>();
+  private int probeIndex;
+  private long incarnation;
+  private Probe<T> probe;
+  private boolean open = true;
+
+  public SwimFailureDetectionService(
+      SwimProtocol<T> protocol,
+      T localNode,
+      Supplier<Collection<T>> peerProvider,
+      ScheduledExecutorService probeExecutor,
+      Duration probeInterval,
+      Duration probeTimeout,
+      int indirectProbes,
+      int suspicionMultiplier,
+      int retransmitMultiplier) {
+    checkArgument(probeTimeout.compareTo(probeInterval) < 0, "probeTimeout must be less than probeInterval");
+    this.localNode = checkNotNull(localNode, "localNode cannot be null");
+    this.protocol = checkNotNull(protocol, "protocol cannot be null");
+    this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
+    this.probeExecutor = checkNotNull(probeExecutor, "probeExecutor cannot be null");
+    this.probeInterval = probeInterval;
+    this.probeTimeout = probeTimeout;
+    this.indirectProbes = indirectProbes;
+    this.suspicionMultiplier = suspicionMultiplier;
+    this.retransmitMultiplier = retransmitMultiplier;
+    protocol.registerPingHandler(this::handlePing);
+    protocol.registerPingRequestHandler(this::handlePingRequest);
+    this.probeFuture = probeExecutor.scheduleAtFixedRate(
+        this::probe, probeInterval.toMillis(), probeInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Probes the next member.
+   */
+  private void probe() {
+    try {
+      Probe<T> probe;
+      ProbeMessage<T> ping;
+      synchronized (this) {
+        if (!open) {
+          return;
+        }
+
+        updateMembers();
+
+        // If the member probed in the previous period didn't acknowledge the direct or indirect probes, suspect it.
+        if (this.probe != null && !this.probe.acked) {
+          suspect(this.probe.member);
+        }
+
+        T member = nextMember();
+        if (member == null) {
+          this.probe = null;
+          return;
+        }
+        probe = new Probe<>(member);
+        this.probe = probe;
+        ping = new ProbeMessage<>(localNode, piggyback(member));
+      }
+
+      protocol.ping(probe.member, ping).whenComplete((ack, error) -> {
+        if (error == null) {
+          handleAck(probe, ack);
+        } else {
+          log.trace("Probing {} failed", probe.member, error);
+        }
+      });
+      probeExecutor.schedule(() -> probeIndirect(probe), probeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (Exception e) {
+      log.debug("Failed to probe member", e);
+    }
+  }
+
+  /**
+   * Asks {@code k} random members to probe the given probe's member if it has not been acknowledged.
+   */
+  private void probeIndirect(Probe<T> probe) {
+    Map<T, ProbeRequest<T>> requests = new HashMap<>();
+    synchronized (this) {
+      // Dead members are only probed directly, since they're expected to be unreachable.
+      Member<T> target = members.get(probe.member);
+      if (!open || probe.acked || target == null || target.state == MemberUpdate.State.DEAD) {
+        return;
+      }
+
+      List<T> helpers = members.values().stream()
+          .filter(member -> member.state == MemberUpdate.State.ALIVE && !member.id.equals(probe.member))
+          .map(member -> member.id)
+          .collect(Collectors.toList());
+      Collections.shuffle(helpers, ThreadLocalRandom.current());
+      for (T helper : helpers.subList(0, Math.min(indirectProbes, helpers.size()))) {
+        requests.put(helper, new ProbeRequest<>(localNode, probe.member, piggyback(helper)));
+      }
+    }
+
+    requests.forEach((helper, request) -> protocol.pingRequest(helper, request).whenComplete((ack, error) -> {
+      if (error == null) {
+        handleAck(probe, ack);
+      } else {
+        log.trace("Probing {} through {} failed", probe.member, helper, error);
+      }
+    }));
+  }
+
+  /**
+   * Handles an acknowledgement of a direct or indirect probe.
+   */
+  private synchronized void handleAck(Probe<T> probe, ProbeMessage<T> ack) {
+    probe.acked = true;
+    handleUpdates(ack);
+  }
+
+  /**
+   * Handles a ping from another member.
+   */
+  private synchronized ProbeMessage<T> handlePing(ProbeMessage<T> ping) {
+    handleUpdates(ping);
+    return new ProbeMessage<>(localNode, piggyback(ping.source()));
+  }
+
+  /**
+   * Handles an indirect probe request from another member.
+   */
+  private CompletableFuture<ProbeMessage<T>> handlePingRequest(ProbeRequest<T> request) {
+    ProbeMessage<T> ping;
+    synchronized (this) {
+      handleUpdates(request);
+      ping = new ProbeMessage<>(localNode, piggyback(request.target()));
+    }
+    return protocol.ping(request.target(), ping);
+  }
+
+  /**
+   * Applies the membership updates piggybacked on the given message.
+   */
+  private void handleUpdates(ProbeMessage<T> message) {
+    for (MemberUpdate<T> update : message.updates()) {
+      handleUpdate(update);
+    }
+  }
+
+  /**
+   * Applies a membership update.
+   */
+  private void handleUpdate(MemberUpdate<T> update) {
+    // If another member suspects or has declared the local member dead, refute it with a new incarnation.
+    if (update.member().equals(localNode)) {
+      if (update.state() != MemberUpdate.State.ALIVE && update.incarnation() >= incarnation) {
+        incarnation = update.incarnation() + 1;
+        broadcast(new MemberUpdate<>(localNode, MemberUpdate.State.ALIVE, incarnation));
+      }
+      return;
+    }
+
+    Member<T> member = members.get(update.member());
+    if (member == null) {
+      return;
+    }
+
+    boolean accept;
+    switch (update.state()) {
+      case ALIVE:
+        accept = update.incarnation() > member.incarnation;
+        break;
+      case SUSPECT:
+        accept = member.state == MemberUpdate.State.ALIVE && update.incarnation() >= member.incarnation
+            || member.state == MemberUpdate.State.SUSPECT && update.incarnation() > member.incarnation;
+        break;
+      case DEAD:
+        accept = member.state != MemberUpdate.State.DEAD && update.incarnation() >= member.incarnation;
+        break;
+      default:
+        throw new AssertionError();
+    }
+
+    if (accept) {
+      updateState(member, update.state(), update.incarnation());
+      broadcast(update);
+    }
+  }
+
+  /**
+   * Suspects the given member.
+   */
+  private void suspect(T id) {
+    Member<T> member = members.get(id);
+    if (member != null && member.state == MemberUpdate.State.ALIVE) {
+      log.debug("Suspecting {}", id);
+      updateState(member, MemberUpdate.State.SUSPECT, member.incarnation);
+      broadcast(new MemberUpdate<>(id, MemberUpdate.State.SUSPECT, member.incarnation));
+    }
+  }
+
+  /**
+   * Declares the given member dead if it hasn't refuted the suspicion with the given incarnation.
+   */
+  private synchronized void expireSuspicion(T id, long incarnation) {
+    Member<T> member = members.get(id);
+    if (open && member != null && member.state == MemberUpdate.State.SUSPECT && member.incarnation == incarnation) {
+      log.debug("Suspicion of {} timed out", id);
+      updateState(member, MemberUpdate.State.DEAD, incarnation);
+      broadcast(new MemberUpdate<>(id, MemberUpdate.State.DEAD, incarnation));
+    }
+  }
+
+  /**
+   * Updates the state of the given member, posting an event if the member became active or inactive.
+   */
+  private void updateState(Member<T> member, MemberUpdate.State state, long incarnation) {
+    MemberUpdate.State previousState = member.state;
+    member.state = state;
+    member.incarnation = incarnation;
+
+    if (member.suspicionTimer != null) {
+      member.suspicionTimer.cancel(false);
+      member.suspicionTimer = null;
+    }
+    if (state == MemberUpdate.State.SUSPECT) {
+      member.suspicionTimer = probeExecutor.schedule(
+          () -> expireSuspicion(member.id, incarnation), suspicionTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    FailureDetectionEvent.State previousEventState = eventState(previousState);
+    FailureDetectionEvent.State eventState = eventState(state);
+    if (previousEventState != eventState) {
+      post(new FailureDetectionEvent<>(FailureDetectionEvent.Type.STATE_CHANGE, member.id, previousEventState, eventState));
+    }
+  }
+
+  /**
+   * Returns the failure detection state for the given member state.
+   */
+  private static FailureDetectionEvent.State eventState(MemberUpdate.State state) {
+    return state == MemberUpdate.State.DEAD ? FailureDetectionEvent.State.INACTIVE : FailureDetectionEvent.State.ACTIVE;
+  }
+
+  /**
+   * Returns the suspicion timeout in milliseconds, which grows logarithmically with the size of the cluster to allow
+   * time for the suspicion to be disseminated and refuted.
+   */
+  private long suspicionTimeout() {
+    return suspicionMultiplier * log2(members.size() + 1) * probeInterval.toMillis();
+  }
+
+  /**
+   * Returns the number of times each update is piggybacked, which grows logarithmically with the size of the cluster.
+   */
+  private int retransmitLimit() {
+    return retransmitMultiplier * log2(members.size() + 1);
+  }
+
+  /**
+   * Returns the ceiling of the base 2 logarithm of the given value.
+   */
+  private static int log2(int value) {
+    return Math.max(32 - Integer.numberOfLeadingZeros(value - 1), 1);
+  }
+
+  /**
+   * Synchronizes the membership with the peer provider.
+   */
+  private void updateMembers() {
+    Set<T> peers = new HashSet<>(peerProvider.get());
+    peers.remove(localNode);
+
+    Iterator<Member<T>> iterator = members.values().iterator();
+    while (iterator.hasNext()) {
+      Member<T> member = iterator.next();
+      if (!peers.contains(member.id)) {
+        if (member.suspicionTimer != null) {
+          member.suspicionTimer.cancel(false);
+        }
+        iterator.remove();
+        probeOrder.remove(member.id);
+        broadcasts.remove(member.id);
+      }
+    }
+
+    for (T peer : peers) {
+      if (!members.containsKey(peer)) {
+        Member<T> member = new Member<>(peer);
+        members.put(peer, member);
+        probeOrder.add(ThreadLocalRandom.current().nextInt(probeOrder.size() + 1), peer);
+        post(new FailureDetectionEvent<>(FailureDetectionEvent.Type.STATE_CHANGE, peer, null, FailureDetectionEvent.State.ACTIVE));
+      }
+    }
+    if (probeIndex > probeOrder.size()) {
+      probeIndex = probeOrder.size();
+    }
+  }
+
+  /**
+   * Returns the next member to probe in randomized round-robin order.
+   * <p>
+   * The probe order is reshuffled after each pass through the membership, which bounds the time before a failed
+   * member is probed. Dead members are only probed on every {@value #DEAD_PROBE_RATIO}th turn, so the members of a
+   * healed partition eventually probe each other without dead members taking the place of live ones.
+   */
+  private T nextMember() {
+    for (int i = 0; i < probeOrder.size(); i++) {
+      if (probeIndex >= probeOrder.size()) {
+        Collections.shuffle(probeOrder, ThreadLocalRandom.current());
+        probeIndex = 0;
+      }
+      Member<T> member = members.get(probeOrder.get(probeIndex++));
+      if (member.state != MemberUpdate.State.DEAD) {
+        return member.id;
+      }
+      if (++member.deadTurns >= DEAD_PROBE_RATIO) {
+        member.deadTurns = 0;
+        return member.id;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Queues a membership update for dissemination, replacing any older update for the same member.
+   */
+  private void broadcast(MemberUpdate<T> update) {
+    broadcasts.remove(update.member());
+    broadcasts.put(update.member(), new Broadcast<>(update));
+  }
+
+  /**
+   * Returns the updates to piggyback on a message to the given member.
+   * <p>
+   * The least transmitted updates are piggybacked first, and updates are discarded once they've been transmitted
+   * {@link #retransmitLimit()} times. If the given member is suspected or dead, the update is always included so the
+   * member can refute it.
+   */
+  private List<MemberUpdate<T>> piggyback(T target) {
+    int limit = retransmitLimit();
+    List<Broadcast<T>> selected = broadcasts.values().stream()
+        .sorted(Comparator.comparingInt(broadcast -> broadcast.transmits))
+        .limit(MAX_PIGGYBACK_UPDATES)
+        .collect(Collectors.toList());
+
+    List<MemberUpdate<T>> updates = new ArrayList<>(selected.size() + 1);
+    for (Broadcast<T> broadcast : selected) {
+      updates.add(broadcast.update);
+      if (++broadcast.transmits >= limit) {
+        broadcasts.remove(broadcast.update.member());
+      }
+    }
+
+    Member<T> member = members.get(target);
+    if (member != null && member.state != MemberUpdate.State.ALIVE
+        && selected.stream().noneMatch(broadcast -> broadcast.update.member().equals(target))) {
+      updates.add(new MemberUpdate<>(target, member.state, member.incarnation));
+    }
+    return updates;
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      open = false;
+      members.values().stream()
+          .filter(member -> member.suspicionTimer != null)
+          .forEach(member -> member.suspicionTimer.cancel(false));
+    }
+    protocol.unregisterPingHandler();
+    protocol.unregisterPingRequestHandler();
+    probeFuture.cancel(false);
+  }
+
+  /**
+   * Local view of a member.
+   */
+  private static class Member<T> {
+    private final T id;
+    private MemberUpdate.State state = MemberUpdate.State.ALIVE;
+    private long incarnation;
+    private int deadTurns;
+    private ScheduledFuture<?> suspicionTimer;
+
+    Member(T id) {
+      this.id = id;
+    }
+  }
+
+  /**
+   * Membership update queued for dissemination.
+   */
+  private static class Broadcast<T extends Identifier> {
+    private final MemberUpdate<T> update;
+    private int transmits;
+
+    Broadcast(MemberUpdate<T> update) {
+      this.update = update;
+    }
+  }
+
+  /**
+   * Probe of a single member in a protocol period.
+   */
+  private static class Probe<T> {
+    private final T member;
+    private volatile boolean acked;
+
+    Probe(T member) {
+      this.member = member;
+    }
+  }
+
+  /**
+   * SWIM failure detection service builder.
+   *
+   * @param <T> the node type
+   */
+  public static class Builder<T extends Identifier> implements FailureDetectionService.Builder<T> {
+    private static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofMillis(500);
+    private static final Duration DEFAULT_PROBE_TIMEOUT = Duration.ofMillis(200);
+    private static final int DEFAULT_INDIRECT_PROBES = 3;
+    private static final int DEFAULT_SUSPICION_MULTIPLIER = 4;
+    private static final int DEFAULT_RETRANSMIT_MULTIPLIER = 3;
+
+    private SwimProtocol<T> protocol;
+    private T localNode;
+    private Supplier<Collection<T>> peerProvider;
+    private ScheduledExecutorService probeExecutor;
+    private Duration probeInterval = DEFAULT_PROBE_INTERVAL;
+    private Duration probeTimeout = DEFAULT_PROBE_TIMEOUT;
+    private int indirectProbes = DEFAULT_INDIRECT_PROBES;
+    private int suspicionMultiplier = DEFAULT_SUSPICION_MULTIPLIER;
+    private int retransmitMultiplier = DEFAULT_RETRANSMIT_MULTIPLIER;
+
+    /**
+     * Sets the SWIM protocol.
+     *
+     * @param protocol the SWIM protocol
+     * @return the failure detection service builder
+     * @throws NullPointerException if the protocol is null
+     */
+    public Builder<T> withProtocol(SwimProtocol<T> protocol) {
+      this.protocol = checkNotNull(protocol, "protocol cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the local node identifier.
+     *
+     * @param identifier the local identifier
+     * @return the failure detection service builder
+     * @throws NullPointerException if the identifier is null
+     */
+    public Builder<T> withLocalNode(T identifier) {
+      this.localNode = checkNotNull(identifier, "identifier cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the peer provider function.
+     *
+     * @param peerProvider the peer provider
+     * @return the failure detection service builder
+     * @throws NullPointerException if the peer provider is null
+     */
+    public Builder<T> withPeerProvider(Supplier<Collection<T>> peerProvider) {
+      this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the probe executor.
+     *
+     * @param executor the probe executor
+     * @return the failure detection service builder
+     * @throws NullPointerException if the probe executor is null
+     */
+    public Builder<T> withProbeExecutor(ScheduledExecutorService executor) {
+      this.probeExecutor = checkNotNull(executor, "executor cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the probe interval.
+     * <p>
+     * A single member is probed in each interval.
+     *
+     * @param interval the probe interval
+     * @return the failure detection service builder
+     * @throws NullPointerException if the probe interval is null
+     */
+    public Builder<T> withProbeInterval(Duration interval) {
+      this.probeInterval = checkNotNull(interval, "interval cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the probe timeout.
+     * <p>
+     * If a member does not acknowledge a ping within the probe timeout, it's probed indirectly. The timeout must be
+     * less than the probe interval.
+     *
+     * @param timeout the probe timeout
+     * @return the failure detection service builder
+     * @throws NullPointerException if the probe timeout is null
+     */
+    public Builder<T> withProbeTimeout(Duration timeout) {
+      this.probeTimeout = checkNotNull(timeout, "timeout cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the number of members through which to probe a member indirectly.
+     *
+     * @param indirectProbes the number of indirect probes
+     * @return the failure detection service builder
+     * @throws IllegalArgumentException if the number of indirect probes is negative
+     */
+    public Builder<T> withIndirectProbes(int indirectProbes) {
+      checkArgument(indirectProbes >= 0, "indirectProbes cannot be negative");
+      this.indirectProbes = indirectProbes;
+      return this;
+    }
+
+    /**
+     * Sets the suspicion multiplier.
+     * <p>
+     * Suspected members are declared inactive after {@code suspicionMultiplier * log2(n) * probeInterval}.
+     *
+     * @param suspicionMultiplier the suspicion multiplier
+     * @return the failure detection service builder
+     * @throws IllegalArgumentException if the suspicion multiplier is not positive
+     */
+    public Builder<T> withSuspicionMultiplier(int suspicionMultiplier) {
+      checkArgument(suspicionMultiplier > 0, "suspicionMultiplier must be positive");
+      this.suspicionMultiplier = suspicionMultiplier;
+      return this;
+    }
+
+    /**
+     * Sets the retransmit multiplier.
+     * <p>
+     * Each membership update is piggybacked on {@code retransmitMultiplier * log2(n)} messages.
+     *
+     * @param retransmitMultiplier the retransmit multiplier
+     * @return the failure detection service builder
+     * @throws IllegalArgumentException if the retransmit multiplier is not positive
+     */
+    public Builder<T> withRetransmitMultiplier(int retransmitMultiplier) {
+      checkArgument(retransmitMultiplier > 0, "retransmitMultiplier must be positive");
+      this.retransmitMultiplier = retransmitMultiplier;
+      return this;
+    }
+
+    @Override
+    public FailureDetectionService<T> build() {
+      return new SwimFailureDetectionService<>(
+          protocol,
+          localNode,
+          peerProvider,
+          probeExecutor,
+          probeInterval,
+          probeTimeout,
+          indirectProbes,
+          suspicionMultiplier,
+          retransmitMultiplier);
+    }
+  }
+}
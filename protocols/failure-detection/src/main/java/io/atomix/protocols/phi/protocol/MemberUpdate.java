@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi.protocol;
+
+import io.atomix.utils.Identifier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * SWIM membership update.
+ * <p>
+ * Membership updates are piggybacked on probe messages. Each update is qualified by the member's incarnation number,
+ * which is incremented only by the member itself to refute suspicions of its failure.
+ */
+public class MemberUpdate<T extends Identifier> {
+
+  /**
+   * Member state.
+   */
+  public enum State {
+    ALIVE,
+    SUSPECT,
+    DEAD,
+  }
+
+  private final T member;
+  private final State state;
+  private final long incarnation;
+
+  public MemberUpdate(T member, State state, long incarnation) {
+    this.member = checkNotNull(member, "member cannot be null");
+    this.state = checkNotNull(state, "state cannot be null");
+    this.incarnation = incarnation;
+  }
+
+  /**
+   * Returns the updated member.
+   *
+   * @return the updated member
+   */
+  public T member() {
+    return member;
+  }
+
+  /**
+   * Returns the member state.
+   *
+   * @return the member state
+   */
+  public State state() {
+    return state;
+  }
+
+  /**
+   * Returns the member incarnation number.
+   *
+   * @return the member incarnation number
+   */
+  public long incarnation() {
+    return incarnation;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("member", member)
+        .add("state", state)
+        .add("incarnation", incarnation)
+        .toString();
+  }
+}
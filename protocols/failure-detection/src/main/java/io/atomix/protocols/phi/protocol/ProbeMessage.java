@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * SWIM probe message.
+ * <p>
+ * Probe messages are used both for pings and their acknowledgements, and carry piggybacked membership updates.
+ */
+public class ProbeMessage<T extends Identifier> {
+  private final T source;
+  private final Collection<MemberUpdate<T>> updates;
+
+  public ProbeMessage(T source, Collection<MemberUpdate<T>> updates) {
+    this.source = checkNotNull(source, "source cannot be null");
+    this.updates = checkNotNull(updates, "updates cannot be null");
+  }
+
+  /**
+   * Returns the message source.
+   *
+   * @return the message source
+   */
+  public T source() {
+    return source;
+  }
+
+  /**
+   * Returns the piggybacked membership updates.
+   *
+   * @return the piggybacked membership updates
+   */
+  public Collection<MemberUpdate<T>> updates() {
+    return updates;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("source", source)
+        .add("updates", updates)
+        .toString();
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * SWIM indirect probe request.
+ * <p>
+ * An indirect probe request asks a helper to ping the target on behalf of the source and to relay the target's
+ * acknowledgement back to the source.
+ */
+public class ProbeRequest<T extends Identifier> extends ProbeMessage<T> {
+  private final T target;
+
+  public ProbeRequest(T source, T target, Collection<MemberUpdate<T>> updates) {
+    super(source, updates);
+    this.target = checkNotNull(target, "target cannot be null");
+  }
+
+  /**
+   * Returns the probe target.
+   *
+   * @return the member to probe on behalf of the source
+   */
+  public T target() {
+    return target;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("source", source())
+        .add("target", target)
+        .add("updates", updates())
+        .toString();
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * SWIM failure detection protocol.
+ */
+public interface SwimProtocol<T extends Identifier> {
+
+  /**
+   * Sends a ping to the given member.
+   *
+   * @param member the member to ping
+   * @param message the ping message
+   * @return a future to be completed with the member's acknowledgement
+   */
+  CompletableFuture<ProbeMessage<T>> ping(T member, ProbeMessage<T> message);
+
+  /**
+   * Sends an indirect probe request to the given helper.
+   *
+   * @param helper the member through which to probe the target
+   * @param request the indirect probe request
+   * @return a future to be completed with the target's acknowledgement relayed by the helper
+   */
+  CompletableFuture<ProbeMessage<T>> pingRequest(T helper, ProbeRequest<T> request);
+
+  /**
+   * Registers a ping handler.
+   *
+   * @param handler the ping handler, which returns the acknowledgement to send to the source
+   */
+  void registerPingHandler(Function<ProbeMessage<T>, ProbeMessage<T>> handler);
+
+  /**
+   * Unregisters the ping handler.
+   */
+  void unregisterPingHandler();
+
+  /**
+   * Registers an indirect probe request handler.
+   *
+   * @param handler the indirect probe request handler, which returns a future to be completed with the target's
+   *                acknowledgement
+   */
+  void registerPingRequestHandler(Function<ProbeRequest<T>, CompletableFuture<ProbeMessage<T>>> handler);
+
+  /**
+   * Unregisters the indirect probe request handler.
+   */
+  void unregisterPingRequestHandler();
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi;
+
+import io.atomix.utils.AbstractIdentifier;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Phi accrual failure detector test.
+ */
+public class PhiAccrualFailureDetectorTest {
+
+  @Test
+  public void testPhi() throws Exception {
+    PhiAccrualFailureDetector<NodeId> detector = new PhiAccrualFailureDetector<>(
+        10, 100.0, Duration.ofMillis(10), Duration.ZERO);
+    NodeId node = new NodeId("foo");
+    assertEquals(100.0, detector.phi(node, 0), 0);
+
+    // Phi is zero until the minimum number of samples has been reported.
+    long time = 0;
+    for (int i = 0; i < 5; i++) {
+      detector.report(node, time += 100);
+    }
+    assertEquals(0.0, detector.phi(node, time + 1000), 0);
+
+    for (int i = 0; i < 100; i++) {
+      detector.report(node, time += i % 2 == 0 ? 90 : 110);
+    }
+
+    // Phi grows with the number of standard deviations past the mean interval.
+    assertTrue(detector.phi(node, time + 50) < 0.1);
+    assertEquals(Math.log10(2), detector.phi(node, time + 100), 0.01);
+    double phi = detector.phi(node, time + 150);
+    assertTrue(phi > 3 && phi < 10);
+    assertTrue(detector.phi(node, time + 200) > phi);
+  }
+
+  @Test
+  public void testDefaultDetectionTime() throws Exception {
+    PhiAccrualFailureDetector<NodeId> detector = new PhiAccrualFailureDetector<>();
+    NodeId node = new NodeId("foo");
+    long time = 0;
+    for (int i = 0; i <= 250; i++) {
+      detector.report(node, time += 100);
+    }
+
+    // With regular 100ms heartbeats, phi reaches the default threshold of 10 about 2.4 seconds after the last one.
+    assertTrue(detector.phi(node, time + 2000) < 1);
+    assertTrue(detector.phi(node, time + 2300) < 10);
+    assertTrue(detector.phi(node, time + 2500) > 10);
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testDeprecatedConstructorDetectionTime() throws Exception {
+    PhiAccrualFailureDetector<NodeId> detector = new PhiAccrualFailureDetector<>(25, 1.0 / Math.log(10.0), 100.0);
+    NodeId node = new NodeId("foo");
+    long time = 0;
+    for (int i = 0; i <= 250; i++) {
+      detector.report(node, time += 100);
+    }
+
+    // The phi factor is ignored and the default acceptable heartbeat pause applies.
+    assertTrue(detector.phi(node, time + 2300) < 10);
+    assertTrue(detector.phi(node, time + 2500) > 10);
+  }
+
+  @Test
+  public void testSlidingWindow() throws Exception {
+    PhiAccrualFailureDetector<NodeId> detector = new PhiAccrualFailureDetector<>(
+        25, 100.0, Duration.ofMillis(50), Duration.ZERO);
+    NodeId node = new NodeId("foo");
+
+    // Once the window is full of longer intervals, earlier intervals no longer contribute to the mean.
+    long time = 0;
+    for (int i = 0; i <= 250; i++) {
+      detector.report(node, time += 100);
+    }
+    for (int i = 0; i < 250; i++) {
+      detector.report(node, time += 1000);
+    }
+    assertEquals(Math.log10(2), detector.phi(node, time + 1000), 0.01);
+  }
+
+  /**
+   * Test node identifier.
+   */
+  private static class NodeId extends AbstractIdentifier<String> {
+    NodeId(String id) {
+      super(id);
+    }
+  }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.phi;
+
+import io.atomix.protocols.phi.protocol.ProbeMessage;
+import io.atomix.protocols.phi.protocol.ProbeRequest;
+import io.atomix.protocols.phi.protocol.SwimProtocol;
+import io.atomix.utils.AbstractIdentifier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SWIM failure detection service test.
+ * <p>
+ * Members are simulated in-process on a shared executor, and messages are delivered asynchronously through an
+ * in-memory network.
+ */
+public class SwimFailureDetectionServiceTest {
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private static final Duration PROBE_INTERVAL = Duration.ofMillis(200);
+  private static final Duration PROBE_TIMEOUT = Duration.ofMillis(80);
+
+  private ScheduledExecutorService executor;
+  private TestNetwork network;
+  private List<FailureDetectionService<MemberId>> services;
+
+  @Before
+  public void setupNetwork() {
+    executor = Executors.newScheduledThreadPool(4);
+    network = new TestNetwork(executor);
+    services = new ArrayList<>();
+  }
+
+  @After
+  public void teardownNetwork() {
+    services.forEach(FailureDetectionService::close);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Simulates hundreds of members, measuring the message load in steady state and the latency with which a failed
+   * member is detected by every other member.
+   */
+  @Test
+  public void testSimulation() throws Exception {
+    int size = 200;
+    Map<MemberId, Map<MemberId, Long>> inactive = createMembers(size, 2);
+
+    // Measure the message load once the members are running.
+    Thread.sleep(PROBE_INTERVAL.toMillis() * 10);
+    network.messages.set(0);
+    long start = System.nanoTime();
+    Thread.sleep(PROBE_INTERVAL.toMillis() * 20);
+    double periods = (System.nanoTime() - start) / (double) PROBE_INTERVAL.toNanos();
+    double load = network.messages.get() / periods / size;
+
+    // Fail a member and wait for every other member to detect the failure.
+    MemberId failed = MemberId.from(0);
+    long failedTime = System.nanoTime();
+    network.fail(failed);
+    services.get(0).close();
+    for (int i = 0; i < 300 && inactive.get(failed).size() < size - 1; i++) {
+      Thread.sleep(100);
+    }
+
+    assertEquals(size - 1, inactive.get(failed).size());
+    long maxLatency = inactive.get(failed).values().stream().mapToLong(time -> time - failedTime).max().getAsLong();
+    double averageLatency = inactive.get(failed).values().stream().mapToLong(time -> time - failedTime).average().getAsDouble();
+    log.debug("{} members: {} messages/member/period, detection latency {}ms average, {}ms max",
+        size, load, TimeUnit.NANOSECONDS.toMillis((long) averageLatency), TimeUnit.NANOSECONDS.toMillis(maxLatency));
+
+    // Each member sends a ping and an acknowledgement per period, regardless of the size of the cluster.
+    assertTrue(load < 4);
+
+    // No live member should have been declared inactive.
+    inactive.forEach((member, detections) -> {
+      if (!member.equals(failed)) {
+        assertTrue(detections.isEmpty());
+      }
+    });
+  }
+
+  /**
+   * Tests that a member which is briefly unreachable refutes its suspicion rather than being declared inactive.
+   */
+  @Test
+  public void testRefuteSuspicion() throws Exception {
+    int size = 10;
+    Map<MemberId, Map<MemberId, Long>> inactive = createMembers(size, 5);
+    Thread.sleep(PROBE_INTERVAL.toMillis() * 5);
+
+    MemberId member = MemberId.from(0);
+    network.fail(member);
+    Thread.sleep(PROBE_INTERVAL.toMillis() * 10);
+    network.recover(member);
+    Thread.sleep(PROBE_INTERVAL.toMillis() * 20);
+    assertTrue(inactive.get(member).isEmpty());
+
+    network.fail(member);
+    for (int i = 0; i < 150 && inactive.get(member).size() < size - 1; i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(size - 1, inactive.get(member).size());
+  }
+
+  /**
+   * Tests that the members on both sides of a partition declare each other inactive, and that they're declared active
+   * again once the partition heals.
+   */
+  @Test
+  public void testPartitionHeal() throws Exception {
+    int size = 10;
+    Map<MemberId, Map<MemberId, Long>> inactive = createMembers(size, 2);
+    Map<MemberId, Set<MemberId>> active = new ConcurrentHashMap<>();
+    for (int i = 0; i < size; i++) {
+      MemberId observer = MemberId.from(i);
+      active.put(observer, ConcurrentHashMap.newKeySet());
+      services.get(i).addListener(event -> {
+        if (event.newState() == FailureDetectionEvent.State.ACTIVE) {
+          active.get(observer).add(event.subject());
+        } else {
+          active.get(observer).remove(event.subject());
+        }
+      });
+    }
+    Thread.sleep(PROBE_INTERVAL.toMillis() * 5);
+
+    // Partition the members in half and wait for each half to declare the other inactive.
+    Set<MemberId> partition = new HashSet<>();
+    for (int i = 0; i < size / 2; i++) {
+      partition.add(MemberId.from(i));
+    }
+    network.partition(partition);
+    for (int i = 0; i < 300 && inactive.values().stream().anyMatch(detections -> detections.size() < size / 2); i++) {
+      Thread.sleep(100);
+    }
+    inactive.values().forEach(detections -> assertEquals(size / 2, detections.size()));
+
+    // Once the partition heals, dead members are still probed, refute their deaths, and become active again.
+    network.heal();
+    for (int i = 0; i < 300 && active.values().stream().anyMatch(members -> members.size() < size - 1); i++) {
+      Thread.sleep(100);
+    }
+    active.values().forEach(members -> assertEquals(size - 1, members.size()));
+  }
+
+  /**
+   * Creates the given number of members with the given suspicion multiplier, returning a map of the times at which each member was detected inactive by
+   * each other member.
+   */
+  private Map<MemberId, Map<MemberId, Long>> createMembers(int size, int suspicionMultiplier) {
+    List<MemberId> members = new ArrayList<>(size);
+    Map<MemberId, Map<MemberId, Long>> inactive = new ConcurrentHashMap<>();
+    for (int i = 0; i < size; i++) {
+      members.add(MemberId.from(i));
+      inactive.put(MemberId.from(i), new ConcurrentHashMap<>());
+    }
+
+    for (MemberId member : members) {
+      FailureDetectionService<MemberId> service = SwimFailureDetectionService.<MemberId>builder()
+          .withProtocol(network.protocol(member))
+          .withLocalNode(member)
+          .withPeerProvider(() -> members)
+          .withProbeExecutor(executor)
+          .withProbeInterval(PROBE_INTERVAL)
+          .withProbeTimeout(PROBE_TIMEOUT)
+          .withSuspicionMultiplier(suspicionMultiplier)
+          .build();
+      service.addListener(event -> {
+        if (event.newState() == FailureDetectionEvent.State.INACTIVE) {
+          inactive.get(event.subject()).put(member, System.nanoTime());
+        }
+      });
+      services.add(service);
+    }
+    return inactive;
+  }
+
+  /**
+   * In-memory network.
+   */
+  private static class TestNetwork {
+    private final ScheduledExecutorService executor;
+    private final Map<MemberId, TestProtocol> protocols = new ConcurrentHashMap<>();
+    private final Set<MemberId> failed = ConcurrentHashMap.newKeySet();
+    private final Set<MemberId> partitioned = ConcurrentHashMap.newKeySet();
+    private final AtomicLong messages = new AtomicLong();
+
+    TestNetwork(ScheduledExecutorService executor) {
+      this.executor = executor;
+    }
+
+    TestProtocol protocol(MemberId member) {
+      return protocols.computeIfAbsent(member, TestProtocol::new);
+    }
+
+    void fail(MemberId member) {
+      failed.add(member);
+    }
+
+    void recover(MemberId member) {
+      failed.remove(member);
+    }
+
+    /**
+     * Partitions the given members from the rest of the members.
+     */
+    void partition(Set<MemberId> members) {
+      partitioned.addAll(members);
+    }
+
+    /**
+     * Heals the partition.
+     */
+    void heal() {
+      partitioned.clear();
+    }
+
+    /**
+     * Returns whether messages between the given members are dropped.
+     */
+    private boolean isDropped(MemberId source, MemberId target) {
+      return failed.contains(source) || failed.contains(target) || partitioned.contains(source) != partitioned.contains(target);
+    }
+
+    /**
+     * Delivers a request from the source to the target, dropping it if either member has failed or they're partitioned.
+     */
+    <T, U> CompletableFuture<U> send(MemberId source, MemberId target, T request, Function<TestProtocol, Function<T, CompletableFuture<U>>> handler) {
+      CompletableFuture<U> future = new CompletableFuture<>();
+      messages.incrementAndGet();
+      if (isDropped(source, target)) {
+        return future;
+      }
+      executor.execute(() -> {
+        Function<T, CompletableFuture<U>> targetHandler = handler.apply(protocols.get(target));
+        if (targetHandler != null) {
+          targetHandler.apply(request).thenAccept(response -> {
+            messages.incrementAndGet();
+            if (!isDropped(source, target)) {
+              future.complete(response);
+            }
+          });
+        }
+      });
+      return future;
+    }
+
+    /**
+     * Member protocol.
+     */
+    private class TestProtocol implements SwimProtocol<MemberId> {
+      private final MemberId member;
+      private volatile Function<ProbeMessage<MemberId>, ProbeMessage<MemberId>> pingHandler;
+      private volatile Function<ProbeRequest<MemberId>, CompletableFuture<ProbeMessage<MemberId>>> pingRequestHandler;
+
+      TestProtocol(MemberId member) {
+        this.member = member;
+      }
+
+      @Override
+      public CompletableFuture<ProbeMessage<MemberId>> ping(MemberId target, ProbeMessage<MemberId> message) {
+        return send(member, target, message, protocol -> {
+          Function<ProbeMessage<MemberId>, ProbeMessage<MemberId>> handler = protocol.pingHandler;
+          return handler != null ? ping -> CompletableFuture.completedFuture(handler.apply(ping)) : null;
+        });
+      }
+
+      @Override
+      public CompletableFuture<ProbeMessage<MemberId>> pingRequest(MemberId helper, ProbeRequest<MemberId> request) {
+        return send(member, helper, request, protocol -> protocol.pingRequestHandler);
+      }
+
+      @Override
+      public void registerPingHandler(Function<ProbeMessage<MemberId>, ProbeMessage<MemberId>> handler) {
+        this.pingHandler = handler;
+      }
+
+      @Override
+      public void unregisterPingHandler() {
+        this.pingHandler = null;
+      }
+
+      @Override
+      public void registerPingRequestHandler(Function<ProbeRequest<MemberId>, CompletableFuture<ProbeMessage<MemberId>>> handler) {
+        this.pingRequestHandler = handler;
+      }
+
+      @Override
+      public void unregisterPingRequestHandler() {
+        this.pingRequestHandler = null;
+      }
+    }
+  }
+
+  /**
+   * Test member identifier.
+   */
+  private static class MemberId extends AbstractIdentifier<String> {
+    static MemberId from(int id) {
+      return new MemberId(String.valueOf(id));
+    }
+
+    MemberId(String id) {
+      super(id);
+    }
+  }
+}
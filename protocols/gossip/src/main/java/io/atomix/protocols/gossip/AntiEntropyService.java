@@ -18,7 +18,9 @@ package io.atomix.protocols.gossip;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.RateLimiter;
 import io.atomix.event.AbstractListenerManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,36 +29,62 @@ import io.atomix.protocols.gossip.protocol.AntiEntropyProtocol;
 import io.atomix.protocols.gossip.protocol.AntiEntropyResponse;
 import io.atomix.protocols.gossip.protocol.GossipMessage;
 import io.atomix.protocols.gossip.protocol.GossipUpdate;
-import io.atomix.time.LogicalClock;
-import io.atomix.utils.AbstractAccumulator;
+import io.atomix.time.HybridLogicalClock;
+import io.atomix.time.HybridTimestamp;
+import io.atomix.utils.AbstractConcurrentAccumulator;
 import io.atomix.utils.Identifier;
 import io.atomix.utils.SlidingWindowCounter;
 
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Timer;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Anti-entropy service.
+ * <p>
+ * Updates are disseminated to peers as they occur and periodically reconciled with peers through anti-entropy
+ * exchanges. Rather than advertising a digest of every update, the service maintains a {@link MerkleTree} of update
+ * digests. An anti-entropy exchange compares the roots of the peers' trees and descends only into the subtrees whose
+ * hashes differ, so the size of an exchange is proportional to the number of differences rather than the number of
+ * updates.
+ * <p>
+ * Updates are stored in an {@link UpdateStore} striped by the subtrees of the digest tree. Inbound gossip messages and
+ * local writes lock only the stripes of the keys they update, and anti-entropy exchanges read the store and the tree
+ * without locking.
+ * <p>
+ * The anti-entropy interval adapts to divergence. Each exchange in which the peers' trees differed, whether the peer
+ * was missing updates or held newer ones, halves the interval down to the minimum interval, and each exchange in which
+ * the peers agreed doubles it up to the maximum interval, so replicas reconcile quickly after partitions and failures
+ * and exchange rarely while they agree. Each round exchanges with the peer that was least recently updated. While the
+ * service is under high load from inbound updates, the exchanges it initiates and accepts are rate limited to one per
+ * configured anti-entropy interval rather than suspended. Per-peer {@link DivergenceMetrics} are exposed by
+ * {@link #divergenceMetrics()}.
+ * <p>
+ * Tombstones are purged once every peer has been updated since they were written. Tombstones that precede this
+ * purge horizon are excluded from anti-entropy exchanges even before they're purged from every stripe, so a peer
+ * that has not yet purged a tombstone never causes a peer that has to pull it back.
  */
 public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEvent<K, V>, GossipEventListener<K, V>> implements GossipService<K, V> {
 
   private static final int WINDOW_SIZE = 5;
-  private static final int HIGH_LOAD_THRESHOLD = 2;
+  private static final int HIGH_LOAD_THRESHOLD = 20000;
   private static final int LOAD_WINDOW = 2;
+  static final int TREE_DEPTH = 3;
 
   private final Logger log = LoggerFactory.getLogger(getClass());
   private final AntiEntropyProtocol<Identifier> protocol;
@@ -65,14 +93,23 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   private final Executor communicationExecutor;
 
   private final boolean tombstonesDisabled;
+  private final long minAntiEntropyInterval;
+  private final long maxAntiEntropyInterval;
+  private final AtomicLong antiEntropyInterval;
+  private final RateLimiter loadLimiter;
+  private volatile long lastAntiEntropyTime;
+  private volatile long purgeHorizon;
 
   private final ScheduledFuture<?> updateFuture;
   private final ScheduledFuture<?> purgeFuture;
 
-  private final Map<K, GossipUpdate<K, V>> updates = Maps.newLinkedHashMap();
-  private final LogicalClock logicalClock = new LogicalClock();
+  private final MerkleTree<K> tree = new MerkleTree<>(TREE_DEPTH);
+  private final UpdateStore<K, V> updates = new UpdateStore<>(MerkleTree.FANOUT, tree::stripe, this::updateTree);
+  private final HybridLogicalClock clock = new HybridLogicalClock();
   private final Map<Identifier, UpdateAccumulator> pendingUpdates = Maps.newConcurrentMap();
   private final Map<Identifier, Long> peerUpdateTimes = Maps.newConcurrentMap();
+  private final Map<Identifier, DivergenceMetrics> peerMetrics = Maps.newConcurrentMap();
+  private final Set<Identifier> exchangingPeers = Sets.newConcurrentHashSet();
 
   private volatile boolean open = true;
 
@@ -86,14 +123,40 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
       Duration antiEntropyInterval,
       boolean tombstonesDisabled,
       Duration purgeInterval) {
+    this(protocol, peerProvider, eventExecutor, communicationExecutor, antiEntropyInterval, antiEntropyInterval,
+        antiEntropyInterval, tombstonesDisabled, purgeInterval);
+  }
+
+  public AntiEntropyService(
+      AntiEntropyProtocol<Identifier> protocol,
+      Supplier<Collection<Identifier>> peerProvider,
+      Executor eventExecutor,
+      ScheduledExecutorService communicationExecutor,
+      Duration antiEntropyInterval,
+      Duration minAntiEntropyInterval,
+      Duration maxAntiEntropyInterval,
+      boolean tombstonesDisabled,
+      Duration purgeInterval) {
     this.protocol = checkNotNull(protocol, "protocol cannot be null");
     this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
     this.eventExecutor = checkNotNull(eventExecutor, "eventExecutor cannot be null");
     this.communicationExecutor = checkNotNull(communicationExecutor, "communicationExecutor cannot be null");
     this.tombstonesDisabled = tombstonesDisabled;
+    long interval = Math.max(antiEntropyInterval.toMillis(), 1);
+    checkArgument(minAntiEntropyInterval.compareTo(maxAntiEntropyInterval) <= 0,
+        "minAntiEntropyInterval cannot be greater than maxAntiEntropyInterval");
+    // The configured interval is the initial interval, and the bounds are widened to include it.
+    this.minAntiEntropyInterval = Math.max(Math.min(minAntiEntropyInterval.toMillis(), interval), 1);
+    this.maxAntiEntropyInterval = Math.max(maxAntiEntropyInterval.toMillis(), interval);
+    this.antiEntropyInterval = new AtomicLong(interval);
+    this.loadLimiter = RateLimiter.create(1000d / interval);
     protocol.registerGossipListener(this::update);
-    updateFuture = communicationExecutor.scheduleAtFixedRate(this::performAntiEntropy, 0, antiEntropyInterval.toMillis(), TimeUnit.MILLISECONDS);
-    purgeFuture = !tombstonesDisabled ? communicationExecutor.scheduleAtFixedRate(this::purgeTombstones, 0, purgeInterval.toMillis(), TimeUnit.MILLISECONDS) : null;
+    protocol.registerAdvertisementHandler(this::handleAdvertisement);
+    // Rounds are checked at the minimum interval so changes to the interval take effect immediately.
+    updateFuture = communicationExecutor.scheduleWithFixedDelay(this::performAntiEntropy, 0, this.minAntiEntropyInterval, TimeUnit.MILLISECONDS);
+    // Tombstones are purged one stripe at a time, so each stripe is purged once per purge interval.
+    long stripePurgeInterval = Math.max(purgeInterval.toMillis() / updates.stripes(), 1);
+    purgeFuture = !tombstonesDisabled ? communicationExecutor.scheduleAtFixedRate(this::purgeTombstones, 0, stripePurgeInterval, TimeUnit.MILLISECONDS) : null;
   }
 
   @Override
@@ -106,7 +169,7 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
     GossipUpdate<K, V> update = new GossipUpdate<>(
         event.subject(),
         event.value(),
-        logicalClock.increment());
+        clock.increment());
 
     if (update.isTombstone()) {
       // For deletes, simply remove the event if tombstones are disabled.
@@ -114,35 +177,44 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
       if (tombstonesDisabled) {
         updates.remove(update.subject());
       } else {
-        updates.put(event.subject(), update);
+        updates.put(update);
         notifyPeers(update);
       }
     } else {
-      updates.put(event.subject(), update);
+      updates.put(update);
       notifyPeers(update);
     }
     post(event);
   }
 
+  /**
+   * Updates the digest tree when the update for a key changes.
+   * <p>
+   * This method is called by the update store under the lock of the key's stripe.
+   */
+  private void updateTree(K subject, GossipUpdate<K, V> previousUpdate, GossipUpdate<K, V> update) {
+    tree.update(subject, previousUpdate != null ? previousUpdate.digest() : null, update != null ? update.digest() : null);
+  }
+
   /**
    * Handles a gossip message.
    */
-  private synchronized void update(GossipMessage<K, V> message) {
-    // Update the logical clock using the peer's logical time.
-    logicalClock.update(message.timestamp());
+  private void update(GossipMessage<K, V> message) {
+    // Update the clock using the peer's hybrid time.
+    clock.update(message.timestamp());
+    counter.incrementCount(message.updates().size());
+    long horizon = purgeHorizon;
     for (GossipUpdate<K, V> update : message.updates()) {
-      GossipUpdate<K, V> existingUpdate = updates.get(update.subject());
+      // Tombstones preceding the purge horizon may have been purged, so they're only applied over existing updates.
+      if (isExpiredTombstone(update, horizon) && updates.get(update.subject()) == null) {
+        continue;
+      }
 
       // If no existing update is found, or if an update is overriding a tombstone, or if the update
       // version is greater than the existing entry version, perform the update.
-      if (existingUpdate == null
-          || (existingUpdate.isTombstone() && !update.isTombstone())
-          || existingUpdate.timestamp().isOlderThan(update.timestamp())) {
-        // It's possible tombstones could just be disabled on this node.
-        if (!tombstonesDisabled) {
-          updates.put(update.subject(), update);
-        }
-
+      // It's possible tombstones could just be disabled on this node.
+      boolean updated = tombstonesDisabled ? updates.isNewer(update) : updates.putIfNewer(update);
+      if (updated) {
         // Post the event to listeners.
         post(new GossipEvent<>(
             update.creationTime(),
@@ -172,14 +244,37 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   }
 
   /**
-   * Sends an anti-entropy advertisement to a random peer.
+   * Returns the current anti-entropy interval.
+   *
+   * @return the current anti-entropy interval
+   */
+  public Duration antiEntropyInterval() {
+    return Duration.ofMillis(antiEntropyInterval.get());
+  }
+
+  /**
+   * Returns the divergence metrics for each peer with which an anti-entropy exchange has been performed.
+   *
+   * @return the divergence metrics for each peer
+   */
+  public Map<Identifier, DivergenceMetrics> divergenceMetrics() {
+    return ImmutableMap.copyOf(peerMetrics);
+  }
+
+  /**
+   * Sends an anti-entropy advertisement to the least recently updated peer if the anti-entropy interval has elapsed.
    */
   private void performAntiEntropy() {
     try {
-      if (underHighLoad() || !open) {
+      long time = System.currentTimeMillis();
+      if (!open || time - lastAntiEntropyTime < antiEntropyInterval.get()) {
         return;
       }
-      pickRandomActivePeer().ifPresent(this::sendAdvertisementToPeer);
+      lastAntiEntropyTime = time;
+      if (underHighLoad() && !loadLimiter.tryAcquire()) {
+        return;
+      }
+      pickLeastRecentlyUpdatedPeer().ifPresent(peer -> sendAdvertisementToPeer(peer, time));
     } catch (Exception e) {
       // Catch all exceptions to avoid scheduled task being suppressed.
       log.error("Exception thrown while sending advertisement", e);
@@ -187,43 +282,189 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   }
 
   /**
-   * Picks a random active peer to which to send an anti-entropy advertisement.
+   * Picks the least recently updated peer to which to send an anti-entropy advertisement.
+   * <p>
+   * Peers are ordered by the time of their last successful exchange, or of their last failed exchange if it's more
+   * recent so unreachable peers don't starve the others. Peers with an exchange in progress are skipped, and ties are
+   * broken randomly.
    *
-   * @return a random peer to which to send an anti-entropy advertisement
+   * @return the least recently updated peer to which to send an anti-entropy advertisement
    */
-  private Optional<Identifier> pickRandomActivePeer() {
+  private Optional<Identifier> pickLeastRecentlyUpdatedPeer() {
     List<Identifier> peers = Lists.newArrayList(peerProvider.get());
     Collections.shuffle(peers);
-    return peers.isEmpty() ? Optional.empty() : Optional.of(peers.get(0));
+    Identifier stalestPeer = null;
+    long stalestTime = Long.MAX_VALUE;
+    for (Identifier peer : peers) {
+      if (!exchangingPeers.contains(peer)) {
+        long time = Math.max(
+            peerUpdateTimes.getOrDefault(peer, 0L),
+            peerMetrics.getOrDefault(peer, DivergenceMetrics.EMPTY).lastFailureTime());
+        if (time < stalestTime) {
+          stalestPeer = peer;
+          stalestTime = time;
+        }
+      }
+    }
+    return Optional.ofNullable(stalestPeer);
   }
 
   /**
    * Sends an anti-entropy advertisement to the given peer.
    *
    * @param peer the peer to which to send the anti-entropy advertisement
+   * @param updateTime the time at which the anti-entropy exchange began
    */
-  private void sendAdvertisementToPeer(Identifier peer) {
-    long updateTime = System.currentTimeMillis();
-    AntiEntropyAdvertisement<K> advertisement = new AntiEntropyAdvertisement<>(
-        ImmutableMap.copyOf(Maps.transformValues(updates, GossipUpdate::digest)));
-    protocol.advertise(peer, advertisement).whenComplete((response, error) -> {
+  private void sendAdvertisementToPeer(Identifier peer, long updateTime) {
+    if (exchangingPeers.add(peer)) {
+      AntiEntropyAdvertisement<K> advertisement = new AntiEntropyAdvertisement<>(
+          Collections.singletonMap(MerkleTree.ROOT, tree.hash(MerkleTree.ROOT)),
+          Collections.emptyMap());
+      sendAdvertisementToPeer(peer, advertisement, new Exchange(peer, updateTime));
+    }
+  }
+
+  /**
+   * Sends an anti-entropy advertisement to the given peer.
+   * <p>
+   * If the peer responds with nodes whose hashes differ from the advertised hashes, another advertisement is sent
+   * for the children of the differing nodes. Once the differing nodes are leaves, the digests of the updates in the
+   * leaves are advertised, and the peer responds with the keys of the updates it needs.
+   *
+   * @param peer the peer to which to send the anti-entropy advertisement
+   * @param advertisement the anti-entropy advertisement to send
+   * @param exchange the anti-entropy exchange
+   */
+  private void sendAdvertisementToPeer(Identifier peer, AntiEntropyAdvertisement<K> advertisement, Exchange exchange) {
+    protocol.<K>advertise(peer, advertisement).whenComplete((response, error) -> {
       if (error != null) {
         log.debug("Failed to send anti-entropy advertisement to {}: {}", peer, error.getMessage());
-      } else if (response.status() == AntiEntropyResponse.Status.PROCESSED) {
+        exchange.fail();
+      } else if (response.status() != AntiEntropyResponse.Status.PROCESSED) {
+        exchange.fail();
+      } else {
         if (!response.keys().isEmpty()) {
-          UpdateAccumulator accumulator = getAccumulator(peer);
-          for (K key : response.keys()) {
-            GossipUpdate<K, V> update = updates.get(key);
-            if (update != null) {
-              accumulator.add(update);
-            }
+          queueUpdates(peer, response.keys());
+          exchange.keysSent.addAndGet(response.keys().size());
+        }
+
+        // If any advertised nodes differ, descend into the differing nodes. Otherwise, the exchange is complete.
+        List<Integer> differingNodes = Lists.newArrayList();
+        for (int node : response.nodes()) {
+          if (advertisement.hashes().containsKey(node)) {
+            differingNodes.add(node);
           }
         }
-        peerUpdateTimes.put(peer, updateTime);
+        exchange.differingNodes.addAndGet(differingNodes.size());
+        if (!differingNodes.isEmpty() && open) {
+          sendAdvertisementToPeer(peer, createAdvertisement(differingNodes), exchange);
+        } else {
+          exchange.complete();
+        }
       }
     });
   }
 
+  /**
+   * Adapts the anti-entropy interval to the outcome of an exchange.
+   * <p>
+   * The interval is halved if the replicas diverged and doubled if they agreed, within the interval bounds.
+   *
+   * @param diverged indicates whether the replicas diverged
+   */
+  private void adaptAntiEntropyInterval(boolean diverged) {
+    antiEntropyInterval.updateAndGet(interval -> diverged
+        ? Math.max(interval / 2, minAntiEntropyInterval)
+        : Math.min(interval * 2, maxAntiEntropyInterval));
+  }
+
+  /**
+   * Creates an anti-entropy advertisement descending into the given differing digest tree nodes.
+   * <p>
+   * If the nodes are inner nodes, the advertisement contains the hashes of the nodes' children. If the nodes are
+   * leaves, the advertisement contains the digests of the updates in the leaves.
+   *
+   * @param nodes the differing digest tree nodes
+   * @return the anti-entropy advertisement
+   */
+  private AntiEntropyAdvertisement<K> createAdvertisement(Collection<Integer> nodes) {
+    Map<Integer, Long> hashes = Maps.newHashMap();
+    Map<K, GossipUpdate.Digest> digest = Maps.newHashMap();
+    long horizon = purgeHorizon;
+    for (int node : nodes) {
+      if (tree.isLeaf(node)) {
+        for (K key : tree.keys(node)) {
+          GossipUpdate<K, V> update = updates.get(key);
+          if (update != null && !isExpiredTombstone(update, horizon)) {
+            digest.put(key, update.digest());
+          }
+        }
+      } else {
+        for (int child : tree.children(node)) {
+          hashes.put(child, tree.hash(child));
+        }
+      }
+    }
+    return new AntiEntropyAdvertisement<>(hashes, digest);
+  }
+
+  /**
+   * Handles an anti-entropy advertisement from a peer.
+   * <p>
+   * The response contains the advertised digest tree nodes whose hashes differ from the local tree, and the keys of
+   * advertised updates that are newer than the local updates. Advertised tombstones that precede the purge horizon
+   * are only pulled if they supersede a local update, since the local tombstone may have been purged.
+   *
+   * @param advertisement the anti-entropy advertisement to handle
+   * @return the anti-entropy response
+   */
+  private AntiEntropyResponse<K> handleAdvertisement(AntiEntropyAdvertisement<K> advertisement) {
+    // Under high load, new exchanges are rate limited, but exchanges in progress are allowed to complete.
+    if (!open || (underHighLoad() && advertisement.hashes().containsKey(MerkleTree.ROOT) && !loadLimiter.tryAcquire())) {
+      return new AntiEntropyResponse<>(AntiEntropyResponse.Status.IGNORED, Collections.emptySet());
+    }
+
+    Set<Integer> nodes = Sets.newHashSet();
+    for (Map.Entry<Integer, Long> entry : advertisement.hashes().entrySet()) {
+      if (tree.contains(entry.getKey()) && tree.hash(entry.getKey()) != entry.getValue()) {
+        nodes.add(entry.getKey());
+      }
+    }
+
+    Set<K> keys = Sets.newHashSet();
+    long horizon = purgeHorizon;
+    for (Map.Entry<K, GossipUpdate.Digest> entry : advertisement.digest().entrySet()) {
+      GossipUpdate<K, V> localUpdate = updates.get(entry.getKey());
+      if (localUpdate == null
+          ? !isExpiredTombstone(entry.getValue(), horizon)
+          : entry.getValue().isNewerThan(localUpdate.digest())) {
+        keys.add(entry.getKey());
+      }
+    }
+
+    // If this node is missing updates, reconcile with other peers sooner as well.
+    if (!keys.isEmpty()) {
+      adaptAntiEntropyInterval(true);
+    }
+    return new AntiEntropyResponse<>(AntiEntropyResponse.Status.PROCESSED, keys, nodes);
+  }
+
+  /**
+   * Queues the updates for the given keys to be sent to the given peer.
+   *
+   * @param peer the peer to which to send the updates
+   * @param keys the keys of the updates to send
+   */
+  private void queueUpdates(Identifier peer, Collection<K> keys) {
+    UpdateAccumulator accumulator = getAccumulator(peer);
+    for (K key : keys) {
+      GossipUpdate<K, V> update = updates.get(key);
+      if (update != null) {
+        accumulator.add(update);
+      }
+    }
+  }
+
   /**
    * Notifies peers of an update.
    *
@@ -258,30 +499,46 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
   }
 
   /**
-   * Purges tombstones from updates.
+   * Purges tombstones from the next stripe of updates.
+   * <p>
+   * Tombstones are purged by the physical time of their hybrid timestamps, which is the same on every node, once
+   * every peer has been updated since that time.
    */
-  private synchronized void purgeTombstones() {
-    long minTombstoneTime = peerProvider.get().stream()
+  private void purgeTombstones() {
+    long horizon = peerProvider.get().stream()
         .map(peer -> peerUpdateTimes.getOrDefault(peer, 0L))
         .reduce(Math::min)
         .orElse(0L);
-    Iterator<Map.Entry<K, GossipUpdate<K, V>>> iterator = updates.entrySet().iterator();
-    while (iterator.hasNext()) {
-      GossipUpdate<K, V> update = iterator.next().getValue();
-      if (update.isTombstone() && update.creationTime() < minTombstoneTime) {
-        iterator.remove();
-      }
-    }
+    purgeHorizon = horizon;
+    updates.purgeTombstones(update -> update.updateTime() < horizon);
+  }
+
+  /**
+   * Returns a boolean indicating whether the given update is a tombstone that precedes the given purge horizon.
+   */
+  private static boolean isExpiredTombstone(GossipUpdate<?, ?> update, long horizon) {
+    return update.isTombstone() && update.updateTime() < horizon;
+  }
+
+  /**
+   * Returns a boolean indicating whether the given digest is of a tombstone that precedes the given purge horizon.
+   */
+  private static boolean isExpiredTombstone(GossipUpdate.Digest digest, long horizon) {
+    return digest.isTombstone()
+        && digest.timestamp() instanceof HybridTimestamp
+        && ((HybridTimestamp) digest.timestamp()).physicalTime() < horizon;
   }
 
   @Override
   public void close() {
     open = false;
     protocol.unregisterGossipListener();
+    protocol.unregisterAdvertisementHandler();
     updateFuture.cancel(false);
     if (purgeFuture != null) {
       purgeFuture.cancel(false);
     }
+    counter.destroy();
   }
 
   @Override
@@ -291,19 +548,53 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
         .toString();
   }
 
+  /**
+   * Anti-entropy exchange with a peer.
+   */
+  private final class Exchange {
+    private final Identifier peer;
+    private final long updateTime;
+    private final AtomicInteger differingNodes = new AtomicInteger();
+    private final AtomicInteger keysSent = new AtomicInteger();
+
+    private Exchange(Identifier peer, long updateTime) {
+      this.peer = peer;
+      this.updateTime = updateTime;
+    }
+
+    /**
+     * Completes the exchange, recording the peer's divergence and adapting the anti-entropy interval.
+     */
+    private void complete() {
+      peerUpdateTimes.put(peer, updateTime);
+      peerMetrics.compute(peer, (key, metrics) -> (metrics != null ? metrics : DivergenceMetrics.EMPTY)
+          .completed(updateTime, differingNodes.get(), keysSent.get()));
+      exchangingPeers.remove(peer);
+      adaptAntiEntropyInterval(differingNodes.get() > 0 || keysSent.get() > 0);
+    }
+
+    /**
+     * Fails the exchange.
+     */
+    private void fail() {
+      peerMetrics.compute(peer, (key, metrics) -> (metrics != null ? metrics : DivergenceMetrics.EMPTY)
+          .failed(updateTime));
+      exchangingPeers.remove(peer);
+    }
+  }
+
   private static final int DEFAULT_MAX_EVENTS = 1000;
   private static final int DEFAULT_MAX_IDLE_MS = 10;
   private static final int DEFAULT_MAX_BATCH_MS = 50;
-  private static final Timer TIMER = new Timer("onos-ecm-sender-events");
 
   /**
    * Accumulator for dispatching updates to a peer.
    */
-  private final class UpdateAccumulator extends AbstractAccumulator<GossipUpdate<K, V>> {
+  private final class UpdateAccumulator extends AbstractConcurrentAccumulator<GossipUpdate<K, V>> {
     private final Identifier peer;
 
     private UpdateAccumulator(Identifier peer) {
-      super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
+      super(DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
       this.peer = peer;
     }
 
@@ -311,10 +602,10 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
     public void processItems(List<GossipUpdate<K, V>> items) {
       Map<K, GossipUpdate<K, V>> map = Maps.newHashMap();
       items.forEach(item -> map.compute(item.subject(), (key, existing) ->
-          item.timestamp().isNewerThan(existing.timestamp()) ? item : existing));
+          item.isNewerThan(existing) ? item : existing));
       communicationExecutor.execute(() -> {
         try {
-          protocol.gossip(peer, new GossipMessage<>(logicalClock.increment(), map.values()));
+          protocol.gossip(peer, new GossipMessage<>(clock.increment(), map.values()));
         } catch (Exception e) {
           log.warn("Failed to send to {}", peer, e);
         }
@@ -334,6 +625,8 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
     protected Executor eventExecutor = MoreExecutors.directExecutor();
     protected ScheduledExecutorService communicationExecutor;
     protected Duration antiEntropyInterval = Duration.ofSeconds(1);
+    protected Duration minAntiEntropyInterval = Duration.ofMillis(100);
+    protected Duration maxAntiEntropyInterval = Duration.ofSeconds(10);
     protected boolean tombstonesDisabled = false;
     protected Duration purgeInterval = Duration.ofMinutes(1);
 
@@ -386,7 +679,11 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
     }
 
     /**
-     * Sets the anti-entropy interval.
+     * Sets the initial anti-entropy interval.
+     * <p>
+     * The interval adapts to divergence between the {@link #withMinAntiEntropyInterval(Duration) minimum} and
+     * {@link #withMaxAntiEntropyInterval(Duration) maximum} intervals. While the service is under high load, exchanges
+     * are rate limited to one per initial interval.
      *
      * @param antiEntropyInterval the anti-entropy interval
      * @return the anti-entropy service builder
@@ -397,6 +694,30 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
       return this;
     }
 
+    /**
+     * Sets the minimum anti-entropy interval, to which the interval is shortened while replicas diverge.
+     *
+     * @param minAntiEntropyInterval the minimum anti-entropy interval
+     * @return the anti-entropy service builder
+     * @throws NullPointerException if the minimum anti-entropy interval is null
+     */
+    public Builder<K, V> withMinAntiEntropyInterval(Duration minAntiEntropyInterval) {
+      this.minAntiEntropyInterval = checkNotNull(minAntiEntropyInterval, "minAntiEntropyInterval cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the maximum anti-entropy interval, to which the interval backs off while replicas agree.
+     *
+     * @param maxAntiEntropyInterval the maximum anti-entropy interval
+     * @return the anti-entropy service builder
+     * @throws NullPointerException if the maximum anti-entropy interval is null
+     */
+    public Builder<K, V> withMaxAntiEntropyInterval(Duration maxAntiEntropyInterval) {
+      this.maxAntiEntropyInterval = checkNotNull(maxAntiEntropyInterval, "maxAntiEntropyInterval cannot be null");
+      return this;
+    }
+
     /**
      * Sets whether to disable tombstones.
      *
@@ -422,7 +743,8 @@ public class AntiEntropyService<K, V> extends AbstractListenerManager<GossipEven
 
     @Override
     public GossipService<K, V> build() {
-      return new AntiEntropyService<>(protocol, peerProvider, eventExecutor, communicationExecutor, antiEntropyInterval, tombstonesDisabled, purgeInterval);
+      return new AntiEntropyService<>(protocol, peerProvider, eventExecutor, communicationExecutor, antiEntropyInterval,
+          minAntiEntropyInterval, maxAntiEntropyInterval, tombstonesDisabled, purgeInterval);
     }
   }
 }
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.atomix.event.AbstractListenerManager;
+import io.atomix.protocols.gossip.crdt.DeltaCrdt;
+import io.atomix.protocols.gossip.protocol.GossipMessage;
+import io.atomix.protocols.gossip.protocol.GossipProtocol;
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.time.HybridLogicalClock;
+import io.atomix.time.HybridTimestamp;
+import io.atomix.utils.AbstractConcurrentAccumulator;
+import io.atomix.utils.Identifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Delta-state CRDT gossip service.
+ * <p>
+ * Rather than replicating last-writer-wins values, the service replicates the state of a {@link DeltaCrdt} for each
+ * subject. Local mutations produce deltas which are batched per peer and joined into delta groups before being sent,
+ * so only the changed parts of each state are disseminated and concurrent updates are merged rather than lost.
+ * <p>
+ * Deltas may be lost or reordered, so local deltas are also kept in a sequenced delta buffer. At each anti-entropy
+ * interval, the deltas a random peer has not yet acknowledged are joined into a delta interval and sent to the peer,
+ * which joins the interval into its state and acknowledges it. Deltas acknowledged by every peer are removed from the
+ * buffer. The full state of every subject is only sent to peers that have not yet acknowledged an interval, or that
+ * have fallen behind the deltas remaining in the buffer. Acknowledgements require the local node identifier, and
+ * without it the full state is sent at every interval.
+ * <p>
+ * Events posted to listeners carry the delta that was applied to the subject's state.
+ */
+public class DeltaCrdtService<K, C extends DeltaCrdt<C>> extends AbstractListenerManager<GossipEvent<K, C>, GossipEventListener<K, C>> implements GossipService<K, C> {
+
+  /**
+   * Returns a new delta CRDT service builder.
+   *
+   * @param <K> the subject type
+   * @param <C> the CRDT type
+   * @return a new delta CRDT service builder
+   */
+  public static <K, C extends DeltaCrdt<C>> Builder<K, C> builder() {
+    return new Builder<>();
+  }
+
+  private static final int MAX_BUFFERED_DELTAS = 10000;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final GossipProtocol protocol;
+  private final Identifier localNode;
+  private final Supplier<Collection<Identifier>> peerProvider;
+  private final Executor eventExecutor;
+  private final Executor communicationExecutor;
+  private final Supplier<C> stateFactory;
+  private final ScheduledFuture<?> antiEntropyFuture;
+  private final Map<K, C> states = Maps.newHashMap();
+  private final HybridLogicalClock clock = new HybridLogicalClock();
+  private final Map<Identifier, DeltaAccumulator> pendingDeltas = Maps.newConcurrentMap();
+  private final NavigableMap<Long, GossipUpdate<K, C>> deltas = new TreeMap<>();
+  private final Map<Identifier, Long> acks = Maps.newHashMap();
+  private long sequence;
+  private volatile boolean open = true;
+
+  public DeltaCrdtService(
+      GossipProtocol<?> protocol,
+      Supplier<Collection<Identifier>> peerProvider,
+      Executor eventExecutor,
+      ScheduledExecutorService communicationExecutor,
+      Supplier<C> stateFactory,
+      Duration antiEntropyInterval) {
+    this(protocol, null, peerProvider, eventExecutor, communicationExecutor, stateFactory, antiEntropyInterval);
+  }
+
+  public DeltaCrdtService(
+      GossipProtocol<?> protocol,
+      Identifier localNode,
+      Supplier<Collection<Identifier>> peerProvider,
+      Executor eventExecutor,
+      ScheduledExecutorService communicationExecutor,
+      Supplier<C> stateFactory,
+      Duration antiEntropyInterval) {
+    this.protocol = checkNotNull(protocol, "protocol cannot be null");
+    this.localNode = localNode;
+    this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
+    this.eventExecutor = checkNotNull(eventExecutor, "eventExecutor cannot be null");
+    this.communicationExecutor = checkNotNull(communicationExecutor, "communicationExecutor cannot be null");
+    this.stateFactory = checkNotNull(stateFactory, "stateFactory cannot be null");
+    protocol.<K, C>registerGossipListener(this::update);
+    antiEntropyFuture = communicationExecutor.scheduleAtFixedRate(this::performAntiEntropy, 0, antiEntropyInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected void post(GossipEvent<K, C> event) {
+    eventExecutor.execute(() -> super.post(event));
+  }
+
+  /**
+   * Returns a copy of the state for the given subject.
+   *
+   * @param subject the subject for which to return the state
+   * @return a copy of the subject's state or {@code null} if the subject has no state
+   */
+  public synchronized C get(K subject) {
+    C state = states.get(subject);
+    return state != null ? state.copy() : null;
+  }
+
+  /**
+   * Mutates the state for the given subject and disseminates the resulting delta.
+   * <p>
+   * The mutator is applied to the subject's local state and must return the delta produced by the mutation, e.g.
+   * {@code service.update("hits", counter -> counter.increment())}.
+   *
+   * @param subject the subject to update
+   * @param mutator the mutator to apply to the subject's state
+   * @return the delta produced by the mutation
+   */
+  public synchronized C update(K subject, Function<C, C> mutator) {
+    C delta = checkNotNull(mutator.apply(states.computeIfAbsent(subject, s -> stateFactory.get())), "delta cannot be null");
+    GossipUpdate<K, C> update = new GossipUpdate<>(subject, delta, clock.increment());
+    bufferDelta(update);
+    notifyPeers(update);
+    post(new GossipEvent<>(subject, delta));
+    return delta;
+  }
+
+  /**
+   * Joins the delta carried by the given event into the subject's state and disseminates the delta.
+   *
+   * @param event the event carrying the delta to apply
+   */
+  @Override
+  public synchronized void process(GossipEvent<K, C> event) {
+    C delta = checkNotNull(event.value(), "delta cannot be null");
+    states.computeIfAbsent(event.subject(), s -> stateFactory.get()).join(delta);
+    GossipUpdate<K, C> update = new GossipUpdate<>(event.subject(), delta, clock.increment());
+    bufferDelta(update);
+    notifyPeers(update);
+    post(event);
+  }
+
+  /**
+   * Adds a local delta to the delta buffer.
+   * <p>
+   * If the buffer is full, the oldest delta is discarded, and peers that have not acknowledged it are sent the full
+   * state instead.
+   *
+   * @param update the delta update to buffer
+   */
+  private void bufferDelta(GossipUpdate<K, C> update) {
+    deltas.put(sequence++, update);
+    if (deltas.size() > MAX_BUFFERED_DELTAS) {
+      deltas.pollFirstEntry();
+    }
+  }
+
+  /**
+   * Handles a gossip message, joining each delta or state into the local state.
+   * <p>
+   * A message without updates acknowledges a delta interval. Delta intervals and states are acknowledged to the
+   * sender once they've been joined.
+   */
+  private synchronized void update(GossipMessage<K, C> message) {
+    clock.update(message.timestamp());
+    if (message.updates().isEmpty()) {
+      if (message.replyTo() != null) {
+        acknowledge(message.replyTo(), message.sequence());
+      }
+      return;
+    }
+
+    for (GossipUpdate<K, C> update : message.updates()) {
+      if (update.value() != null) {
+        states.computeIfAbsent(update.subject(), s -> stateFactory.get()).join(update.value());
+        post(new GossipEvent<>(update.subject(), update.value()));
+      }
+    }
+
+    Identifier sender = message.replyTo();
+    if (sender != null && localNode != null) {
+      GossipMessage<K, C> ack = new GossipMessage<>(clock.increment(), Collections.emptyList(), localNode, message.sequence());
+      communicationExecutor.execute(() -> protocol.gossip(sender, ack));
+    }
+  }
+
+  /**
+   * Records a peer's acknowledgement of the deltas preceding the given sequence number, and removes the deltas that
+   * have been acknowledged by every peer from the delta buffer.
+   *
+   * @param peer the peer that acknowledged the deltas
+   * @param ackSequence the sequence number following the last acknowledged delta
+   */
+  private void acknowledge(Identifier peer, long ackSequence) {
+    acks.merge(peer, ackSequence, Math::max);
+    Collection<Identifier> peers = peerProvider.get();
+    if (peers != null) {
+      acks.keySet().retainAll(peers);
+    }
+    // Peers that have never acknowledged an interval are sent the full state, so they don't hold back the buffer.
+    long minSequence = acks.values().stream().min(Long::compare).orElse(0L);
+    deltas.headMap(minSequence).clear();
+  }
+
+  /**
+   * Queues a delta to be sent to all peers.
+   *
+   * @param update the delta update to send
+   */
+  private void notifyPeers(GossipUpdate<K, C> update) {
+    Collection<Identifier> peers = peerProvider.get();
+    if (peers != null) {
+      for (Identifier peer : peers) {
+        pendingDeltas.computeIfAbsent(peer, DeltaAccumulator::new).add(update);
+      }
+    }
+  }
+
+  /**
+   * Sends a random peer that is missing deltas the deltas it has not acknowledged, or the full state of every subject
+   * if the peer has not acknowledged any deltas or is missing deltas that are no longer buffered.
+   */
+  private void performAntiEntropy() {
+    try {
+      if (!open) {
+        return;
+      }
+      List<Identifier> peers = Lists.newArrayList(peerProvider.get());
+      if (peers.isEmpty()) {
+        return;
+      }
+      Collections.shuffle(peers);
+
+      Identifier peer = null;
+      GossipMessage<K, C> message = null;
+      synchronized (this) {
+        for (Identifier candidate : peers) {
+          Long ackSequence = acks.get(candidate);
+          if (ackSequence == null || ackSequence < sequence) {
+            peer = candidate;
+            message = createInterval(ackSequence);
+            break;
+          }
+        }
+      }
+      if (message != null) {
+        protocol.gossip(peer, message);
+      }
+    } catch (Exception e) {
+      // Catch all exceptions to avoid scheduled task being suppressed.
+      log.error("Exception thrown while sending state", e);
+    }
+  }
+
+  /**
+   * Creates a delta interval for a peer that has acknowledged the deltas preceding the given sequence number.
+   *
+   * @param ackSequence the sequence number following the last delta acknowledged by the peer, or {@code null} if the
+   *     peer has not acknowledged any deltas
+   * @return the delta interval, or the full state if deltas the peer is missing are no longer buffered, or
+   *     {@code null} if there's no state to send
+   */
+  private GossipMessage<K, C> createInterval(Long ackSequence) {
+    HybridTimestamp timestamp = clock.increment();
+    List<GossipUpdate<K, C>> updates;
+    if (ackSequence == null || deltas.isEmpty() || ackSequence < deltas.firstKey()) {
+      if (states.isEmpty()) {
+        return null;
+      }
+      updates = Lists.newArrayListWithCapacity(states.size());
+      for (Map.Entry<K, C> entry : states.entrySet()) {
+        updates.add(new GossipUpdate<>(entry.getKey(), entry.getValue().copy(), timestamp));
+      }
+    } else {
+      updates = joinDeltas(deltas.tailMap(ackSequence).values(), timestamp);
+    }
+    return new GossipMessage<>(timestamp, updates, localNode, sequence);
+  }
+
+  /**
+   * Joins the given deltas into a delta group per subject.
+   *
+   * @param deltas the deltas to join
+   * @param timestamp the timestamp of the delta groups
+   * @return the delta groups
+   */
+  private List<GossipUpdate<K, C>> joinDeltas(Collection<GossipUpdate<K, C>> deltas, HybridTimestamp timestamp) {
+    Map<K, C> groups = Maps.newLinkedHashMap();
+    for (GossipUpdate<K, C> delta : deltas) {
+      C group = groups.get(delta.subject());
+      if (group == null) {
+        groups.put(delta.subject(), delta.value().copy());
+      } else {
+        group.join(delta.value());
+      }
+    }
+    List<GossipUpdate<K, C>> updates = Lists.newArrayListWithCapacity(groups.size());
+    groups.forEach((subject, group) -> updates.add(new GossipUpdate<>(subject, group, timestamp)));
+    return updates;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+    protocol.unregisterGossipListener();
+    antiEntropyFuture.cancel(false);
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("protocol", protocol)
+        .toString();
+  }
+
+  private static final int DEFAULT_MAX_EVENTS = 1000;
+  private static final int DEFAULT_MAX_IDLE_MS = 10;
+  private static final int DEFAULT_MAX_BATCH_MS = 50;
+
+  /**
+   * Accumulator for dispatching deltas to a peer.
+   * <p>
+   * Deltas for the same subject in a batch are joined into a single delta group before being sent.
+   */
+  private final class DeltaAccumulator extends AbstractConcurrentAccumulator<GossipUpdate<K, C>> {
+    private final Identifier peer;
+
+    private DeltaAccumulator(Identifier peer) {
+      super(DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
+      this.peer = peer;
+    }
+
+    @Override
+    public void processItems(List<GossipUpdate<K, C>> items) {
+      HybridTimestamp timestamp = clock.increment();
+      List<GossipUpdate<K, C>> updates = joinDeltas(items, timestamp);
+      communicationExecutor.execute(() -> {
+        try {
+          protocol.gossip(peer, new GossipMessage<>(timestamp, updates));
+        } catch (Exception e) {
+          log.warn("Failed to send to {}", peer, e);
+        }
+      });
+    }
+  }
+
+  /**
+   * Delta CRDT service builder.
+   *
+   * @param <K> the gossip subject type
+   * @param <C> the CRDT type
+   */
+  public static class Builder<K, C extends DeltaCrdt<C>> implements GossipService.Builder<K, C> {
+    protected GossipProtocol protocol;
+    protected Identifier localNode;
+    protected Supplier<Collection<Identifier>> peerProvider;
+    protected Executor eventExecutor = MoreExecutors.directExecutor();
+    protected ScheduledExecutorService communicationExecutor;
+    protected Supplier<C> stateFactory;
+    protected Duration antiEntropyInterval = Duration.ofSeconds(1);
+
+    /**
+     * Sets the gossip protocol.
+     *
+     * @param protocol the gossip protocol
+     * @return the delta CRDT service builder
+     * @throws NullPointerException if the protocol is null
+     */
+    public Builder<K, C> withProtocol(GossipProtocol protocol) {
+      this.protocol = checkNotNull(protocol, "protocol");
+      return this;
+    }
+
+    /**
+     * Sets the local node identifier.
+     * <p>
+     * The local identifier is sent to peers with delta intervals so they can acknowledge them. Without it, the full
+     * state is sent at every anti-entropy interval.
+     *
+     * @param identifier the local identifier
+     * @return the delta CRDT service builder
+     * @throws NullPointerException if the identifier is null
+     */
+    public Builder<K, C> withLocalNode(Identifier identifier) {
+      this.localNode = checkNotNull(identifier, "identifier cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the gossip peer provider function.
+     *
+     * @param peerProvider the gossip peer provider
+     * @return the delta CRDT service builder
+     * @throws NullPointerException if the peer provider is null
+     */
+    public Builder<K, C> withPeerProvider(Supplier<Collection<Identifier>> peerProvider) {
+      this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the gossip event executor.
+     *
+     * @param executor the gossip event executor
+     * @return the delta CRDT service builder
+     * @throws NullPointerException if the event executor is null
+     */
+    public Builder<K, C> withEventExecutor(Executor executor) {
+      this.eventExecutor = checkNotNull(executor, "executor cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the gossip communication executor.
+     *
+     * @param executor the gossip communication executor
+     * @return the delta CRDT service builder
+     * @throws NullPointerException if the communication executor is null
+     */
+    public Builder<K, C> withCommunicationExecutor(ScheduledExecutorService executor) {
+      this.communicationExecutor = checkNotNull(executor, "executor cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the factory with which to create the initial state for each subject.
+     * <p>
+     * States created by the factory must be identified by the local replica identifier, e.g.
+     * {@code () -> new ORSet<>(localMemberId)}.
+     *
+     * @param stateFactory the initial state factory
+     * @return the delta CRDT service builder
+     * @throws NullPointerException if the state factory is null
+     */
+    public Builder<K, C> withStateFactory(Supplier<C> stateFactory) {
+      this.stateFactory = checkNotNull(stateFactory, "stateFactory cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the anti-entropy interval at which unacknowledged deltas are sent to peers.
+     *
+     * @param antiEntropyInterval the anti-entropy interval
+     * @return the delta CRDT service builder
+     * @throws NullPointerException if the anti-entropy interval is null
+     */
+    public Builder<K, C> withAntiEntropyInterval(Duration antiEntropyInterval) {
+      this.antiEntropyInterval = checkNotNull(antiEntropyInterval, "antiEntropyInterval cannot be null");
+      return this;
+    }
+
+    @Override
+    public GossipService<K, C> build() {
+      return new DeltaCrdtService<>(protocol, localNode, peerProvider, eventExecutor, communicationExecutor, stateFactory, antiEntropyInterval);
+    }
+  }
+}
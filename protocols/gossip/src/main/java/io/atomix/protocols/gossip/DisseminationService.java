@@ -22,14 +22,13 @@ import io.atomix.event.AbstractListenerManager;
 import io.atomix.protocols.gossip.protocol.GossipMessage;
 import io.atomix.protocols.gossip.protocol.GossipProtocol;
 import io.atomix.protocols.gossip.protocol.GossipUpdate;
-import io.atomix.time.LogicalClock;
-import io.atomix.time.LogicalTimestamp;
+import io.atomix.time.HybridLogicalClock;
+import io.atomix.time.HybridTimestamp;
 import io.atomix.utils.Identifier;
 
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
@@ -37,13 +36,23 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Dissemination service.
+ * <p>
+ * Updates are stored in a striped {@link UpdateStore}. Inbound gossip messages and local writes lock only the stripes
+ * of the keys they update, and the updates to send to a peer are collected from the stripes in parallel.
+ * <p>
+ * By default, each round the service pushes every update a random peer has not yet been sent to that peer. If a
+ * {@link Builder#withFanout(int) fanout} is configured, the service instead disseminates updates epidemically: new
+ * updates are pushed to {@code fanout} random peers in each of a fixed number of rounds after they're received, and
+ * every few rounds the service performs a push-pull exchange with a random peer to repair missed updates. Combined
+ * with a bounded peer provider such as a {@link PeerSamplingService}'s active view, the per-node cost of each round
+ * stays flat as the cluster grows.
  */
 public class DisseminationService<K, V> extends AbstractListenerManager<GossipEvent<K, V>, GossipEventListener<K, V>> implements GossipService<K, V> {
 
@@ -59,16 +68,23 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
   }
 
   private final GossipProtocol protocol;
+  private final Identifier localNode;
   private final Supplier<Collection<Identifier>> peerProvider;
   private final Executor eventExecutor;
+  private final ScheduledExecutorService communicationExecutor;
   private final boolean fastConvergence;
   private final boolean tombstonesDisabled;
+  private final int fanout;
+  private final int infectionRounds;
+  private final int pushPullRounds;
   private final ScheduledFuture<?> updateFuture;
   private final ScheduledFuture<?> purgeFuture;
-  private final Map<K, GossipUpdate<K, V>> updates = Maps.newLinkedHashMap();
-  private final LogicalClock logicalClock = new LogicalClock();
+  private final UpdateStore<K, V> updates = new UpdateStore<>();
+  private final HybridLogicalClock clock = new HybridLogicalClock();
   private final Map<Identifier, Long> peerUpdateTimes = Maps.newConcurrentMap();
-  private final Map<Identifier, LogicalTimestamp> peerTimestamps = Maps.newHashMap();
+  private final Map<Identifier, HybridTimestamp> peerTimestamps = Maps.newConcurrentMap();
+  private final Map<K, Integer> rumors = Maps.newConcurrentMap();
+  private int round;
 
   public DisseminationService(
       GossipProtocol<?> protocol,
@@ -79,14 +95,39 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
       boolean fastConvergence,
       boolean tombstonesDisabled,
       Duration purgeInterval) {
+    this(protocol, null, peerProvider, eventExecutor, communicationExecutor, updateInterval, fastConvergence,
+        tombstonesDisabled, purgeInterval, 0, 0, 0);
+  }
+
+  public DisseminationService(
+      GossipProtocol<?> protocol,
+      Identifier localNode,
+      Supplier<Collection<Identifier>> peerProvider,
+      Executor eventExecutor,
+      ScheduledExecutorService communicationExecutor,
+      Duration updateInterval,
+      boolean fastConvergence,
+      boolean tombstonesDisabled,
+      Duration purgeInterval,
+      int fanout,
+      int infectionRounds,
+      int pushPullRounds) {
     this.protocol = checkNotNull(protocol, "protocol cannot be null");
+    this.localNode = localNode;
     this.peerProvider = checkNotNull(peerProvider, "peerProvider cannot be null");
     this.eventExecutor = checkNotNull(eventExecutor, "eventExecutor cannot be null");
+    this.communicationExecutor = checkNotNull(communicationExecutor, "communicationExecutor cannot be null");
     this.fastConvergence = fastConvergence;
     this.tombstonesDisabled = tombstonesDisabled;
+    this.fanout = fanout;
+    this.infectionRounds = infectionRounds;
+    this.pushPullRounds = pushPullRounds;
     protocol.registerGossipListener(this::update);
     updateFuture = communicationExecutor.scheduleAtFixedRate(this::gossip, 0, updateInterval.toMillis(), TimeUnit.MILLISECONDS);
-    purgeFuture = !tombstonesDisabled ? communicationExecutor.scheduleAtFixedRate(this::purgeTombstones, 0, purgeInterval.toMillis(), TimeUnit.MILLISECONDS) : null;
+
+    // Tombstones are purged one stripe at a time, so each stripe is purged once per purge interval.
+    long stripePurgeInterval = Math.max(purgeInterval.toMillis() / updates.stripes(), 1);
+    purgeFuture = !tombstonesDisabled ? communicationExecutor.scheduleAtFixedRate(this::purgeTombstones, 0, stripePurgeInterval, TimeUnit.MILLISECONDS) : null;
   }
 
   @Override
@@ -96,14 +137,14 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
 
   @Override
   public void process(GossipEvent<K, V> event) {
-    LogicalTimestamp timestamp = logicalClock.increment();
     GossipUpdate<K, V> update = new GossipUpdate<>(
         event.subject(),
         event.value(),
-        timestamp.asVersion());
+        clock.increment());
 
     if (event.value() != null) {
-      updates.put(event.subject(), update);
+      updates.put(update);
+      infect(update.subject());
       if (fastConvergence) {
         updatePeers();
       }
@@ -113,7 +154,8 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
       if (tombstonesDisabled) {
         updates.remove(event.subject());
       } else {
-        updates.put(event.subject(), update);
+        updates.put(update);
+        infect(update.subject());
         if (fastConvergence) {
           updatePeers();
         }
@@ -122,24 +164,28 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
     post(event);
   }
 
+  /**
+   * Marks the update for the given subject to be pushed to random peers in the following rounds.
+   */
+  private void infect(K subject) {
+    if (fanout > 0) {
+      rumors.put(subject, infectionRounds);
+    }
+  }
+
   /**
    * Handles a gossip message.
    */
-  private synchronized void update(GossipMessage<K, V> message) {
-    // Update the logical clock using the peer's logical time.
-    logicalClock.update(message.timestamp());
+  private void update(GossipMessage<K, V> message) {
+    // Update the clock using the peer's hybrid time.
+    clock.update(message.timestamp());
     for (GossipUpdate<K, V> update : message.updates()) {
-      GossipUpdate<K, V> existingUpdate = updates.get(update.subject());
-
       // If no existing update is found, or if an update is overriding a tombstone, or if the update
       // version is greater than the existing entry version, perform the update.
-      if (existingUpdate == null
-          || (existingUpdate.isTombstone() && !update.isTombstone())
-          || existingUpdate.timestamp().isOlderThan(update.timestamp())) {
-        // It's possible tombstones could just be disabled on this node.
-        if (!tombstonesDisabled) {
-          updates.put(update.subject(), update);
-        }
+      // It's possible tombstones could just be disabled on this node.
+      boolean updated = tombstonesDisabled ? updates.isNewer(update) : updates.putIfNewer(update);
+      if (updated) {
+        infect(update.subject());
 
         // Post the event to listeners.
         post(new GossipEvent<>(
@@ -148,17 +194,63 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
             update.value()));
       }
     }
+
+    // If the sender requested a push-pull exchange, push this node's updates back to the sender.
+    Identifier replyTo = message.replyTo();
+    if (replyTo != null) {
+      communicationExecutor.execute(() -> updatePeer(replyTo, false));
+    }
   }
 
   /**
    * Sends a gossip message to a random peer.
    */
   private synchronized void gossip() {
+    if (fanout > 0) {
+      disseminate();
+      return;
+    }
     List<Identifier> peers = Lists.newArrayList(peerProvider.get());
     if (!peers.isEmpty()) {
       Collections.shuffle(peers);
       Identifier peer = peers.get(0);
-      updatePeer(peer);
+      updatePeer(peer, false);
+    }
+  }
+
+  /**
+   * Pushes infective updates to {@code fanout} random peers and periodically performs a push-pull exchange.
+   */
+  private void disseminate() {
+    List<Identifier> peers = Lists.newArrayList(peerProvider.get());
+
+    // Only track the peers currently provided so per-peer state is bounded by the size of the peer view.
+    peerTimestamps.keySet().retainAll(peers);
+    peerUpdateTimes.keySet().retainAll(peers);
+    if (peers.isEmpty()) {
+      return;
+    }
+    Collections.shuffle(peers);
+
+    // Collect the infective updates, counting down the rounds in which each update is pushed.
+    List<GossipUpdate<K, V>> infective = Lists.newArrayList();
+    for (K subject : rumors.keySet()) {
+      rumors.computeIfPresent(subject, (key, rounds) -> rounds > 1 ? rounds - 1 : null);
+      GossipUpdate<K, V> update = updates.get(subject);
+      if (update != null) {
+        infective.add(update);
+      }
+    }
+    if (!infective.isEmpty()) {
+      GossipMessage<K, V> message = new GossipMessage<>(clock.increment(), infective);
+      for (Identifier peer : peers.subList(0, Math.min(fanout, peers.size()))) {
+        protocol.gossip(peer, message);
+      }
+    }
+
+    // Periodically push the updates a random peer hasn't been sent and ask it to push its updates back.
+    if (pushPullRounds > 0 && ++round % pushPullRounds == 0) {
+      updatePeer(peers.get(0), true);
     }
   }
 
@@ -167,30 +259,31 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
    */
   private void updatePeers() {
     for (Identifier peer : peerProvider.get()) {
-      updatePeer(peer);
+      updatePeer(peer, false);
     }
   }
 
   /**
    * Updates the given peer.
+   *
+   * @param peer the peer to update
+   * @param pull whether to ask the peer to push its updates back to this node
    */
-  private synchronized void updatePeer(Identifier peer) {
-    // Increment the logical clock.
-    LogicalTimestamp updateTimestamp = logicalClock.increment();
+  private synchronized void updatePeer(Identifier peer, boolean pull) {
+    // Increment the clock.
+    HybridTimestamp updateTimestamp = clock.increment();
 
     // Store the update time.
     long updateTime = System.currentTimeMillis();
 
     // Look up the last update time for the peer.
-    LogicalTimestamp lastUpdate = peerTimestamps.computeIfAbsent(peer, n -> new LogicalTimestamp(0));
+    HybridTimestamp lastUpdate = peerTimestamps.computeIfAbsent(peer, n -> new HybridTimestamp(0));
 
     // Filter updates based on the peer's last update time from this node.
-    Collection<GossipUpdate<K, V>> filteredUpdates = updates.values().stream()
-        .filter(update -> update.timestamp().isNewerThan(lastUpdate))
-        .collect(Collectors.toList());
+    Collection<GossipUpdate<K, V>> filteredUpdates = updates.collect(update -> update.timestamp().isNewerThan(lastUpdate));
 
     // Send the gossip message.
-    protocol.gossip(peer, new GossipMessage<>(updateTimestamp, filteredUpdates));
+    protocol.gossip(peer, new GossipMessage<>(updateTimestamp, filteredUpdates, pull ? localNode : null));
 
     // Set the peer's update time.
     peerTimestamps.put(peer, updateTimestamp);
@@ -198,20 +291,17 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
   }
 
   /**
-   * Purges tombstones from updates.
+   * Purges tombstones from the next stripe of updates.
+   * <p>
+   * Tombstones are purged by the physical time of their hybrid timestamps, which is the same on every node, once
+   * every peer has been updated since that time.
    */
-  private synchronized void purgeTombstones() {
+  private void purgeTombstones() {
     long minTombstoneTime = peerProvider.get().stream()
         .map(peer -> peerUpdateTimes.getOrDefault(peer, 0L))
         .reduce(Math::min)
         .orElse(0L);
-    Iterator<Map.Entry<K, GossipUpdate<K, V>>> iterator = updates.entrySet().iterator();
-    while (iterator.hasNext()) {
-      GossipUpdate<K, V> update = iterator.next().getValue();
-      if (update.isTombstone() && update.creationTime() < minTombstoneTime) {
-        iterator.remove();
-      }
-    }
+    updates.purgeTombstones(update -> update.updateTime() < minTombstoneTime);
   }
 
   @Override
@@ -238,6 +328,7 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
    */
   public static class Builder<K, V> implements GossipService.Builder<K, V> {
     protected GossipProtocol protocol;
+    protected Identifier localNode;
     protected Supplier<Collection<Identifier>> peerProvider;
     protected Executor eventExecutor = MoreExecutors.directExecutor();
     protected ScheduledExecutorService communicationExecutor;
@@ -245,6 +336,9 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
     protected boolean fastConvergence = false;
     protected boolean tombstonesDisabled = false;
     protected Duration purgeInterval = Duration.ofMinutes(1);
+    protected int fanout = 0;
+    protected int infectionRounds = 3;
+    protected int pushPullRounds = 10;
 
     /**
      * Sets the gossip protocol.
@@ -258,6 +352,20 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
       return this;
     }
 
+    /**
+     * Sets the local node identifier.
+     * <p>
+     * The local identifier is sent to peers in push-pull exchanges so they can push their updates back to this node.
+     *
+     * @param identifier the local identifier
+     * @return the dissemination service builder
+     * @throws NullPointerException if the identifier is null
+     */
+    public Builder<K, V> withLocalNode(Identifier identifier) {
+      this.localNode = checkNotNull(identifier, "identifier cannot be null");
+      return this;
+    }
+
     /**
      * Sets the gossip peer provider function.
      *
@@ -340,9 +448,69 @@ public class DisseminationService<K, V> extends AbstractListenerManager<GossipEv
       return this;
     }
 
+    /**
+     * Sets the number of peers to which each update is pushed in each round.
+     * <p>
+     * Setting a positive fanout enables epidemic dissemination. By default, the fanout is {@code 0} and all updates a
+     * random peer has not yet been sent are pushed to that peer in each round.
+     *
+     * @param fanout the number of peers to which to push each update
+     * @return the dissemination service builder
+     * @throws IllegalArgumentException if the fanout is negative
+     */
+    public Builder<K, V> withFanout(int fanout) {
+      checkArgument(fanout >= 0, "fanout cannot be negative");
+      this.fanout = fanout;
+      return this;
+    }
+
+    /**
+     * Sets the number of rounds in which each update is pushed after it's received.
+     * <p>
+     * Once an update has been pushed in this many rounds, it's no longer re-gossiped and is only exchanged in
+     * push-pull rounds.
+     *
+     * @param infectionRounds the number of rounds in which to push each update
+     * @return the dissemination service builder
+     * @throws IllegalArgumentException if the number of rounds is not positive
+     */
+    public Builder<K, V> withInfectionRounds(int infectionRounds) {
+      checkArgument(infectionRounds > 0, "infectionRounds must be positive");
+      this.infectionRounds = infectionRounds;
+      return this;
+    }
+
+    /**
+     * Sets the number of rounds between push-pull exchanges when epidemic dissemination is enabled.
+     * <p>
+     * In a push-pull exchange, the service sends a random peer the updates it has not yet sent to that peer, and the
+     * peer responds with its own updates. A value of {@code 0} disables push-pull exchanges.
+     *
+     * @param pushPullRounds the number of rounds between push-pull exchanges
+     * @return the dissemination service builder
+     * @throws IllegalArgumentException if the number of rounds is negative
+     */
+    public Builder<K, V> withPushPullRounds(int pushPullRounds) {
+      checkArgument(pushPullRounds >= 0, "pushPullRounds cannot be negative");
+      this.pushPullRounds = pushPullRounds;
+      return this;
+    }
+
     @Override
     public GossipService<K, V> build() {
-      return new DisseminationService<>(protocol, peerProvider, eventExecutor, communicationExecutor, updateInterval, fastConvergence, tombstonesDisabled, purgeInterval);
+      return new DisseminationService<>(
+          protocol,
+          localNode,
+          peerProvider,
+          eventExecutor,
+          communicationExecutor,
+          updateInterval,
+          fastConvergence,
+          tombstonesDisabled,
+          purgeInterval,
+          fanout,
+          infectionRounds,
+          pushPullRounds);
     }
   }
 }
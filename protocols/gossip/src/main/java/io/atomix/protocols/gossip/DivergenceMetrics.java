@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Anti-entropy divergence metrics for a single peer.
+ * <p>
+ * An exchange is divergent if the replicas' digest trees differed, whether the peer was missing updates that were sent
+ * to it during the exchange or only the peer held newer updates. Metrics are immutable snapshots and are replaced as
+ * exchanges with the peer complete.
+ */
+public final class DivergenceMetrics {
+  static final DivergenceMetrics EMPTY = new DivergenceMetrics(0, 0, 0, 0, 0, 0, 0, 0);
+
+  private final long exchanges;
+  private final long divergentExchanges;
+  private final long failedExchanges;
+  private final long lastExchangeTime;
+  private final long lastDivergenceTime;
+  private final long lastFailureTime;
+  private final int lastDifferingNodes;
+  private final int lastKeysSent;
+
+  DivergenceMetrics(
+      long exchanges,
+      long divergentExchanges,
+      long failedExchanges,
+      long lastExchangeTime,
+      long lastDivergenceTime,
+      long lastFailureTime,
+      int lastDifferingNodes,
+      int lastKeysSent) {
+    this.exchanges = exchanges;
+    this.divergentExchanges = divergentExchanges;
+    this.failedExchanges = failedExchanges;
+    this.lastExchangeTime = lastExchangeTime;
+    this.lastDivergenceTime = lastDivergenceTime;
+    this.lastFailureTime = lastFailureTime;
+    this.lastDifferingNodes = lastDifferingNodes;
+    this.lastKeysSent = lastKeysSent;
+  }
+
+  /**
+   * Returns the number of completed exchanges with the peer.
+   *
+   * @return the number of completed exchanges with the peer
+   */
+  public long exchanges() {
+    return exchanges;
+  }
+
+  /**
+   * Returns the number of completed exchanges in which the peer was missing updates.
+   *
+   * @return the number of divergent exchanges with the peer
+   */
+  public long divergentExchanges() {
+    return divergentExchanges;
+  }
+
+  /**
+   * Returns the number of exchanges with the peer that failed or were ignored by the peer.
+   *
+   * @return the number of failed exchanges with the peer
+   */
+  public long failedExchanges() {
+    return failedExchanges;
+  }
+
+  /**
+   * Returns the fraction of completed exchanges in which the peer was missing updates.
+   *
+   * @return the divergence rate between {@code 0} and {@code 1}
+   */
+  public double divergenceRate() {
+    return exchanges > 0 ? (double) divergentExchanges / exchanges : 0;
+  }
+
+  /**
+   * Returns the time at which the last completed exchange with the peer began.
+   *
+   * @return the time at which the last completed exchange began in milliseconds since the epoch
+   */
+  public long lastExchangeTime() {
+    return lastExchangeTime;
+  }
+
+  /**
+   * Returns the time at which the last divergent exchange with the peer began.
+   *
+   * @return the time at which the last divergent exchange began in milliseconds since the epoch
+   */
+  public long lastDivergenceTime() {
+    return lastDivergenceTime;
+  }
+
+  /**
+   * Returns the time at which the last failed exchange with the peer began.
+   *
+   * @return the time at which the last failed exchange began in milliseconds since the epoch
+   */
+  public long lastFailureTime() {
+    return lastFailureTime;
+  }
+
+  /**
+   * Returns the number of digest tree nodes that differed in the last completed exchange.
+   *
+   * @return the number of differing digest tree nodes in the last completed exchange
+   */
+  public int lastDifferingNodes() {
+    return lastDifferingNodes;
+  }
+
+  /**
+   * Returns the number of updates sent to the peer in the last completed exchange.
+   *
+   * @return the number of updates sent to the peer in the last completed exchange
+   */
+  public int lastKeysSent() {
+    return lastKeysSent;
+  }
+
+  /**
+   * Returns metrics updated with a completed exchange.
+   *
+   * @param time the time at which the exchange began
+   * @param differingNodes the number of differing digest tree nodes
+   * @param keysSent the number of updates sent to the peer
+   * @return the updated metrics
+   */
+  DivergenceMetrics completed(long time, int differingNodes, int keysSent) {
+    boolean divergent = differingNodes > 0 || keysSent > 0;
+    return new DivergenceMetrics(
+        exchanges + 1,
+        divergent ? divergentExchanges + 1 : divergentExchanges,
+        failedExchanges,
+        time,
+        divergent ? time : lastDivergenceTime,
+        lastFailureTime,
+        differingNodes,
+        keysSent);
+  }
+
+  /**
+   * Returns metrics updated with a failed exchange.
+   *
+   * @param time the time at which the exchange began
+   * @return the updated metrics
+   */
+  DivergenceMetrics failed(long time) {
+    return new DivergenceMetrics(
+        exchanges,
+        divergentExchanges,
+        failedExchanges + 1,
+        lastExchangeTime,
+        lastDivergenceTime,
+        time,
+        lastDifferingNodes,
+        lastKeysSent);
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("exchanges", exchanges)
+        .add("divergentExchanges", divergentExchanges)
+        .add("failedExchanges", failedExchanges)
+        .add("lastExchangeTime", lastExchangeTime)
+        .add("lastDivergenceTime", lastDivergenceTime)
+        .add("lastFailureTime", lastFailureTime)
+        .add("lastDifferingNodes", lastDifferingNodes)
+        .add("lastKeysSent", lastKeysSent)
+        .toString();
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Merkle tree of gossip update digests.
+ * <p>
+ * Keys are hashed into a fixed number of buckets, each of which is a leaf of the tree. The hash of a leaf is the
+ * exclusive or of the hashes of the keys and digests in the bucket, so it can be updated in constant time as keys are
+ * updated, and the hash of each inner node is computed from the hashes of its children. Nodes are numbered in
+ * breadth-first order starting with the {@link #ROOT root}, and the tree is the same shape on every node so nodes can
+ * be compared by number. Key hash codes must be consistent across nodes.
+ * <p>
+ * Each child of the root is the root of an independent {@link #stripe(Object) stripe} of the tree. Updates to keys
+ * in the same stripe must be serialized, but updates to different stripes may be concurrent, and reads are lock-free.
+ * The root hash is computed from its children when it's read.
+ */
+final class MerkleTree<K> {
+  static final int ROOT = 0;
+  static final int FANOUT = 16;
+
+  private final int depth;
+  private final int firstLeaf;
+  private final int stripeShift;
+  private final AtomicLongArray hashes;
+  private final AtomicReferenceArray<Set<K>> buckets;
+
+  MerkleTree(int depth) {
+    checkArgument(depth > 0, "depth must be positive");
+    this.depth = depth;
+    int leaves = 1;
+    int nodes = 1;
+    for (int i = 0; i < depth; i++) {
+      leaves *= FANOUT;
+      nodes += leaves;
+    }
+    this.firstLeaf = nodes - leaves;
+    this.stripeShift = Integer.numberOfTrailingZeros(leaves / FANOUT);
+    this.hashes = new AtomicLongArray(nodes);
+    this.buckets = new AtomicReferenceArray<>(leaves);
+  }
+
+  /**
+   * Returns the depth of the tree.
+   *
+   * @return the number of levels below the root of the tree
+   */
+  int depth() {
+    return depth;
+  }
+
+  /**
+   * Returns the hash of the given node.
+   *
+   * @param node the node for which to return the hash
+   * @return the hash of the node
+   */
+  long hash(int node) {
+    if (node == ROOT) {
+      return computeHash(ROOT);
+    }
+    return hashes.get(node);
+  }
+
+  /**
+   * Returns the stripe to which the given key belongs.
+   * <p>
+   * Stripes are numbered from {@code 0} to {@code FANOUT - 1}, and each stripe is the subtree rooted at the
+   * corresponding child of the root.
+   *
+   * @param key the key for which to return the stripe
+   * @return the stripe to which the key belongs
+   */
+  int stripe(K key) {
+    return bucket(key) >>> stripeShift;
+  }
+
+  /**
+   * Returns the bucket to which the given key belongs.
+   */
+  private int bucket(K key) {
+    return (int) (mix(Objects.hashCode(key)) & (buckets.length() - 1));
+  }
+
+  /**
+   * Returns a boolean indicating whether the given node number is a node in the tree.
+   *
+   * @param node the node number to check
+   * @return indicates whether the node is in the tree
+   */
+  boolean contains(int node) {
+    return node >= 0 && node < hashes.length();
+  }
+
+  /**
+   * Returns a boolean indicating whether the given node is a leaf.
+   *
+   * @param node the node to check
+   * @return indicates whether the node is a leaf
+   */
+  boolean isLeaf(int node) {
+    return node >= firstLeaf;
+  }
+
+  /**
+   * Returns the children of the given inner node.
+   *
+   * @param node the node for which to return children
+   * @return the children of the node
+   */
+  List<Integer> children(int node) {
+    List<Integer> children = new ArrayList<>(FANOUT);
+    for (int i = 1; i <= FANOUT; i++) {
+      children.add(node * FANOUT + i);
+    }
+    return children;
+  }
+
+  /**
+   * Returns the keys in the given leaf.
+   *
+   * @param leaf the leaf for which to return keys
+   * @return the keys in the leaf
+   */
+  Collection<K> keys(int leaf) {
+    Set<K> keys = buckets.get(leaf - firstLeaf);
+    return keys != null ? keys : Collections.emptySet();
+  }
+
+  /**
+   * Updates the digest of the given key.
+   *
+   * @param key the key to update
+   * @param previous the previous digest for the key or {@code null} if the key was not present
+   * @param current the current digest for the key or {@code null} if the key was removed
+   */
+  void update(K key, GossipUpdate.Digest previous, GossipUpdate.Digest current) {
+    int keyHash = Objects.hashCode(key);
+    int bucket = bucket(key);
+    long hash = 0;
+    if (previous != null) {
+      hash ^= hash(keyHash, previous);
+    }
+    if (current != null) {
+      hash ^= hash(keyHash, current);
+    }
+
+    // Update the bucket's keys.
+    if (previous == null && current != null) {
+      Set<K> keys = buckets.get(bucket);
+      if (keys == null) {
+        keys = ConcurrentHashMap.newKeySet();
+        buckets.set(bucket, keys);
+      }
+      keys.add(key);
+    } else if (previous != null && current == null) {
+      Set<K> keys = buckets.get(bucket);
+      keys.remove(key);
+      if (keys.isEmpty()) {
+        buckets.set(bucket, null);
+      }
+    }
+
+    if (hash == 0) {
+      return;
+    }
+
+    // Update the leaf hash and recompute the hashes of its ancestors up to the root of the stripe.
+    int node = firstLeaf + bucket;
+    hashes.set(node, hashes.get(node) ^ hash);
+    node = (node - 1) / FANOUT;
+    while (node != ROOT) {
+      hashes.set(node, computeHash(node));
+      node = (node - 1) / FANOUT;
+    }
+  }
+
+  /**
+   * Computes the hash of an inner node from the hashes of its children.
+   */
+  private long computeHash(int node) {
+    long nodeHash = 0;
+    for (int i = 1; i <= FANOUT; i++) {
+      nodeHash = nodeHash * 31 + mix(hashes.get(node * FANOUT + i));
+    }
+    return nodeHash;
+  }
+
+  /**
+   * Computes the hash of a key and digest.
+   */
+  private static long hash(int keyHash, GossipUpdate.Digest digest) {
+    return mix(((long) keyHash << 32) ^ digest.hashCode());
+  }
+
+  /**
+   * Mixes the bits of the given value.
+   */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("depth", depth)
+        .add("hash", hash(ROOT))
+        .toString();
+  }
+}
@@ -0,0 +1,661 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import com.google.common.collect.ImmutableList;
+import io.atomix.protocols.gossip.protocol.ForwardJoinRequest;
+import io.atomix.protocols.gossip.protocol.NeighborRequest;
+import io.atomix.protocols.gossip.protocol.PeerSamplingProtocol;
+import io.atomix.protocols.gossip.protocol.ShuffleRequest;
+import io.atomix.utils.Identifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * HyParView peer sampling service.
+ * <p>
+ * Rather than gossiping with every member of the cluster, each node maintains a small, symmetric active view of
+ * neighbors with which it gossips and a larger passive view of backup nodes. Nodes join through a contact, which
+ * forwards the joiner on random walks through the active views of its neighbors. Neighbors that can't be reached are
+ * replaced with nodes promoted from the passive view, and the passive view is periodically refreshed by shuffling
+ * samples of the views with a node at the end of a random walk. The size of each view is fixed, so the per-node cost
+ * of gossiping over the {@link #activeView() active view} does not grow with the size of the cluster.
+ * <p>
+ * The seed provider is only used to find a contact when the node starts or has lost all its neighbors.
+ */
+public class PeerSamplingService<T extends Identifier> {
+
+  /**
+   * Returns a new peer sampling service builder.
+   *
+   * @param <T> the node type
+   * @return a new peer sampling service builder
+   */
+  public static <T extends Identifier> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  private final PeerSamplingProtocol<T> protocol;
+  private final T localNode;
+  private final Supplier<Collection<T>> seedProvider;
+  private final int activeViewSize;
+  private final int passiveViewSize;
+  private final int activeRandomWalkLength;
+  private final int passiveRandomWalkLength;
+  private final int shuffleActiveSize;
+  private final int shufflePassiveSize;
+  private final ScheduledFuture<?> maintenanceFuture;
+
+  private final List<T> activeView = new ArrayList<>();
+  private final List<T> passiveView = new ArrayList<>();
+  private final Set<T> pendingNeighbors = new HashSet<>();
+  private boolean open = true;
+
+  public PeerSamplingService(
+      PeerSamplingProtocol<T> protocol,
+      T localNode,
+      Supplier<Collection<T>> seedProvider,
+      ScheduledExecutorService executor,
+      Duration shuffleInterval,
+      int activeViewSize,
+      int passiveViewSize,
+      int activeRandomWalkLength,
+      int passiveRandomWalkLength,
+      int shuffleActiveSize,
+      int shufflePassiveSize) {
+    checkArgument(passiveRandomWalkLength <= activeRandomWalkLength,
+        "passiveRandomWalkLength cannot be greater than activeRandomWalkLength");
+    this.protocol = checkNotNull(protocol, "protocol cannot be null");
+    this.localNode = checkNotNull(localNode, "localNode cannot be null");
+    this.seedProvider = checkNotNull(seedProvider, "seedProvider cannot be null");
+    checkNotNull(executor, "executor cannot be null");
+    this.activeViewSize = activeViewSize;
+    this.passiveViewSize = passiveViewSize;
+    this.activeRandomWalkLength = activeRandomWalkLength;
+    this.passiveRandomWalkLength = passiveRandomWalkLength;
+    this.shuffleActiveSize = shuffleActiveSize;
+    this.shufflePassiveSize = shufflePassiveSize;
+    protocol.registerJoinHandler(this::handleJoin);
+    protocol.registerForwardJoinHandler(this::handleForwardJoin);
+    protocol.registerNeighborHandler(this::handleNeighbor);
+    protocol.registerDisconnectHandler(this::handleDisconnect);
+    protocol.registerShuffleHandler(this::handleShuffle);
+    executor.execute(this::join);
+    this.maintenanceFuture = executor.scheduleAtFixedRate(
+        this::maintain, shuffleInterval.toMillis(), shuffleInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns the local node identifier.
+   *
+   * @return the local node identifier
+   */
+  public T localNode() {
+    return localNode;
+  }
+
+  /**
+   * Returns the active view.
+   * <p>
+   * The active view is the set of neighbors with which the node gossips. Neighbor relationships are symmetric, so
+   * the node is in the active view of each of its neighbors.
+   *
+   * @return the nodes in the active view
+   */
+  public synchronized Collection<T> activeView() {
+    return ImmutableList.copyOf(activeView);
+  }
+
+  /**
+   * Returns the passive view.
+   *
+   * @return the nodes in the passive view
+   */
+  public synchronized Collection<T> passiveView() {
+    return ImmutableList.copyOf(passiveView);
+  }
+
+  /**
+   * Joins the cluster through a random seed.
+   */
+  private void join() {
+    List<T> seeds = new ArrayList<>(seedProvider.get());
+    seeds.remove(localNode);
+    if (seeds.isEmpty()) {
+      return;
+    }
+    T contact = seeds.get(ThreadLocalRandom.current().nextInt(seeds.size()));
+    protocol.join(contact, localNode).whenComplete((result, error) -> {
+      if (error == null) {
+        addActive(contact);
+      }
+    });
+  }
+
+  /**
+   * Handles a join request.
+   * <p>
+   * The joiner is added to the active view and forwarded on a random walk from each of the node's other neighbors.
+   */
+  private void handleJoin(T joiner) {
+    addActive(joiner);
+    List<T> peers;
+    synchronized (this) {
+      peers = new ArrayList<>(activeView);
+    }
+    peers.remove(joiner);
+    for (T peer : peers) {
+      forwardJoin(peer, new ForwardJoinRequest<>(localNode, joiner, activeRandomWalkLength));
+    }
+  }
+
+  /**
+   * Handles a forward join request.
+   * <p>
+   * The joiner is added to the passive view when the walk reaches the passive random walk length, and to the active
+   * view when the walk ends or the node has no other neighbors to which to forward it.
+   */
+  private void handleForwardJoin(ForwardJoinRequest<T> request) {
+    T next = null;
+    synchronized (this) {
+      if (!open) {
+        return;
+      }
+      if (request.ttl() > 0 && activeView.size() > 1) {
+        if (request.ttl() == passiveRandomWalkLength) {
+          addPassive(request.joiner());
+        }
+        next = randomNode(activeView, request.source(), request.joiner());
+      }
+    }
+
+    if (next != null) {
+      forwardJoin(next, new ForwardJoinRequest<>(localNode, request.joiner(), request.ttl() - 1));
+    } else if (addActive(request.joiner())) {
+      // Ask the joiner to add this node to its active view to keep the views symmetric.
+      T joiner = request.joiner();
+      protocol.neighbor(joiner, new NeighborRequest<>(localNode, true)).whenComplete((accepted, error) -> {
+        if (error != null) {
+          peerFailed(joiner);
+        }
+      });
+    }
+  }
+
+  /**
+   * Forwards a join request to the given peer.
+   */
+  private void forwardJoin(T peer, ForwardJoinRequest<T> request) {
+    protocol.forwardJoin(peer, request).whenComplete((result, error) -> {
+      if (error != null) {
+        peerFailed(peer);
+      }
+    });
+  }
+
+  /**
+   * Handles a neighbor request.
+   */
+  private boolean handleNeighbor(NeighborRequest<T> request) {
+    synchronized (this) {
+      if (!open || !(request.isHighPriority() || activeView.size() < activeViewSize || activeView.contains(request.source()))) {
+        return false;
+      }
+    }
+    addActive(request.source());
+    return true;
+  }
+
+  /**
+   * Handles a disconnect notification by moving the source from the active view to the passive view.
+   */
+  private synchronized void handleDisconnect(T source) {
+    if (activeView.remove(source)) {
+      addPassive(source);
+    }
+  }
+
+  /**
+   * Handles a shuffle request.
+   * <p>
+   * If the walk has not ended, the request is forwarded to a random neighbor. Otherwise, the node replies with a sample
+   * of its passive view and merges the origin's sample into its passive view.
+   */
+  private CompletableFuture<Collection<T>> handleShuffle(ShuffleRequest<T> request) {
+    T next = null;
+    synchronized (this) {
+      if (request.ttl() > 0 && activeView.size() > 1) {
+        next = randomNode(activeView, request.source(), request.origin());
+      }
+    }
+
+    if (next == null) {
+      return CompletableFuture.completedFuture(acceptShuffle(request));
+    }
+
+    T peer = next;
+    return protocol.shuffle(peer, new ShuffleRequest<>(localNode, request.origin(), request.nodes(), request.ttl() - 1))
+        .handle((nodes, error) -> {
+          if (error == null) {
+            return nodes;
+          }
+          peerFailed(peer);
+          return acceptShuffle(request);
+        });
+  }
+
+  /**
+   * Ends a shuffle, returning a sample of the passive view and merging the origin's sample into the passive view.
+   */
+  private synchronized Collection<T> acceptShuffle(ShuffleRequest<T> request) {
+    List<T> reply = sample(passiveView, request.nodes().size());
+    mergePassive(request.nodes(), reply);
+    return reply;
+  }
+
+  /**
+   * Promotes passive nodes to fill the active view and shuffles the passive view with a random walk.
+   */
+  private void maintain() {
+    List<T> candidates = new ArrayList<>();
+    boolean highPriority;
+    T shufflePeer;
+    List<T> shuffleSample;
+    synchronized (this) {
+      if (!open) {
+        return;
+      }
+
+      // If the node has no known peers, rejoin through a seed.
+      if (activeView.isEmpty() && passiveView.isEmpty() && pendingNeighbors.isEmpty()) {
+        shufflePeer = null;
+        shuffleSample = null;
+        highPriority = false;
+      } else {
+        // Choose passive nodes to promote in place of neighbors that have been lost.
+        highPriority = activeView.isEmpty();
+        int missing = activeViewSize - activeView.size() - pendingNeighbors.size();
+        List<T> passive = new ArrayList<>(passiveView);
+        passive.removeAll(pendingNeighbors);
+        for (T node : sample(passive, missing)) {
+          pendingNeighbors.add(node);
+          candidates.add(node);
+        }
+
+        // Choose a neighbor with which to start a shuffle and a sample of the views to send.
+        shufflePeer = activeView.isEmpty() ? null : activeView.get(ThreadLocalRandom.current().nextInt(activeView.size()));
+        shuffleSample = new ArrayList<>();
+        shuffleSample.add(localNode);
+        List<T> active = new ArrayList<>(activeView);
+        active.remove(shufflePeer);
+        shuffleSample.addAll(sample(active, shuffleActiveSize));
+        shuffleSample.addAll(sample(passiveView, shufflePassiveSize));
+      }
+    }
+
+    if (shuffleSample == null) {
+      join();
+      return;
+    }
+
+    for (T candidate : candidates) {
+      protocol.neighbor(candidate, new NeighborRequest<>(localNode, highPriority)).whenComplete((accepted, error) -> {
+        synchronized (this) {
+          pendingNeighbors.remove(candidate);
+          if (error != null) {
+            passiveView.remove(candidate);
+          }
+        }
+        if (error == null && accepted) {
+          addActive(candidate);
+        }
+      });
+    }
+
+    if (shufflePeer != null) {
+      T peer = shufflePeer;
+      protocol.shuffle(peer, new ShuffleRequest<>(localNode, localNode, shuffleSample, activeRandomWalkLength))
+          .whenComplete((nodes, error) -> {
+            if (error != null) {
+              peerFailed(peer);
+            } else {
+              synchronized (this) {
+                mergePassive(nodes, shuffleSample);
+              }
+            }
+          });
+    }
+  }
+
+  /**
+   * Adds the given node to the active view, moving a random neighbor to the passive view if the active view is full.
+   *
+   * @param node the node to add
+   * @return indicates whether the node was added to the active view
+   */
+  private boolean addActive(T node) {
+    T dropped = null;
+    synchronized (this) {
+      if (!open || node.equals(localNode) || activeView.contains(node)) {
+        return false;
+      }
+      if (activeView.size() >= activeViewSize) {
+        dropped = activeView.remove(ThreadLocalRandom.current().nextInt(activeView.size()));
+        addPassive(dropped);
+      }
+      passiveView.remove(node);
+      activeView.add(node);
+    }
+    if (dropped != null) {
+      protocol.disconnect(dropped, localNode);
+    }
+    return true;
+  }
+
+  /**
+   * Adds the given node to the passive view, evicting a random node if the passive view is full.
+   */
+  private void addPassive(T node) {
+    if (node.equals(localNode) || activeView.contains(node) || passiveView.contains(node)) {
+      return;
+    }
+    if (passiveView.size() >= passiveViewSize) {
+      passiveView.remove(ThreadLocalRandom.current().nextInt(passiveView.size()));
+    }
+    passiveView.add(node);
+  }
+
+  /**
+   * Merges a sample of nodes into the passive view, preferring to evict the nodes that were sent to the peer.
+   */
+  private void mergePassive(Collection<T> nodes, Collection<T> sent) {
+    List<T> evictable = new ArrayList<>(sent);
+    for (T node : nodes) {
+      if (node.equals(localNode) || activeView.contains(node) || passiveView.contains(node)) {
+        continue;
+      }
+      if (passiveView.size() >= passiveViewSize) {
+        T evicted = null;
+        while (evicted == null && !evictable.isEmpty()) {
+          T candidate = evictable.remove(evictable.size() - 1);
+          if (passiveView.remove(candidate)) {
+            evicted = candidate;
+          }
+        }
+        if (evicted == null) {
+          passiveView.remove(ThreadLocalRandom.current().nextInt(passiveView.size()));
+        }
+      }
+      passiveView.add(node);
+    }
+  }
+
+  /**
+   * Removes a node that could not be reached from the views.
+   */
+  private synchronized void peerFailed(T node) {
+    activeView.remove(node);
+    passiveView.remove(node);
+  }
+
+  /**
+   * Returns a random node from the given list other than the excluded nodes.
+   */
+  private T randomNode(List<T> nodes, T exclude1, T exclude2) {
+    List<T> candidates = new ArrayList<>(nodes);
+    candidates.remove(exclude1);
+    candidates.remove(exclude2);
+    return candidates.isEmpty() ? null : candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+  }
+
+  /**
+   * Returns a random sample of up to the given number of nodes from the given list.
+   */
+  private List<T> sample(List<T> nodes, int size) {
+    if (size <= 0) {
+      return new ArrayList<>();
+    }
+    List<T> sample = new ArrayList<>(nodes);
+    Collections.shuffle(sample, ThreadLocalRandom.current());
+    return sample.size() > size ? new ArrayList<>(sample.subList(0, size)) : sample;
+  }
+
+  /**
+   * Closes the service.
+   */
+  public void close() {
+    synchronized (this) {
+      open = false;
+    }
+    maintenanceFuture.cancel(false);
+    protocol.unregisterJoinHandler();
+    protocol.unregisterForwardJoinHandler();
+    protocol.unregisterNeighborHandler();
+    protocol.unregisterDisconnectHandler();
+    protocol.unregisterShuffleHandler();
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("localNode", localNode)
+        .add("activeView", activeView())
+        .toString();
+  }
+
+  /**
+   * Peer sampling service builder.
+   *
+   * @param <T> the node type
+   */
+  public static class Builder<T extends Identifier> implements io.atomix.utils.Builder<PeerSamplingService<T>> {
+    private static final Duration DEFAULT_SHUFFLE_INTERVAL = Duration.ofSeconds(1);
+    private static final int DEFAULT_ACTIVE_VIEW_SIZE = 5;
+    private static final int DEFAULT_PASSIVE_VIEW_SIZE = 30;
+    private static final int DEFAULT_ACTIVE_RANDOM_WALK_LENGTH = 6;
+    private static final int DEFAULT_PASSIVE_RANDOM_WALK_LENGTH = 3;
+    private static final int DEFAULT_SHUFFLE_ACTIVE_SIZE = 3;
+    private static final int DEFAULT_SHUFFLE_PASSIVE_SIZE = 4;
+
+    private PeerSamplingProtocol<T> protocol;
+    private T localNode;
+    private Supplier<Collection<T>> seedProvider;
+    private ScheduledExecutorService executor;
+    private Duration shuffleInterval = DEFAULT_SHUFFLE_INTERVAL;
+    private int activeViewSize = DEFAULT_ACTIVE_VIEW_SIZE;
+    private int passiveViewSize = DEFAULT_PASSIVE_VIEW_SIZE;
+    private int activeRandomWalkLength = DEFAULT_ACTIVE_RANDOM_WALK_LENGTH;
+    private int passiveRandomWalkLength = DEFAULT_PASSIVE_RANDOM_WALK_LENGTH;
+    private int shuffleActiveSize = DEFAULT_SHUFFLE_ACTIVE_SIZE;
+    private int shufflePassiveSize = DEFAULT_SHUFFLE_PASSIVE_SIZE;
+
+    /**
+     * Sets the peer sampling protocol.
+     *
+     * @param protocol the peer sampling protocol
+     * @return the peer sampling service builder
+     * @throws NullPointerException if the protocol is null
+     */
+    public Builder<T> withProtocol(PeerSamplingProtocol<T> protocol) {
+      this.protocol = checkNotNull(protocol, "protocol cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the local node identifier.
+     *
+     * @param identifier the local identifier
+     * @return the peer sampling service builder
+     * @throws NullPointerException if the identifier is null
+     */
+    public Builder<T> withLocalNode(T identifier) {
+      this.localNode = checkNotNull(identifier, "identifier cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the seed provider function.
+     * <p>
+     * Seeds are the nodes through which the node joins the cluster. The provider is only called when the node starts
+     * or has lost all its neighbors.
+     *
+     * @param seedProvider the seed provider
+     * @return the peer sampling service builder
+     * @throws NullPointerException if the seed provider is null
+     */
+    public Builder<T> withSeedProvider(Supplier<Collection<T>> seedProvider) {
+      this.seedProvider = checkNotNull(seedProvider, "seedProvider cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the executor on which to maintain the views.
+     *
+     * @param executor the view maintenance executor
+     * @return the peer sampling service builder
+     * @throws NullPointerException if the executor is null
+     */
+    public Builder<T> withExecutor(ScheduledExecutorService executor) {
+      this.executor = checkNotNull(executor, "executor cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the shuffle interval.
+     * <p>
+     * In each interval, the node shuffles its passive view with another node and tries to replace lost neighbors
+     * with nodes from its passive view.
+     *
+     * @param interval the shuffle interval
+     * @return the peer sampling service builder
+     * @throws NullPointerException if the shuffle interval is null
+     */
+    public Builder<T> withShuffleInterval(Duration interval) {
+      this.shuffleInterval = checkNotNull(interval, "interval cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the maximum size of the active view.
+     *
+     * @param activeViewSize the maximum number of neighbors
+     * @return the peer sampling service builder
+     * @throws IllegalArgumentException if the active view size is not positive
+     */
+    public Builder<T> withActiveViewSize(int activeViewSize) {
+      checkArgument(activeViewSize > 0, "activeViewSize must be positive");
+      this.activeViewSize = activeViewSize;
+      return this;
+    }
+
+    /**
+     * Sets the maximum size of the passive view.
+     *
+     * @param passiveViewSize the maximum number of backup nodes
+     * @return the peer sampling service builder
+     * @throws IllegalArgumentException if the passive view size is not positive
+     */
+    public Builder<T> withPassiveViewSize(int passiveViewSize) {
+      checkArgument(passiveViewSize > 0, "passiveViewSize must be positive");
+      this.passiveViewSize = passiveViewSize;
+      return this;
+    }
+
+    /**
+     * Sets the length of the random walks on which joining nodes and shuffles are forwarded.
+     *
+     * @param activeRandomWalkLength the number of hops in each random walk
+     * @return the peer sampling service builder
+     * @throws IllegalArgumentException if the random walk length is negative
+     */
+    public Builder<T> withActiveRandomWalkLength(int activeRandomWalkLength) {
+      checkArgument(activeRandomWalkLength >= 0, "activeRandomWalkLength cannot be negative");
+      this.activeRandomWalkLength = activeRandomWalkLength;
+      return this;
+    }
+
+    /**
+     * Sets the number of remaining hops at which a joining node is added to the passive view of the node it visits.
+     *
+     * @param passiveRandomWalkLength the number of remaining hops
+     * @return the peer sampling service builder
+     * @throws IllegalArgumentException if the random walk length is negative
+     */
+    public Builder<T> withPassiveRandomWalkLength(int passiveRandomWalkLength) {
+      checkArgument(passiveRandomWalkLength >= 0, "passiveRandomWalkLength cannot be negative");
+      this.passiveRandomWalkLength = passiveRandomWalkLength;
+      return this;
+    }
+
+    /**
+     * Sets the number of neighbors to include in each shuffle.
+     *
+     * @param shuffleActiveSize the number of nodes from the active view to include in each shuffle
+     * @return the peer sampling service builder
+     * @throws IllegalArgumentException if the shuffle size is negative
+     */
+    public Builder<T> withShuffleActiveSize(int shuffleActiveSize) {
+      checkArgument(shuffleActiveSize >= 0, "shuffleActiveSize cannot be negative");
+      this.shuffleActiveSize = shuffleActiveSize;
+      return this;
+    }
+
+    /**
+     * Sets the number of backup nodes to include in each shuffle.
+     *
+     * @param shufflePassiveSize the number of nodes from the passive view to include in each shuffle
+     * @return the peer sampling service builder
+     * @throws IllegalArgumentException if the shuffle size is negative
+     */
+    public Builder<T> withShufflePassiveSize(int shufflePassiveSize) {
+      checkArgument(shufflePassiveSize >= 0, "shufflePassiveSize cannot be negative");
+      this.shufflePassiveSize = shufflePassiveSize;
+      return this;
+    }
+
+    @Override
+    public PeerSamplingService<T> build() {
+      return new PeerSamplingService<>(
+          protocol,
+          localNode,
+          seedProvider,
+          executor,
+          shuffleInterval,
+          activeViewSize,
+          passiveViewSize,
+          activeRandomWalkLength,
+          passiveRandomWalkLength,
+          shuffleActiveSize,
+          shufflePassiveSize);
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Striped store of gossip updates.
+ * <p>
+ * Updates are partitioned into a fixed number of stripes by key. Reads are lock-free, and writes lock only the
+ * stripe to which the key belongs, so inbound gossip messages and local writes for different stripes don't contend.
+ * Bulk operations visit stripes independently: scans run over the stripes in parallel, and tombstones are purged one
+ * stripe at a time.
+ */
+final class UpdateStore<K, V> {
+  static final int DEFAULT_STRIPES = 16;
+
+  /**
+   * Update listener, called under the stripe lock each time the update for a key changes.
+   */
+  @FunctionalInterface
+  interface UpdateListener<K, V> {
+
+    /**
+     * Called when the update for a key changes.
+     *
+     * @param subject the subject of the update
+     * @param previousUpdate the previous update or {@code null} if the key was not present
+     * @param update the current update or {@code null} if the key was removed
+     */
+    void updated(K subject, GossipUpdate<K, V> previousUpdate, GossipUpdate<K, V> update);
+  }
+
+  private final Stripe<K, V>[] stripes;
+  private final ToIntFunction<K> stripeFunction;
+  private final UpdateListener<K, V> listener;
+  private final AtomicInteger purgeCursor = new AtomicInteger();
+
+  UpdateStore() {
+    this(DEFAULT_STRIPES, key -> defaultStripe(key, DEFAULT_STRIPES), (subject, previousUpdate, update) -> {
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  UpdateStore(int stripes, ToIntFunction<K> stripeFunction, UpdateListener<K, V> listener) {
+    checkArgument(stripes > 0, "stripes must be positive");
+    this.stripes = new Stripe[stripes];
+    for (int i = 0; i < stripes; i++) {
+      this.stripes[i] = new Stripe<>();
+    }
+    this.stripeFunction = checkNotNull(stripeFunction, "stripeFunction cannot be null");
+    this.listener = checkNotNull(listener, "listener cannot be null");
+  }
+
+  /**
+   * Returns the default stripe for the given key.
+   */
+  private static int defaultStripe(Object key, int stripes) {
+    int hash = Objects.hashCode(key);
+    hash ^= hash >>> 16;
+    return Math.floorMod(hash, stripes);
+  }
+
+  /**
+   * Returns the stripe for the given key.
+   */
+  private Stripe<K, V> stripe(K key) {
+    return stripes[stripeFunction.applyAsInt(key)];
+  }
+
+  /**
+   * Returns the number of stripes in the store.
+   *
+   * @return the number of stripes in the store
+   */
+  int stripes() {
+    return stripes.length;
+  }
+
+  /**
+   * Returns the update for the given key.
+   *
+   * @param key the key for which to return the update
+   * @return the update for the key or {@code null} if the key is not present
+   */
+  GossipUpdate<K, V> get(K key) {
+    return stripe(key).updates.get(key);
+  }
+
+  /**
+   * Stores the given update, replacing any existing update for its subject.
+   *
+   * @param update the update to store
+   */
+  void put(GossipUpdate<K, V> update) {
+    Stripe<K, V> stripe = stripe(update.subject());
+    synchronized (stripe) {
+      GossipUpdate<K, V> previousUpdate = stripe.updates.put(update.subject(), update);
+      listener.updated(update.subject(), previousUpdate, update);
+    }
+  }
+
+  /**
+   * Returns a boolean indicating whether the given update supersedes the stored update for its subject.
+   * <p>
+   * An update supersedes the stored update if no update is stored, if it overrides a stored tombstone, or if it is
+   * newer than the stored update.
+   *
+   * @param update the update to check
+   * @return indicates whether the update supersedes the stored update
+   */
+  boolean isNewer(GossipUpdate<K, V> update) {
+    return isNewer(update, get(update.subject()));
+  }
+
+  private static <K, V> boolean isNewer(GossipUpdate<K, V> update, GossipUpdate<K, V> existingUpdate) {
+    return existingUpdate == null
+        || (existingUpdate.isTombstone() && !update.isTombstone())
+        || existingUpdate.timestamp().isOlderThan(update.timestamp());
+  }
+
+  /**
+   * Stores the given update if it supersedes the stored update for its subject.
+   *
+   * @param update the update to store
+   * @return indicates whether the update was stored
+   */
+  boolean putIfNewer(GossipUpdate<K, V> update) {
+    Stripe<K, V> stripe = stripe(update.subject());
+    synchronized (stripe) {
+      GossipUpdate<K, V> existingUpdate = stripe.updates.get(update.subject());
+      if (isNewer(update, existingUpdate)) {
+        stripe.updates.put(update.subject(), update);
+        listener.updated(update.subject(), existingUpdate, update);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Removes the update for the given key.
+   *
+   * @param key the key for which to remove the update
+   */
+  void remove(K key) {
+    Stripe<K, V> stripe = stripe(key);
+    synchronized (stripe) {
+      GossipUpdate<K, V> previousUpdate = stripe.updates.remove(key);
+      if (previousUpdate != null) {
+        listener.updated(key, previousUpdate, null);
+      }
+    }
+  }
+
+  /**
+   * Returns the updates matching the given filter, scanning the stripes in parallel.
+   *
+   * @param filter the filter with which to select updates
+   * @return the matching updates
+   */
+  List<GossipUpdate<K, V>> collect(Predicate<GossipUpdate<K, V>> filter) {
+    return Arrays.stream(stripes)
+        .parallel()
+        .flatMap(stripe -> stripe.updates.values().stream().filter(filter))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Removes the tombstones matching the given filter from the next stripe.
+   * <p>
+   * Each call purges a single stripe, so the whole store is purged once every {@link #stripes()} calls.
+   *
+   * @param filter the filter with which to select tombstones to remove
+   * @return the number of tombstones removed
+   */
+  int purgeTombstones(Predicate<GossipUpdate<K, V>> filter) {
+    Stripe<K, V> stripe = stripes[Math.floorMod(purgeCursor.getAndIncrement(), stripes.length)];
+    int purged = 0;
+    synchronized (stripe) {
+      Iterator<Map.Entry<K, GossipUpdate<K, V>>> iterator = stripe.updates.entrySet().iterator();
+      while (iterator.hasNext()) {
+        GossipUpdate<K, V> update = iterator.next().getValue();
+        if (update.isTombstone() && filter.test(update)) {
+          iterator.remove();
+          listener.updated(update.subject(), update, null);
+          purged++;
+        }
+      }
+    }
+    return purged;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("stripes", stripes.length)
+        .toString();
+  }
+
+  /**
+   * Update store stripe.
+   */
+  private static final class Stripe<K, V> {
+    private final Map<K, GossipUpdate<K, V>> updates = new ConcurrentHashMap<>();
+  }
+}
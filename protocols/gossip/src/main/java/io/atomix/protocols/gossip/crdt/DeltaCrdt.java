@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+/**
+ * Delta-state conflict-free replicated data type.
+ * <p>
+ * Delta-state CRDTs are state-based CRDTs whose mutators return a delta: a small state of the same type which,
+ * when joined into any replica, has the same effect as the mutation. Deltas can be joined with each other to form
+ * delta groups, and full states can be joined to repair replicas which missed deltas.
+ * <p>
+ * Join must be commutative, associative and idempotent. Implementations are not thread safe.
+ *
+ * @param <C> the CRDT type
+ */
+public interface DeltaCrdt<C extends DeltaCrdt<C>> {
+
+  /**
+   * Joins the given state or delta into this state.
+   *
+   * @param other the state or delta to join into this state
+   */
+  void join(C other);
+
+  /**
+   * Returns a copy of this state.
+   *
+   * @return a copy of this state
+   */
+  C copy();
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import io.atomix.time.LogicalTimestamp;
+import io.atomix.time.VectorClock;
+import io.atomix.time.VectorTimestamp;
+import io.atomix.utils.Identifier;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Causal context of a dotted CRDT.
+ * <p>
+ * A dot is a {@link VectorTimestamp} identifying a single event on a single replica. The context tracks the set of
+ * dots a replica has seen as a {@link VectorClock} covering each replica's contiguous dots plus a cloud of dots that
+ * have been seen out of order. Dots in the cloud are folded into the clock once the gaps preceding them are filled.
+ *
+ * @param <T> the replica identifier type
+ */
+public class DotContext<T extends Identifier> {
+  private final VectorClock<T> clock;
+  private final Set<VectorTimestamp<T>> cloud;
+
+  public DotContext(T identifier) {
+    this(new VectorClock<>(checkNotNull(identifier, "identifier cannot be null")), new HashSet<>());
+  }
+
+  private DotContext(VectorClock<T> clock, Set<VectorTimestamp<T>> cloud) {
+    this.clock = clock;
+    this.cloud = cloud;
+  }
+
+  /**
+   * Returns a boolean indicating whether the given dot has been seen.
+   *
+   * @param dot the dot to check
+   * @return indicates whether the dot is contained in the context
+   */
+  public boolean contains(VectorTimestamp<T> dot) {
+    LogicalTimestamp timestamp = clock.getTimestamp(dot.identifier());
+    return (timestamp != null && dot.value() <= timestamp.value()) || cloud.contains(dot);
+  }
+
+  /**
+   * Generates the next dot for the local replica and adds it to the context.
+   *
+   * @return the next local dot
+   */
+  public VectorTimestamp<T> nextDot() {
+    VectorTimestamp<T> time = clock.getTime();
+    VectorTimestamp<T> dot = new VectorTimestamp<>(time.identifier(), time.value() + 1);
+    clock.update(dot);
+    return dot;
+  }
+
+  /**
+   * Adds the given dot to the context.
+   *
+   * @param dot the dot to add
+   */
+  public void add(VectorTimestamp<T> dot) {
+    cloud.add(dot);
+    compact();
+  }
+
+  /**
+   * Joins the given context into this context.
+   *
+   * @param other the context to join
+   */
+  public void join(DotContext<T> other) {
+    for (VectorTimestamp<T> timestamp : other.clock.getTimestamps()) {
+      clock.update(timestamp);
+    }
+    cloud.addAll(other.cloud);
+    compact();
+  }
+
+  /**
+   * Folds contiguous dots from the cloud into the clock and removes dots already covered by the clock.
+   */
+  private void compact() {
+    boolean compacted = true;
+    while (compacted && !cloud.isEmpty()) {
+      compacted = false;
+      Iterator<VectorTimestamp<T>> iterator = cloud.iterator();
+      while (iterator.hasNext()) {
+        VectorTimestamp<T> dot = iterator.next();
+        LogicalTimestamp timestamp = clock.getTimestamp(dot.identifier());
+        long value = timestamp != null ? timestamp.value() : 0;
+        if (dot.value() <= value) {
+          iterator.remove();
+        } else if (dot.value() == value + 1) {
+          clock.update(dot);
+          iterator.remove();
+          compacted = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns a copy of the context.
+   *
+   * @return a copy of the context
+   */
+  public DotContext<T> copy() {
+    return new DotContext<>(new VectorClock<>(clock.getTime(), clock.getTimestamps()), new HashSet<>(cloud));
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("clock", clock.getTimestamps())
+        .add("cloud", cloud)
+        .toString();
+  }
+}
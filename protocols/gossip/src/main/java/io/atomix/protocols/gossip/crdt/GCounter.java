@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import io.atomix.utils.Identifier;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Grow-only counter.
+ * <p>
+ * Each replica increments its own entry in the counter, and the value of the counter is the sum of all entries.
+ * Increment deltas contain only the incremented entry.
+ *
+ * @param <T> the replica identifier type
+ */
+public class GCounter<T extends Identifier> implements DeltaCrdt<GCounter<T>> {
+  private final T identifier;
+  private final Map<T, Long> counts;
+
+  public GCounter(T identifier) {
+    this(identifier, new HashMap<>());
+  }
+
+  private GCounter(T identifier, Map<T, Long> counts) {
+    this.identifier = checkNotNull(identifier, "identifier cannot be null");
+    this.counts = counts;
+  }
+
+  /**
+   * Returns the counter value.
+   *
+   * @return the sum of all replicas' increments
+   */
+  public long get() {
+    long value = 0;
+    for (long count : counts.values()) {
+      value += count;
+    }
+    return value;
+  }
+
+  /**
+   * Increments the counter by one.
+   *
+   * @return the increment delta
+   */
+  public GCounter<T> increment() {
+    return increment(1);
+  }
+
+  /**
+   * Increments the counter by the given amount.
+   *
+   * @param amount the amount by which to increment the counter
+   * @return the increment delta
+   * @throws IllegalArgumentException if the amount is negative
+   */
+  public GCounter<T> increment(long amount) {
+    checkArgument(amount >= 0, "amount cannot be negative");
+    long count = counts.getOrDefault(identifier, 0L) + amount;
+    counts.put(identifier, count);
+    GCounter<T> delta = new GCounter<>(identifier);
+    delta.counts.put(identifier, count);
+    return delta;
+  }
+
+  @Override
+  public void join(GCounter<T> other) {
+    for (Map.Entry<T, Long> entry : other.counts.entrySet()) {
+      counts.merge(entry.getKey(), entry.getValue(), Math::max);
+    }
+  }
+
+  @Override
+  public GCounter<T> copy() {
+    return new GCounter<>(identifier, new HashMap<>(counts));
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("value", get())
+        .add("counts", counts)
+        .toString();
+  }
+}
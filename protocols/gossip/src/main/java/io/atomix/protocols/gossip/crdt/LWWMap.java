@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import com.google.common.collect.ComparisonChain;
+import io.atomix.time.VectorTimestamp;
+import io.atomix.utils.Identifier;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Last-writer-wins map.
+ * <p>
+ * Each write to a key is tagged with a unique dot, and its delta context covers the key's previous dot. Writes that
+ * causally follow a prior write therefore always replace it regardless of wall clock skew, and only concurrent writes
+ * are resolved by comparing their wall clock timestamps, with ties broken by dot. Removals remove only the observed
+ * write, so a write concurrent with a removal wins.
+ *
+ * @param <T> the replica identifier type
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LWWMap<T extends Identifier, K, V> implements DeltaCrdt<LWWMap<T, K, V>> {
+  private final T identifier;
+  private final Map<K, Entry<T, V>> entries;
+  private final DotContext<T> context;
+
+  public LWWMap(T identifier) {
+    this(identifier, new HashMap<>(), new DotContext<>(identifier));
+  }
+
+  private LWWMap(T identifier, Map<K, Entry<T, V>> entries, DotContext<T> context) {
+    this.identifier = checkNotNull(identifier, "identifier cannot be null");
+    this.entries = entries;
+    this.context = context;
+  }
+
+  /**
+   * Returns the value for the given key.
+   *
+   * @param key the key for which to return the value
+   * @return the value for the key or {@code null} if the key is not present
+   */
+  public V get(K key) {
+    Entry<T, V> entry = entries.get(key);
+    return entry != null ? entry.value : null;
+  }
+
+  /**
+   * Returns the keys in the map.
+   *
+   * @return an unmodifiable view of the keys in the map
+   */
+  public Set<K> keySet() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  /**
+   * Returns the number of entries in the map.
+   *
+   * @return the number of entries in the map
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Puts the given value in the map.
+   *
+   * @param key the key to update
+   * @param value the value to put
+   * @return the put delta
+   */
+  public LWWMap<T, K, V> put(K key, V value) {
+    checkNotNull(key, "key cannot be null");
+    checkNotNull(value, "value cannot be null");
+    Entry<T, V> entry = new Entry<>(context.nextDot(), System.currentTimeMillis(), value);
+    LWWMap<T, K, V> delta = new LWWMap<>(identifier);
+    Entry<T, V> previousEntry = entries.put(key, entry);
+    if (previousEntry != null) {
+      delta.context.add(previousEntry.dot);
+    }
+    delta.entries.put(key, entry);
+    delta.context.add(entry.dot);
+    return delta;
+  }
+
+  /**
+   * Removes the given key from the map.
+   *
+   * @param key the key to remove
+   * @return the remove delta
+   */
+  public LWWMap<T, K, V> remove(K key) {
+    checkNotNull(key, "key cannot be null");
+    LWWMap<T, K, V> delta = new LWWMap<>(identifier);
+    Entry<T, V> entry = entries.remove(key);
+    if (entry != null) {
+      delta.context.add(entry.dot);
+    }
+    return delta;
+  }
+
+  @Override
+  public void join(LWWMap<T, K, V> other) {
+    Set<K> keys = new HashSet<>(entries.keySet());
+    keys.addAll(other.entries.keySet());
+    for (K key : keys) {
+      Entry<T, V> entry = entries.get(key);
+      Entry<T, V> otherEntry = other.entries.get(key);
+
+      // Drop writes that have been seen and overwritten or removed by the other state.
+      if (entry != null && otherEntry != null && entry.dot.equals(otherEntry.dot)) {
+        continue;
+      }
+      if (entry != null && other.context.contains(entry.dot)) {
+        entry = null;
+      }
+      if (otherEntry != null && context.contains(otherEntry.dot)) {
+        otherEntry = null;
+      }
+
+      // If both writes are concurrent, the last writer wins.
+      Entry<T, V> joinedEntry = entry == null ? otherEntry
+          : otherEntry == null ? entry
+          : entry.compareTo(otherEntry) >= 0 ? entry : otherEntry;
+      if (joinedEntry == null) {
+        entries.remove(key);
+      } else {
+        entries.put(key, joinedEntry);
+      }
+    }
+    context.join(other.context);
+  }
+
+  @Override
+  public LWWMap<T, K, V> copy() {
+    return new LWWMap<>(identifier, new HashMap<>(entries), context.copy());
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("entries", entries)
+        .add("context", context)
+        .toString();
+  }
+
+  /**
+   * Map entry.
+   */
+  private static final class Entry<T extends Identifier, V> implements Comparable<Entry<T, V>> {
+    private final VectorTimestamp<T> dot;
+    private final long timestamp;
+    private final V value;
+
+    private Entry(VectorTimestamp<T> dot, long timestamp, V value) {
+      this.dot = dot;
+      this.timestamp = timestamp;
+      this.value = value;
+    }
+
+    @Override
+    public int compareTo(Entry<T, V> other) {
+      return ComparisonChain.start()
+          .compare(timestamp, other.timestamp)
+          .compare(dot, other.dot)
+          .result();
+    }
+
+    @Override
+    public String toString() {
+      return toStringHelper(this)
+          .add("dot", dot)
+          .add("timestamp", timestamp)
+          .add("value", value)
+          .toString();
+    }
+  }
+}
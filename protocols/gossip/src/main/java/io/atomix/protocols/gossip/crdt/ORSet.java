@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import io.atomix.time.VectorTimestamp;
+import io.atomix.utils.Identifier;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Observed-remove set.
+ * <p>
+ * Each addition of an element is tagged with a unique dot, and a removal removes only the dots the removing replica
+ * has observed, so an addition concurrent with a removal wins. The {@link DotContext} records every dot the set has
+ * seen so that dots removed by one replica are not resurrected when joining the state of another.
+ *
+ * @param <T> the replica identifier type
+ * @param <E> the element type
+ */
+public class ORSet<T extends Identifier, E> implements DeltaCrdt<ORSet<T, E>> {
+  private final T identifier;
+  private final Map<E, Set<VectorTimestamp<T>>> entries;
+  private final DotContext<T> context;
+
+  public ORSet(T identifier) {
+    this(identifier, new HashMap<>(), new DotContext<>(identifier));
+  }
+
+  private ORSet(T identifier, Map<E, Set<VectorTimestamp<T>>> entries, DotContext<T> context) {
+    this.identifier = checkNotNull(identifier, "identifier cannot be null");
+    this.entries = entries;
+    this.context = context;
+  }
+
+  /**
+   * Returns a boolean indicating whether the set contains the given element.
+   *
+   * @param element the element to check
+   * @return indicates whether the set contains the element
+   */
+  public boolean contains(E element) {
+    return entries.containsKey(element);
+  }
+
+  /**
+   * Returns the elements in the set.
+   *
+   * @return an unmodifiable view of the elements in the set
+   */
+  public Set<E> elements() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  /**
+   * Returns the number of elements in the set.
+   *
+   * @return the number of elements in the set
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Adds the given element to the set.
+   * <p>
+   * The delta contains the element tagged with a new dot, and its context covers the element's previous dots so they
+   * are removed from other replicas.
+   *
+   * @param element the element to add
+   * @return the add delta
+   */
+  public ORSet<T, E> add(E element) {
+    checkNotNull(element, "element cannot be null");
+    VectorTimestamp<T> dot = context.nextDot();
+    ORSet<T, E> delta = new ORSet<>(identifier);
+    Set<VectorTimestamp<T>> previousDots = entries.put(element, newDots(dot));
+    if (previousDots != null) {
+      previousDots.forEach(delta.context::add);
+    }
+    delta.entries.put(element, newDots(dot));
+    delta.context.add(dot);
+    return delta;
+  }
+
+  /**
+   * Removes the given element from the set.
+   * <p>
+   * The delta contains no elements, and its context covers the element's observed dots.
+   *
+   * @param element the element to remove
+   * @return the remove delta
+   */
+  public ORSet<T, E> remove(E element) {
+    checkNotNull(element, "element cannot be null");
+    ORSet<T, E> delta = new ORSet<>(identifier);
+    Set<VectorTimestamp<T>> dots = entries.remove(element);
+    if (dots != null) {
+      dots.forEach(delta.context::add);
+    }
+    return delta;
+  }
+
+  /**
+   * Returns a new dot set containing the given dot.
+   */
+  private Set<VectorTimestamp<T>> newDots(VectorTimestamp<T> dot) {
+    Set<VectorTimestamp<T>> dots = new HashSet<>(1);
+    dots.add(dot);
+    return dots;
+  }
+
+  @Override
+  public void join(ORSet<T, E> other) {
+    Set<E> elements = new HashSet<>(entries.keySet());
+    elements.addAll(other.entries.keySet());
+    for (E element : elements) {
+      Set<VectorTimestamp<T>> dots = entries.getOrDefault(element, Collections.emptySet());
+      Set<VectorTimestamp<T>> otherDots = other.entries.getOrDefault(element, Collections.emptySet());
+      Set<VectorTimestamp<T>> joinedDots = new HashSet<>();
+
+      // Keep dots present in both states, and dots present in one state that have not been seen by the other.
+      for (VectorTimestamp<T> dot : dots) {
+        if (otherDots.contains(dot) || !other.context.contains(dot)) {
+          joinedDots.add(dot);
+        }
+      }
+      for (VectorTimestamp<T> dot : otherDots) {
+        if (!context.contains(dot)) {
+          joinedDots.add(dot);
+        }
+      }
+
+      if (joinedDots.isEmpty()) {
+        entries.remove(element);
+      } else {
+        entries.put(element, joinedDots);
+      }
+    }
+    context.join(other.context);
+  }
+
+  @Override
+  public ORSet<T, E> copy() {
+    Map<E, Set<VectorTimestamp<T>>> entries = new HashMap<>();
+    this.entries.forEach((element, dots) -> entries.put(element, new HashSet<>(dots)));
+    return new ORSet<>(identifier, entries, context.copy());
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("elements", entries.keySet())
+        .add("context", context)
+        .toString();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import io.atomix.utils.Identifier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Positive-negative counter.
+ * <p>
+ * The counter is composed of a {@link GCounter} of increments and a {@link GCounter} of decrements, and its value is
+ * the difference between the two.
+ *
+ * @param <T> the replica identifier type
+ */
+public class PNCounter<T extends Identifier> implements DeltaCrdt<PNCounter<T>> {
+  private final T identifier;
+  private final GCounter<T> increments;
+  private final GCounter<T> decrements;
+
+  public PNCounter(T identifier) {
+    this(identifier, new GCounter<>(identifier), new GCounter<>(identifier));
+  }
+
+  private PNCounter(T identifier, GCounter<T> increments, GCounter<T> decrements) {
+    this.identifier = checkNotNull(identifier, "identifier cannot be null");
+    this.increments = increments;
+    this.decrements = decrements;
+  }
+
+  /**
+   * Returns the counter value.
+   *
+   * @return the counter value
+   */
+  public long get() {
+    return increments.get() - decrements.get();
+  }
+
+  /**
+   * Adds the given amount to the counter.
+   *
+   * @param amount the amount to add, which may be negative
+   * @return the update delta
+   */
+  public PNCounter<T> add(long amount) {
+    return amount >= 0 ? increment(amount) : decrement(-amount);
+  }
+
+  /**
+   * Increments the counter by the given amount.
+   *
+   * @param amount the amount by which to increment the counter
+   * @return the increment delta
+   * @throws IllegalArgumentException if the amount is negative
+   */
+  public PNCounter<T> increment(long amount) {
+    checkArgument(amount >= 0, "amount cannot be negative");
+    return new PNCounter<>(identifier, increments.increment(amount), new GCounter<>(identifier));
+  }
+
+  /**
+   * Decrements the counter by the given amount.
+   *
+   * @param amount the amount by which to decrement the counter
+   * @return the decrement delta
+   * @throws IllegalArgumentException if the amount is negative
+   */
+  public PNCounter<T> decrement(long amount) {
+    checkArgument(amount >= 0, "amount cannot be negative");
+    return new PNCounter<>(identifier, new GCounter<>(identifier), decrements.increment(amount));
+  }
+
+  @Override
+  public void join(PNCounter<T> other) {
+    increments.join(other.increments);
+    decrements.join(other.decrements);
+  }
+
+  @Override
+  public PNCounter<T> copy() {
+    return new PNCounter<>(identifier, increments.copy(), decrements.copy());
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("value", get())
+        .toString();
+  }
+}
@@ -18,14 +18,21 @@ package io.atomix.protocols.gossip.protocol;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableMap;
 
+import java.util.Collections;
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Anti-entropy advertisement.
+ * <p>
+ * Advertisements carry either the hashes of a set of nodes in the sender's digest tree, or the digests of the entries
+ * in a set of the tree's leaves. Peers compare trees starting with the root and exchange the hashes of the children
+ * of differing nodes until the differing leaves are found, and then exchange the digests of the entries in those
+ * leaves.
  */
 public class AntiEntropyAdvertisement<K> {
+  private final Map<Integer, Long> hashes;
   private final Map<K, GossipUpdate.Digest> digest;
 
   /**
@@ -34,9 +41,29 @@ public class AntiEntropyAdvertisement<K> {
    * @param digest for map entries
    */
   public AntiEntropyAdvertisement(Map<K, GossipUpdate.Digest> digest) {
+    this(Collections.emptyMap(), digest);
+  }
+
+  /**
+   * Creates a new anti entropy advertisement message.
+   *
+   * @param hashes mapping from digest tree node to the node's hash
+   * @param digest for map entries
+   */
+  public AntiEntropyAdvertisement(Map<Integer, Long> hashes, Map<K, GossipUpdate.Digest> digest) {
+    this.hashes = ImmutableMap.copyOf(checkNotNull(hashes));
     this.digest = ImmutableMap.copyOf(checkNotNull(digest));
   }
 
+  /**
+   * Returns the hashes of digest tree nodes.
+   *
+   * @return mapping from digest tree node to the node's hash
+   */
+  public Map<Integer, Long> hashes() {
+    return hashes;
+  }
+
   /**
    * Returns the digest for map entries.
    *
@@ -49,6 +76,7 @@ public class AntiEntropyAdvertisement<K> {
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(getClass())
+        .add("totalNodes", hashes.size())
         .add("totalEntries", digest.size())
         .toString();
   }
@@ -15,6 +15,7 @@
  */
 package io.atomix.protocols.gossip.protocol;
 
+import java.util.Collections;
 import java.util.Set;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -46,10 +47,16 @@ public class AntiEntropyResponse<K> {
 
   private final Status status;
   private final Set<K> keys;
+  private final Set<Integer> nodes;
 
   public AntiEntropyResponse(Status status, Set<K> keys) {
+    this(status, keys, Collections.emptySet());
+  }
+
+  public AntiEntropyResponse(Status status, Set<K> keys, Set<Integer> nodes) {
     this.status = status;
     this.keys = keys;
+    this.nodes = nodes;
   }
 
   /**
@@ -70,11 +77,21 @@ public class AntiEntropyResponse<K> {
     return keys;
   }
 
+  /**
+   * Returns the set of advertised digest tree nodes whose hashes differ from the receiver's.
+   *
+   * @return the set of differing digest tree nodes
+   */
+  public Set<Integer> nodes() {
+    return nodes;
+  }
+
   @Override
   public String toString() {
     return toStringHelper(this)
         .add("status", status)
         .add("keys", keys)
+        .add("nodes", nodes)
         .toString();
   }
 }
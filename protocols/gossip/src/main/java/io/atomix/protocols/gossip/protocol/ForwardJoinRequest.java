@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.protocol;
+
+import io.atomix.utils.Identifier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Peer sampling forward join request.
+ * <p>
+ * Forward join requests carry a joining node on a random walk through the active views of its contact's neighbors.
+ * The joiner is added to the passive view of the node at which the walk reaches the passive random walk length, and
+ * to the active view of the node at which the walk ends.
+ */
+public class ForwardJoinRequest<T extends Identifier> {
+  private final T source;
+  private final T joiner;
+  private final int ttl;
+
+  public ForwardJoinRequest(T source, T joiner, int ttl) {
+    this.source = checkNotNull(source, "source cannot be null");
+    this.joiner = checkNotNull(joiner, "joiner cannot be null");
+    this.ttl = ttl;
+  }
+
+  /**
+   * Returns the node that sent the request.
+   *
+   * @return the node that sent the request
+   */
+  public T source() {
+    return source;
+  }
+
+  /**
+   * Returns the joining node.
+   *
+   * @return the joining node
+   */
+  public T joiner() {
+    return joiner;
+  }
+
+  /**
+   * Returns the number of remaining hops in the random walk.
+   *
+   * @return the number of remaining hops
+   */
+  public int ttl() {
+    return ttl;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("source", source)
+        .add("joiner", joiner)
+        .add("ttl", ttl)
+        .toString();
+  }
+}
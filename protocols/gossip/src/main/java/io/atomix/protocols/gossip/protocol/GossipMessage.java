@@ -15,7 +15,8 @@
  */
 package io.atomix.protocols.gossip.protocol;
 
-import io.atomix.time.LogicalTimestamp;
+import io.atomix.time.HybridTimestamp;
+import io.atomix.utils.Identifier;
 
 import java.util.Collection;
 
@@ -25,20 +26,32 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  * Base type for gossip messages.
  */
 public class GossipMessage<K, V> {
-  private final LogicalTimestamp timestamp;
+  private final HybridTimestamp timestamp;
   private final Collection<GossipUpdate<K, V>> updates;
+  private final Identifier replyTo;
+  private final long sequence;
 
-  public GossipMessage(LogicalTimestamp timestamp, Collection<GossipUpdate<K, V>> updates) {
+  public GossipMessage(HybridTimestamp timestamp, Collection<GossipUpdate<K, V>> updates) {
+    this(timestamp, updates, null);
+  }
+
+  public GossipMessage(HybridTimestamp timestamp, Collection<GossipUpdate<K, V>> updates, Identifier replyTo) {
+    this(timestamp, updates, replyTo, 0);
+  }
+
+  public GossipMessage(HybridTimestamp timestamp, Collection<GossipUpdate<K, V>> updates, Identifier replyTo, long sequence) {
     this.timestamp = timestamp;
     this.updates = updates;
+    this.replyTo = replyTo;
+    this.sequence = sequence;
   }
 
   /**
-   * Returns the logical timestamp for the message.
+   * Returns the hybrid timestamp for the message.
    *
-   * @return the logical timestamp for the message
+   * @return the hybrid timestamp for the message
    */
-  public LogicalTimestamp timestamp() {
+  public HybridTimestamp timestamp() {
     return timestamp;
   }
 
@@ -51,11 +64,36 @@ public class GossipMessage<K, V> {
     return updates;
   }
 
+  /**
+   * Returns the node to which to reply with the recipient's updates.
+   * <p>
+   * Push-pull messages carry the sender's identifier so the recipient can push its own updates back to the sender.
+   *
+   * @return the node to which to reply, or {@code null} if no reply is requested
+   */
+  public Identifier replyTo() {
+    return replyTo;
+  }
+
+  /**
+   * Returns the delta sequence number of the message.
+   * <p>
+   * Delta intervals carry the sequence number following the last delta they contain, and acknowledgements, which
+   * carry no updates, echo the sequence number of the interval they acknowledge.
+   *
+   * @return the delta sequence number of the message
+   */
+  public long sequence() {
+    return sequence;
+  }
+
   @Override
   public String toString() {
     return toStringHelper(this)
         .add("timestamp", timestamp)
         .add("updates", updates)
+        .add("replyTo", replyTo)
+        .add("sequence", sequence)
         .toString();
   }
 }
@@ -17,6 +17,7 @@ package io.atomix.protocols.gossip.protocol;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import io.atomix.time.HybridTimestamp;
 import io.atomix.time.Timestamp;
 import io.atomix.time.Version;
 
@@ -73,6 +74,19 @@ public class GossipUpdate<K, V> {
     return creationTime;
   }
 
+  /**
+   * Returns the physical time of the update.
+   * <p>
+   * If the update has a {@link HybridTimestamp}, this is the physical time at which the update was written on the
+   * node on which it originated, and is the same on every node. Otherwise, it's the time at which this node created
+   * the update.
+   *
+   * @return the physical time of the update
+   */
+  public long updateTime() {
+    return timestamp instanceof HybridTimestamp ? ((HybridTimestamp) timestamp).physicalTime() : creationTime;
+  }
+
   /**
    * Returns whether the update is a tombstone.
    *
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.protocol;
+
+import io.atomix.utils.Identifier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Peer sampling neighbor request.
+ * <p>
+ * Neighbor requests ask a node to add the source to its active view. High priority requests are sent by nodes whose
+ * active view is empty and are always accepted, while low priority requests are only accepted if the receiver's
+ * active view is not full.
+ */
+public class NeighborRequest<T extends Identifier> {
+  private final T source;
+  private final boolean highPriority;
+
+  public NeighborRequest(T source, boolean highPriority) {
+    this.source = checkNotNull(source, "source cannot be null");
+    this.highPriority = highPriority;
+  }
+
+  /**
+   * Returns the node that sent the request.
+   *
+   * @return the node that sent the request
+   */
+  public T source() {
+    return source;
+  }
+
+  /**
+   * Returns whether the request is high priority.
+   *
+   * @return indicates whether the request must be accepted
+   */
+  public boolean isHighPriority() {
+    return highPriority;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("source", source)
+        .add("highPriority", highPriority)
+        .toString();
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.protocol;
+
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Peer sampling protocol.
+ * <p>
+ * Futures returned by one-way messages are completed once the message has been delivered, and completed
+ * exceptionally if the peer can't be reached. Failed deliveries are used to detect failed neighbors.
+ */
+public interface PeerSamplingProtocol<T extends Identifier> {
+
+  /**
+   * Sends a join request to the given contact.
+   *
+   * @param contact the node through which to join
+   * @param joiner the joining node
+   * @return a future to be completed once the request has been delivered
+   */
+  CompletableFuture<Void> join(T contact, T joiner);
+
+  /**
+   * Sends a forward join request to the given peer.
+   *
+   * @param peer the peer to which to forward the join request
+   * @param request the forward join request
+   * @return a future to be completed once the request has been delivered
+   */
+  CompletableFuture<Void> forwardJoin(T peer, ForwardJoinRequest<T> request);
+
+  /**
+   * Sends a neighbor request to the given peer.
+   *
+   * @param peer the peer to ask to add the source to its active view
+   * @param request the neighbor request
+   * @return a future to be completed with a boolean indicating whether the peer accepted the request
+   */
+  CompletableFuture<Boolean> neighbor(T peer, NeighborRequest<T> request);
+
+  /**
+   * Notifies the given peer that it has been removed from the source's active view.
+   *
+   * @param peer the peer to notify
+   * @param source the node that removed the peer
+   * @return a future to be completed once the notification has been delivered
+   */
+  CompletableFuture<Void> disconnect(T peer, T source);
+
+  /**
+   * Sends a shuffle request to the given peer.
+   *
+   * @param peer the peer to which to send the shuffle request
+   * @param request the shuffle request
+   * @return a future to be completed with the sample of nodes returned by the node at which the shuffle ended
+   */
+  CompletableFuture<Collection<T>> shuffle(T peer, ShuffleRequest<T> request);
+
+  /**
+   * Registers a join request handler.
+   *
+   * @param handler the join request handler, which is called with the joining node
+   */
+  void registerJoinHandler(Consumer<T> handler);
+
+  /**
+   * Unregisters the join request handler.
+   */
+  void unregisterJoinHandler();
+
+  /**
+   * Registers a forward join request handler.
+   *
+   * @param handler the forward join request handler
+   */
+  void registerForwardJoinHandler(Consumer<ForwardJoinRequest<T>> handler);
+
+  /**
+   * Unregisters the forward join request handler.
+   */
+  void unregisterForwardJoinHandler();
+
+  /**
+   * Registers a neighbor request handler.
+   *
+   * @param handler the neighbor request handler, which returns whether the request was accepted
+   */
+  void registerNeighborHandler(Function<NeighborRequest<T>, Boolean> handler);
+
+  /**
+   * Unregisters the neighbor request handler.
+   */
+  void unregisterNeighborHandler();
+
+  /**
+   * Registers a disconnect handler.
+   *
+   * @param handler the disconnect handler, which is called with the node that sent the notification
+   */
+  void registerDisconnectHandler(Consumer<T> handler);
+
+  /**
+   * Unregisters the disconnect handler.
+   */
+  void unregisterDisconnectHandler();
+
+  /**
+   * Registers a shuffle request handler.
+   *
+   * @param handler the shuffle request handler, which returns a future to be completed with the sample of nodes
+   *                returned by the node at which the shuffle ended
+   */
+  void registerShuffleHandler(Function<ShuffleRequest<T>, CompletableFuture<Collection<T>>> handler);
+
+  /**
+   * Unregisters the shuffle request handler.
+   */
+  void unregisterShuffleHandler();
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.protocol;
+
+import com.google.common.collect.ImmutableList;
+import io.atomix.utils.Identifier;
+
+import java.util.Collection;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Peer sampling shuffle request.
+ * <p>
+ * Shuffle requests carry a sample of the origin's active and passive views on a random walk. The node at which the
+ * walk ends replies with a sample of its own passive view, and both nodes merge the samples they receive into their
+ * passive views.
+ */
+public class ShuffleRequest<T extends Identifier> {
+  private final T source;
+  private final T origin;
+  private final Collection<T> nodes;
+  private final int ttl;
+
+  public ShuffleRequest(T source, T origin, Collection<T> nodes, int ttl) {
+    this.source = checkNotNull(source, "source cannot be null");
+    this.origin = checkNotNull(origin, "origin cannot be null");
+    this.nodes = ImmutableList.copyOf(checkNotNull(nodes, "nodes cannot be null"));
+    this.ttl = ttl;
+  }
+
+  /**
+   * Returns the node that sent the request.
+   *
+   * @return the node that forwarded the request to the receiver
+   */
+  public T source() {
+    return source;
+  }
+
+  /**
+   * Returns the node that started the shuffle.
+   *
+   * @return the node that started the shuffle
+   */
+  public T origin() {
+    return origin;
+  }
+
+  /**
+   * Returns the origin's sample of nodes.
+   *
+   * @return the sample of nodes from the origin's views
+   */
+  public Collection<T> nodes() {
+    return nodes;
+  }
+
+  /**
+   * Returns the number of remaining hops in the random walk.
+   *
+   * @return the number of remaining hops
+   */
+  public int ttl() {
+    return ttl;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("source", source)
+        .add("origin", origin)
+        .add("nodes", nodes)
+        .add("ttl", ttl)
+        .toString();
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.TestNetwork.NodeId;
+import io.atomix.utils.Identifier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Anti-entropy service test.
+ */
+public class AntiEntropyServiceTest {
+  private static final Duration INTERVAL = Duration.ofMillis(80);
+  private static final Duration MIN_INTERVAL = Duration.ofMillis(10);
+  private static final Duration MAX_INTERVAL = Duration.ofMillis(640);
+  private static final int UPDATES = 10;
+
+  private ScheduledExecutorService executor;
+  private TestNetwork network;
+  private AntiEntropyService<String, String> service1;
+  private AntiEntropyService<String, String> service2;
+
+  @Before
+  public void setupNetwork() {
+    executor = Executors.newScheduledThreadPool(2);
+    network = new TestNetwork(executor);
+    service1 = createService(NodeId.from(1), NodeId.from(2));
+    service2 = createService(NodeId.from(2), NodeId.from(1));
+  }
+
+  @After
+  public void teardownNetwork() {
+    service1.close();
+    service2.close();
+    executor.shutdownNow();
+  }
+
+  /**
+   * Tests that the anti-entropy interval backs off while replicas agree and shortens while they diverge.
+   */
+  @Test
+  public void testAdaptiveInterval() throws Exception {
+    NodeId peer = NodeId.from(2);
+    await(() -> service1.antiEntropyInterval().equals(MAX_INTERVAL));
+    DivergenceMetrics metrics = service1.divergenceMetrics().get(peer);
+    assertTrue(metrics.exchanges() > 0);
+    assertEquals(0, metrics.divergentExchanges());
+
+    Set<String> received = ConcurrentHashMap.newKeySet();
+    service2.addListener(event -> received.add(event.subject()));
+
+    // Drop gossip so the updates are only detected by anti-entropy, and the replicas stay diverged.
+    network.dropGossip(true);
+    for (int i = 0; i < UPDATES; i++) {
+      service1.process(new GossipEvent<>(String.valueOf(i), "value"));
+    }
+    await(() -> service1.antiEntropyInterval().equals(MIN_INTERVAL));
+    metrics = service1.divergenceMetrics().get(peer);
+    assertTrue(metrics.divergentExchanges() > 0);
+    assertEquals(UPDATES, metrics.lastKeysSent());
+
+    // Once the updates are delivered, the replicas agree and the interval backs off again.
+    network.dropGossip(false);
+    await(() -> received.size() == UPDATES);
+    await(() -> service1.antiEntropyInterval().equals(MAX_INTERVAL));
+    assertEquals(0, service1.divergenceMetrics().get(peer).lastKeysSent());
+  }
+
+  /**
+   * Tests that the anti-entropy interval shortens while only the peer holds newer updates.
+   */
+  @Test
+  public void testAdaptiveIntervalWhenPeerIsAhead() throws Exception {
+    // The second node never initiates exchanges, so its updates are only detected by the first node's exchanges,
+    // in which the first node has no keys to send.
+    NodeId peer = NodeId.from(4);
+    AntiEntropyService<String, String> service3 = createService(NodeId.from(3), peer);
+    AntiEntropyService<String, String> service4 = createService(peer, Collections.emptySet(), Duration.ofMinutes(1));
+    try {
+      await(() -> service3.antiEntropyInterval().equals(MAX_INTERVAL));
+      for (int i = 0; i < UPDATES; i++) {
+        service4.process(new GossipEvent<>(String.valueOf(i), "value"));
+      }
+      await(() -> service3.antiEntropyInterval().equals(MIN_INTERVAL));
+      DivergenceMetrics metrics = service3.divergenceMetrics().get(peer);
+      assertTrue(metrics.divergentExchanges() > 0);
+      assertEquals(0, metrics.lastKeysSent());
+    } finally {
+      service3.close();
+      service4.close();
+    }
+  }
+
+  /**
+   * Tests that a purged tombstone is not pulled back from a peer that has not yet purged it.
+   */
+  @Test
+  public void testPurgedTombstoneNotResurrected() throws Exception {
+    // The first node purges tombstones quickly, and the second node never purges them.
+    AntiEntropyService<String, String> service3 = createService(NodeId.from(3), NodeId.from(4), Duration.ofMillis(100));
+    AntiEntropyService<String, String> service4 = createService(NodeId.from(4), NodeId.from(3), Duration.ofHours(1));
+    try {
+      Set<String> deleted = ConcurrentHashMap.newKeySet();
+      service4.addListener(event -> {
+        if (event.value() == null) {
+          deleted.add(event.subject());
+        }
+      });
+      service3.process(new GossipEvent<>("key", "value"));
+      service3.process(new GossipEvent<>("key", null));
+      await(() -> deleted.contains("key"));
+
+      // Once the tombstone is purged from the first node, exchanges with the second node must not restore it.
+      AtomicInteger resurrected = new AtomicInteger();
+      service3.addListener(event -> resurrected.incrementAndGet());
+      Thread.sleep(MAX_INTERVAL.toMillis() * 5);
+      assertEquals(0, resurrected.get());
+    } finally {
+      service3.close();
+      service4.close();
+    }
+  }
+
+  /**
+   * Tests that an exchange with a diverged peer descends one level of the digest tree per round.
+   */
+  @Test
+  public void testExchangeRounds() throws Exception {
+    // The second node never initiates exchanges, and gossip is dropped, so all advertisements are sent by the first
+    // node and the second node stays diverged.
+    network.dropGossip(true);
+    NodeId peer = NodeId.from(4);
+    AntiEntropyService<String, String> service3 = createService(NodeId.from(3), peer);
+    AntiEntropyService<String, String> service4 = createService(peer, Collections.emptySet(), Duration.ofMinutes(1));
+    try {
+      for (int i = 0; i < UPDATES; i++) {
+        service3.process(new GossipEvent<>(String.valueOf(i), "value"));
+      }
+      await(() -> service3.divergenceMetrics().containsKey(peer)
+          && service3.divergenceMetrics().get(peer).lastKeysSent() == UPDATES);
+
+      // Each exchange advertises the root and then the children of the differing nodes down to the leaves, and at
+      // most one exchange with the peer is in progress.
+      long advertisements = network.advertisements.get();
+      DivergenceMetrics metrics = service3.divergenceMetrics().get(peer);
+      assertTrue(advertisements <= (metrics.exchanges() + metrics.failedExchanges() + 1)
+          * (AntiEntropyService.TREE_DEPTH + 1));
+    } finally {
+      service3.close();
+      service4.close();
+    }
+  }
+
+  /**
+   * Creates an anti-entropy service for the given node that exchanges with the given peer.
+   */
+  private AntiEntropyService<String, String> createService(NodeId node, NodeId peer) {
+    return createService(node, peer, Duration.ofMinutes(1));
+  }
+
+  /**
+   * Creates an anti-entropy service for the given node that exchanges with the given peer and purges tombstones at
+   * the given interval.
+   */
+  private AntiEntropyService<String, String> createService(NodeId node, NodeId peer, Duration purgeInterval) {
+    return createService(node, Collections.singleton(peer), purgeInterval);
+  }
+
+  /**
+   * Creates an anti-entropy service for the given node that exchanges with the given peers and purges tombstones at
+   * the given interval.
+   */
+  @SuppressWarnings("unchecked")
+  private AntiEntropyService<String, String> createService(NodeId node, Collection<Identifier> peers, Duration purgeInterval) {
+    return (AntiEntropyService<String, String>) new AntiEntropyService.Builder<String, String>()
+        .withProtocol(network.protocol(node))
+        .withPeerProvider(() -> peers)
+        .withCommunicationExecutor(executor)
+        .withAntiEntropyInterval(INTERVAL)
+        .withMinAntiEntropyInterval(MIN_INTERVAL)
+        .withMaxAntiEntropyInterval(MAX_INTERVAL)
+        .withPurgeInterval(purgeInterval)
+        .build();
+  }
+
+  /**
+   * Waits for the given condition to be met.
+   */
+  private void await(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+      Thread.sleep(50);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+}
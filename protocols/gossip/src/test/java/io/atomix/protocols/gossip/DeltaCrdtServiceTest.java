@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.TestNetwork.NodeId;
+import io.atomix.protocols.gossip.crdt.GCounter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Delta CRDT service test.
+ */
+public class DeltaCrdtServiceTest {
+  private static final Duration INTERVAL = Duration.ofMillis(50);
+  private static final int NODES = 5;
+  private static final int SUBJECTS = 50;
+
+  private ScheduledExecutorService executor;
+  private TestNetwork network;
+  private List<DeltaCrdtService<String, GCounter<NodeId>>> services;
+
+  @Before
+  public void setupNetwork() {
+    executor = Executors.newScheduledThreadPool(2);
+    network = new TestNetwork(executor);
+    services = new ArrayList<>();
+    for (int i = 0; i < NODES; i++) {
+      services.add(createService(NodeId.from(i)));
+    }
+  }
+
+  @After
+  public void teardownNetwork() {
+    services.forEach(DeltaCrdtService::close);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Tests that replicas converge on deltas lost in transit, and that anti-entropy sends only unacknowledged deltas.
+   */
+  @Test
+  public void testDeltaConvergence() throws Exception {
+    // Drop gossip so the deltas are only delivered by anti-entropy.
+    network.dropGossip(true);
+    for (DeltaCrdtService<String, GCounter<NodeId>> service : services) {
+      for (int i = 0; i < SUBJECTS; i++) {
+        service.update("subject-" + i, GCounter::increment);
+      }
+    }
+    Thread.sleep(INTERVAL.toMillis() * 2);
+    network.dropGossip(false);
+    await(() -> isConverged(NODES));
+
+    // Once every delta has been acknowledged, anti-entropy stops sending state.
+    Thread.sleep(INTERVAL.toMillis() * 5);
+    network.gossipUpdates.set(0);
+    Thread.sleep(INTERVAL.toMillis() * 10);
+    assertEquals(0, network.gossipUpdates.get());
+
+    // A new delta is sent to each peer without the rest of the state.
+    services.get(0).update("subject-0", GCounter::increment);
+    await(() -> services.stream().allMatch(service -> service.get("subject-0").get() == NODES + 1));
+    Thread.sleep(INTERVAL.toMillis() * 5);
+    assertTrue(network.gossipUpdates.get() < SUBJECTS);
+  }
+
+  /**
+   * Returns whether every subject has the given count on every node.
+   */
+  private boolean isConverged(long count) {
+    return services.stream().allMatch(service -> IntStream.range(0, SUBJECTS)
+        .mapToObj(i -> service.get("subject-" + i))
+        .allMatch(counter -> counter != null && counter.get() == count));
+  }
+
+  /**
+   * Creates a delta CRDT service for the given node that exchanges with every other node.
+   */
+  private DeltaCrdtService<String, GCounter<NodeId>> createService(NodeId node) {
+    List<NodeId> peers = IntStream.range(0, NODES)
+        .mapToObj(NodeId::from)
+        .filter(peer -> !peer.equals(node))
+        .collect(Collectors.toList());
+    return (DeltaCrdtService<String, GCounter<NodeId>>) DeltaCrdtService.<String, GCounter<NodeId>>builder()
+        .withProtocol(network.protocol(node))
+        .withLocalNode(node)
+        .withPeerProvider(() -> new ArrayList<>(peers))
+        .withCommunicationExecutor(executor)
+        .withStateFactory(() -> new GCounter<>(node))
+        .withAntiEntropyInterval(INTERVAL)
+        .build();
+  }
+
+  /**
+   * Waits for the given condition to be met.
+   */
+  private void await(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+      Thread.sleep(50);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.TestNetwork.NodeId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Dissemination service test.
+ * <p>
+ * Nodes are simulated in-process on a shared executor. Each node gossips over the active view of a
+ * {@link PeerSamplingService}.
+ */
+public class DisseminationServiceTest {
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private static final Duration UPDATE_INTERVAL = Duration.ofMillis(100);
+  private static final int FANOUT = 3;
+  private static final int UPDATES = 20;
+
+  private ScheduledExecutorService executor;
+  private TestNetwork network;
+  private List<PeerSamplingService<NodeId>> samplers;
+  private List<GossipService<String, String>> services;
+
+  @Before
+  public void setupNetwork() {
+    executor = Executors.newScheduledThreadPool(4);
+    network = new TestNetwork(executor);
+    samplers = new ArrayList<>();
+    services = new ArrayList<>();
+  }
+
+  @After
+  public void teardownNetwork() {
+    services.forEach(GossipService::close);
+    samplers.forEach(PeerSamplingService::close);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Simulates epidemic dissemination over a bounded peer view, measuring the time for a burst of updates to reach
+   * every node and the number of gossip messages sent per node.
+   */
+  @Test
+  public void testEpidemicDissemination() throws Exception {
+    int size = 200;
+    List<Set<String>> received = createNodes(size);
+    PeerSamplingServiceTest.awaitConnected(samplers);
+
+    // Measure the message load while no updates are being disseminated.
+    Thread.sleep(UPDATE_INTERVAL.toMillis() * 10);
+    network.gossipMessages.set(0);
+    Thread.sleep(UPDATE_INTERVAL.toMillis() * 20);
+    double idleLoad = network.gossipMessages.get() / 20d / size;
+
+    // Write a burst of updates on random nodes and wait for every node to receive every update.
+    network.gossipMessages.set(0);
+    long start = System.nanoTime();
+    for (int i = 0; i < UPDATES; i++) {
+      services.get(ThreadLocalRandom.current().nextInt(size)).process(new GossipEvent<>("key-" + i, "value-" + i));
+    }
+    for (int i = 0; i < 300 && !isConverged(received); i++) {
+      Thread.sleep(10);
+    }
+    long convergenceTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    double rounds = convergenceTime / (double) UPDATE_INTERVAL.toMillis();
+    double load = network.gossipMessages.get() / (double) size;
+
+    log.debug("{} nodes: {} updates converged in {}ms ({} rounds), {} messages/node, idle {} messages/node/round",
+        size, UPDATES, convergenceTime, rounds, load, idleLoad);
+
+    assertTrue(isConverged(received));
+
+    // In each round, a node pushes its infective updates to at most FANOUT peers and occasionally performs a
+    // push-pull exchange, regardless of the size of the cluster.
+    assertTrue(load / (rounds + 1) < FANOUT + 1);
+    assertTrue(idleLoad < 1);
+  }
+
+  /**
+   * Creates the given number of nodes, returning the subjects received by each node.
+   */
+  private List<Set<String>> createNodes(int size) {
+    NodeId seed = NodeId.from(0);
+    List<Set<String>> received = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      NodeId node = NodeId.from(i);
+      PeerSamplingService<NodeId> sampler = PeerSamplingService.<NodeId>builder()
+          .withProtocol(network.protocol(node))
+          .withLocalNode(node)
+          .withSeedProvider(() -> Collections.singleton(seed))
+          .withExecutor(executor)
+          .withShuffleInterval(UPDATE_INTERVAL)
+          .build();
+      samplers.add(sampler);
+
+      GossipService<String, String> service = DisseminationService.<String, String>builder()
+          .withProtocol(network.protocol(node))
+          .withLocalNode(node)
+          .withPeerProvider(() -> Collections.unmodifiableCollection(sampler.activeView()))
+          .withCommunicationExecutor(executor)
+          .withUpdateInterval(UPDATE_INTERVAL)
+          .withFanout(FANOUT)
+          .build();
+      Set<String> subjects = ConcurrentHashMap.newKeySet();
+      service.addListener(event -> subjects.add(event.subject()));
+      services.add(service);
+      received.add(subjects);
+    }
+    return received;
+  }
+
+  /**
+   * Returns whether every node has received every update.
+   */
+  private boolean isConverged(List<Set<String>> received) {
+    return received.stream().allMatch(subjects -> subjects.size() == UPDATES);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.time.LogicalTimestamp;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Merkle tree test.
+ */
+public class MerkleTreeTest {
+
+  /**
+   * Tests that trees with the same updates have the same hashes regardless of update order.
+   */
+  @Test
+  public void testUpdateOrder() {
+    MerkleTree<String> tree1 = new MerkleTree<>(2);
+    MerkleTree<String> tree2 = new MerkleTree<>(2);
+    for (int i = 0; i < 100; i++) {
+      tree1.update("key" + i, null, digest(i));
+    }
+    for (int i = 99; i >= 0; i--) {
+      tree2.update("key" + i, null, digest(i));
+    }
+    assertEquals(tree1.hash(MerkleTree.ROOT), tree2.hash(MerkleTree.ROOT));
+
+    tree1.update("key50", digest(50), digest(51));
+    assertNotEquals(tree1.hash(MerkleTree.ROOT), tree2.hash(MerkleTree.ROOT));
+    tree1.update("key50", digest(51), digest(50));
+    assertEquals(tree1.hash(MerkleTree.ROOT), tree2.hash(MerkleTree.ROOT));
+
+    tree2.update("key100", null, digest(100));
+    tree2.update("key100", digest(100), null);
+    assertEquals(tree1.hash(MerkleTree.ROOT), tree2.hash(MerkleTree.ROOT));
+  }
+
+  /**
+   * Tests descending into differing nodes to find a differing key.
+   */
+  @Test
+  public void testDescend() {
+    MerkleTree<String> tree1 = new MerkleTree<>(2);
+    MerkleTree<String> tree2 = new MerkleTree<>(2);
+    for (int i = 0; i < 100; i++) {
+      tree1.update("key" + i, null, digest(i));
+      tree2.update("key" + i, null, digest(i));
+    }
+    tree2.update("key42", digest(42), digest(43));
+
+    List<Integer> nodes = new ArrayList<>();
+    nodes.add(MerkleTree.ROOT);
+    while (!tree1.isLeaf(nodes.get(0))) {
+      List<Integer> differingNodes = new ArrayList<>();
+      for (int node : nodes) {
+        for (int child : tree1.children(node)) {
+          if (tree1.hash(child) != tree2.hash(child)) {
+            differingNodes.add(child);
+          }
+        }
+      }
+      assertEquals(1, differingNodes.size());
+      nodes = differingNodes;
+    }
+    assertTrue(tree1.keys(nodes.get(0)).contains("key42"));
+  }
+
+  private static GossipUpdate.Digest digest(long timestamp) {
+    return new GossipUpdate.Digest(new LogicalTimestamp(timestamp), false);
+  }
+}
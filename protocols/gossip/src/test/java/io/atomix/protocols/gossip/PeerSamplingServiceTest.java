@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.TestNetwork.NodeId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Peer sampling service test.
+ */
+public class PeerSamplingServiceTest {
+  private static final Duration SHUFFLE_INTERVAL = Duration.ofMillis(100);
+  private static final int ACTIVE_VIEW_SIZE = 5;
+  private static final int PASSIVE_VIEW_SIZE = 30;
+
+  private ScheduledExecutorService executor;
+  private TestNetwork network;
+  private List<PeerSamplingService<NodeId>> services;
+
+  @Before
+  public void setupNetwork() {
+    executor = Executors.newScheduledThreadPool(4);
+    network = new TestNetwork(executor);
+    services = new ArrayList<>();
+  }
+
+  @After
+  public void teardownNetwork() {
+    services.forEach(PeerSamplingService::close);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Tests that nodes joining through a single seed form a connected overlay with bounded views.
+   */
+  @Test
+  public void testOverlay() throws Exception {
+    int size = 100;
+    createNodes(size);
+    awaitConnected(services);
+
+    for (PeerSamplingService<NodeId> service : services) {
+      assertFalse(service.activeView().isEmpty());
+      assertTrue(service.activeView().size() <= ACTIVE_VIEW_SIZE);
+      assertTrue(service.passiveView().size() <= PASSIVE_VIEW_SIZE);
+    }
+  }
+
+  /**
+   * Tests that the overlay is repaired from the passive views when nodes fail.
+   */
+  @Test
+  public void testFailureRecovery() throws Exception {
+    int size = 100;
+    createNodes(size);
+    awaitConnected(services);
+
+    List<PeerSamplingService<NodeId>> live = new ArrayList<>(services);
+    Collections.shuffle(live);
+    List<PeerSamplingService<NodeId>> failed = new ArrayList<>(live.subList(0, size / 5));
+    live.removeAll(failed);
+    for (PeerSamplingService<NodeId> service : failed) {
+      network.fail(service.localNode());
+      service.close();
+    }
+
+    awaitConnected(live);
+    for (PeerSamplingService<NodeId> service : live) {
+      assertFalse(service.activeView().isEmpty());
+    }
+  }
+
+  /**
+   * Creates the given number of nodes, each of which joins through the first node.
+   */
+  private void createNodes(int size) {
+    NodeId seed = NodeId.from(0);
+    for (int i = 0; i < size; i++) {
+      NodeId node = NodeId.from(i);
+      services.add(PeerSamplingService.<NodeId>builder()
+          .withProtocol(network.protocol(node))
+          .withLocalNode(node)
+          .withSeedProvider(() -> Collections.singleton(seed))
+          .withExecutor(executor)
+          .withShuffleInterval(SHUFFLE_INTERVAL)
+          .withActiveViewSize(ACTIVE_VIEW_SIZE)
+          .withPassiveViewSize(PASSIVE_VIEW_SIZE)
+          .build());
+    }
+  }
+
+  /**
+   * Waits for the active views of the given nodes to form a connected graph.
+   */
+  static void awaitConnected(List<PeerSamplingService<NodeId>> services) throws InterruptedException {
+    for (int i = 0; i < 200 && !isConnected(services); i++) {
+      Thread.sleep(SHUFFLE_INTERVAL.toMillis());
+    }
+    assertTrue(isConnected(services));
+  }
+
+  /**
+   * Returns whether the active views of the given nodes form a connected graph over the given nodes.
+   */
+  private static boolean isConnected(List<PeerSamplingService<NodeId>> services) {
+    Set<NodeId> nodes = services.stream().map(PeerSamplingService::localNode).collect(Collectors.toSet());
+    Set<NodeId> visited = new HashSet<>();
+    Queue<PeerSamplingService<NodeId>> queue = new ArrayDeque<>();
+    queue.add(services.get(0));
+    visited.add(services.get(0).localNode());
+    while (!queue.isEmpty()) {
+      PeerSamplingService<NodeId> service = queue.remove();
+      for (NodeId neighbor : service.activeView()) {
+        if (nodes.contains(neighbor) && visited.add(neighbor)) {
+          queue.add(services.stream().filter(s -> s.localNode().equals(neighbor)).findFirst().get());
+        }
+      }
+    }
+    return visited.size() == nodes.size();
+  }
+}
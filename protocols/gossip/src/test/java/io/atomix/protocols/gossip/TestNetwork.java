@@ -0,0 +1,272 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.AntiEntropyAdvertisement;
+import io.atomix.protocols.gossip.protocol.AntiEntropyProtocol;
+import io.atomix.protocols.gossip.protocol.AntiEntropyResponse;
+import io.atomix.protocols.gossip.protocol.ForwardJoinRequest;
+import io.atomix.protocols.gossip.protocol.GossipMessage;
+import io.atomix.protocols.gossip.protocol.NeighborRequest;
+import io.atomix.protocols.gossip.protocol.PeerSamplingProtocol;
+import io.atomix.protocols.gossip.protocol.ShuffleRequest;
+import io.atomix.utils.AbstractIdentifier;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-memory network for simulating gossip nodes in-process.
+ * <p>
+ * Messages are delivered asynchronously on the network executor. Messages to or from a failed node are not delivered,
+ * and requests to a failed node are completed exceptionally as if the connection was refused. Gossip messages can be
+ * dropped separately to simulate lost updates.
+ */
+class TestNetwork {
+  private final Executor executor;
+  private final Map<NodeId, TestProtocol> protocols = new ConcurrentHashMap<>();
+  private final Set<NodeId> failed = ConcurrentHashMap.newKeySet();
+  private volatile boolean gossipDropped;
+  final AtomicLong gossipMessages = new AtomicLong();
+  final AtomicLong gossipUpdates = new AtomicLong();
+  final AtomicLong samplingMessages = new AtomicLong();
+  final AtomicLong advertisements = new AtomicLong();
+
+  TestNetwork(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Returns the protocol for the given node.
+   */
+  TestProtocol protocol(NodeId node) {
+    return protocols.computeIfAbsent(node, TestProtocol::new);
+  }
+
+  /**
+   * Fails the given node.
+   */
+  void fail(NodeId node) {
+    failed.add(node);
+  }
+
+  /**
+   * Sets whether gossip messages are dropped.
+   */
+  void dropGossip(boolean dropped) {
+    gossipDropped = dropped;
+  }
+
+  /**
+   * Delivers a request from the source to the target.
+   */
+  private <T, U> CompletableFuture<U> send(NodeId source, NodeId target, T request, Function<TestProtocol, Function<T, CompletableFuture<U>>> handler) {
+    samplingMessages.incrementAndGet();
+    CompletableFuture<U> future = new CompletableFuture<>();
+    executor.execute(() -> {
+      TestProtocol protocol = protocols.get(target);
+      Function<T, CompletableFuture<U>> targetHandler = protocol != null ? handler.apply(protocol) : null;
+      if (failed.contains(source)) {
+        return;
+      }
+      if (failed.contains(target) || targetHandler == null) {
+        future.completeExceptionally(new IllegalStateException("Connection refused"));
+        return;
+      }
+      targetHandler.apply(request).whenComplete((response, error) -> {
+        if (error != null) {
+          future.completeExceptionally(error);
+        } else {
+          future.complete(response);
+        }
+      });
+    });
+    return future;
+  }
+
+  /**
+   * Delivers a one-way request from the source to the target.
+   */
+  private <T> CompletableFuture<Void> sendOneWay(NodeId source, NodeId target, T request, Function<TestProtocol, Consumer<T>> handler) {
+    return send(source, target, request, protocol -> {
+      Consumer<T> consumer = handler.apply(protocol);
+      return consumer != null ? message -> {
+        consumer.accept(message);
+        return CompletableFuture.completedFuture(null);
+      } : null;
+    });
+  }
+
+  /**
+   * Node protocol.
+   */
+  class TestProtocol implements AntiEntropyProtocol<NodeId>, PeerSamplingProtocol<NodeId> {
+    private final NodeId node;
+    private volatile Consumer gossipListener;
+    private volatile Function advertisementHandler;
+    private volatile Consumer<NodeId> joinHandler;
+    private volatile Consumer<ForwardJoinRequest<NodeId>> forwardJoinHandler;
+    private volatile Function<NeighborRequest<NodeId>, Boolean> neighborHandler;
+    private volatile Consumer<NodeId> disconnectHandler;
+    private volatile Function<ShuffleRequest<NodeId>, CompletableFuture<Collection<NodeId>>> shuffleHandler;
+
+    TestProtocol(NodeId node) {
+      this.node = node;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> void gossip(NodeId peer, GossipMessage<K, V> message) {
+      gossipMessages.incrementAndGet();
+      gossipUpdates.addAndGet(message.updates().size());
+      executor.execute(() -> {
+        TestProtocol protocol = protocols.get(peer);
+        Consumer listener = protocol != null ? protocol.gossipListener : null;
+        if (listener != null && !gossipDropped && !failed.contains(node) && !failed.contains(peer)) {
+          listener.accept(message);
+        }
+      });
+    }
+
+    @Override
+    public <K, V> void registerGossipListener(Consumer<GossipMessage<K, V>> listener) {
+      this.gossipListener = listener;
+    }
+
+    @Override
+    public void unregisterGossipListener() {
+      this.gossipListener = null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K> CompletableFuture<AntiEntropyResponse<K>> advertise(NodeId peer, AntiEntropyAdvertisement<K> advertisement) {
+      advertisements.incrementAndGet();
+      return send(node, peer, advertisement, protocol -> {
+        Function<AntiEntropyAdvertisement<K>, AntiEntropyResponse<K>> handler = protocol.advertisementHandler;
+        return handler != null ? message -> CompletableFuture.completedFuture(handler.apply(message)) : null;
+      });
+    }
+
+    @Override
+    public <K> void registerAdvertisementHandler(Function<AntiEntropyAdvertisement<K>, AntiEntropyResponse<K>> handler) {
+      this.advertisementHandler = handler;
+    }
+
+    @Override
+    public void unregisterAdvertisementHandler() {
+      this.advertisementHandler = null;
+    }
+
+    @Override
+    public CompletableFuture<Void> join(NodeId contact, NodeId joiner) {
+      return sendOneWay(node, contact, joiner, protocol -> protocol.joinHandler);
+    }
+
+    @Override
+    public CompletableFuture<Void> forwardJoin(NodeId peer, ForwardJoinRequest<NodeId> request) {
+      return sendOneWay(node, peer, request, protocol -> protocol.forwardJoinHandler);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> neighbor(NodeId peer, NeighborRequest<NodeId> request) {
+      return send(node, peer, request, protocol -> {
+        Function<NeighborRequest<NodeId>, Boolean> handler = protocol.neighborHandler;
+        return handler != null ? message -> CompletableFuture.completedFuture(handler.apply(message)) : null;
+      });
+    }
+
+    @Override
+    public CompletableFuture<Void> disconnect(NodeId peer, NodeId source) {
+      return sendOneWay(node, peer, source, protocol -> protocol.disconnectHandler);
+    }
+
+    @Override
+    public CompletableFuture<Collection<NodeId>> shuffle(NodeId peer, ShuffleRequest<NodeId> request) {
+      return send(node, peer, request, protocol -> protocol.shuffleHandler);
+    }
+
+    @Override
+    public void registerJoinHandler(Consumer<NodeId> handler) {
+      this.joinHandler = handler;
+    }
+
+    @Override
+    public void unregisterJoinHandler() {
+      this.joinHandler = null;
+    }
+
+    @Override
+    public void registerForwardJoinHandler(Consumer<ForwardJoinRequest<NodeId>> handler) {
+      this.forwardJoinHandler = handler;
+    }
+
+    @Override
+    public void unregisterForwardJoinHandler() {
+      this.forwardJoinHandler = null;
+    }
+
+    @Override
+    public void registerNeighborHandler(Function<NeighborRequest<NodeId>, Boolean> handler) {
+      this.neighborHandler = handler;
+    }
+
+    @Override
+    public void unregisterNeighborHandler() {
+      this.neighborHandler = null;
+    }
+
+    @Override
+    public void registerDisconnectHandler(Consumer<NodeId> handler) {
+      this.disconnectHandler = handler;
+    }
+
+    @Override
+    public void unregisterDisconnectHandler() {
+      this.disconnectHandler = null;
+    }
+
+    @Override
+    public void registerShuffleHandler(Function<ShuffleRequest<NodeId>, CompletableFuture<Collection<NodeId>>> handler) {
+      this.shuffleHandler = handler;
+    }
+
+    @Override
+    public void unregisterShuffleHandler() {
+      this.shuffleHandler = null;
+    }
+  }
+
+  /**
+   * Test node identifier.
+   */
+  static class NodeId extends AbstractIdentifier<String> {
+    static NodeId from(int id) {
+      return new NodeId(String.valueOf(id));
+    }
+
+    NodeId(String id) {
+      super(id);
+    }
+  }
+}
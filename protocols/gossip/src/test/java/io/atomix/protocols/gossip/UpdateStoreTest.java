@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip;
+
+import io.atomix.protocols.gossip.protocol.GossipUpdate;
+import io.atomix.time.LogicalTimestamp;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Update store test.
+ */
+public class UpdateStoreTest {
+
+  @Test
+  public void testPutIfNewer() throws Exception {
+    UpdateStore<String, String> store = new UpdateStore<>();
+    assertTrue(store.putIfNewer(new GossipUpdate<>("foo", "bar", new LogicalTimestamp(2))));
+    assertFalse(store.putIfNewer(new GossipUpdate<>("foo", "baz", new LogicalTimestamp(1))));
+    assertEquals("bar", store.get("foo").value());
+
+    // Tombstones are overridden by updates regardless of their timestamps.
+    assertTrue(store.putIfNewer(new GossipUpdate<>("foo", null, new LogicalTimestamp(3))));
+    assertTrue(store.putIfNewer(new GossipUpdate<>("foo", "baz", new LogicalTimestamp(1))));
+    assertEquals("baz", store.get("foo").value());
+  }
+
+  @Test
+  public void testPurgeTombstones() throws Exception {
+    UpdateStore<String, String> store = new UpdateStore<>();
+    for (int i = 0; i < 100; i++) {
+      store.put(new GossipUpdate<>(String.valueOf(i), i % 2 == 0 ? null : "value", new LogicalTimestamp(i)));
+    }
+
+    // Each purge removes tombstones from a single stripe.
+    int purged = 0;
+    for (int i = 0; i < store.stripes(); i++) {
+      purged += store.purgeTombstones(update -> true);
+    }
+    assertEquals(50, purged);
+    assertEquals(50, store.collect(update -> true).size());
+    assertNull(store.get("0"));
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    MerkleTree<String> tree = new MerkleTree<>(2);
+    UpdateStore<String, String> store = new UpdateStore<>(MerkleTree.FANOUT, tree::stripe, (subject, previousUpdate, update) ->
+        tree.update(subject, previousUpdate != null ? previousUpdate.digest() : null, update != null ? update.digest() : null));
+    AtomicLong timestamp = new AtomicLong();
+    CountDownLatch latch = new CountDownLatch(4);
+    for (int i = 0; i < 4; i++) {
+      new Thread(() -> {
+        for (int j = 0; j < 10000; j++) {
+          store.putIfNewer(new GossipUpdate<>(String.valueOf(j % 1000), "value", new LogicalTimestamp(timestamp.incrementAndGet())));
+        }
+        latch.countDown();
+      }).start();
+    }
+    latch.await();
+
+    // A tree built from the final updates must match the concurrently updated tree.
+    MerkleTree<String> expectedTree = new MerkleTree<>(2);
+    for (GossipUpdate<String, String> update : store.collect(update -> true)) {
+      expectedTree.update(update.subject(), null, update.digest());
+    }
+    assertEquals(1000, store.collect(update -> true).size());
+    assertEquals(expectedTree.hash(MerkleTree.ROOT), tree.hash(MerkleTree.ROOT));
+  }
+}
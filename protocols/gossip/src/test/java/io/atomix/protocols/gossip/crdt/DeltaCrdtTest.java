@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.gossip.crdt;
+
+import com.google.common.collect.Sets;
+import io.atomix.utils.AbstractIdentifier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Delta CRDT test.
+ */
+public class DeltaCrdtTest {
+  private static final ReplicaId A = new ReplicaId("a");
+  private static final ReplicaId B = new ReplicaId("b");
+
+  @Test
+  public void testGCounter() throws Exception {
+    GCounter<ReplicaId> a = new GCounter<>(A);
+    GCounter<ReplicaId> b = new GCounter<>(B);
+    GCounter<ReplicaId> delta1 = a.increment();
+    GCounter<ReplicaId> delta2 = a.increment(2);
+    GCounter<ReplicaId> delta3 = b.increment(5);
+
+    // Deltas are idempotent and may be applied out of order.
+    b.join(delta2);
+    b.join(delta1);
+    b.join(delta2);
+    a.join(delta3);
+    assertEquals(8, a.get());
+    assertEquals(8, b.get());
+  }
+
+  @Test
+  public void testPNCounter() throws Exception {
+    PNCounter<ReplicaId> a = new PNCounter<>(A);
+    PNCounter<ReplicaId> b = new PNCounter<>(B);
+    PNCounter<ReplicaId> delta1 = a.add(10);
+    PNCounter<ReplicaId> delta2 = b.add(-3);
+    a.join(delta2);
+    b.join(delta1);
+    assertEquals(7, a.get());
+    assertEquals(7, b.get());
+  }
+
+  @Test
+  public void testORSetAddWins() throws Exception {
+    ORSet<ReplicaId, String> a = new ORSet<>(A);
+    ORSet<ReplicaId, String> b = new ORSet<>(B);
+    b.join(a.add("foo"));
+
+    // A removal concurrent with an addition does not remove the concurrently added element.
+    ORSet<ReplicaId, String> remove = a.remove("foo");
+    ORSet<ReplicaId, String> add = b.add("foo");
+    a.join(add);
+    b.join(remove);
+    assertTrue(a.contains("foo"));
+    assertTrue(b.contains("foo"));
+
+    // A removal that observed the addition removes the element everywhere.
+    b.join(a.remove("foo"));
+    assertFalse(a.contains("foo"));
+    assertFalse(b.contains("foo"));
+
+    // Joining a stale full state does not resurrect removed elements.
+    ORSet<ReplicaId, String> stale = a.copy();
+    a.add("bar");
+    a.join(b.add("baz"));
+    b.join(a.remove("bar"));
+    b.join(stale);
+    assertEquals(Sets.newHashSet("baz"), b.elements());
+  }
+
+  @Test
+  public void testORSetDeltaGroup() throws Exception {
+    ORSet<ReplicaId, String> a = new ORSet<>(A);
+    ORSet<ReplicaId, String> b = new ORSet<>(B);
+    ORSet<ReplicaId, String> group = a.add("foo");
+    group.join(a.add("bar"));
+    group.join(a.remove("foo"));
+    b.join(group);
+    assertEquals(Sets.newHashSet("bar"), b.elements());
+    assertEquals(a.elements(), b.elements());
+  }
+
+  @Test
+  public void testLWWMap() throws Exception {
+    LWWMap<ReplicaId, String, String> a = new LWWMap<>(A);
+    LWWMap<ReplicaId, String, String> b = new LWWMap<>(B);
+    b.join(a.put("foo", "1"));
+    assertEquals("1", b.get("foo"));
+
+    // A write that observed the prior write replaces it.
+    a.join(b.put("foo", "2"));
+    assertEquals("2", a.get("foo"));
+
+    // Concurrent writes converge to the same value on both replicas.
+    LWWMap<ReplicaId, String, String> delta1 = a.put("bar", "a");
+    LWWMap<ReplicaId, String, String> delta2 = b.put("bar", "b");
+    a.join(delta2);
+    b.join(delta1);
+    assertEquals(a.get("bar"), b.get("bar"));
+
+    // Removals that observed a write remove the key everywhere.
+    b.join(a.remove("bar"));
+    assertEquals(Sets.newHashSet("foo"), a.keySet());
+    assertEquals(Sets.newHashSet("foo"), b.keySet());
+  }
+
+  /**
+   * Test replica identifier.
+   */
+  private static class ReplicaId extends AbstractIdentifier<String> {
+    ReplicaId(String value) {
+      super(value);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.codec;
+
+import io.atomix.storage.buffer.BufferInput;
+import io.atomix.storage.buffer.BufferOutput;
+
+/**
+ * Binary codec for a single Raft type.
+ *
+ * @param <T> the encoded type
+ */
+final class RaftCodec<T> {
+
+  /**
+   * Writes the fields of an object.
+   */
+  @FunctionalInterface
+  interface Encoder<T> {
+    void encode(T object, BufferOutput<?> output);
+  }
+
+  /**
+   * Reads the fields of an object written by the given serializer version.
+   */
+  @FunctionalInterface
+  interface Decoder<T> {
+    T decode(BufferInput<?> input, int version);
+  }
+
+  private final int id;
+  private final Class<T> type;
+  private final Encoder<T> encoder;
+  private final Decoder<T> decoder;
+
+  RaftCodec(int id, Class<T> type, Encoder<T> encoder, Decoder<T> decoder) {
+    this.id = id;
+    this.type = type;
+    this.encoder = encoder;
+    this.decoder = decoder;
+  }
+
+  /**
+   * Returns the type identifier written ahead of encoded objects.
+   *
+   * @return the type identifier
+   */
+  int id() {
+    return id;
+  }
+
+  /**
+   * Returns the encoded type.
+   *
+   * @return the encoded type
+   */
+  Class<T> type() {
+    return type;
+  }
+
+  /**
+   * Encodes the given object.
+   *
+   * @param object the object to encode
+   * @param output the output to which to write the object
+   */
+  void encode(Object object, BufferOutput<?> output) {
+    encoder.encode(type.cast(object), output);
+  }
+
+  /**
+   * Decodes an object.
+   *
+   * @param input   the input from which to read the object
+   * @param version the serializer version with which the object was written
+   * @return the decoded object
+   */
+  T decode(BufferInput<?> input, int version) {
+    return decoder.decode(input, version);
+  }
+}
@@ -0,0 +1,842 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.codec;
+
+import io.atomix.protocols.raft.RaftError;
+import io.atomix.protocols.raft.ReadConsistency;
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.cluster.RaftMember;
+import io.atomix.protocols.raft.cluster.impl.DefaultRaftMember;
+import io.atomix.protocols.raft.event.EventType;
+import io.atomix.protocols.raft.event.RaftEvent;
+import io.atomix.protocols.raft.operation.OperationId;
+import io.atomix.protocols.raft.operation.OperationType;
+import io.atomix.protocols.raft.operation.RaftOperation;
+import io.atomix.protocols.raft.protocol.AppendRequest;
+import io.atomix.protocols.raft.protocol.AppendResponse;
+import io.atomix.protocols.raft.protocol.CloseSessionRequest;
+import io.atomix.protocols.raft.protocol.CloseSessionResponse;
+import io.atomix.protocols.raft.protocol.CommandRequest;
+import io.atomix.protocols.raft.protocol.CommandResponse;
+import io.atomix.protocols.raft.protocol.ConfigureRequest;
+import io.atomix.protocols.raft.protocol.ConfigureResponse;
+import io.atomix.protocols.raft.protocol.InstallRequest;
+import io.atomix.protocols.raft.protocol.InstallResponse;
+import io.atomix.protocols.raft.protocol.JoinRequest;
+import io.atomix.protocols.raft.protocol.JoinResponse;
+import io.atomix.protocols.raft.protocol.KeepAliveRequest;
+import io.atomix.protocols.raft.protocol.KeepAliveResponse;
+import io.atomix.protocols.raft.protocol.LeaveRequest;
+import io.atomix.protocols.raft.protocol.LeaveResponse;
+import io.atomix.protocols.raft.protocol.MetadataRequest;
+import io.atomix.protocols.raft.protocol.MetadataResponse;
+import io.atomix.protocols.raft.protocol.OpenSessionRequest;
+import io.atomix.protocols.raft.protocol.OpenSessionResponse;
+import io.atomix.protocols.raft.protocol.PollRequest;
+import io.atomix.protocols.raft.protocol.PollResponse;
+import io.atomix.protocols.raft.protocol.PublishRequest;
+import io.atomix.protocols.raft.protocol.QueryRequest;
+import io.atomix.protocols.raft.protocol.QueryResponse;
+import io.atomix.protocols.raft.protocol.RaftResponse;
+import io.atomix.protocols.raft.protocol.ReconfigureRequest;
+import io.atomix.protocols.raft.protocol.ReconfigureResponse;
+import io.atomix.protocols.raft.protocol.ResetRequest;
+import io.atomix.protocols.raft.protocol.VoteRequest;
+import io.atomix.protocols.raft.protocol.VoteResponse;
+import io.atomix.protocols.raft.session.RaftSessionMetadata;
+import io.atomix.protocols.raft.storage.log.entry.CloseSessionEntry;
+import io.atomix.protocols.raft.storage.log.entry.CommandEntry;
+import io.atomix.protocols.raft.storage.log.entry.ConfigurationEntry;
+import io.atomix.protocols.raft.storage.log.entry.InitializeEntry;
+import io.atomix.protocols.raft.storage.log.entry.KeepAliveEntry;
+import io.atomix.protocols.raft.storage.log.entry.MetadataEntry;
+import io.atomix.protocols.raft.storage.log.entry.OpenSessionEntry;
+import io.atomix.protocols.raft.storage.log.entry.QueryEntry;
+import io.atomix.protocols.raft.storage.log.entry.RaftLogEntry;
+import io.atomix.protocols.raft.storage.system.Configuration;
+import io.atomix.storage.buffer.BufferInput;
+import io.atomix.storage.buffer.BufferOutput;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Registry of Raft codecs.
+ * <p>
+ * Each registered type is assigned a fixed identifier that is written ahead of the encoded object. Identifiers are
+ * part of the wire and storage formats: they must never be reused or reassigned, and new types must be registered
+ * with new identifiers. Enum constants without an explicit identifier are written by ordinal, so new constants must be
+ * appended.
+ * <p>
+ * Integral fields are written as unsigned variable-length integers, and nullable fields are prefixed with a presence
+ * marker. Decoders receive the serializer version with which an object was written so that fields added in later
+ * versions can be read conditionally.
+ */
+final class RaftCodecs {
+  private static final RaftCodec<?>[] CODECS = new RaftCodec<?>[64];
+  private static final Map<Class<?>, RaftCodec<?>> TYPES = new IdentityHashMap<>();
+
+  private static final RaftError.Type[] ERROR_TYPES = RaftError.Type.values();
+  private static final ReadConsistency[] READ_CONSISTENCIES = ReadConsistency.values();
+  private static final RaftMember.Type[] MEMBER_TYPES = RaftMember.Type.values();
+  private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+  static {
+    // Client requests and responses.
+    register(1, OpenSessionRequest.class,
+        (request, output) -> {
+          writeString(request.member(), output);
+          writeString(request.serviceName(), output);
+          writeString(request.serviceType(), output);
+          writeEnum(request.readConsistency(), output);
+          writeVarLong(request.timeout(), output);
+        },
+        (input, version) -> new OpenSessionRequest(
+            readString(input),
+            readString(input),
+            readString(input),
+            readEnum(READ_CONSISTENCIES, input),
+            readVarLong(input)));
+    register(2, OpenSessionResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeVarLong(response.session(), output);
+          writeVarLong(response.timeout(), output);
+        },
+        (input, version) -> new OpenSessionResponse(
+            readStatus(input),
+            readError(input),
+            readVarLong(input),
+            readVarLong(input)));
+    register(3, CloseSessionRequest.class,
+        (request, output) -> writeVarLong(request.session(), output),
+        (input, version) -> new CloseSessionRequest(readVarLong(input)));
+    register(4, CloseSessionResponse.class,
+        RaftCodecs::writeResponse,
+        (input, version) -> new CloseSessionResponse(readStatus(input), readError(input)));
+    register(5, KeepAliveRequest.class,
+        (request, output) -> {
+          writeLongs(request.sessionIds(), output);
+          writeLongs(request.commandSequenceNumbers(), output);
+          writeLongs(request.eventIndexes(), output);
+        },
+        (input, version) -> new KeepAliveRequest(
+            readLongs(input),
+            readLongs(input),
+            readLongs(input)));
+    register(6, KeepAliveResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeMemberId(response.leader(), output);
+          writeCollection(response.members(), output, RaftCodecs::writeMemberId);
+          writeLongs(response.sessionIds(), output);
+        },
+        (input, version) -> new KeepAliveResponse(
+            readStatus(input),
+            readError(input),
+            readMemberId(input),
+            readCollection(input, version, ArrayList::new, (i, v) -> readMemberId(i)),
+            readLongs(input)));
+    register(7, QueryRequest.class,
+        (request, output) -> {
+          writeVarLong(request.session(), output);
+          writeVarLong(request.sequenceNumber(), output);
+          writeOperation(request.operation(), output);
+          writeVarLong(request.index(), output);
+        },
+        (input, version) -> new QueryRequest(
+            readVarLong(input),
+            readVarLong(input),
+            readOperation(input),
+            readVarLong(input)));
+    register(8, QueryResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeVarLong(response.index(), output);
+          writeVarLong(response.eventIndex(), output);
+          writeBytes(response.result(), output);
+          writeVarLong(response.lastSequenceNumber(), output);
+        },
+        (input, version) -> new QueryResponse(
+            readStatus(input),
+            readError(input),
+            readVarLong(input),
+            readVarLong(input),
+            readBytes(input),
+            readVarLong(input)));
+    register(9, CommandRequest.class,
+        (request, output) -> {
+          writeVarLong(request.session(), output);
+          writeVarLong(request.sequenceNumber(), output);
+          writeOperation(request.operation(), output);
+        },
+        (input, version) -> new CommandRequest(
+            readVarLong(input),
+            readVarLong(input),
+            readOperation(input)));
+    register(10, CommandResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeVarLong(response.index(), output);
+          writeVarLong(response.eventIndex(), output);
+          writeBytes(response.result(), output);
+          writeVarLong(response.lastSequenceNumber(), output);
+        },
+        (input, version) -> new CommandResponse(
+            readStatus(input),
+            readError(input),
+            readVarLong(input),
+            readVarLong(input),
+            readBytes(input),
+            readVarLong(input)));
+    register(11, MetadataRequest.class,
+        (request, output) -> writeVarLong(request.session(), output),
+        (input, version) -> new MetadataRequest(readVarLong(input)));
+    register(12, MetadataResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeCollection(response.sessions(), output, RaftCodecs::writeSessionMetadata);
+        },
+        (input, version) -> new MetadataResponse(
+            readStatus(input),
+            readError(input),
+            readCollection(input, version, HashSet::new, (i, v) -> readSessionMetadata(i))));
+    register(13, PublishRequest.class,
+        (request, output) -> {
+          writeVarLong(request.session(), output);
+          writeVarLong(request.eventIndex(), output);
+          writeVarLong(request.previousIndex(), output);
+          writeCollection(request.events(), output, RaftCodecs::writeEvent);
+        },
+        (input, version) -> new PublishRequest(
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            readCollection(input, version, ArrayList::new, (i, v) -> readEvent(i))));
+    register(14, ResetRequest.class,
+        (request, output) -> {
+          writeVarLong(request.session(), output);
+          writeVarLong(request.index(), output);
+        },
+        (input, version) -> new ResetRequest(readVarLong(input), readVarLong(input)));
+
+    // Server requests and responses.
+    register(15, JoinRequest.class,
+        (request, output) -> writeMember(request.member(), output),
+        (input, version) -> new JoinRequest(readMember(input)));
+    register(16, JoinResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeVarLong(response.index(), output);
+          writeVarLong(response.term(), output);
+          writeVarLong(response.timestamp(), output);
+          writeCollection(response.members(), output, RaftCodecs::writeMember);
+        },
+        (input, version) -> new JoinResponse(
+            readStatus(input),
+            readError(input),
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            readCollection(input, version, ArrayList::new, (i, v) -> readMember(i))));
+    register(17, LeaveRequest.class,
+        (request, output) -> writeMember(request.member(), output),
+        (input, version) -> new LeaveRequest(readMember(input)));
+    register(18, LeaveResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeVarLong(response.index(), output);
+          writeVarLong(response.term(), output);
+          writeVarLong(response.timestamp(), output);
+          writeCollection(response.members(), output, RaftCodecs::writeMember);
+        },
+        (input, version) -> new LeaveResponse(
+            readStatus(input),
+            readError(input),
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            readCollection(input, version, ArrayList::new, (i, v) -> readMember(i))));
+    register(19, ConfigureRequest.class,
+        (request, output) -> {
+          writeVarLong(request.term(), output);
+          writeMemberId(request.leader(), output);
+          writeVarLong(request.index(), output);
+          writeVarLong(request.timestamp(), output);
+          writeCollection(request.members(), output, RaftCodecs::writeMember);
+        },
+        (input, version) -> new ConfigureRequest(
+            readVarLong(input),
+            readString(input),
+            readVarLong(input),
+            readVarLong(input),
+            readCollection(input, version, ArrayList::new, (i, v) -> readMember(i))));
+    register(20, ConfigureResponse.class,
+        RaftCodecs::writeResponse,
+        (input, version) -> new ConfigureResponse(readStatus(input), readError(input)));
+    register(21, ReconfigureRequest.class,
+        (request, output) -> {
+          writeMember(request.member(), output);
+          writeVarLong(request.index(), output);
+          writeVarLong(request.term(), output);
+        },
+        (input, version) -> new ReconfigureRequest(
+            readMember(input),
+            readVarLong(input),
+            readVarLong(input)));
+    register(22, ReconfigureResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeVarLong(response.index(), output);
+          writeVarLong(response.term(), output);
+          writeVarLong(response.timestamp(), output);
+          writeCollection(response.members(), output, RaftCodecs::writeMember);
+        },
+        (input, version) -> new ReconfigureResponse(
+            readStatus(input),
+            readError(input),
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            readCollection(input, version, ArrayList::new, (i, v) -> readMember(i))));
+    register(23, InstallRequest.class,
+        (request, output) -> {
+          writeVarLong(request.term(), output);
+          writeMemberId(request.leader(), output);
+          writeVarLong(request.snapshotId(), output);
+          writeVarLong(request.snapshotIndex(), output);
+          writeVarLong(request.snapshotTimestamp(), output);
+          writeVarLong(request.chunkOffset(), output);
+          writeBytes(request.data(), output);
+          output.writeBoolean(request.complete());
+        },
+        (input, version) -> new InstallRequest(
+            readVarLong(input),
+            readMemberId(input),
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            (int) readVarLong(input),
+            readBytes(input),
+            input.readBoolean()));
+    register(24, InstallResponse.class,
+        RaftCodecs::writeResponse,
+        (input, version) -> new InstallResponse(readStatus(input), readError(input)));
+    register(25, PollRequest.class,
+        (request, output) -> {
+          writeVarLong(request.term(), output);
+          writeMemberId(request.candidate(), output);
+          writeVarLong(request.lastLogIndex(), output);
+          writeVarLong(request.lastLogTerm(), output);
+        },
+        (input, version) -> new PollRequest(
+            readVarLong(input),
+            readString(input),
+            readVarLong(input),
+            readVarLong(input)));
+    register(26, PollResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeVarLong(response.term(), output);
+          output.writeBoolean(response.accepted());
+        },
+        (input, version) -> new PollResponse(
+            readStatus(input),
+            readError(input),
+            readVarLong(input),
+            input.readBoolean()));
+    register(27, VoteRequest.class,
+        (request, output) -> {
+          writeVarLong(request.term(), output);
+          writeMemberId(request.candidate(), output);
+          writeVarLong(request.lastLogIndex(), output);
+          writeVarLong(request.lastLogTerm(), output);
+        },
+        (input, version) -> new VoteRequest(
+            readVarLong(input),
+            readString(input),
+            readVarLong(input),
+            readVarLong(input)));
+    register(28, VoteResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeVarLong(response.term(), output);
+          output.writeBoolean(response.voted());
+        },
+        (input, version) -> new VoteResponse(
+            readStatus(input),
+            readError(input),
+            readVarLong(input),
+            input.readBoolean()));
+    register(29, AppendRequest.class,
+        (request, output) -> {
+          writeVarLong(request.term(), output);
+          writeMemberId(request.leader(), output);
+          writeVarLong(request.prevLogIndex(), output);
+          writeVarLong(request.prevLogTerm(), output);
+          writeCollection(request.entries(), output, RaftCodecs::writeObject);
+          writeVarLong(request.commitIndex(), output);
+        },
+        (input, version) -> new AppendRequest(
+            readVarLong(input),
+            readString(input),
+            readVarLong(input),
+            readVarLong(input),
+            readCollection(input, version, ArrayList::new, RaftCodecs::<RaftLogEntry>readObject),
+            readVarLong(input)));
+    register(30, AppendResponse.class,
+        (response, output) -> {
+          writeResponse(response, output);
+          writeVarLong(response.term(), output);
+          output.writeBoolean(response.succeeded());
+          writeVarLong(response.lastLogIndex(), output);
+        },
+        (input, version) -> new AppendResponse(
+            readStatus(input),
+            readError(input),
+            readVarLong(input),
+            input.readBoolean(),
+            readVarLong(input)));
+
+    // Log entries.
+    register(31, InitializeEntry.class,
+        (entry, output) -> {
+          writeVarLong(entry.term(), output);
+          writeVarLong(entry.timestamp(), output);
+        },
+        (input, version) -> new InitializeEntry(readVarLong(input), readVarLong(input)));
+    register(32, ConfigurationEntry.class,
+        (entry, output) -> {
+          writeVarLong(entry.term(), output);
+          writeVarLong(entry.timestamp(), output);
+          writeCollection(entry.members(), output, RaftCodecs::writeMember);
+        },
+        (input, version) -> new ConfigurationEntry(
+            readVarLong(input),
+            readVarLong(input),
+            readCollection(input, version, ArrayList::new, (i, v) -> readMember(i))));
+    register(33, OpenSessionEntry.class,
+        (entry, output) -> {
+          writeVarLong(entry.term(), output);
+          writeVarLong(entry.timestamp(), output);
+          writeString(entry.memberId(), output);
+          writeString(entry.serviceName(), output);
+          writeString(entry.serviceType(), output);
+          writeEnum(entry.readConsistency(), output);
+          writeVarLong(entry.timeout(), output);
+        },
+        (input, version) -> new OpenSessionEntry(
+            readVarLong(input),
+            readVarLong(input),
+            readString(input),
+            readString(input),
+            readString(input),
+            readEnum(READ_CONSISTENCIES, input),
+            readVarLong(input)));
+    register(34, CloseSessionEntry.class,
+        (entry, output) -> {
+          writeVarLong(entry.term(), output);
+          writeVarLong(entry.timestamp(), output);
+          writeVarLong(entry.session(), output);
+        },
+        (input, version) -> new CloseSessionEntry(readVarLong(input), readVarLong(input), readVarLong(input)));
+    register(35, KeepAliveEntry.class,
+        (entry, output) -> {
+          writeVarLong(entry.term(), output);
+          writeVarLong(entry.timestamp(), output);
+          writeLongs(entry.sessionIds(), output);
+          writeLongs(entry.commandSequenceNumbers(), output);
+          writeLongs(entry.eventIndexes(), output);
+        },
+        (input, version) -> new KeepAliveEntry(
+            readVarLong(input),
+            readVarLong(input),
+            readLongs(input),
+            readLongs(input),
+            readLongs(input)));
+    register(36, MetadataEntry.class,
+        (entry, output) -> {
+          writeVarLong(entry.term(), output);
+          writeVarLong(entry.timestamp(), output);
+          writeVarLong(entry.session(), output);
+        },
+        (input, version) -> new MetadataEntry(readVarLong(input), readVarLong(input), readVarLong(input)));
+    register(37, CommandEntry.class,
+        (entry, output) -> {
+          writeVarLong(entry.term(), output);
+          writeVarLong(entry.timestamp(), output);
+          writeVarLong(entry.session(), output);
+          writeVarLong(entry.sequenceNumber(), output);
+          writeOperation(entry.operation(), output);
+        },
+        (input, version) -> new CommandEntry(
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            readOperation(input)));
+    register(38, QueryEntry.class,
+        (entry, output) -> {
+          writeVarLong(entry.term(), output);
+          writeVarLong(entry.timestamp(), output);
+          writeVarLong(entry.session(), output);
+          writeVarLong(entry.sequenceNumber(), output);
+          writeOperation(entry.operation(), output);
+        },
+        (input, version) -> new QueryEntry(
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            readOperation(input)));
+
+    // Metadata.
+    register(39, Configuration.class,
+        (configuration, output) -> {
+          writeVarLong(configuration.index(), output);
+          writeVarLong(configuration.term(), output);
+          writeVarLong(configuration.time(), output);
+          writeCollection(configuration.members(), output, RaftCodecs::writeMember);
+        },
+        (input, version) -> new Configuration(
+            readVarLong(input),
+            readVarLong(input),
+            readVarLong(input),
+            readCollection(input, version, ArrayList::new, (i, v) -> readMember(i))));
+  }
+
+  private RaftCodecs() {
+  }
+
+  /**
+   * Registers a codec.
+   */
+  private static <T> void register(int id, Class<T> type, RaftCodec.Encoder<T> encoder, RaftCodec.Decoder<T> decoder) {
+    RaftCodec<T> codec = new RaftCodec<>(id, type, encoder, decoder);
+    if (CODECS[id] != null || TYPES.put(type, codec) != null) {
+      throw new IllegalStateException("Duplicate codec registration: " + id);
+    }
+    CODECS[id] = codec;
+  }
+
+  /**
+   * Returns all registered codecs.
+   *
+   * @return the registered codecs
+   */
+  static Collection<RaftCodec<?>> codecs() {
+    return Collections.unmodifiableCollection(TYPES.values());
+  }
+
+  /**
+   * Writes the given object preceded by its type identifier.
+   *
+   * @param object the object to write
+   * @param output the output to which to write the object
+   * @throws IllegalArgumentException if no codec is registered for the object's type
+   */
+  static void writeObject(Object object, BufferOutput<?> output) {
+    RaftCodec<?> codec = TYPES.get(object.getClass());
+    if (codec == null) {
+      throw new IllegalArgumentException("Unsupported type: " + object.getClass().getName());
+    }
+    writeVarLong(codec.id(), output);
+    codec.encode(object, output);
+  }
+
+  /**
+   * Reads an object written by {@link #writeObject(Object, BufferOutput)}.
+   *
+   * @param input   the input from which to read the object
+   * @param version the serializer version with which the object was written
+   * @return the decoded object
+   * @throws IllegalArgumentException if the type identifier is unknown
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T readObject(BufferInput<?> input, int version) {
+    long id = readVarLong(input);
+    RaftCodec<?> codec = id > 0 && id < CODECS.length ? CODECS[(int) id] : null;
+    if (codec == null) {
+      throw new IllegalArgumentException("Unknown type identifier: " + id);
+    }
+    return (T) codec.decode(input, version);
+  }
+
+  /**
+   * Writes an unsigned variable-length integer.
+   */
+  static void writeVarLong(long value, BufferOutput<?> output) {
+    while ((value & ~0x7FL) != 0) {
+      output.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    output.writeByte((int) value);
+  }
+
+  /**
+   * Reads an unsigned variable-length integer.
+   */
+  static long readVarLong(BufferInput<?> input) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = input.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed variable-length integer");
+  }
+
+  /**
+   * Writes a nullable length or count, reserving zero for {@code null}.
+   */
+  private static void writeLength(int length, boolean present, BufferOutput<?> output) {
+    writeVarLong(present ? length + 1 : 0, output);
+  }
+
+  /**
+   * Reads a nullable length or count written by {@link #writeLength(int, boolean, BufferOutput)}.
+   *
+   * @return the length or {@code -1} if the value is {@code null}
+   */
+  private static int readLength(BufferInput<?> input) {
+    return (int) readVarLong(input) - 1;
+  }
+
+  /**
+   * Writes a nullable UTF-8 string.
+   * <p>
+   * Identifiers are almost always ASCII, so ASCII strings are written a character at a time rather than through a
+   * charset encoder.
+   */
+  private static void writeString(String value, BufferOutput<?> output) {
+    if (value == null) {
+      writeLength(0, false, output);
+    } else if (isAscii(value)) {
+      int length = value.length();
+      writeLength(length, true, output);
+      for (int i = 0; i < length; i++) {
+        output.writeByte(value.charAt(i));
+      }
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeLength(bytes.length, true, output);
+      output.write(bytes);
+    }
+  }
+
+  private static boolean isAscii(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String readString(BufferInput<?> input) {
+    int length = readLength(input);
+    if (length < 0) {
+      return null;
+    }
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      int b = input.readByte();
+      if (b < 0) {
+        // Not ASCII: copy the bytes read so far and decode the whole string as UTF-8.
+        byte[] bytes = new byte[length];
+        for (int j = 0; j < i; j++) {
+          bytes[j] = (byte) chars[j];
+        }
+        bytes[i] = (byte) b;
+        input.read(bytes, i + 1, length - i - 1);
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+      chars[i] = (char) b;
+    }
+    return new String(chars);
+  }
+
+  private static void writeBytes(byte[] value, BufferOutput<?> output) {
+    writeLength(value != null ? value.length : 0, value != null, output);
+    if (value != null) {
+      output.write(value);
+    }
+  }
+
+  private static byte[] readBytes(BufferInput<?> input) {
+    int length = readLength(input);
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.read(bytes);
+    return bytes;
+  }
+
+  private static void writeLongs(long[] values, BufferOutput<?> output) {
+    writeLength(values != null ? values.length : 0, values != null, output);
+    if (values != null) {
+      for (long value : values) {
+        writeVarLong(value, output);
+      }
+    }
+  }
+
+  private static long[] readLongs(BufferInput<?> input) {
+    int length = readLength(input);
+    if (length < 0) {
+      return null;
+    }
+    long[] values = new long[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = readVarLong(input);
+    }
+    return values;
+  }
+
+  private static void writeEnum(Enum<?> value, BufferOutput<?> output) {
+    writeLength(value != null ? value.ordinal() : 0, value != null, output);
+  }
+
+  private static <E extends Enum<E>> E readEnum(E[] values, BufferInput<?> input) {
+    int ordinal = readLength(input);
+    return ordinal < 0 ? null : values[ordinal];
+  }
+
+  private static <E> void writeCollection(Collection<E> collection, BufferOutput<?> output, RaftCodec.Encoder<E> encoder) {
+    writeLength(collection != null ? collection.size() : 0, collection != null, output);
+    if (collection != null) {
+      for (E element : collection) {
+        encoder.encode(element, output);
+      }
+    }
+  }
+
+  private static <E, C extends Collection<E>> C readCollection(
+      BufferInput<?> input, int version, IntFunction<C> factory, RaftCodec.Decoder<E> decoder) {
+    int size = readLength(input);
+    if (size < 0) {
+      return null;
+    }
+    C collection = factory.apply(size);
+    for (int i = 0; i < size; i++) {
+      collection.add(decoder.decode(input, version));
+    }
+    return collection;
+  }
+
+  private static void writeResponse(RaftResponse response, BufferOutput<?> output) {
+    output.writeByte(response.status() != null ? response.status().id() : -1);
+    RaftError error = response.error();
+    output.writeBoolean(error != null);
+    if (error != null) {
+      writeEnum(error.type(), output);
+      writeString(error.message(), output);
+    }
+  }
+
+  private static RaftResponse.Status readStatus(BufferInput<?> input) {
+    int id = input.readByte();
+    return id < 0 ? null : RaftResponse.Status.forId(id);
+  }
+
+  private static RaftError readError(BufferInput<?> input) {
+    if (!input.readBoolean()) {
+      return null;
+    }
+    return new RaftError(readEnum(ERROR_TYPES, input), readString(input));
+  }
+
+  private static void writeMemberId(MemberId memberId, BufferOutput<?> output) {
+    writeString(memberId != null ? memberId.id() : null, output);
+  }
+
+  private static MemberId readMemberId(BufferInput<?> input) {
+    String id = readString(input);
+    return id != null ? MemberId.from(id) : null;
+  }
+
+  private static void writeMember(RaftMember member, BufferOutput<?> output) {
+    output.writeBoolean(member != null);
+    if (member != null) {
+      writeMemberId(member.memberId(), output);
+      writeEnum(member.getType(), output);
+      Instant updated = member.getLastUpdated();
+      output.writeBoolean(updated != null);
+      if (updated != null) {
+        writeVarLong(updated.getEpochSecond(), output);
+        writeVarLong(updated.getNano(), output);
+      }
+    }
+  }
+
+  private static RaftMember readMember(BufferInput<?> input) {
+    if (!input.readBoolean()) {
+      return null;
+    }
+    MemberId memberId = readMemberId(input);
+    RaftMember.Type type = readEnum(MEMBER_TYPES, input);
+    Instant updated = input.readBoolean() ? Instant.ofEpochSecond(readVarLong(input), readVarLong(input)) : null;
+    return new DefaultRaftMember(memberId, type, updated);
+  }
+
+  private static void writeOperation(RaftOperation operation, BufferOutput<?> output) {
+    output.writeBoolean(operation != null);
+    if (operation != null) {
+      OperationId id = operation.id();
+      writeString(id != null ? id.id() : null, output);
+      writeEnum(id != null ? id.type() : null, output);
+      writeBytes(operation.value(), output);
+    }
+  }
+
+  private static RaftOperation readOperation(BufferInput<?> input) {
+    if (!input.readBoolean()) {
+      return null;
+    }
+    String id = readString(input);
+    OperationType type = readEnum(OPERATION_TYPES, input);
+    return new RaftOperation(OperationId.from(id, type), readBytes(input));
+  }
+
+  private static void writeEvent(RaftEvent event, BufferOutput<?> output) {
+    writeString(event.type().id(), output);
+    writeBytes(event.value(), output);
+  }
+
+  private static RaftEvent readEvent(BufferInput<?> input) {
+    return new RaftEvent(EventType.from(readString(input)), readBytes(input));
+  }
+
+  private static void writeSessionMetadata(RaftSessionMetadata metadata, BufferOutput<?> output) {
+    writeVarLong(metadata.sessionId().id(), output);
+    writeString(metadata.serviceName(), output);
+    writeString(metadata.serviceType().id(), output);
+  }
+
+  private static RaftSessionMetadata readSessionMetadata(BufferInput<?> input) {
+    return new RaftSessionMetadata(readVarLong(input), readString(input), readString(input));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.codec;
+
+import io.atomix.serializer.Serializer;
+import io.atomix.storage.buffer.BufferInput;
+import io.atomix.storage.buffer.BufferOutput;
+import io.atomix.storage.buffer.HeapBuffer;
+
+/**
+ * Reflection-free serializer for Raft protocol messages and log entries.
+ * <p>
+ * This serializer supports all {@link io.atomix.protocols.raft.protocol.RaftRequest requests} and
+ * {@link io.atomix.protocols.raft.protocol.RaftResponse responses} in the Raft protocol, all
+ * {@link io.atomix.protocols.raft.storage.log.entry.RaftLogEntry log entries}, and the
+ * {@link io.atomix.protocols.raft.storage.system.Configuration configuration} stored in the meta store. It can be
+ * used in place of a reflection based serializer both for protocol implementations and in
+ * {@link io.atomix.protocols.raft.storage.RaftStorage.Builder#withSerializer(Serializer)}. Attempts to encode any other
+ * type fail with an {@link IllegalArgumentException}.
+ * <p>
+ * Each object is written with a leading format version byte followed by a type identifier and the object's fields.
+ * Objects written by older versions of the serializer can be read by newer versions, allowing clusters to be upgraded
+ * one node at a time.
+ */
+public final class RaftSerializer implements Serializer {
+
+  /**
+   * The current serialization format version.
+   */
+  public static final int VERSION = 1;
+
+  private static final int INITIAL_BUFFER_SIZE = 256;
+  private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+  private final ThreadLocal<HeapBuffer> buffers = ThreadLocal.withInitial(() -> HeapBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+  @Override
+  public <T> byte[] encode(T object) {
+    HeapBuffer buffer = buffers.get();
+    buffer.clear();
+    encode(object, buffer);
+    byte[] bytes = new byte[buffer.position()];
+    buffer.flip().read(bytes);
+    if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+      buffers.remove();
+    }
+    return bytes;
+  }
+
+  @Override
+  public <T> T decode(byte[] bytes) {
+    return decode(HeapBuffer.wrap(bytes), bytes.length);
+  }
+
+  @Override
+  public <T> void encode(T object, BufferOutput<?> output) {
+    output.writeByte(VERSION);
+    RaftCodecs.writeObject(object, output);
+  }
+
+  @Override
+  public <T> T decode(BufferInput<?> input, int length) {
+    int version = input.readByte();
+    if (version < 1 || version > VERSION) {
+      throw new IllegalArgumentException("Unsupported serialization format version: " + version);
+    }
+    return RaftCodecs.readObject(input, version);
+  }
+}
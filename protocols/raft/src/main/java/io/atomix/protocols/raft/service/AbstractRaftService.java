@@ -18,6 +18,8 @@ package io.atomix.protocols.raft.service;
 import io.atomix.protocols.raft.service.impl.DefaultRaftServiceExecutor;
 import io.atomix.protocols.raft.session.RaftSession;
 import io.atomix.protocols.raft.session.RaftSessions;
+import io.atomix.time.Clock;
+import io.atomix.time.HybridTimestamp;
 import io.atomix.time.LogicalClock;
 import io.atomix.time.WallClock;
 import io.atomix.utils.concurrent.Scheduler;
@@ -133,6 +135,15 @@ public abstract class AbstractRaftService implements RaftService {
     return context.logicalClock();
   }
 
+  /**
+   * Returns the state machine's hybrid logical clock.
+   *
+   * @return The state machine's hybrid logical clock.
+   */
+  protected Clock<HybridTimestamp> getHybridClock() {
+    return context.hybridClock();
+  }
+
   /**
    * Returns the sessions registered with the state machines.
    *
@@ -18,6 +18,8 @@ package io.atomix.protocols.raft.service;
 
 import io.atomix.protocols.raft.operation.OperationType;
 import io.atomix.protocols.raft.session.RaftSessions;
+import io.atomix.time.Clock;
+import io.atomix.time.HybridTimestamp;
 import io.atomix.time.LogicalClock;
 import io.atomix.time.WallClock;
 
@@ -83,6 +85,17 @@ public interface ServiceContext {
    */
   WallClock wallClock();
 
+  /**
+   * Returns the state machine's hybrid logical clock.
+   * <p>
+   * The hybrid clock is advanced only by committed entries: each entry advances it to the greater of the state
+   * machine's {@link #wallClock() wall clock} time and the previous hybrid time plus one logical tick, so timestamps
+   * are deterministic on every replica and increase with each applied entry. Services can only read the clock.
+   *
+   * @return The state machine's hybrid logical clock.
+   */
+  Clock<HybridTimestamp> hybridClock();
+
   /**
    * Returns the state machine sessions.
    *
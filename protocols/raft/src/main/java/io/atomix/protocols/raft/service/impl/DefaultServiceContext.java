@@ -38,6 +38,8 @@ import io.atomix.protocols.raft.session.impl.RaftSessionManager;
 import io.atomix.protocols.raft.storage.snapshot.Snapshot;
 import io.atomix.protocols.raft.storage.snapshot.SnapshotReader;
 import io.atomix.protocols.raft.storage.snapshot.SnapshotWriter;
+import io.atomix.time.Clock;
+import io.atomix.time.HybridTimestamp;
 import io.atomix.time.LogicalClock;
 import io.atomix.time.LogicalTimestamp;
 import io.atomix.time.WallClock;
@@ -58,6 +60,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Raft server state machine executor.
  */
 public class DefaultServiceContext implements ServiceContext {
+  // The snapshot layout version is written negated ahead of the session count, which is never negative, so
+  // snapshots taken before the layout was versioned can still be installed.
+  private static final int SNAPSHOT_VERSION = 1;
+
   private final Logger log;
   private final ServiceId serviceId;
   private final String serviceName;
@@ -71,6 +77,7 @@ public class DefaultServiceContext implements ServiceContext {
   private long snapshotIndex;
   private long currentIndex;
   private long currentTimestamp;
+  private long currentHybridTime;
   private OperationType currentOperation;
   private final LogicalClock logicalClock = new LogicalClock() {
     @Override
@@ -84,6 +91,12 @@ public class DefaultServiceContext implements ServiceContext {
       return new WallClockTimestamp(currentTimestamp);
     }
   };
+  private final Clock<HybridTimestamp> hybridClock = new Clock<HybridTimestamp>() {
+    @Override
+    public HybridTimestamp getTime() {
+      return HybridTimestamp.from(currentHybridTime);
+    }
+  };
 
   public DefaultServiceContext(
       ServiceId serviceId,
@@ -153,6 +166,11 @@ public class DefaultServiceContext implements ServiceContext {
     return wallClock;
   }
 
+  @Override
+  public Clock<HybridTimestamp> hybridClock() {
+    return hybridClock;
+  }
+
   @Override
   public RaftSessions sessions() {
     return sessions;
@@ -189,10 +207,23 @@ public class DefaultServiceContext implements ServiceContext {
     // If a snapshot exists prior to the given index and hasn't yet been installed, install the snapshot.
     maybeInstallSnapshot(index);
 
+    // Advance the hybrid time from the state restored by any snapshot.
+    tickHybridTime();
+
     // Expire sessions that have timed out.
     expireSessions(currentTimestamp);
   }
 
+  /**
+   * Advances the hybrid time for a committed entry.
+   * <p>
+   * The hybrid time is the greater of the current timestamp and the previous hybrid time plus one logical tick. It's
+   * derived only from committed entries, so it's the same for the service on every server.
+   */
+  private void tickHybridTime() {
+    this.currentHybridTime = Math.max(currentHybridTime + 1, HybridTimestamp.of(currentTimestamp, 0).value());
+  }
+
   /**
    * Expires sessions that have timed out.
    */
@@ -261,7 +292,20 @@ public class DefaultServiceContext implements ServiceContext {
     if (snapshot != null && snapshot.index() > snapshotIndex && snapshot.index() < index) {
       log.debug("Installing snapshot {}", snapshot.index());
       try (SnapshotReader reader = snapshot.openReader()) {
+        currentTimestamp = Math.max(currentTimestamp, snapshot.timestamp().unixTimestamp());
+
+        // Unversioned snapshots don't include the hybrid time, so restore it from the snapshot timestamp.
         int sessionCount = reader.readInt();
+        if (sessionCount < 0) {
+          int version = -sessionCount;
+          if (version > SNAPSHOT_VERSION) {
+            throw new IllegalStateException("Unsupported snapshot version " + version);
+          }
+          currentHybridTime = reader.readLong();
+          sessionCount = reader.readInt();
+        } else {
+          currentHybridTime = HybridTimestamp.of(snapshot.timestamp().unixTimestamp(), 0).value();
+        }
         sessions.clear();
         for (int i = 0; i < sessionCount; i++) {
           SessionId sessionId = SessionId.from(reader.readLong());
@@ -317,6 +361,8 @@ public class DefaultServiceContext implements ServiceContext {
 
       // Serialize sessions to the in-memory snapshot and request a snapshot from the state machine.
       try (SnapshotWriter writer = snapshot.openWriter()) {
+        writer.writeInt(-SNAPSHOT_VERSION);
+        writer.writeLong(currentHybridTime);
         writer.writeInt(sessions.getSessions().size());
         for (RaftSessionContext session : sessions.getSessions()) {
           writer.writeLong(session.sessionId().id());
@@ -475,6 +521,7 @@ public class DefaultServiceContext implements ServiceContext {
 
       this.currentIndex = index;
       this.currentTimestamp = Math.max(currentTimestamp, timestamp);
+      tickHybridTime();
 
       for (RaftSessionContext session : sessions.getSessions()) {
         session.setTimestamp(timestamp);
@@ -22,6 +22,7 @@ import io.atomix.protocols.raft.storage.snapshot.SnapshotStore;
 import io.atomix.protocols.raft.storage.system.MetaStore;
 import io.atomix.serializer.Serializer;
 import io.atomix.storage.StorageLevel;
+import io.atomix.storage.journal.ChecksumPolicy;
 import io.atomix.storage.journal.JournalSegmentDescriptor;
 import io.atomix.storage.journal.JournalSegmentFile;
 
@@ -69,6 +70,7 @@ public class RaftStorage {
   private final int maxSegmentSize;
   private final int maxEntriesPerSegment;
   private final int entryBufferSize;
+  private final ChecksumPolicy checksumPolicy;
   private final boolean flushOnCommit;
   private final boolean retainStaleSnapshots;
 
@@ -80,6 +82,7 @@ public class RaftStorage {
       int maxSegmentSize,
       int maxEntriesPerSegment,
       int entryBufferSize,
+      ChecksumPolicy checksumPolicy,
       boolean flushOnCommit,
       boolean retainStaleSnapshots) {
     this.prefix = prefix;
@@ -89,6 +92,7 @@ public class RaftStorage {
     this.maxSegmentSize = maxSegmentSize;
     this.maxEntriesPerSegment = maxEntriesPerSegment;
     this.entryBufferSize = entryBufferSize;
+    this.checksumPolicy = checksumPolicy;
     this.flushOnCommit = flushOnCommit;
     this.retainStaleSnapshots = retainStaleSnapshots;
     directory.mkdirs();
@@ -172,6 +176,15 @@ public class RaftStorage {
     return entryBufferSize;
   }
 
+  /**
+   * Returns the log entry checksum verification policy.
+   *
+   * @return The log entry checksum verification policy.
+   */
+  public ChecksumPolicy checksumPolicy() {
+    return checksumPolicy;
+  }
+
   /**
    * Returns whether to flush buffers to disk when entries are committed.
    *
@@ -236,7 +249,7 @@ public class RaftStorage {
    * files directly. Deleting the snapshot store does not involve reading any snapshot files into memory.
    */
   public void deleteSnapshotStore() {
-    deleteFiles(f -> SnapshotFile.isSnapshotFile(prefix, f));
+    deleteFiles(f -> SnapshotFile.isSnapshotFile(prefix, f) || f.getName().equals(String.format("%s.manifest", prefix)));
   }
 
   /**
@@ -258,6 +271,7 @@ public class RaftStorage {
         .withSerializer(serializer)
         .withMaxSegmentSize(maxSegmentSize)
         .withMaxEntriesPerSegment(maxEntriesPerSegment)
+        .withChecksumPolicy(checksumPolicy)
         .build();
   }
 
@@ -320,12 +334,13 @@ public class RaftStorage {
     private static final boolean DEFAULT_RETAIN_STALE_SNAPSHOTS = false;
 
     private String prefix = DEFAULT_PREFIX;
-    private StorageLevel storageLevel = StorageLevel.DISK;
+    private StorageLevel storageLevel = StorageLevel.MAPPED;
     private File directory = new File(DEFAULT_DIRECTORY);
     private Serializer serializer;
     private int maxSegmentSize = DEFAULT_MAX_SEGMENT_SIZE;
     private int maxEntriesPerSegment = DEFAULT_MAX_ENTRIES_PER_SEGMENT;
     private int entryBufferSize = DEFAULT_ENTRY_BUFFER_SIZE;
+    private ChecksumPolicy checksumPolicy = ChecksumPolicy.ALWAYS;
     private boolean flushOnCommit = DEFAULT_FLUSH_ON_COMMIT;
     private boolean retainStaleSnapshots = DEFAULT_RETAIN_STALE_SNAPSHOTS;
 
@@ -347,7 +362,7 @@ public class RaftStorage {
      * Sets the log storage level, returning the builder for method chaining.
      * <p>
      * The storage level indicates how individual {@link RaftLogEntry entries}
-     * should be persisted in the log.
+     * should be persisted in the log. Defaults to {@link StorageLevel#MAPPED}.
      *
      * @param storageLevel The log storage level.
      * @return The storage builder.
@@ -388,6 +403,9 @@ public class RaftStorage {
 
     /**
      * Sets the storage serializer.
+     * <p>
+     * The serializer must support all {@link RaftLogEntry} types and the cluster configuration. The
+     * {@link io.atomix.protocols.raft.codec.RaftSerializer} supports these types without reflection.
      *
      * @param serializer The storage serializer.
      * @return The storage builder.
@@ -456,6 +474,22 @@ public class RaftStorage {
       return this;
     }
 
+    /**
+     * Sets the log entry checksum verification policy, returning the builder for method chaining.
+     * <p>
+     * The checksum policy dictates when the checksums of log entries are verified. Deployments that store logs on a
+     * filesystem that checksums data may verify checksums only on recovery or not at all. Defaults to
+     * {@link ChecksumPolicy#ALWAYS}.
+     *
+     * @param checksumPolicy The log entry checksum verification policy.
+     * @return The storage builder.
+     * @throws NullPointerException If the {@code checksumPolicy} is {@code null}
+     */
+    public Builder withChecksumPolicy(ChecksumPolicy checksumPolicy) {
+      this.checksumPolicy = checkNotNull(checksumPolicy, "checksumPolicy cannot be null");
+      return this;
+    }
+
     /**
      * Enables flushing buffers to disk when entries are committed to a segment, returning the builder
      * for method chaining.
@@ -531,6 +565,7 @@ public class RaftStorage {
           maxSegmentSize,
           maxEntriesPerSegment,
           entryBufferSize,
+          checksumPolicy,
           flushOnCommit,
           retainStaleSnapshots);
     }
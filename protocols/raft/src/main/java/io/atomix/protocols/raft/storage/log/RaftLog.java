@@ -18,6 +18,7 @@ package io.atomix.protocols.raft.storage.log;
 import io.atomix.protocols.raft.storage.log.entry.RaftLogEntry;
 import io.atomix.serializer.Serializer;
 import io.atomix.storage.StorageLevel;
+import io.atomix.storage.journal.ChecksumPolicy;
 import io.atomix.storage.journal.DelegatingJournal;
 import io.atomix.storage.journal.SegmentedJournal;
 
@@ -241,6 +242,20 @@ public class RaftLog extends DelegatingJournal<RaftLogEntry> {
       return this;
     }
 
+    /**
+     * Sets the entry checksum verification policy, returning the builder for method chaining.
+     * <p>
+     * The checksum policy dictates when entry checksums are verified. Defaults to {@link ChecksumPolicy#ALWAYS}.
+     *
+     * @param checksumPolicy The entry checksum verification policy.
+     * @return The storage builder.
+     * @throws NullPointerException If the {@code checksumPolicy} is {@code null}
+     */
+    public Builder withChecksumPolicy(ChecksumPolicy checksumPolicy) {
+      journalBuilder.withChecksumPolicy(checksumPolicy);
+      return this;
+    }
+
     /**
      * Enables flushing buffers to disk when entries are committed to a segment, returning the builder
      * for method chaining.
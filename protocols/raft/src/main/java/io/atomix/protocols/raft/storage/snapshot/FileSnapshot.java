@@ -18,9 +18,11 @@ package io.atomix.protocols.raft.storage.snapshot;
 import io.atomix.protocols.raft.service.ServiceId;
 import io.atomix.storage.buffer.Buffer;
 import io.atomix.storage.buffer.FileBuffer;
+import io.atomix.storage.buffer.MappedBuffer;
 import io.atomix.time.WallClockTimestamp;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -29,7 +31,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 /**
- * File-based snapshot backed by a {@link FileBuffer}.
+ * File-based snapshot.
+ * <p>
+ * Snapshots are written through a {@link FileBuffer}. Completed snapshots are immutable, so they're read through a
+ * read-only {@link MappedBuffer} to avoid issuing a system call for every read.
  */
 final class FileSnapshot extends Snapshot {
   private final SnapshotFile file;
@@ -41,6 +46,15 @@ final class FileSnapshot extends Snapshot {
     this.store = checkNotNull(store, "store cannot be null");
   }
 
+  /**
+   * Returns the snapshot file.
+   *
+   * @return the snapshot file
+   */
+  SnapshotFile file() {
+    return file;
+  }
+
   @Override
   public ServiceId serviceId() {
     return file.snapshotId();
@@ -81,7 +95,7 @@ final class FileSnapshot extends Snapshot {
   @Override
   public synchronized SnapshotReader openReader() {
     checkState(file.file().exists(), "missing snapshot file: %s", file.file());
-    Buffer buffer = FileBuffer.allocate(file.file(), SnapshotDescriptor.BYTES);
+    Buffer buffer = MappedBuffer.allocate(file.file(), FileChannel.MapMode.READ_ONLY, (int) file.file().length());
     SnapshotDescriptor descriptor = new SnapshotDescriptor(buffer);
     int length = buffer.position(SnapshotDescriptor.BYTES).readInt();
     return openReader(new SnapshotReader(buffer.mark().limit(SnapshotDescriptor.BYTES + Integer.BYTES + length), this), descriptor);
@@ -16,7 +16,6 @@
 package io.atomix.protocols.raft.storage.snapshot;
 
 import io.atomix.protocols.raft.service.ServiceId;
-import io.atomix.storage.StorageLevel;
 import io.atomix.storage.buffer.HeapBuffer;
 import io.atomix.time.WallClockTimestamp;
 
@@ -74,7 +73,7 @@ final class MemorySnapshot extends Snapshot {
 
   @Override
   public Snapshot persist() {
-    if (store.storage.storageLevel() != StorageLevel.MEMORY) {
+    if (store.storage.storageLevel().isPersistent()) {
       try (Snapshot newSnapshot = store.newSnapshot(serviceId(), index(), timestamp())) {
         try (SnapshotWriter newSnapshotWriter = newSnapshot.openWriter()) {
           buffer.flip().skip(SnapshotDescriptor.BYTES);
@@ -88,7 +87,7 @@ final class MemorySnapshot extends Snapshot {
 
   @Override
   public boolean isPersisted() {
-    return store.storage.storageLevel() == StorageLevel.MEMORY;
+    return !store.storage.storageLevel().isPersistent();
   }
 
   @Override
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.storage.snapshot;
+
+import io.atomix.utils.AtomixIOException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Snapshot manifest file.
+ * <p>
+ * The manifest records the names of the completed snapshot files in the snapshot store so the store can be opened
+ * without scanning the storage directory and reading the descriptor of every snapshot file. The manifest is replaced
+ * atomically each time it's written, and a checksum guards against reading a corrupt manifest.
+ * <p>
+ * The format of the manifest is as follows:
+ * <ul>
+ * <li>32-bit manifest version</li>
+ * <li>32-bit number of snapshots</li>
+ * <li>UTF-8 snapshot file names</li>
+ * <li>64-bit CRC32 checksum of the preceding bytes</li>
+ * </ul>
+ */
+final class SnapshotManifest {
+  private static final int VERSION = 1;
+  private static final String EXTENSION = "manifest";
+
+  /**
+   * Returns the manifest file for the given snapshot store.
+   *
+   * @param name the snapshot store name
+   * @param directory the snapshot directory
+   * @return the manifest file
+   */
+  static File createManifestFile(String name, File directory) {
+    return new File(directory, String.format("%s.%s", checkNotNull(name, "name cannot be null"), EXTENSION));
+  }
+
+  private final File file;
+
+  SnapshotManifest(File file) {
+    this.file = checkNotNull(file, "file cannot be null");
+  }
+
+  /**
+   * Reads the snapshot file names from the manifest.
+   *
+   * @return the snapshot file names, or {@code null} if the manifest does not exist or is corrupt
+   */
+  List<String> read() {
+    if (!file.exists()) {
+      return null;
+    }
+
+    try {
+      byte[] bytes = Files.readAllBytes(file.toPath());
+      if (bytes.length < Long.BYTES) {
+        return null;
+      }
+
+      CRC32 crc32 = new CRC32();
+      crc32.update(bytes, 0, bytes.length - Long.BYTES);
+      if (crc32.getValue() != ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong()) {
+        return null;
+      }
+
+      try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - Long.BYTES))) {
+        if (input.readInt() != VERSION) {
+          return null;
+        }
+        int count = input.readInt();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          names.add(input.readUTF());
+        }
+        return names;
+      }
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Replaces the manifest with the given snapshot file names.
+   * <p>
+   * The manifest is written to a temporary file which is synced to disk and then moved over the existing manifest.
+   *
+   * @param names the snapshot file names to write
+   */
+  void write(Collection<String> names) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream output = new DataOutputStream(bytes)) {
+        output.writeInt(VERSION);
+        output.writeInt(names.size());
+        for (String name : names) {
+          output.writeUTF(name);
+        }
+      }
+
+      CRC32 crc32 = new CRC32();
+      crc32.update(bytes.toByteArray());
+
+      File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+      try (FileOutputStream output = new FileOutputStream(tempFile)) {
+        bytes.writeTo(output);
+        output.write(ByteBuffer.allocate(Long.BYTES).putLong(crc32.getValue()).array());
+        output.getFD().sync();
+      }
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new AtomixIOException(e);
+    }
+  }
+}
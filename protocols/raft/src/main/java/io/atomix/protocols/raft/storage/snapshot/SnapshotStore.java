@@ -15,6 +15,8 @@
  */
 package io.atomix.protocols.raft.storage.snapshot;
 
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.atomix.protocols.raft.service.ServiceId;
 import io.atomix.protocols.raft.storage.RaftStorage;
 import io.atomix.storage.StorageLevel;
@@ -27,9 +29,15 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -45,6 +53,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * written and {@link Snapshot#complete() completed} will be read from disk. Incomplete snapshots are
  * automatically deleted from disk when the snapshot store is opened.
  * <p>
+ * Persistent snapshot stores record the completed snapshots in a manifest file, so the store can be opened without
+ * scanning the storage directory. Snapshots that are superseded by newer snapshots are deleted on a background thread.
+ * <p>
  * <pre>
  *   {@code
  *   SnapshotStore snapshots = storage.openSnapshotStore("test");
@@ -74,9 +85,23 @@ public class SnapshotStore implements AutoCloseable {
   final RaftStorage storage;
   private final Map<Long, Snapshot> indexSnapshots = new ConcurrentHashMap<>();
   private final Map<ServiceId, Snapshot> stateMachineSnapshots = new ConcurrentHashMap<>();
+  private final SnapshotManifest manifest;
+  private final ExecutorService deleter;
+  private final Set<String> createdFiles = Sets.newConcurrentHashSet();
 
   public SnapshotStore(RaftStorage storage) {
     this.storage = checkNotNull(storage, "storage cannot be null");
+    if (storage.storageLevel().isPersistent()) {
+      this.manifest = new SnapshotManifest(SnapshotManifest.createManifestFile(storage.prefix(), storage.directory()));
+      this.deleter = new ThreadPoolExecutor(0, 1, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+          new ThreadFactoryBuilder()
+              .setNameFormat("atomix-snapshot-deleter-%d")
+              .setDaemon(true)
+              .build());
+    } else {
+      this.manifest = null;
+      this.deleter = null;
+    }
     open();
   }
 
@@ -84,15 +109,25 @@ public class SnapshotStore implements AutoCloseable {
    * Opens the snapshot manager.
    */
   private void open() {
-    for (Snapshot snapshot : loadSnapshots()) {
+    // Load snapshots from the manifest if possible, otherwise fall back to scanning the storage directory.
+    Collection<Snapshot> snapshots = manifest != null ? loadManifest() : null;
+    boolean scanned = snapshots == null;
+    if (scanned) {
+      snapshots = loadSnapshots();
+    }
+
+    boolean superseded = false;
+    for (Snapshot snapshot : snapshots) {
       Snapshot existingSnapshot = stateMachineSnapshots.get(snapshot.serviceId());
       if (existingSnapshot == null || existingSnapshot.index() < snapshot.index()) {
         stateMachineSnapshots.put(snapshot.serviceId(), snapshot);
 
         // If a newer snapshot was found, delete the old snapshot if necessary.
-        if (existingSnapshot != null && !storage.isRetainStaleSnapshots()) {
-          existingSnapshot.close();
-          existingSnapshot.delete();
+        if (existingSnapshot != null) {
+          superseded = true;
+          if (!storage.isRetainStaleSnapshots()) {
+            deleteSnapshot(existingSnapshot);
+          }
         }
       }
     }
@@ -100,6 +135,111 @@ public class SnapshotStore implements AutoCloseable {
     for (Snapshot snapshot : stateMachineSnapshots.values()) {
       indexSnapshots.put(snapshot.index(), snapshot);
     }
+
+    if (manifest != null) {
+      if (scanned || superseded) {
+        writeManifest();
+      }
+
+      // If the store was opened from the manifest, snapshot files that are not listed in the manifest were left
+      // behind by a failure while writing or deleting a snapshot. Remove them in the background.
+      if (!scanned) {
+        Set<String> names = new HashSet<>();
+        for (Snapshot snapshot : snapshots) {
+          names.add(((FileSnapshot) snapshot).file().file().getName());
+        }
+        deleter.execute(() -> deleteUnlistedSnapshots(names));
+      }
+    }
+  }
+
+  /**
+   * Loads the snapshots listed in the manifest.
+   *
+   * @return the snapshots listed in the manifest, or {@code null} if the manifest could not be read
+   */
+  private Collection<Snapshot> loadManifest() {
+    List<String> names = manifest.read();
+    if (names == null) {
+      return null;
+    }
+
+    List<Snapshot> snapshots = new ArrayList<>(names.size());
+    for (String name : names) {
+      File file = new File(storage.directory(), name);
+      if (file.exists()) {
+        log.debug("Loaded disk snapshot: {}", name);
+        snapshots.add(new FileSnapshot(new SnapshotFile(file), this));
+      } else {
+        log.warn("Missing snapshot file: {}", name);
+        return null;
+      }
+    }
+    return snapshots;
+  }
+
+  /**
+   * Writes the manifest for the current snapshots.
+   */
+  private void writeManifest() {
+    List<String> names = new ArrayList<>();
+    for (Snapshot snapshot : stateMachineSnapshots.values()) {
+      if (snapshot instanceof FileSnapshot) {
+        names.add(((FileSnapshot) snapshot).file().file().getName());
+      }
+    }
+    manifest.write(names);
+  }
+
+  /**
+   * Deletes snapshot files that are not listed in the manifest.
+   * <p>
+   * Partially written snapshots are always deleted. Completed snapshots that are not listed were superseded, so they
+   * are only deleted if stale snapshots are not retained. Files for snapshots created since the store was opened are
+   * never deleted.
+   */
+  private void deleteUnlistedSnapshots(Set<String> names) {
+    File[] files = storage.directory().listFiles(File::isFile);
+    if (files == null) {
+      return;
+    }
+
+    for (File file : files) {
+      if (!SnapshotFile.isSnapshotFile(storage.prefix(), file)
+          || names.contains(file.getName())
+          || createdFiles.contains(file.getName())) {
+        continue;
+      }
+
+      try {
+        SnapshotDescriptor descriptor = new SnapshotDescriptor(FileBuffer.allocate(file, SnapshotDescriptor.BYTES));
+        boolean locked = descriptor.isLocked();
+        descriptor.close();
+        if (!locked || !storage.isRetainStaleSnapshots()) {
+          log.debug("Deleting unlisted snapshot: {}", file.getName());
+          new FileSnapshot(new SnapshotFile(file), this).delete();
+        }
+      } catch (RuntimeException e) {
+        log.debug("Failed to delete unlisted snapshot: {}", file.getName(), e);
+      }
+    }
+  }
+
+  /**
+   * Closes and deletes the given snapshot.
+   * <p>
+   * Persistent snapshots are deleted on a background thread.
+   */
+  private void deleteSnapshot(Snapshot snapshot) {
+    if (deleter != null) {
+      deleter.execute(() -> {
+        snapshot.close();
+        snapshot.delete();
+      });
+    } else {
+      snapshot.close();
+      snapshot.delete();
+    }
   }
 
   /**
@@ -198,7 +338,7 @@ public class SnapshotStore implements AutoCloseable {
    * Creates a new snapshot buffer.
    */
   private Snapshot newSnapshot(SnapshotDescriptor descriptor, StorageLevel storageLevel) {
-    if (storageLevel == StorageLevel.MEMORY) {
+    if (!storageLevel.isPersistent()) {
       return createMemorySnapshot(descriptor);
     } else {
       return createDiskSnapshot(descriptor);
@@ -220,6 +360,7 @@ public class SnapshotStore implements AutoCloseable {
    */
   private Snapshot createDiskSnapshot(SnapshotDescriptor descriptor) {
     SnapshotFile file = new SnapshotFile(SnapshotFile.createSnapshotFile(storage.prefix(), storage.directory(), descriptor.snapshotId(), descriptor.index(), descriptor.timestamp()));
+    createdFiles.add(file.file().getName());
     Snapshot snapshot = new FileSnapshot(file, this);
     log.debug("Created disk snapshot: {}", snapshot);
     return snapshot;
@@ -237,24 +378,31 @@ public class SnapshotStore implements AutoCloseable {
       stateMachineSnapshots.put(snapshot.serviceId(), snapshot);
       indexSnapshots.put(snapshot.index(), snapshot);
 
+      // Record the snapshot in the manifest before the old snapshot is deleted.
+      if (manifest != null) {
+        writeManifest();
+      }
+
       // Delete the old snapshot if necessary.
-      if (existingSnapshot != null) {
+      if (existingSnapshot != null && existingSnapshot != snapshot) {
         indexSnapshots.remove(existingSnapshot.index());
         if (!storage.isRetainStaleSnapshots()) {
-          existingSnapshot.close();
-          existingSnapshot.delete();
+          deleteSnapshot(existingSnapshot);
         }
       }
     }
     // If the snapshot was old, delete it if necessary.
     else if (!storage.isRetainStaleSnapshots()) {
-      snapshot.close();
-      snapshot.delete();
+      deleteSnapshot(snapshot);
     }
   }
 
   @Override
   public void close() {
+    // Pending deletions are completed in the background.
+    if (deleter != null) {
+      deleter.shutdown();
+    }
   }
 
   @Override
@@ -18,7 +18,6 @@ package io.atomix.protocols.raft.storage.system;
 import io.atomix.protocols.raft.cluster.MemberId;
 import io.atomix.protocols.raft.storage.RaftStorage;
 import io.atomix.serializer.Serializer;
-import io.atomix.storage.StorageLevel;
 import io.atomix.storage.buffer.Buffer;
 import io.atomix.storage.buffer.FileBuffer;
 import io.atomix.storage.buffer.HeapBuffer;
@@ -56,7 +55,7 @@ public class MetaStore implements AutoCloseable {
     File metaFile = new File(storage.directory(), String.format("%s.meta", storage.prefix()));
     metadataBuffer = FileBuffer.allocate(metaFile, 12);
 
-    if (storage.storageLevel() == StorageLevel.MEMORY) {
+    if (!storage.storageLevel().isPersistent()) {
       configurationBuffer = HeapBuffer.allocate(32);
     } else {
       File confFile = new File(storage.directory(), String.format("%s.conf", storage.prefix()));
@@ -0,0 +1,420 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.codec;
+
+import io.atomix.protocols.raft.RaftError;
+import io.atomix.protocols.raft.ReadConsistency;
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.cluster.RaftMember;
+import io.atomix.protocols.raft.cluster.impl.DefaultRaftMember;
+import io.atomix.protocols.raft.event.EventType;
+import io.atomix.protocols.raft.event.RaftEvent;
+import io.atomix.protocols.raft.operation.OperationId;
+import io.atomix.protocols.raft.operation.RaftOperation;
+import io.atomix.protocols.raft.protocol.AppendRequest;
+import io.atomix.protocols.raft.protocol.AppendResponse;
+import io.atomix.protocols.raft.protocol.CloseSessionRequest;
+import io.atomix.protocols.raft.protocol.CloseSessionResponse;
+import io.atomix.protocols.raft.protocol.CommandRequest;
+import io.atomix.protocols.raft.protocol.CommandResponse;
+import io.atomix.protocols.raft.protocol.ConfigureRequest;
+import io.atomix.protocols.raft.protocol.ConfigureResponse;
+import io.atomix.protocols.raft.protocol.InstallRequest;
+import io.atomix.protocols.raft.protocol.InstallResponse;
+import io.atomix.protocols.raft.protocol.JoinRequest;
+import io.atomix.protocols.raft.protocol.JoinResponse;
+import io.atomix.protocols.raft.protocol.KeepAliveRequest;
+import io.atomix.protocols.raft.protocol.KeepAliveResponse;
+import io.atomix.protocols.raft.protocol.LeaveRequest;
+import io.atomix.protocols.raft.protocol.LeaveResponse;
+import io.atomix.protocols.raft.protocol.MetadataRequest;
+import io.atomix.protocols.raft.protocol.MetadataResponse;
+import io.atomix.protocols.raft.protocol.OpenSessionRequest;
+import io.atomix.protocols.raft.protocol.OpenSessionResponse;
+import io.atomix.protocols.raft.protocol.PollRequest;
+import io.atomix.protocols.raft.protocol.PollResponse;
+import io.atomix.protocols.raft.protocol.PublishRequest;
+import io.atomix.protocols.raft.protocol.QueryRequest;
+import io.atomix.protocols.raft.protocol.QueryResponse;
+import io.atomix.protocols.raft.protocol.RaftResponse;
+import io.atomix.protocols.raft.protocol.ReconfigureRequest;
+import io.atomix.protocols.raft.protocol.ReconfigureResponse;
+import io.atomix.protocols.raft.protocol.ResetRequest;
+import io.atomix.protocols.raft.protocol.VoteRequest;
+import io.atomix.protocols.raft.protocol.VoteResponse;
+import io.atomix.protocols.raft.session.RaftSessionMetadata;
+import io.atomix.protocols.raft.storage.log.entry.CloseSessionEntry;
+import io.atomix.protocols.raft.storage.log.entry.CommandEntry;
+import io.atomix.protocols.raft.storage.log.entry.ConfigurationEntry;
+import io.atomix.protocols.raft.storage.log.entry.InitializeEntry;
+import io.atomix.protocols.raft.storage.log.entry.KeepAliveEntry;
+import io.atomix.protocols.raft.storage.log.entry.MetadataEntry;
+import io.atomix.protocols.raft.storage.log.entry.OpenSessionEntry;
+import io.atomix.protocols.raft.storage.log.entry.QueryEntry;
+import io.atomix.protocols.raft.storage.log.entry.RaftLogEntry;
+import io.atomix.protocols.raft.storage.system.Configuration;
+import io.atomix.storage.buffer.HeapBuffer;
+import org.junit.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Raft serializer test.
+ */
+public class RaftSerializerTest {
+  private final RaftSerializer serializer = new RaftSerializer();
+
+  @Test
+  public void testRequests() throws Exception {
+    CommandRequest command = new CommandRequest(1, 2, new RaftOperation(OperationId.command("put"), "Hello world!".getBytes()));
+    CommandRequest decodedCommand = serializer.decode(serializer.encode(command));
+    assertEquals(command.session(), decodedCommand.session());
+    assertEquals(command.sequenceNumber(), decodedCommand.sequenceNumber());
+    assertEquals(command.operation().id(), decodedCommand.operation().id());
+    assertArrayEquals(command.operation().value(), decodedCommand.operation().value());
+
+    KeepAliveRequest keepAlive = new KeepAliveRequest(new long[]{1, 2}, new long[]{Long.MAX_VALUE, 0}, null);
+    KeepAliveRequest decoded = serializer.decode(serializer.encode(keepAlive));
+    assertArrayEquals(keepAlive.sessionIds(), decoded.sessionIds());
+    assertArrayEquals(keepAlive.commandSequenceNumbers(), decoded.commandSequenceNumbers());
+    assertNull(decoded.eventIndexes());
+  }
+
+  @Test
+  public void testResponse() throws Exception {
+    QueryResponse response = new QueryResponse(RaftResponse.Status.ERROR, new RaftError(RaftError.Type.QUERY_FAILURE, "failed"), 10, 5, null, 3);
+    QueryResponse decoded = serializer.decode(serializer.encode(response));
+    assertEquals(response.status(), decoded.status());
+    assertEquals(response.index(), decoded.index());
+    assertEquals(response.eventIndex(), decoded.eventIndex());
+    assertEquals(response.lastSequenceNumber(), decoded.lastSequenceNumber());
+    assertEquals(RaftError.Type.QUERY_FAILURE, decoded.error().type());
+    assertEquals("failed", decoded.error().message());
+    assertNull(decoded.result());
+  }
+
+  @Test
+  public void testAppendRequest() throws Exception {
+    RaftOperation operation = new RaftOperation(OperationId.command("put"), new byte[]{1, 2, 3});
+    AppendRequest request = new AppendRequest(2, "leader", 10, 1, Arrays.asList(
+        new CommandEntry(2, 1000, 1, 1, operation),
+        new OpenSessionEntry(2, 1001, "client", "t\u00e9st", "map", ReadConsistency.LINEARIZABLE, 5000)), 9);
+    AppendRequest decoded = serializer.decode(serializer.encode(request));
+    assertEquals(request.leader(), decoded.leader());
+    assertEquals(request.prevLogIndex(), decoded.prevLogIndex());
+    assertEquals(request.commitIndex(), decoded.commitIndex());
+    assertEquals(2, decoded.entries().size());
+
+    CommandEntry command = (CommandEntry) decoded.entries().get(0);
+    assertEquals(1000, command.timestamp());
+    assertEquals(operation.id(), command.operation().id());
+    assertArrayEquals(operation.value(), command.operation().value());
+
+    OpenSessionEntry openSession = (OpenSessionEntry) decoded.entries().get(1);
+    assertEquals("client", openSession.memberId());
+    assertEquals("t\u00e9st", openSession.serviceName());
+    assertEquals(ReadConsistency.LINEARIZABLE, openSession.readConsistency());
+    assertEquals(5000, openSession.timeout());
+  }
+
+  @Test
+  public void testBufferEncoding() throws Exception {
+    HeapBuffer buffer = HeapBuffer.allocate(16);
+    RaftLogEntry entry = new CommandEntry(3, 1000, 1, 2, new RaftOperation(OperationId.command("put"), new byte[1024]));
+    Instant updated = Instant.now();
+    Configuration configuration = new Configuration(1, 2, 3,
+        Collections.singletonList(new DefaultRaftMember(MemberId.from("1"), RaftMember.Type.ACTIVE, updated)));
+    serializer.encodeWithLength(entry, buffer);
+    serializer.encodeWithLength(configuration, buffer);
+    buffer.flip();
+
+    CommandEntry decodedEntry = serializer.decodeWithLength(buffer);
+    assertEquals(2, decodedEntry.sequenceNumber());
+    assertEquals(1024, decodedEntry.operation().value().length);
+
+    Configuration decodedConfiguration = serializer.decodeWithLength(buffer);
+    RaftMember member = decodedConfiguration.members().iterator().next();
+    assertEquals(MemberId.from("1"), member.memberId());
+    assertEquals(RaftMember.Type.ACTIVE, member.getType());
+    assertEquals(updated, member.getLastUpdated());
+    assertTrue(!buffer.hasRemaining());
+  }
+
+  /**
+   * Round-trips every registered type with all fields populated.
+   */
+  @Test
+  public void testRoundTripPopulated() throws Exception {
+    List<Object> samples = populatedSamples();
+    assertAllTypesCovered(samples);
+    for (Object sample : samples) {
+      assertFilled(sample.getClass().getSimpleName(), sample);
+      assertDeepEquals(sample.getClass().getSimpleName(), sample, serializer.decode(serializer.encode(sample)));
+    }
+  }
+
+  /**
+   * Round-trips every registered type with all nullable fields absent.
+   */
+  @Test
+  public void testRoundTripAbsent() throws Exception {
+    List<Object> samples = absentSamples();
+    assertAllTypesCovered(samples);
+    for (Object sample : samples) {
+      assertDeepEquals(sample.getClass().getSimpleName(), sample, serializer.decode(serializer.encode(sample)));
+    }
+  }
+
+  /**
+   * Round-trips every registered type through a length-prefixed buffer.
+   */
+  @Test
+  public void testRoundTripBuffer() throws Exception {
+    List<Object> samples = populatedSamples();
+    samples.addAll(absentSamples());
+    HeapBuffer buffer = HeapBuffer.allocate(16);
+    for (Object sample : samples) {
+      serializer.encodeWithLength(sample, buffer);
+    }
+    buffer.flip();
+    for (Object sample : samples) {
+      Object decoded = serializer.decodeWithLength(buffer);
+      assertDeepEquals(sample.getClass().getSimpleName(), sample, decoded);
+    }
+    assertFalse(buffer.hasRemaining());
+  }
+
+  private static void assertAllTypesCovered(List<Object> samples) {
+    Set<Class<?>> registered = RaftCodecs.codecs().stream().map(RaftCodec::type).collect(Collectors.toSet());
+    Set<Class<?>> sampled = samples.stream().map(Object::getClass).collect(Collectors.toSet());
+    assertEquals(39, registered.size());
+    assertEquals(registered, sampled);
+  }
+
+  /**
+   * Returns a sample of each registered type with every field set to a non-default value. Strings are not ASCII and
+   * numbers use the full width of the variable-length encoding.
+   */
+  private static List<Object> populatedSamples() {
+    RaftError error = new RaftError(RaftError.Type.ILLEGAL_MEMBER_STATE, "état illégal");
+    RaftOperation operation = new RaftOperation(OperationId.query("gét"), new byte[]{1, 2, 3});
+    List<RaftMember> members = Arrays.asList(
+        new DefaultRaftMember(MemberId.from("mémber-1"), RaftMember.Type.ACTIVE, Instant.ofEpochSecond(1500000000, 123456789)),
+        new DefaultRaftMember(MemberId.from("member-2"), RaftMember.Type.PASSIVE, Instant.ofEpochSecond(1500000001, 1)));
+    List<RaftLogEntry> entries = Arrays.asList(
+        new CommandEntry(3, 1000, 4, 5, operation),
+        new ConfigurationEntry(3, 1001, members));
+    long[] longs = new long[]{0, 1, 128, Long.MAX_VALUE, -1};
+    byte[] bytes = new byte[]{-128, 0, 127};
+    RaftResponse.Status status = RaftResponse.Status.ERROR;
+    long max = Long.MAX_VALUE;
+    return new ArrayList<>(Arrays.asList(
+        new OpenSessionRequest("cliént", "näme", "tÿpe", ReadConsistency.LINEARIZABLE_LEASE, max),
+        new OpenSessionResponse(status, error, max, max - 1),
+        new CloseSessionRequest(max),
+        new CloseSessionResponse(status, error),
+        new KeepAliveRequest(longs, longs, longs),
+        new KeepAliveResponse(status, error, MemberId.from("léader"), Arrays.asList(MemberId.from("a"), MemberId.from("b")), longs),
+        new QueryRequest(max, max - 1, operation, max - 2),
+        new QueryResponse(status, error, max, max - 1, bytes, max - 2),
+        new CommandRequest(max, max - 1, operation),
+        new CommandResponse(status, error, max, max - 1, bytes, max - 2),
+        new MetadataRequest(max),
+        new MetadataResponse(status, error, Collections.singleton(new RaftSessionMetadata(max, "näme", "tÿpe"))),
+        new PublishRequest(max, max - 1, max - 2, Arrays.asList(
+            new RaftEvent(EventType.from("chänge"), bytes), new RaftEvent(EventType.from("other"), new byte[0]))),
+        new ResetRequest(max, max - 1),
+        new JoinRequest(members.get(0)),
+        new JoinResponse(status, error, max, max - 1, max - 2, members),
+        new LeaveRequest(members.get(1)),
+        new LeaveResponse(status, error, max, max - 1, max - 2, members),
+        new ConfigureRequest(max, "léader", max - 1, max - 2, members),
+        new ConfigureResponse(status, error),
+        new ReconfigureRequest(members.get(0), max, max - 1),
+        new ReconfigureResponse(status, error, max, max - 1, max - 2, members),
+        new InstallRequest(max, MemberId.from("léader"), max - 1, max - 2, max - 3, Integer.MAX_VALUE, bytes, true),
+        new InstallResponse(status, error),
+        new PollRequest(max, "cändidate", max - 1, max - 2),
+        new PollResponse(status, error, max, true),
+        new VoteRequest(max, "cändidate", max - 1, max - 2),
+        new VoteResponse(status, error, max, true),
+        new AppendRequest(max, "léader", max - 1, max - 2, entries, max - 3),
+        new AppendResponse(status, error, max, true, max - 1),
+        new InitializeEntry(max, max - 1),
+        new ConfigurationEntry(max, max - 1, members),
+        new OpenSessionEntry(max, max - 1, "mémber", "näme", "tÿpe", ReadConsistency.SEQUENTIAL, max - 2),
+        new CloseSessionEntry(max, max - 1, max - 2),
+        new KeepAliveEntry(max, max - 1, longs, longs, longs),
+        new MetadataEntry(max, max - 1, max - 2),
+        new CommandEntry(max, max - 1, max - 2, max - 3, operation),
+        new QueryEntry(max, max - 1, max - 2, max - 3, operation),
+        new Configuration(max, max - 1, max - 2, members)));
+  }
+
+  /**
+   * Returns a sample of each registered type with every nullable field absent and every number zero.
+   */
+  private static List<Object> absentSamples() {
+    List<RaftMember> members = Arrays.asList(null, new DefaultRaftMember(MemberId.from(""), RaftMember.Type.INACTIVE, Instant.EPOCH));
+    return new ArrayList<>(Arrays.asList(
+        new OpenSessionRequest(null, null, null, null, 0),
+        new OpenSessionResponse(null, null, 0, 0),
+        new CloseSessionRequest(0),
+        new CloseSessionResponse(null, null),
+        new KeepAliveRequest(null, null, null),
+        new KeepAliveResponse(null, null, null, null, null),
+        new QueryRequest(0, 0, null, 0),
+        new QueryResponse(null, null, 0, 0, null, 0),
+        new CommandRequest(0, 0, new RaftOperation(OperationId.command(""), null)),
+        new CommandResponse(RaftResponse.Status.OK, new RaftError(RaftError.Type.NO_LEADER, null), 0, 0, new byte[0], 0),
+        new MetadataRequest(0),
+        new MetadataResponse(null, null, null),
+        new PublishRequest(0, 0, 0, null),
+        new ResetRequest(0, 0),
+        new JoinRequest(null),
+        new JoinResponse(null, null, 0, 0, 0, null),
+        new LeaveRequest(members.get(1)),
+        new LeaveResponse(null, null, 0, 0, 0, members),
+        new ConfigureRequest(0, "", 0, 0, null),
+        new ConfigureResponse(null, null),
+        new ReconfigureRequest(null, 0, 0),
+        new ReconfigureResponse(null, null, 0, 0, 0, Collections.emptyList()),
+        new InstallRequest(0, null, 0, 0, 0, 0, null, false),
+        new InstallResponse(null, null),
+        new PollRequest(0, "", 0, 0),
+        new PollResponse(null, null, 0, false),
+        new VoteRequest(0, "", 0, 0),
+        new VoteResponse(null, null, 0, false),
+        new AppendRequest(0, "", 0, 0, null, 0),
+        new AppendResponse(null, null, 0, false, 0),
+        new InitializeEntry(0, 0),
+        new ConfigurationEntry(0, 0, null),
+        new OpenSessionEntry(0, 0, null, null, null, null, 0),
+        new CloseSessionEntry(0, 0, 0),
+        new KeepAliveEntry(0, 0, null, new long[0], null),
+        new MetadataEntry(0, 0, 0),
+        new CommandEntry(0, 0, 0, 0, null),
+        new QueryEntry(0, 0, 0, 0, null),
+        new Configuration(0, 0, 1, Collections.emptyList())));
+  }
+
+  /**
+   * Asserts that no field of the given object graph is {@code null}, so that a codec that drops a field cannot pass
+   * the round-trip comparison.
+   */
+  private static void assertFilled(String path, Object object) throws IllegalAccessException {
+    assertNotNull(path, object);
+    if (isValue(object)) {
+      return;
+    }
+    if (object instanceof Collection) {
+      int i = 0;
+      for (Object element : (Collection<?>) object) {
+        assertFilled(path + "[" + i++ + "]", element);
+      }
+      return;
+    }
+    if (object.getClass().isArray()) {
+      return;
+    }
+    for (Field field : fields(object.getClass())) {
+      assertFilled(path + "." + field.getName(), field.get(object));
+    }
+  }
+
+  /**
+   * Asserts that two object graphs are equal field by field. Objects' own {@code equals} methods are not used since
+   * they do not cover every encoded field.
+   */
+  private static void assertDeepEquals(String path, Object expected, Object actual) throws IllegalAccessException {
+    if (expected == null || actual == null) {
+      assertSame(path, expected, actual);
+    } else if (isValue(expected)) {
+      assertEquals(path, expected, actual);
+    } else if (expected instanceof Collection) {
+      assertTrue(path, actual instanceof Collection);
+      assertEquals(path, ((Collection<?>) expected).size(), ((Collection<?>) actual).size());
+      Iterator<?> expectedIterator = ((Collection<?>) expected).iterator();
+      Iterator<?> actualIterator = ((Collection<?>) actual).iterator();
+      for (int i = 0; expectedIterator.hasNext(); i++) {
+        assertDeepEquals(path + "[" + i + "]", expectedIterator.next(), actualIterator.next());
+      }
+    } else if (expected.getClass().isArray()) {
+      assertEquals(path, expected.getClass(), actual.getClass());
+      assertEquals(path, Array.getLength(expected), Array.getLength(actual));
+      for (int i = 0; i < Array.getLength(expected); i++) {
+        assertDeepEquals(path + "[" + i + "]", Array.get(expected, i), Array.get(actual, i));
+      }
+    } else {
+      assertEquals(path, expected.getClass(), actual.getClass());
+      for (Field field : fields(expected.getClass())) {
+        assertDeepEquals(path + "." + field.getName(), field.get(expected), field.get(actual));
+      }
+    }
+  }
+
+  private static boolean isValue(Object object) {
+    return object instanceof String || object instanceof Number || object instanceof Boolean
+        || object instanceof Enum || object instanceof Instant;
+  }
+
+  /**
+   * Returns the non-static, non-transient fields of the given class and its superclasses.
+   */
+  private static List<Field> fields(Class<?> type) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+    }
+    return fields;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedType() throws Exception {
+    serializer.encode("foo");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedVersion() throws Exception {
+    byte[] bytes = serializer.encode(new CommandRequest(1, 2, null));
+    bytes[0] = RaftSerializer.VERSION + 1;
+    serializer.decode(bytes);
+  }
+}
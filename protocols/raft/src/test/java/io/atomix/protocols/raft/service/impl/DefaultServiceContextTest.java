@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.service.impl;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.atomix.protocols.raft.ReadConsistency;
+import io.atomix.protocols.raft.impl.RaftContext;
+import io.atomix.protocols.raft.protocol.RaftServerProtocol;
+import io.atomix.protocols.raft.service.RaftService;
+import io.atomix.protocols.raft.service.ServiceId;
+import io.atomix.protocols.raft.service.ServiceType;
+import io.atomix.protocols.raft.session.impl.RaftSessionManager;
+import io.atomix.protocols.raft.storage.RaftStorage;
+import io.atomix.protocols.raft.storage.snapshot.Snapshot;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotReader;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotStore;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotWriter;
+import io.atomix.storage.StorageLevel;
+import io.atomix.time.HybridTimestamp;
+import io.atomix.time.WallClockTimestamp;
+import io.atomix.utils.concurrent.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Default service context test.
+ */
+public class DefaultServiceContextTest {
+  private Level level;
+
+  @Before
+  public void setup() {
+    // Applying tens of thousands of entries would otherwise log each of them.
+    Logger logger = (Logger) LoggerFactory.getLogger(DefaultServiceContext.class);
+    level = logger.getLevel();
+    logger.setLevel(Level.INFO);
+  }
+
+  @After
+  public void teardown() {
+    ((Logger) LoggerFactory.getLogger(DefaultServiceContext.class)).setLevel(level);
+  }
+
+  @Test
+  public void testHybridClockAtFixedTimestamp() throws Exception {
+    DefaultServiceContext context = createContext();
+    long timestamp = System.currentTimeMillis();
+
+    // Apply more entries than fit in the logical time at a single timestamp. The logical time carries into the
+    // physical time rather than wrapping.
+    HybridTimestamp previous = context.hybridClock().getTime();
+    for (long index = 1; index <= 70000; index++) {
+      context.keepAliveSessions(index, timestamp);
+      HybridTimestamp current = context.hybridClock().getTime();
+      assertTrue(current.compareTo(previous) > 0);
+      previous = current;
+    }
+    assertEquals(timestamp + 1, previous.physicalTime());
+    assertEquals(70000 - 65536 - 1, previous.logicalTime());
+
+    // A later timestamp resets the logical time.
+    context.keepAliveSessions(70001, timestamp + 2);
+    assertEquals(HybridTimestamp.of(timestamp + 2, 0), context.hybridClock().getTime());
+  }
+
+  @Test
+  public void testInstallUnversionedSnapshot() throws Exception {
+    SnapshotStore store = new SnapshotStore(RaftStorage.newBuilder()
+        .withPrefix("test")
+        .withStorageLevel(StorageLevel.MEMORY)
+        .build());
+    long timestamp = System.currentTimeMillis();
+
+    // Write a snapshot in the layout used before the hybrid time was added to it.
+    Snapshot snapshot = store.newSnapshot(ServiceId.from(1), 2, WallClockTimestamp.from(timestamp));
+    try (SnapshotWriter writer = snapshot.openWriter()) {
+      writer.writeInt(1);
+      writer.writeLong(3);
+      writer.writeString("foo");
+      writer.writeString(ReadConsistency.LINEARIZABLE.name());
+      writer.writeLong(Long.MAX_VALUE);
+      writer.writeLong(timestamp);
+      writer.writeLong(10);
+    }
+    snapshot.complete();
+
+    RaftService service = mock(RaftService.class);
+    AtomicLong state = new AtomicLong();
+    doAnswer(invocation -> {
+      state.set(((SnapshotReader) invocation.getArguments()[0]).readLong());
+      return null;
+    }).when(service).install(any(SnapshotReader.class));
+    RaftContext server = mock(RaftContext.class);
+    when(server.getSnapshotStore()).thenReturn(store);
+    when(server.getProtocol()).thenReturn(mock(RaftServerProtocol.class));
+
+    DefaultServiceContext context = createContext(service, server);
+    context.completeKeepAlive(3, timestamp);
+    assertEquals(10, state.get());
+    assertNotNull(context.sessions().getSession(3));
+    assertEquals(HybridTimestamp.of(timestamp, 1), context.hybridClock().getTime());
+  }
+
+  /**
+   * Creates a service context that runs tasks on the calling thread.
+   */
+  private DefaultServiceContext createContext() {
+    return createContext(mock(RaftService.class), mock(RaftContext.class));
+  }
+
+  /**
+   * Creates a service context for the given service and server that runs tasks on the calling thread.
+   */
+  private DefaultServiceContext createContext(RaftService service, RaftContext server) {
+    ThreadContext executor = mock(ThreadContext.class);
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArguments()[0]).run();
+      return null;
+    }).when(executor).execute(any(Runnable.class));
+    return new DefaultServiceContext(
+        ServiceId.from(1),
+        "test",
+        ServiceType.from("test"),
+        service,
+        server,
+        mock(RaftSessionManager.class),
+        executor,
+        executor);
+  }
+}
@@ -212,6 +212,7 @@ public abstract class AbstractLogTest {
     assertEquals(reader.getCurrentEntry(), closeSession);
     assertEquals(reader.getCurrentIndex(), 2);
     assertFalse(reader.hasNext());
+    log.close();
   }
 
   @Test
@@ -255,6 +256,7 @@ public abstract class AbstractLogTest {
       assertEquals(1, entry.entry().term());
       assertEquals(32, entry.entry().bytes().length);
     }
+    log.close();
   }
 
   @Test
@@ -280,6 +282,7 @@ public abstract class AbstractLogTest {
       assertEquals(1, entry.entry().term());
       assertEquals(32, entry.entry().bytes().length);
     }
+    log.close();
   }
 
   @Before
@@ -34,8 +34,10 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * File snapshot store test.
@@ -127,6 +129,59 @@ public class FileSnapshotStoreTest extends AbstractSnapshotStoreTest {
     }
   }
 
+  /**
+   * Tests loading snapshots from the manifest and deleting superseded and partial snapshots.
+   */
+  @Test
+  public void testLoadFromManifest() throws Exception {
+    SnapshotStore store = createSnapshotStore();
+
+    Snapshot oldSnapshot = store.newSnapshot(ServiceId.from(1), 2, new WallClockTimestamp());
+    try (SnapshotWriter writer = oldSnapshot.openWriter()) {
+      writer.writeLong(10);
+    }
+    oldSnapshot.complete();
+
+    Snapshot newSnapshot = store.newSnapshot(ServiceId.from(1), 3, new WallClockTimestamp());
+    try (SnapshotWriter writer = newSnapshot.openWriter()) {
+      writer.writeLong(11);
+    }
+    newSnapshot.complete();
+
+    Snapshot partialSnapshot = store.newSnapshot(ServiceId.from(2), 4, new WallClockTimestamp());
+    try (SnapshotWriter writer = partialSnapshot.openWriter()) {
+      writer.writeLong(12);
+    }
+    store.close();
+
+    File directory = new File(String.format("target/test-logs/%s", testId));
+    assertTrue(SnapshotManifest.createManifestFile("test", directory).exists());
+    awaitDeleted(((FileSnapshot) oldSnapshot).file().file());
+
+    store = createSnapshotStore();
+    assertNull(store.getSnapshotByIndex(2));
+    assertNull(store.getSnapshotById(ServiceId.from(2)));
+    Snapshot snapshot = store.getSnapshotById(ServiceId.from(1));
+    assertEquals(3, snapshot.index());
+    try (SnapshotReader reader = snapshot.openReader()) {
+      assertEquals(11, reader.readLong());
+    }
+
+    // The partial snapshot is not listed in the manifest and is deleted in the background.
+    awaitDeleted(((FileSnapshot) partialSnapshot).file().file());
+    store.close();
+  }
+
+  /**
+   * Waits for the given file to be deleted.
+   */
+  private void awaitDeleted(File file) throws InterruptedException {
+    for (int i = 0; i < 100 && file.exists(); i++) {
+      Thread.sleep(100);
+    }
+    assertFalse(file.exists());
+  }
+
   @Before
   @After
   public void cleanupStorage() throws IOException {
@@ -15,6 +15,11 @@
  */
 package io.atomix.serializer;
 
+import io.atomix.storage.buffer.BufferInput;
+import io.atomix.storage.buffer.BufferInputStream;
+import io.atomix.storage.buffer.BufferOutput;
+import io.atomix.storage.buffer.BufferOutputStream;
+
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -149,4 +154,32 @@ public interface Namespace {
    */
   <T> T deserialize(final InputStream stream, final int bufferSize);
 
+  /**
+   * Serializes given object to a buffer.
+   * <p>
+   * The object is written directly at the buffer's current position without first being copied into an
+   * intermediate byte array.
+   *
+   * @param obj    Object to serialize
+   * @param output buffer to write to
+   */
+  default void serialize(final Object obj, final BufferOutput<?> output) {
+    serialize(obj, new BufferOutputStream(output));
+  }
+
+  /**
+   * Deserializes an Object from the next {@code length} bytes of the given buffer.
+   *
+   * @param input  buffer to read from
+   * @param length number of serialized bytes
+   * @param <T>    deserialized Object type
+   * @return deserialized Object
+   */
+  default <T> T deserialize(final BufferInput<?> input, final int length) {
+    BufferInputStream stream = new BufferInputStream(input, length);
+    T obj = deserialize(stream, Math.max(1, Math.min(length, DEFAULT_BUFFER_SIZE)));
+    stream.skip(stream.available());
+    return obj;
+  }
+
 }
@@ -16,6 +16,10 @@
 
 package io.atomix.serializer;
 
+import io.atomix.storage.buffer.Buffer;
+import io.atomix.storage.buffer.BufferInput;
+import io.atomix.storage.buffer.BufferOutput;
+
 /**
  * Interface for serialization of store artifacts.
  */
@@ -39,6 +43,74 @@ public interface Serializer {
    */
   <T> T decode(byte[] bytes);
 
+  /**
+   * Serialize the specified object to the given output.
+   * <p>
+   * The object is written at the output's current position, and the position is advanced past the written bytes.
+   *
+   * @param object object to serialize.
+   * @param output output to which to write the serialized object.
+   * @param <T>    encoded type
+   */
+  default <T> void encode(T object, BufferOutput<?> output) {
+    output.write(encode(object));
+  }
+
+  /**
+   * Deserialize an object from all remaining bytes of the given input.
+   *
+   * @param input input from which to read the serialized object.
+   * @param <T>   decoded type
+   * @return deserialized object.
+   */
+  default <T> T decode(BufferInput<?> input) {
+    return decode(input, input.remaining());
+  }
+
+  /**
+   * Deserialize an object from the next {@code length} bytes of the given input.
+   * <p>
+   * Exactly {@code length} bytes are consumed from the input.
+   *
+   * @param input  input from which to read the serialized object.
+   * @param length number of serialized bytes.
+   * @param <T>    decoded type
+   * @return deserialized object.
+   */
+  default <T> T decode(BufferInput<?> input, int length) {
+    byte[] bytes = new byte[length];
+    input.read(bytes);
+    return decode(bytes);
+  }
+
+  /**
+   * Serialize the specified object to the given buffer, preceded by its 32-bit length.
+   *
+   * @param object object to serialize.
+   * @param buffer buffer to which to write the length and serialized object.
+   * @param <T>    encoded type
+   * @return the number of serialized bytes, excluding the length.
+   */
+  default <T> int encodeWithLength(T object, Buffer buffer) {
+    int offset = buffer.position();
+    buffer.writeInt(0);
+    encode(object, buffer);
+    int length = buffer.position() - offset - Integer.BYTES;
+    buffer.writeInt(offset, length);
+    return length;
+  }
+
+  /**
+   * Deserialize an object written by {@link #encodeWithLength(Object, Buffer)}.
+   *
+   * @param input input from which to read the length and serialized object.
+   * @param <T>   decoded type
+   * @return deserialized object.
+   */
+  default <T> T decodeWithLength(BufferInput<?> input) {
+    return decode(input, input.readInt());
+  }
+
   /**
    * Creates a new Serializer instance from a Namespace.
    *
@@ -56,6 +128,16 @@ public interface Serializer {
       public <T> T decode(byte[] bytes) {
         return namespace.deserialize(bytes);
       }
+
+      @Override
+      public <T> void encode(T object, BufferOutput<?> output) {
+        namespace.serialize(object, output);
+      }
+
+      @Override
+      public <T> T decode(BufferInput<?> input, int length) {
+        return namespace.deserialize(input, length);
+      }
     };
   }
 
@@ -29,6 +29,10 @@ import com.google.common.collect.ImmutableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.atomix.serializer.Namespace;
+import io.atomix.storage.buffer.BufferInput;
+import io.atomix.storage.buffer.BufferInputStream;
+import io.atomix.storage.buffer.BufferOutput;
+import io.atomix.storage.buffer.BufferOutputStream;
 import org.apache.commons.lang3.tuple.Pair;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 
@@ -67,9 +71,37 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
    */
   public static Namespace DEFAULT = newBuilder().build();
 
-  private final KryoPool pool = new KryoPool.Builder(this)
-      .softReferences()
-      .build();
+  /**
+   * Largest output buffer retained by a thread between calls in {@link PoolMode#THREAD_LOCAL} mode.
+   */
+  private static final int MAX_RETAINED_BUFFER_SIZE = 16 * DEFAULT_BUFFER_SIZE;
+
+  private static final byte[] EMPTY_BYTES = new byte[0];
+
+  /**
+   * Kryo instance pooling mode.
+   */
+  public enum PoolMode {
+    /**
+     * Pools Kryo instances through soft references, allowing idle instances to be collected under memory pressure.
+     */
+    SOFT_REFERENCE,
+
+    /**
+     * Pools Kryo instances through strong references. Instances are never collected once created.
+     */
+    STRONG_REFERENCE,
+
+    /**
+     * Caches a Kryo instance and reusable input/output buffers for each thread. Output buffers grow as needed and
+     * are shrunk back after oversized objects are serialized. Re-entrant calls on a thread and operations that
+     * don't benefit from buffer reuse fall back to a strongly referenced pool.
+     */
+    THREAD_LOCAL,
+  }
+
+  private final KryoPool pool;
+  private final ThreadLocal<KryoContext> contexts;
 
   private final ImmutableList<RegistrationBlock> registeredBlocks;
 
@@ -86,6 +118,7 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
     private List<Pair<Class<?>[], com.esotericsoftware.kryo.Serializer<?>>> types = new ArrayList<>();
     private List<RegistrationBlock> blocks = new ArrayList<>();
     private boolean registrationRequired = true;
+    private PoolMode poolMode = PoolMode.SOFT_REFERENCE;
 
     /**
      * Builds a {@link KryoNamespace} instance.
@@ -106,7 +139,7 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
       if (!types.isEmpty()) {
         blocks.add(new RegistrationBlock(this.blockHeadId, types));
       }
-      return new KryoNamespace(blocks, registrationRequired, friendlyName).populate(1);
+      return new KryoNamespace(blocks, registrationRequired, poolMode, friendlyName).populate(1);
     }
 
     /**
@@ -206,6 +239,21 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
       this.registrationRequired = registrationRequired;
       return this;
     }
+
+    /**
+     * Sets the Kryo instance pooling mode.
+     * <p>
+     * Defaults to {@link PoolMode#SOFT_REFERENCE}. High throughput namespaces that are used by a bounded set of
+     * threads should use {@link PoolMode#THREAD_LOCAL} to avoid allocating buffers for each object.
+     *
+     * @param poolMode the Kryo instance pooling mode
+     * @return this
+     * @throws NullPointerException if the pool mode is null
+     */
+    public Builder setPoolMode(PoolMode poolMode) {
+      this.poolMode = checkNotNull(poolMode, "poolMode cannot be null");
+      return this;
+    }
   }
 
   /**
@@ -222,14 +270,41 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
    *
    * @param registeredTypes      types to register
    * @param registrationRequired
+   * @param poolMode             Kryo instance pooling mode
    * @param friendlyName         friendly name for the namespace
    */
   private KryoNamespace(final List<RegistrationBlock> registeredTypes,
                         boolean registrationRequired,
+                        PoolMode poolMode,
                         String friendlyName) {
     this.registeredBlocks = ImmutableList.copyOf(registeredTypes);
     this.registrationRequired = registrationRequired;
     this.friendlyName = checkNotNull(friendlyName);
+    if (poolMode == PoolMode.SOFT_REFERENCE) {
+      this.pool = new KryoPool.Builder(this)
+          .softReferences()
+          .build();
+    } else {
+      this.pool = new KryoPool.Builder(this).build();
+    }
+    this.contexts = poolMode == PoolMode.THREAD_LOCAL ? ThreadLocal.withInitial(() -> new KryoContext(create())) : null;
+  }
+
+  /**
+   * Acquires the calling thread's Kryo context.
+   *
+   * @return the thread's Kryo context or {@code null} if thread local contexts are disabled or the context is in use
+   */
+  private KryoContext acquireContext() {
+    if (contexts == null) {
+      return null;
+    }
+    KryoContext context = contexts.get();
+    if (context.inUse) {
+      return null;
+    }
+    context.inUse = true;
+    return context;
   }
 
   /**
@@ -253,6 +328,16 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
    * @return serialized bytes
    */
   public byte[] serialize(final Object obj, final int bufferSize) {
+    KryoContext context = acquireContext();
+    if (context != null) {
+      try {
+        context.kryo.writeClassAndObject(context.output, obj);
+        return context.output.toBytes();
+      } finally {
+        context.release();
+      }
+    }
+
     Output out = new Output(bufferSize, MAX_BUFFER_SIZE);
     return pool.run(kryo -> {
       kryo.writeClassAndObject(out, obj);
@@ -296,6 +381,36 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
     }
   }
 
+  /**
+   * Serializes given object directly to a buffer using Kryo instance in pool.
+   *
+   * @param obj    Object to serialize
+   * @param output buffer to write to
+   */
+  @Override
+  public void serialize(final Object obj, final BufferOutput<?> output) {
+    KryoContext context = acquireContext();
+    if (context != null) {
+      try {
+        context.output.setOutputStream(new BufferOutputStream(output));
+        context.kryo.writeClassAndObject(context.output, obj);
+        context.output.flush();
+      } finally {
+        context.release();
+      }
+      return;
+    }
+
+    Output out = new Output(new BufferOutputStream(output), DEFAULT_BUFFER_SIZE);
+    Kryo kryo = borrow();
+    try {
+      kryo.writeClassAndObject(out, obj);
+      out.flush();
+    } finally {
+      release(kryo);
+    }
+  }
+
   /**
    * Deserializes given byte array to Object using Kryo instance in pool.
    *
@@ -304,6 +419,18 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
    * @return deserialized Object
    */
   public <T> T deserialize(final byte[] bytes) {
+    KryoContext context = acquireContext();
+    if (context != null) {
+      try {
+        context.input.setBuffer(bytes);
+        @SuppressWarnings("unchecked")
+        T obj = (T) context.kryo.readClassAndObject(context.input);
+        return obj;
+      } finally {
+        context.release();
+      }
+    }
+
     Input in = new Input(bytes);
     Kryo kryo = borrow();
     try {
@@ -354,6 +481,42 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
     }
   }
 
+  /**
+   * Deserializes an Object from the next {@code length} bytes of the given buffer using Kryo instance in pool.
+   *
+   * @param input  buffer to read from
+   * @param length number of serialized bytes
+   * @param <T>    deserialized Object type
+   * @return deserialized Object
+   */
+  @Override
+  public <T> T deserialize(final BufferInput<?> input, final int length) {
+    BufferInputStream stream = new BufferInputStream(input, length);
+    KryoContext context = acquireContext();
+    if (context != null) {
+      try {
+        context.streamInput.setInputStream(stream);
+        @SuppressWarnings("unchecked")
+        T obj = (T) context.kryo.readClassAndObject(context.streamInput);
+        stream.skip(stream.available());
+        return obj;
+      } finally {
+        context.release();
+      }
+    }
+
+    Input in = new Input(stream, Math.max(1, Math.min(length, DEFAULT_BUFFER_SIZE)));
+    Kryo kryo = borrow();
+    try {
+      @SuppressWarnings("unchecked")
+      T obj = (T) kryo.readClassAndObject(in);
+      stream.skip(stream.available());
+      return obj;
+    } finally {
+      release(kryo);
+    }
+  }
+
   private String friendlyName() {
     return friendlyName;
   }
@@ -472,6 +635,34 @@ public final class KryoNamespace implements Namespace, KryoFactory, KryoPool {
         .toString();
   }
 
+  /**
+   * Per-thread Kryo instance and reusable buffers.
+   */
+  private static final class KryoContext {
+    private final Kryo kryo;
+    private final Output output = new Output(DEFAULT_BUFFER_SIZE, MAX_BUFFER_SIZE);
+    private final Input input = new Input();
+    private final Input streamInput = new Input(DEFAULT_BUFFER_SIZE);
+    private boolean inUse;
+
+    private KryoContext(Kryo kryo) {
+      this.kryo = kryo;
+    }
+
+    /**
+     * Resets the buffers for the next call, shrinking the output buffer if it grew beyond the retained size.
+     */
+    private void release() {
+      output.setOutputStream(null);
+      if (output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+        output.setBuffer(new byte[DEFAULT_BUFFER_SIZE], MAX_BUFFER_SIZE);
+      }
+      input.setBuffer(EMPTY_BYTES);
+      streamInput.setInputStream(null);
+      inUse = false;
+    }
+  }
+
   static final class RegistrationBlock {
     private final int begin;
     private final ImmutableList<Pair<Class<?>[], com.esotericsoftware.kryo.Serializer<?>>> types;
@@ -21,13 +21,42 @@ package io.atomix.storage;
 public enum StorageLevel {
 
   /**
-   * Stores data in memory only.
+   * Stores data in memory only, on the Java heap.
    */
-  MEMORY,
+  MEMORY(false),
 
   /**
-   * Stores data on disk.
+   * Stores data in memory only, in off-heap memory allocated outside the Java heap.
+   * <p>
+   * Off-heap storage allows large in-memory logs to be stored without increasing pressure on the garbage collector.
    */
-  DISK
+  OFF_HEAP(false),
+
+  /**
+   * Stores data on disk, reading and writing files with positional I/O.
+   * <p>
+   * Disk storage does not map files into memory, so resident memory does not grow with the size of the log.
+   */
+  DISK(true),
+
+  /**
+   * Stores data on disk in memory-mapped files.
+   */
+  MAPPED(true);
+
+  private final boolean persistent;
+
+  StorageLevel(boolean persistent) {
+    this.persistent = persistent;
+  }
+
+  /**
+   * Returns a boolean indicating whether the storage level persists data on disk.
+   *
+   * @return indicates whether the storage level persists data on disk
+   */
+  public boolean isPersistent() {
+    return persistent;
+  }
 
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.buffer;
+
+import java.io.InputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Input stream that reads a fixed number of bytes directly from a {@link BufferInput}.
+ * <p>
+ * The stream reports end of stream once {@code length} bytes have been read, so stream consumers that read ahead
+ * never advance the underlying buffer past the end of the region. Closing the stream does not close the underlying
+ * buffer.
+ */
+public class BufferInputStream extends InputStream {
+  private final BufferInput<?> input;
+  private int remaining;
+
+  public BufferInputStream(BufferInput<?> input) {
+    this(input, input.remaining());
+  }
+
+  public BufferInputStream(BufferInput<?> input, int length) {
+    this.input = checkNotNull(input, "input cannot be null");
+    checkArgument(length >= 0, "length cannot be negative");
+    this.remaining = length;
+  }
+
+  @Override
+  public int read() {
+    if (remaining == 0) {
+      return -1;
+    }
+    remaining--;
+    return input.readUnsignedByte();
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) {
+    if (length == 0) {
+      return 0;
+    }
+    if (remaining == 0) {
+      return -1;
+    }
+    int read = Math.min(length, remaining);
+    input.read(bytes, offset, read);
+    remaining -= read;
+    return read;
+  }
+
+  @Override
+  public long skip(long length) {
+    int skipped = (int) Math.min(Math.max(length, 0), remaining);
+    input.skip(skipped);
+    remaining -= skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return remaining;
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.buffer;
+
+import java.io.OutputStream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Output stream that writes directly to a {@link BufferOutput}.
+ * <p>
+ * The stream does not buffer writes. Closing the stream does not close the underlying buffer.
+ */
+public class BufferOutputStream extends OutputStream {
+  private final BufferOutput<?> output;
+
+  public BufferOutputStream(BufferOutput<?> output) {
+    this.output = checkNotNull(output, "output cannot be null");
+  }
+
+  @Override
+  public void write(int b) {
+    output.writeByte(b);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) {
+    output.write(bytes, offset, length);
+  }
+}
@@ -29,4 +29,14 @@ public class BufferPool extends ReferencePool<Buffer> {
     super(factory);
   }
 
+  @Override
+  public void release(Buffer reference) {
+    // Buffers released after the pool is closed are not recycled, so free their memory.
+    if (isClosed()) {
+      reference.bytes().close();
+    } else {
+      super.release(reference);
+    }
+  }
+
 }
@@ -114,9 +114,10 @@ public abstract class ByteBufferBytes extends AbstractBytes {
 
   @Override
   public Bytes read(int position, byte[] bytes, int offset, int length) {
-    for (int i = 0; i < length; i++) {
-      bytes[index(offset) + i] = (byte) readByte(position + i);
-    }
+    // Copy through a duplicate so the bulk get doesn't move the shared buffer's position.
+    ByteBuffer buffer = this.buffer.duplicate();
+    buffer.position(index(position));
+    buffer.get(bytes, offset, length);
     return this;
   }
 
@@ -130,9 +131,9 @@ public abstract class ByteBufferBytes extends AbstractBytes {
 
   @Override
   public Bytes write(int position, byte[] bytes, int offset, int length) {
-    for (int i = 0; i < length; i++) {
-      buffer.put((int) position + i, (byte) bytes[index(offset) + i]);
-    }
+    ByteBuffer buffer = this.buffer.duplicate();
+    buffer.position(index(position));
+    buffer.put(bytes, offset, length);
     return this;
   }
 
@@ -212,18 +212,18 @@ public class FileBytes extends AbstractBytes {
 
   @Override
   public Bytes zero() {
-    try {
-      randomAccessFile.setLength(0);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
-    return this;
+    return zero(0);
   }
 
   @Override
   public Bytes zero(int offset) {
+    // Truncate the file and then extend it back to the size of the bytes so positional reads within the
+    // bounds of the bytes continue to succeed, returning zeros.
     try {
       randomAccessFile.setLength(offset);
+      if (size > offset) {
+        randomAccessFile.setLength(size);
+      }
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -22,7 +22,7 @@ import io.atomix.utils.concurrent.ReferencePool;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-public abstract class PooledAllocator implements BufferAllocator {
+public abstract class PooledAllocator implements BufferAllocator, AutoCloseable {
   private final ReferencePool<AbstractBuffer> pool;
 
   protected PooledAllocator(ReferencePool<AbstractBuffer> pool) {
@@ -48,7 +48,17 @@ public abstract class PooledAllocator implements BufferAllocator {
 
   @Override
   public Buffer allocate(int initialCapacity, int maxCapacity) {
-    return pool.acquire().reset(0, initialCapacity, maxCapacity).clear();
+    // Resetting the buffer clears its reference count, so acquire the reference for the caller afterwards.
+    return pool.acquire().reset(0, initialCapacity, maxCapacity).acquire().clear();
   }
 
+  /**
+   * Closes the allocator, freeing pooled buffers.
+   * <p>
+   * Buffers that are still referenced when the allocator is closed are freed once they're released.
+   */
+  @Override
+  public void close() {
+    pool.close();
+  }
 }
@@ -31,7 +31,8 @@ public class UnsafeHeapBufferPool extends BufferPool {
 
   @Override
   public void release(Buffer reference) {
-    reference.rewind();
+    // Zero released buffers so data from a previous use is never exposed to the next.
+    reference.zero().rewind();
     super.release(reference);
   }
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.journal;
+
+/**
+ * Journal entry checksum verification policy.
+ * <p>
+ * The checksum policy determines when entry checksums are verified. Checksums are always written with entries
+ * regardless of the policy, so the policy for a journal may be changed between restarts.
+ */
+public enum ChecksumPolicy {
+
+  /**
+   * Verifies the checksum of every entry when the journal is recovered and whenever an entry is read.
+   */
+  ALWAYS,
+
+  /**
+   * Verifies entry checksums only when the journal is recovered.
+   * <p>
+   * Recovery scans the tail of each segment to find the last complete entry, discarding any partially written entries.
+   * Entries read after recovery are not verified.
+   */
+  ON_RECOVERY,
+
+  /**
+   * Never verifies entry checksums.
+   * <p>
+   * This policy is suitable for deployments in which the underlying filesystem or storage device detects corruption.
+   * The journal relies on entry lengths alone to find the end of each segment.
+   */
+  NONE
+
+}
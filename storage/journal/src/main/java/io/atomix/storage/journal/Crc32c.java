@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.journal;
+
+import io.atomix.storage.buffer.Buffer;
+import io.atomix.storage.buffer.ByteBufferBytes;
+import io.atomix.storage.buffer.Bytes;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C (Castagnoli) checksum.
+ * <p>
+ * On JDK 9 and later checksums are computed by {@code java.util.zip.CRC32C}, which the JVM implements with hardware
+ * instructions where they're available. On older JDKs checksums are computed by a slicing-by-8 implementation that
+ * produces identical values. Checksums of buffer regions are computed directly over the underlying memory without
+ * first copying the bytes to the heap.
+ */
+final class Crc32c {
+  private static final int POLYNOMIAL = 0x82F63B78;
+  private static final int[] TABLE = createTable();
+
+  private static final MethodHandle NEW_CHECKSUM;
+  private static final MethodHandle UPDATE_BYTE_BUFFER;
+
+  static {
+    MethodHandle newChecksum = null;
+    MethodHandle updateByteBuffer = null;
+    try {
+      Class<?> type = Class.forName("java.util.zip.CRC32C");
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      newChecksum = lookup.findConstructor(type, MethodType.methodType(void.class))
+          .asType(MethodType.methodType(Checksum.class));
+      updateByteBuffer = lookup.findVirtual(Checksum.class, "update", MethodType.methodType(void.class, ByteBuffer.class));
+    } catch (ReflectiveOperationException e) {
+      // CRC32C was added in JDK 9. Fall back to the software implementation.
+    }
+    NEW_CHECKSUM = newChecksum;
+    UPDATE_BYTE_BUFFER = updateByteBuffer;
+  }
+
+  /**
+   * Creates the slicing-by-8 lookup table.
+   */
+  private static int[] createTable() {
+    int[] table = new int[8 * 256];
+    for (int n = 0; n < 256; n++) {
+      int crc = n;
+      for (int k = 0; k < 8; k++) {
+        crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+      }
+      table[n] = crc;
+    }
+    for (int n = 0; n < 256; n++) {
+      int crc = table[n];
+      for (int k = 1; k < 8; k++) {
+        crc = (crc >>> 8) ^ table[crc & 0xff];
+        table[k * 256 + n] = crc;
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Returns a boolean indicating whether checksums are computed by the JDK.
+   *
+   * @return indicates whether checksums are computed by {@code java.util.zip.CRC32C}
+   */
+  static boolean isIntrinsic() {
+    return NEW_CHECKSUM != null;
+  }
+
+  /**
+   * Computes the checksum of the given bytes.
+   *
+   * @param bytes  the bytes for which to compute the checksum
+   * @param offset the offset of the first byte
+   * @param length the number of bytes
+   * @return the unsigned 32-bit checksum
+   */
+  static long checksum(byte[] bytes, int offset, int length) {
+    if (NEW_CHECKSUM != null) {
+      Checksum checksum = newChecksum();
+      checksum.update(bytes, offset, length);
+      return checksum.getValue();
+    }
+    return software(bytes, offset, length);
+  }
+
+  /**
+   * Computes the checksum of a region of the given buffer.
+   * <p>
+   * The buffer's position and limit are not changed.
+   *
+   * @param buffer the buffer for which to compute the checksum
+   * @param offset the offset of the region relative to the buffer's offset
+   * @param length the number of bytes in the region
+   * @return the unsigned 32-bit checksum
+   * @throws BufferUnderflowException if the region extends beyond the end of the buffer's bytes
+   */
+  static long checksum(Buffer buffer, int offset, int length) {
+    Bytes bytes = buffer.bytes();
+    int position = buffer.offset() + offset;
+    if (offset < 0 || length < 0 || position + length > bytes.size()) {
+      throw new BufferUnderflowException();
+    }
+    if (bytes.hasArray()) {
+      return checksum(bytes.array(), position, length);
+    }
+    if (UPDATE_BYTE_BUFFER != null && bytes instanceof ByteBufferBytes) {
+      ByteBuffer view = ((ByteBufferBytes) bytes).byteBuffer().duplicate();
+      view.clear();
+      view.limit(position + length);
+      view.position(position);
+      Checksum checksum = newChecksum();
+      try {
+        UPDATE_BYTE_BUFFER.invokeExact(checksum, view);
+      } catch (Throwable e) {
+        throw new AssertionError(e);
+      }
+      return checksum.getValue();
+    }
+    return software(bytes, position, length);
+  }
+
+  /**
+   * Creates a new JDK checksum.
+   */
+  private static Checksum newChecksum() {
+    try {
+      return (Checksum) NEW_CHECKSUM.invokeExact();
+    } catch (Throwable e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Computes the checksum of the given bytes with the slicing-by-8 implementation.
+   */
+  static long software(byte[] bytes, int offset, int length) {
+    final int[] table = TABLE;
+    int crc = ~0;
+    while (length >= 8) {
+      int low = (bytes[offset] & 0xff
+          | (bytes[offset + 1] & 0xff) << 8
+          | (bytes[offset + 2] & 0xff) << 16
+          | (bytes[offset + 3] & 0xff) << 24) ^ crc;
+      int high = bytes[offset + 4] & 0xff
+          | (bytes[offset + 5] & 0xff) << 8
+          | (bytes[offset + 6] & 0xff) << 16
+          | (bytes[offset + 7] & 0xff) << 24;
+      crc = slice(table, low, high);
+      offset += 8;
+      length -= 8;
+    }
+    while (length-- > 0) {
+      crc = (crc >>> 8) ^ table[(crc ^ bytes[offset++]) & 0xff];
+    }
+    return ~crc & 0xffffffffL;
+  }
+
+  /**
+   * Computes the checksum of a region of the given bytes with the slicing-by-8 implementation.
+   */
+  static long software(Bytes bytes, int offset, int length) {
+    final int[] table = TABLE;
+    final boolean bigEndian = bytes.order() == ByteOrder.BIG_ENDIAN;
+    int crc = ~0;
+    while (length >= 8) {
+      long value = bytes.readLong(offset);
+      if (bigEndian) {
+        value = Long.reverseBytes(value);
+      }
+      crc = slice(table, (int) value ^ crc, (int) (value >>> 32));
+      offset += 8;
+      length -= 8;
+    }
+    while (length-- > 0) {
+      crc = (crc >>> 8) ^ table[(crc ^ bytes.readByte(offset++)) & 0xff];
+    }
+    return ~crc & 0xffffffffL;
+  }
+
+  /**
+   * Folds eight little-endian bytes into the checksum.
+   */
+  private static int slice(int[] table, int low, int high) {
+    return table[7 * 256 + (low & 0xff)]
+        ^ table[6 * 256 + ((low >>> 8) & 0xff)]
+        ^ table[5 * 256 + ((low >>> 16) & 0xff)]
+        ^ table[4 * 256 + (low >>> 24)]
+        ^ table[3 * 256 + (high & 0xff)]
+        ^ table[2 * 256 + ((high >>> 8) & 0xff)]
+        ^ table[256 + ((high >>> 16) & 0xff)]
+        ^ table[high >>> 24];
+  }
+
+  private Crc32c() {
+  }
+}
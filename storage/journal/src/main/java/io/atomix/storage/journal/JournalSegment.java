@@ -16,29 +16,96 @@
 package io.atomix.storage.journal;
 
 import io.atomix.serializer.Serializer;
+import io.atomix.storage.buffer.BitArray;
+import io.atomix.storage.buffer.Buffer;
+import io.atomix.storage.buffer.HeapBuffer;
+import io.atomix.utils.AtomixIOException;
+
+import java.io.IOException;
+import java.nio.file.Files;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Log segment.
+ * <p>
+ * Segments are opened lazily. Only the segment descriptor is read when a segment is loaded, and the segment's
+ * entries are not scanned until the segment's writer or a reader is first requested. This ensures journals with
+ * many segments can be opened without reading every segment from disk.
+ * <p>
+ * Each segment tracks the entries within it that have been released by the journal's consumer in a {@link BitArray}.
+ * Released entries are not persisted and are removed from the segment when it's compacted. Compaction replaces the
+ * segment with a new version, and readers that were opened on the replaced segment continue to read from it until
+ * they move to another segment.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
 public class JournalSegment<E> implements AutoCloseable {
+  private static final int MIN_RELEASES_SIZE = 1024;
+
   protected final JournalSegmentFile file;
   protected final JournalSegmentDescriptor descriptor;
   protected final Serializer serializer;
   protected final SegmentedJournal<E> journal;
-  private final JournalSegmentWriter<E> writer;
-  private boolean open = true;
+  private volatile JournalSegmentWriter<E> writer;
+  private volatile int watermark;
+  private volatile boolean recovered;
+  private volatile boolean open = true;
+  private volatile JournalSegment<E> replacement;
+  private BitArray releases;
+  private long compactedReleases;
+  private boolean compacting;
 
   public JournalSegment(JournalSegmentFile file, JournalSegmentDescriptor descriptor, Serializer serializer, SegmentedJournal<E> journal) {
     this.file = file;
     this.descriptor = descriptor;
     this.serializer = serializer;
     this.journal = journal;
-    this.writer = new JournalSegmentWriter<>(journal, descriptor, serializer);
+  }
+
+  /**
+   * Returns the segment writer, opening the writer if necessary.
+   * <p>
+   * Opening the writer scans the segment to find the last entry. If a later segment exists, entries in this segment
+   * that overlap the later segment's first index are discarded.
+   */
+  private JournalSegmentWriter<E> openWriter() {
+    JournalSegmentWriter<E> writer = this.writer;
+    if (writer == null) {
+      synchronized (this) {
+        writer = this.writer;
+        if (writer == null) {
+          JournalSegment<E> nextSegment = journal.getNextSegment(index());
+          long maxIndex = nextSegment != null ? nextSegment.index() - 1 : 0;
+          writer = new JournalSegmentWriter<>(this, serializer, maxIndex);
+          this.writer = writer;
+          recovered = true;
+        }
+      }
+    }
+    return writer;
+  }
+
+  /**
+   * Publishes the segment's entries to readers without opening the writer.
+   * <p>
+   * Readers may run concurrently with the journal writer, so they never open the segment writer, which repairs the
+   * segment. Instead, the segment is scanned read-only and the watermark is set to the end of the entries the writer
+   * would recover. Partially written and superseded entries that follow the watermark are left for the writer to
+   * discard when it's opened.
+   */
+  private void recover() {
+    if (!recovered) {
+      synchronized (this) {
+        if (!recovered && open) {
+          JournalSegment<E> nextSegment = journal.getNextSegment(index());
+          long maxIndex = nextSegment != null ? nextSegment.index() - 1 : 0;
+          watermark = JournalSegmentWriter.scan(this, serializer, maxIndex);
+          recovered = true;
+        }
+      }
+    }
   }
 
   /**
@@ -74,7 +141,37 @@ public class JournalSegment<E> implements AutoCloseable {
    * @return The last index in the segment.
    */
   public long lastIndex() {
-    return writer.getLastIndex();
+    return openWriter().getLastIndex();
+  }
+
+  /**
+   * Returns the journal to which the segment belongs.
+   *
+   * @return The journal to which the segment belongs.
+   */
+  SegmentedJournal<E> journal() {
+    return journal;
+  }
+
+  /**
+   * Returns the segment watermark.
+   * <p>
+   * The watermark is the position in the segment buffer following the last entry that has been completely written.
+   * Entries before the watermark may be read safely from any thread.
+   *
+   * @return The position following the last complete entry in the segment.
+   */
+  int watermark() {
+    return watermark;
+  }
+
+  /**
+   * Sets the segment watermark, publishing all entries written before the given position to readers.
+   *
+   * @param position The position following the last complete entry in the segment.
+   */
+  void watermark(int position) {
+    this.watermark = position;
   }
 
   /**
@@ -101,7 +198,7 @@ public class JournalSegment<E> implements AutoCloseable {
    * @return The segment size.
    */
   public long size() {
-    return writer.size();
+    return openWriter().size();
   }
 
   /**
@@ -119,7 +216,7 @@ public class JournalSegment<E> implements AutoCloseable {
    * @return Indicates whether the segment is full.
    */
   public boolean isFull() {
-    return writer.isFull();
+    return openWriter().isFull();
   }
 
   /**
@@ -128,7 +225,7 @@ public class JournalSegment<E> implements AutoCloseable {
    * @return The segment length.
    */
   public long length() {
-    return writer.getNextIndex() - index();
+    return openWriter().getNextIndex() - index();
   }
 
   /**
@@ -138,17 +235,135 @@ public class JournalSegment<E> implements AutoCloseable {
    */
   public JournalSegmentWriter<E> writer() {
     checkOpen();
-    return writer;
+    return openWriter();
   }
 
   /**
    * Creates a new segment reader.
+   * <p>
+   * Readers may race with rollover, compaction, and truncation of the journal, so this never fails if the segment
+   * has been closed. If the segment was replaced by a compacted segment, the reader reads the compacted segment.
+   * Otherwise, the segment was removed from the journal and the reader is empty, so journal readers move on to the
+   * next segment or are reset.
    *
    * @return A new segment reader.
    */
   JournalSegmentReader<E> createReader() {
-    checkOpen();
-    return new JournalSegmentReader<>(journal, descriptor, serializer);
+    Buffer buffer = openBuffer();
+    if (buffer == null) {
+      // The replacement is set before the segment is closed, so it's visible once the segment is closed.
+      JournalSegment<E> replacement = this.replacement;
+      if (replacement != null) {
+        return replacement.createReader();
+      }
+      buffer = HeapBuffer.allocate(Integer.BYTES, Integer.BYTES);
+    }
+    return new JournalSegmentReader<>(this, buffer, serializer);
+  }
+
+  /**
+   * Opens a new view of the segment buffer following the segment descriptor.
+   * <p>
+   * The view holds a reference to the segment buffer, so it remains readable until the view is closed even if the
+   * segment is closed in the meantime. Only entries preceding the segment watermark may be read from the view.
+   *
+   * @return a new view of the segment buffer or {@code null} if the segment is closed
+   */
+  Buffer openBuffer() {
+    recover();
+    synchronized (this) {
+      return open ? descriptor.buffer().slice() : null;
+    }
+  }
+
+  /**
+   * Releases the entry at the given index, allowing it to be removed from the segment by compaction.
+   *
+   * @param index the index of the entry to release
+   * @return indicates whether the entry was newly released
+   */
+  synchronized boolean release(long index) {
+    long offset = index - index();
+    if (offset < 0 || !open) {
+      return false;
+    }
+    if (releases == null) {
+      releases = BitArray.allocate(MIN_RELEASES_SIZE);
+    }
+    while (offset >= releases.size()) {
+      releases.resize(releases.size() * 2);
+    }
+    return releases.set(offset);
+  }
+
+  /**
+   * Returns a boolean indicating whether the entry at the given index has been released.
+   *
+   * @param index the index of the entry to check
+   * @return indicates whether the entry at the given index has been released
+   */
+  synchronized boolean isReleased(long index) {
+    long offset = index - index();
+    return releases != null && offset >= 0 && offset < releases.size() && releases.get(offset);
+  }
+
+  /**
+   * Returns the number of released entries that have not yet been removed from the segment by compaction.
+   *
+   * @return the number of released entries that have not yet been compacted
+   */
+  synchronized long releaseCount() {
+    return releases != null ? releases.count() - compactedReleases : 0;
+  }
+
+  /**
+   * Returns a copy of the segment's releases.
+   *
+   * @return a copy of the segment's releases or {@code null} if no entries have been released
+   */
+  synchronized BitArray copyReleases() {
+    return releases != null ? releases.copy() : null;
+  }
+
+  /**
+   * Marks the segment as being compacted.
+   *
+   * @return indicates whether the segment was not already being compacted
+   */
+  synchronized boolean startCompaction() {
+    if (compacting || !open) {
+      return false;
+    }
+    compacting = true;
+    return true;
+  }
+
+  /**
+   * Marks the segment compaction as complete.
+   */
+  synchronized void completeCompaction() {
+    compacting = false;
+  }
+
+  /**
+   * Replaces this segment with the given compacted segment.
+   * <p>
+   * Releases of entries in this segment are carried over to the compacted segment. This segment is closed and
+   * deleted, but its buffer remains readable by readers that were opened on the segment until they are closed.
+   *
+   * @param segment the compacted segment
+   * @param compactedReleases the number of released entries that were removed from the compacted segment
+   */
+  synchronized void replace(JournalSegment<E> segment, long compactedReleases) {
+    if (releases != null) {
+      synchronized (segment) {
+        segment.releases = releases.copy();
+        segment.compactedReleases = compactedReleases;
+      }
+    }
+    replacement = segment;
+    close();
+    delete();
   }
 
   /**
@@ -171,17 +386,35 @@ public class JournalSegment<E> implements AutoCloseable {
    * Closes the segment.
    */
   @Override
-  public void close() {
-    writer.close();
+  public synchronized void close() {
+    if (!open) {
+      return;
+    }
+    if (writer != null) {
+      writer.close();
+    }
     descriptor.close();
+    if (releases != null) {
+      releases.close();
+      releases = null;
+    }
     open = false;
   }
 
   /**
    * Deletes the segment.
+   * <p>
+   * The segment file is unlinked without closing the segment buffer, so readers that still reference the closed
+   * segment may continue reading it until they're closed.
    */
   public void delete() {
-    writer.delete();
+    if (journal.storageLevel().isPersistent()) {
+      try {
+        Files.deleteIfExists(file.file().toPath());
+      } catch (IOException e) {
+        throw new AtomixIOException(e);
+      }
+    }
   }
 
   @Override
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.journal;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.atomix.storage.buffer.BitArray;
+import io.atomix.storage.buffer.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Journal segment compactor.
+ * <p>
+ * The compactor rewrites segments in which enough entries have been released on a background thread. Live entries
+ * are copied to a new version of the segment without being deserialized, and each run of released entries is
+ * replaced by a single marker so entry indexes are preserved. The new version is only loaded once its descriptor
+ * has been written, which happens after all of its entries have been written and flushed. Once written, the new
+ * version replaces the original segment in the journal.
+ * <p>
+ * Compaction I/O is rate limited so compaction doesn't compete with the journal writer for disk bandwidth.
+ */
+final class JournalSegmentCompactor<E> implements AutoCloseable {
+  private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final SegmentedJournal<E> journal;
+  private final double threshold;
+  private final RateLimiter rateLimiter;
+  private final ExecutorService executor;
+
+  JournalSegmentCompactor(SegmentedJournal<E> journal, double threshold, int maxBytesPerSecond) {
+    this.journal = journal;
+    this.threshold = threshold;
+    this.rateLimiter = RateLimiter.create(maxBytesPerSecond);
+    this.executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("atomix-journal-compactor-%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  /**
+   * Returns a boolean indicating whether enough entries have been released to compact the given segment.
+   *
+   * @param segment the segment to check
+   * @return indicates whether the segment should be compacted
+   */
+  boolean isCompactable(JournalSegment<E> segment) {
+    long releaseCount = segment.releaseCount();
+    return releaseCount > 0 && releaseCount >= segment.length() * threshold;
+  }
+
+  /**
+   * Compacts the given segment in the background if enough of its entries have been released.
+   *
+   * @param segment the segment to compact
+   */
+  void compact(JournalSegment<E> segment) {
+    if (!segment.isOpen() || !isCompactable(segment) || !segment.startCompaction()) {
+      return;
+    }
+
+    try {
+      executor.execute(() -> {
+        try {
+          compactSegment(segment);
+        } catch (RuntimeException e) {
+          log.warn("Failed to compact segment {}", segment, e);
+        } finally {
+          segment.completeCompaction();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      segment.completeCompaction();
+    }
+  }
+
+  /**
+   * Rewrites the given segment without its released entries and replaces the segment in the journal.
+   */
+  private void compactSegment(JournalSegment<E> segment) {
+    // Read the reset count before reading the segment. If the journal is truncated or reset while the segment is
+    // being compacted, the compacted segment is discarded.
+    final int resets = journal.resets();
+
+    // Copy the releases before reading the segment. Entries released later are carried over to the new segment.
+    final BitArray releases = segment.copyReleases();
+    final Buffer source = segment.openBuffer();
+    if (releases == null || source == null) {
+      return;
+    }
+
+    final JournalSegmentDescriptor descriptor = segment.descriptor();
+    final int version = descriptor.version() + 1;
+    final File file = JournalSegmentFile.createSegmentFile(journal.name(), journal.directory(), descriptor.id(), version);
+    final int watermark = segment.watermark();
+
+    log.debug("Compacting segment {}: {} of {} entries released", segment, releases.count(), segment.length());
+
+    Buffer target = null;
+    boolean replaced = false;
+    try {
+      target = journal.allocateSegmentBuffer(file, JournalSegmentDescriptor.BYTES + watermark);
+      target.position(JournalSegmentDescriptor.BYTES);
+
+      long index = descriptor.index();
+      int position = 0;
+      int skipped = 0;
+      byte[] bytes = new byte[1024];
+      while (position + Integer.BYTES <= watermark) {
+        final int length = source.readInt(position);
+
+        // If the length is zero, the end of the segment has been reached.
+        if (length == 0) {
+          break;
+        }
+
+        // If the length is negative, the entries were removed by a prior compaction.
+        if (length < 0) {
+          skipped -= length;
+          index -= length;
+          position += Integer.BYTES;
+          continue;
+        }
+
+        final int size = HEADER_BYTES + length;
+        if (position + size > watermark) {
+          break;
+        }
+
+        // Skip released entries, and copy the header and bytes of live entries as they're stored in the segment.
+        final long offset = index - descriptor.index();
+        if (offset < releases.size() && releases.get(offset)) {
+          skipped++;
+        } else {
+          if (skipped > 0) {
+            target.writeInt(-skipped);
+            skipped = 0;
+          }
+          rateLimiter.acquire(size);
+          if (bytes.length < size) {
+            bytes = new byte[size];
+          }
+          source.read(position, bytes, 0, size);
+          target.write(bytes, 0, size);
+        }
+        index++;
+        position += size;
+      }
+
+      if (skipped > 0) {
+        target.writeInt(-skipped);
+      }
+
+      // Pooled memory buffers may contain stale entries following the compacted entries.
+      if (!journal.storageLevel().isPersistent() && target.position() < target.capacity()) {
+        target.zero(target.position());
+      }
+      target.flush();
+      final int compactedSize = target.position();
+
+      // Write the descriptor once the entries have been written. Until then, the segment is not loaded.
+      JournalSegmentDescriptor compactedDescriptor = JournalSegmentDescriptor.newBuilder()
+          .withVersion(version)
+          .withId(descriptor.id())
+          .withIndex(descriptor.index())
+          .withMaxSegmentSize(descriptor.maxSegmentSize())
+          .withMaxEntries(descriptor.maxEntries())
+          .withChecksum(descriptor.checksum())
+          .build()
+          .copyTo(target.rewind());
+
+      JournalSegment<E> compactedSegment = journal.newSegment(new JournalSegmentFile(file), compactedDescriptor);
+      replaced = journal.replaceSegment(segment, compactedSegment, resets, releases.count());
+      if (replaced) {
+        log.debug("Compacted segment {} from {} to {} bytes", compactedSegment, watermark, compactedSize - JournalSegmentDescriptor.BYTES);
+      } else {
+        log.debug("Discarding compacted segment {}", compactedSegment);
+        compactedSegment.close();
+        compactedSegment.delete();
+      }
+    } finally {
+      source.close();
+      releases.close();
+      if (!replaced && target != null && target.references() > 0) {
+        target.close();
+        if (journal.storageLevel().isPersistent()) {
+          file.delete();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
@@ -49,6 +49,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * <li>{@code locked} (8-bit boolean) - A boolean indicating whether the segment is locked. Segments will be locked once
  * all entries have been committed to the segment. The lock state of each segment is used to determine log compaction
  * and recovery behavior.</li>
+ * <li>{@code checksum} (8-bit signed integer) - The algorithm with which entry checksums in the segment are computed.
+ * Segments written before CRC32C checksums were introduced have a {@code 0} checksum type and use CRC32.</li>
  * </ul>
  * The remainder of the 64 segment header bytes are reserved for future metadata.
  *
@@ -61,6 +63,10 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
   @VisibleForTesting
   static final int VERSION = 1;
 
+  // Entry checksum algorithms.
+  static final byte CHECKSUM_CRC32 = 0;
+  static final byte CHECKSUM_CRC32C = 1;
+
   // The lengths of each field in the header.
   private static final int VERSION_LENGTH = Bytes.INTEGER;     // 32-bit signed integer
   private static final int ID_LENGTH = Bytes.LONG;             // 64-bit signed integer
@@ -68,6 +74,7 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
   private static final int MAX_SIZE_LENGTH = Bytes.INTEGER;    // 32-bit signed integer
   private static final int MAX_ENTRIES_LENGTH = Bytes.INTEGER; // 32-bit signed integer
   private static final int UPDATED_LENGTH = Bytes.LONG;        // 64-bit signed integer
+  private static final int LOCKED_LENGTH = Bytes.BOOLEAN;      // 8-bit boolean
 
   // The positions of each field in the header.
   private static final int VERSION_POSITION = 0;                                         // 0
@@ -76,6 +83,8 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
   private static final int MAX_SIZE_POSITION = INDEX_POSITION + INDEX_LENGTH;            // 20
   private static final int MAX_ENTRIES_POSITION = MAX_SIZE_POSITION + MAX_SIZE_LENGTH;   // 24
   private static final int UPDATED_POSITION = MAX_ENTRIES_POSITION + MAX_ENTRIES_LENGTH; // 28
+  private static final int LOCKED_POSITION = UPDATED_POSITION + UPDATED_LENGTH;          // 36
+  private static final int CHECKSUM_POSITION = LOCKED_POSITION + LOCKED_LENGTH;          // 37
 
   /**
    * Returns a descriptor builder.
@@ -107,6 +116,7 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
   private final int maxEntries;
   private volatile long updated;
   private volatile boolean locked;
+  private final byte checksum;
 
   /**
    * @throws NullPointerException if {@code buffer} is null
@@ -120,6 +130,7 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
     this.maxEntries = buffer.readInt();
     this.updated = buffer.readLong();
     this.locked = buffer.readBoolean();
+    this.checksum = (byte) buffer.readByte();
     buffer.skip(BYTES - buffer.position()); // 64 bytes reserved for the header
   }
 
@@ -198,6 +209,15 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
     return updated;
   }
 
+  /**
+   * Returns the algorithm with which entry checksums in the segment are computed.
+   *
+   * @return the segment checksum algorithm
+   */
+  byte checksum() {
+    return checksum;
+  }
+
   /**
    * Writes an update to the descriptor.
    */
@@ -220,14 +240,20 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
         .writeInt(maxEntries)
         .writeLong(updated)
         .writeBoolean(locked)
+        .writeByte(checksum)
         .skip(BYTES - buffer.position())
         .flush();
     return this;
   }
 
+  /**
+   * Releases the descriptor's reference to the segment buffer.
+   * <p>
+   * The buffer is closed once the segment's writer and all readers have released their references to it.
+   */
   @Override
   public void close() {
-    buffer.close();
+    buffer.release();
   }
 
   /**
@@ -259,7 +285,33 @@ public final class JournalSegmentDescriptor implements AutoCloseable {
 
     private Builder(Buffer buffer) {
       this.buffer = checkNotNull(buffer, "buffer cannot be null")
-          .writeInt(VERSION_POSITION, VERSION);
+          .writeInt(VERSION_POSITION, VERSION)
+          .writeByte(CHECKSUM_POSITION, CHECKSUM_CRC32C);
+    }
+
+    /**
+     * Sets the segment version.
+     * <p>
+     * Compacted segments are written with a higher version than the segment they replace. When multiple versions of
+     * a segment exist, the segment with the highest version is loaded.
+     *
+     * @param version The segment version.
+     * @return The segment descriptor builder.
+     */
+    public Builder withVersion(int version) {
+      buffer.writeInt(VERSION_POSITION, version);
+      return this;
+    }
+
+    /**
+     * Sets the algorithm with which entry checksums in the segment are computed.
+     *
+     * @param checksum The entry checksum algorithm.
+     * @return The segment descriptor builder.
+     */
+    Builder withChecksum(byte checksum) {
+      buffer.writeByte(CHECKSUM_POSITION, checksum);
+      return this;
     }
 
     /**
@@ -28,6 +28,7 @@ public final class JournalSegmentFile {
   private static final char PART_SEPARATOR = '-';
   private static final char EXTENSION_SEPARATOR = '.';
   private static final String EXTENSION = "log";
+  private static final String PREALLOCATED_EXTENSION = "prealloc";
   private final File file;
 
   /**
@@ -67,6 +68,36 @@ public final class JournalSegmentFile {
     return new File(directory, String.format("%s-%d-%d.log", checkNotNull(name, "name cannot be null"), id, version));
   }
 
+  /**
+   * Returns a boolean value indicating whether the given file is a segment file that was preallocated for the given
+   * log but never created.
+   *
+   * @throws NullPointerException if {@code file} is null
+   */
+  static boolean isPreallocatedFile(String name, File file) {
+    checkNotNull(name, "name cannot be null");
+    checkNotNull(file, "file cannot be null");
+    String fileName = file.getName();
+    String prefix = name + PART_SEPARATOR;
+    String suffix = EXTENSION_SEPARATOR + PREALLOCATED_EXTENSION;
+    if (!fileName.startsWith(prefix) || !fileName.endsWith(suffix) || fileName.length() == prefix.length() + suffix.length())
+      return false;
+
+    for (int i = prefix.length(); i < fileName.length() - suffix.length(); i++) {
+      if (!Character.isDigit(fileName.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates the file in which a segment is preallocated for the given directory, log name, and segment ID.
+   */
+  static File createPreallocatedFile(String name, File directory, long id) {
+    return new File(directory, String.format("%s-%d.%s", checkNotNull(name, "name cannot be null"), id, PREALLOCATED_EXTENSION));
+  }
+
   /**
    * @throws IllegalArgumentException if {@code file} is not a valid segment file
    */
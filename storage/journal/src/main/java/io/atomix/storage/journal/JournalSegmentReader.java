@@ -17,32 +17,63 @@ package io.atomix.storage.journal;
 
 import io.atomix.serializer.Serializer;
 import io.atomix.storage.buffer.Buffer;
+import io.atomix.storage.buffer.FileBuffer;
 import io.atomix.storage.buffer.HeapBuffer;
+import io.atomix.storage.buffer.SlicedBuffer;
 
 import java.nio.BufferUnderflowException;
 import java.util.NoSuchElementException;
 import java.util.zip.CRC32;
-import java.util.zip.Checksum;
 
 /**
  * Log segment reader.
+ * <p>
+ * Segment readers may be used on a thread other than the segment writer's thread. Readers only read entries that
+ * have been published by the writer through the segment's watermark. If entries are truncated while they're being
+ * read, the reader discards them and the read is retried once the reader has been reset.
+ * <p>
+ * Entries that have been removed from the segment by compaction are skipped, so the indexes of the entries returned
+ * by a reader of a compacted segment may not be sequential.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
 public class JournalSegmentReader<E> implements JournalReader<E> {
+  private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES;
+
+  private final JournalSegment<E> segment;
   private final SegmentedJournal<E> journal;
+  private final JournalSegmentDescriptor descriptor;
   private final Buffer buffer;
   private final Serializer serializer;
   private final HeapBuffer memory = HeapBuffer.allocate();
   private final long firstIndex;
+  private final boolean staged;
+  private final boolean verify;
   private Indexed<E> currentEntry;
   private Indexed<E> nextEntry;
+  private long readIndex;
+
+  public JournalSegmentReader(JournalSegment<E> segment, Serializer serializer) {
+    this(segment, segment.descriptor().buffer().slice(), serializer);
+  }
 
-  public JournalSegmentReader(SegmentedJournal<E> journal, JournalSegmentDescriptor descriptor, Serializer serializer) {
-    this.journal = journal;
-    this.buffer = descriptor.buffer().slice();
+  /**
+   * Creates a reader of the given view of the segment buffer.
+   *
+   * @param segment the segment to read
+   * @param buffer a view of the segment buffer following the segment descriptor, which is closed with the reader
+   * @param serializer the entry serializer
+   */
+  JournalSegmentReader(JournalSegment<E> segment, Buffer buffer, Serializer serializer) {
+    this.segment = segment;
+    this.journal = segment.journal();
+    this.descriptor = segment.descriptor();
+    this.buffer = buffer;
     this.serializer = serializer;
     this.firstIndex = descriptor.index();
+    this.readIndex = firstIndex;
+    this.staged = (buffer instanceof SlicedBuffer ? ((SlicedBuffer) buffer).root() : buffer) instanceof FileBuffer;
+    this.verify = journal.checksumPolicy() == ChecksumPolicy.ALWAYS;
     readNext();
   }
 
@@ -67,7 +98,7 @@ public class JournalSegmentReader<E> implements JournalReader<E> {
 
   @Override
   public long getNextIndex() {
-    return currentEntry != null ? currentEntry.index() + 1 : firstIndex;
+    return nextEntry != null ? nextEntry.index() : readIndex;
   }
 
   @Override
@@ -83,6 +114,7 @@ public class JournalSegmentReader<E> implements JournalReader<E> {
     buffer.clear();
     currentEntry = null;
     nextEntry = null;
+    readIndex = firstIndex;
     readNext();
   }
 
@@ -119,46 +151,102 @@ public class JournalSegmentReader<E> implements JournalReader<E> {
    */
   @SuppressWarnings("unchecked")
   private void readNext() {
-    // Compute the index of the next entry in the segment.
-    final long index = getNextIndex();
+    // Read the reset count before the watermark. If readers are reset while the entry is being read, the entry may
+    // have been truncated and is discarded.
+    final int resets = journal.resets();
+    final int watermark = segment.watermark();
 
     // Mark the buffer so it can be reset if necessary.
     buffer.mark();
 
     try {
-      // Read the length of the entry.
-      final int length = buffer.readInt();
+      // Skip any entries that were removed from the segment by compaction.
+      int position = buffer.position();
+      int length = position + Integer.BYTES <= watermark ? buffer.readInt() : 0;
+      while (length < 0) {
+        readIndex -= length;
+        position = buffer.mark().position();
+        length = position + Integer.BYTES <= watermark ? buffer.readInt() : 0;
+      }
 
-      // If the buffer length is zero then return.
-      if (length == 0) {
+      // Compute the index of the next entry in the segment.
+      final long index = readIndex;
+
+      // If the buffer length is zero or the entry has not been completely published by the writer then return.
+      if (length == 0 || length > watermark - position - HEADER_BYTES) {
         buffer.reset();
         nextEntry = null;
         return;
       }
 
       // Read the checksum of the entry.
-      long checksum = buffer.readUnsignedInt();
-
-      // Read the entry into memory.
-      buffer.read(memory.clear().limit(length));
-      memory.flip();
-
-      // Compute the checksum for the entry bytes.
-      final Checksum crc32 = new CRC32();
-      crc32.update(memory.array(), 0, length);
+      final long checksum = buffer.readUnsignedInt();
+      final int offset = buffer.position();
 
-      // If the stored checksum equals the computed checksum, return the entry.
-      if (checksum == crc32.getValue()) {
-        E entry = serializer.decode(memory.array());
-        nextEntry = new Indexed<>(index, entry, length);
+      // File buffers issue a system call for every read, so read the entry into memory before checksumming it.
+      // Other buffers are checksummed and decoded in place.
+      final E entry;
+      if (staged) {
+        buffer.read(memory.clear().limit(length));
+        if (verify && checksum != checksum(memory.array(), length)) {
+          buffer.reset();
+          nextEntry = null;
+          return;
+        }
+        entry = serializer.decode(memory.array());
       } else {
+        if (verify && checksum != checksum(offset, length)) {
+          buffer.reset();
+          nextEntry = null;
+          return;
+        }
+        entry = serializer.decode(buffer, length);
+        buffer.position(offset + length);
+      }
+
+      // If readers were reset while the entry was read, the entry may have been truncated.
+      if (journal.resets() != resets) {
         buffer.reset();
         nextEntry = null;
+        return;
       }
+      nextEntry = new Indexed<>(index, entry, length);
+      readIndex = index + 1;
     } catch (BufferUnderflowException e) {
       buffer.reset();
       nextEntry = null;
+    } catch (RuntimeException e) {
+      // Entries that were truncated while they were read may fail to deserialize.
+      if (journal.resets() == resets) {
+        throw e;
+      }
+      buffer.reset();
+      nextEntry = null;
+    }
+  }
+
+  /**
+   * Computes the checksum of an entry in the segment.
+   */
+  private long checksum(int offset, int length) {
+    if (descriptor.checksum() == JournalSegmentDescriptor.CHECKSUM_CRC32C) {
+      return Crc32c.checksum(buffer, offset, length);
+    }
+    memory.clear().limit(length);
+    buffer.read(offset, memory.array(), 0, length);
+    return checksum(memory.array(), length);
+  }
+
+  /**
+   * Computes the checksum of an entry in memory.
+   */
+  private long checksum(byte[] bytes, int length) {
+    if (descriptor.checksum() == JournalSegmentDescriptor.CHECKSUM_CRC32C) {
+      return Crc32c.checksum(bytes, 0, length);
     }
+    final CRC32 crc32 = new CRC32();
+    crc32.update(bytes, 0, length);
+    return crc32.getValue();
   }
 
   @Override
@@ -22,8 +22,8 @@ import io.atomix.storage.buffer.HeapBuffer;
 import io.atomix.storage.buffer.MappedBuffer;
 import io.atomix.storage.buffer.SlicedBuffer;
 
+import java.nio.BufferUnderflowException;
 import java.util.zip.CRC32;
-import java.util.zip.Checksum;
 
 /**
  * Segment writer.
@@ -37,33 +37,106 @@ import java.util.zip.Checksum;
  * <li>8-bit signed entry type ID</li>
  * <li>n-bit entry bytes</li>
  * </ul>
+ * <p>
+ * Entries removed from a segment by compaction are replaced by a negative 32-bit length, the absolute value of which
+ * is the number of consecutive entries that were removed. Indexes are not reused, so removed entries leave gaps in
+ * the segment's indexes.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
 public class JournalSegmentWriter<E> implements JournalWriter<E> {
+  private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES;
+
+  private final JournalSegment<E> segment;
   private final SegmentedJournal<E> journal;
   private final JournalSegmentDescriptor descriptor;
   private final Buffer buffer;
   private final Serializer serializer;
   private final HeapBuffer memory = HeapBuffer.allocate();
   private final long firstIndex;
+  private final boolean staged;
+  private final boolean verify;
   private Indexed<E> lastEntry;
+  private long nextIndex;
+  private boolean open = true;
+
+  public JournalSegmentWriter(JournalSegment<E> segment, Serializer serializer) {
+    this(segment, serializer, 0);
+  }
+
+  /**
+   * Opens a writer for the given segment.
+   *
+   * @param segment the segment to which to write
+   * @param serializer the entry serializer
+   * @param maxIndex the last index the segment may contain, or {@code 0} if the segment is not bounded by a later
+   *     segment. Entries following the given index are superseded by the later segment and are discarded.
+   */
+  public JournalSegmentWriter(JournalSegment<E> segment, Serializer serializer, long maxIndex) {
+    this(segment, serializer, maxIndex, true);
+  }
 
-  public JournalSegmentWriter(SegmentedJournal<E> journal, JournalSegmentDescriptor descriptor, Serializer serializer) {
-    this.journal = journal;
-    this.descriptor = descriptor;
+  private JournalSegmentWriter(JournalSegment<E> segment, Serializer serializer, long maxIndex, boolean repair) {
+    this.segment = segment;
+    this.journal = segment.journal();
+    this.descriptor = segment.descriptor();
     this.buffer = descriptor.buffer().slice();
     this.serializer = serializer;
     this.firstIndex = descriptor.index();
-    reset(0);
+    this.staged = root() instanceof FileBuffer;
+    this.verify = journal.checksumPolicy() != ChecksumPolicy.NONE;
+    reset(maxIndex, repair);
+    if (!repair) {
+      return;
+    }
+
+    // If entries follow the last index, they overlap a later segment, so discard them.
+    if (maxIndex > 0 && buffer.position() < buffer.capacity() && getNextIndex() > maxIndex) {
+      buffer.mark();
+      boolean overlapping = buffer.readInt() != 0;
+      buffer.reset();
+      if (overlapping) {
+        buffer.zero(buffer.position());
+      }
+    }
+
+    // Publish the recovered entries to readers.
+    segment.watermark(buffer.position());
+  }
+
+  /**
+   * Scans the given segment without modifying it.
+   * <p>
+   * The scan stops at the same entry as the writer would, but partially written and superseded entries are left in
+   * place for the writer to discard when it's opened.
+   *
+   * @param segment the segment to scan
+   * @param serializer the entry serializer
+   * @param maxIndex the last index the segment may contain, or {@code 0} if the segment is not bounded by a later
+   *     segment
+   * @return the position following the last complete entry in the segment
+   */
+  static <E> int scan(JournalSegment<E> segment, Serializer serializer, long maxIndex) {
+    JournalSegmentWriter<E> writer = new JournalSegmentWriter<>(segment, serializer, maxIndex, false);
+    try {
+      return writer.buffer.position();
+    } finally {
+      writer.memory.close();
+      writer.close();
+    }
   }
 
   /**
    * Initializes the writer by seeking to the end of the segment.
+   * <p>
+   * Entries are scanned by their lengths and checksums alone. Only the last entry in the segment is deserialized,
+   * and only if the segment is being repaired.
    */
-  @SuppressWarnings("unchecked")
-  private void reset(long index) {
+  private void reset(long index, boolean repair) {
     long nextIndex = firstIndex;
+    long lastIndex = 0;
+    int lastOffset = -1;
+    int lastLength = 0;
 
     // Clear the buffer indexes.
     buffer.clear();
@@ -71,40 +144,117 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
     // Read the entry length.
     int length = buffer.mark().readInt();
 
-    // If the length is non-zero, read the entry.
-    while (length > 0 && (index == 0 || nextIndex <= index)) {
+    // If the length is non-zero, skip the entry.
+    boolean corrupt = false;
+    try {
+      while (length != 0 && (index == 0 || nextIndex <= index)) {
+
+        // If the length is negative, skip the entries removed by compaction.
+        if (length < 0) {
+          // If the removed entries extend beyond the given index, shorten them to end at the index.
+          if (index > 0 && nextIndex - length > index + 1) {
+            if (!repair) {
+              break;
+            }
+            length = (int) (nextIndex - index - 1);
+            buffer.writeInt(buffer.position() - Integer.BYTES, length);
+          }
+          nextIndex -= length;
+          length = buffer.mark().readInt();
+          continue;
+        }
+
+        // Read the checksum of the entry.
+        final long checksum = buffer.readUnsignedInt();
+        final int offset = buffer.position();
+
+        // If the stored checksum equals the computed checksum, skip to the next entry.
+        if (staged && verify) {
+          buffer.read(memory.clear().limit(length));
+          if (checksum != checksum(memory.array(), 0, length)) {
+            corrupt = true;
+            break;
+          }
+        } else {
+          if (verify && checksum != checksum(offset, length)) {
+            corrupt = true;
+            break;
+          }
+          if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+          }
+          buffer.position(offset + length);
+        }
+        lastOffset = offset;
+        lastLength = length;
+        lastIndex = nextIndex;
+        nextIndex++;
 
-      // Read the checksum of the entry.
-      final long checksum = buffer.readUnsignedInt();
+        // Read the next entry length.
+        length = buffer.mark().readInt();
+      }
+    } catch (BufferUnderflowException e) {
+      corrupt = true;
+    }
 
-      // Read the entry into memory.
-      buffer.read(memory.clear().limit(length));
-      memory.flip();
+    // Reset the buffer to the previous mark.
+    buffer.reset();
 
-      // Compute the checksum for the entry bytes.
-      final Checksum crc32 = new CRC32();
-      crc32.update(memory.array(), 0, length);
+    // Zero any partially written entry so readers that don't verify checksums never see it.
+    if (repair && corrupt && buffer.position() < buffer.capacity()) {
+      buffer.zero(buffer.position());
+    }
 
-      // If the stored checksum equals the computed checksum, return the entry.
-      if (checksum == crc32.getValue()) {
-        final E entry = serializer.decode(memory.array());
-        lastEntry = new Indexed<>(nextIndex, entry, length);
-        nextIndex++;
-      } else {
-        break;
-      }
+    // Deserialize the last entry in the segment.
+    lastEntry = repair && lastOffset >= 0 ? new Indexed<>(lastIndex, decode(lastOffset, lastLength), lastLength) : null;
+    this.nextIndex = nextIndex;
+  }
 
-      // Read the next entry length.
-      length = buffer.mark().readInt();
+  /**
+   * Deserializes the entry at the given offset without changing the buffer position.
+   */
+  private E decode(int offset, int length) {
+    if (staged) {
+      memory.clear().limit(length);
+      buffer.read(offset, memory.array(), 0, length);
+      return serializer.decode(memory.array());
+    }
+    final int position = buffer.position();
+    buffer.position(offset);
+    try {
+      return serializer.decode(buffer, length);
+    } finally {
+      buffer.position(position);
     }
+  }
 
-    // Reset the buffer to the previous mark.
-    buffer.reset();
+  /**
+   * Computes the checksum of an entry in the segment.
+   */
+  private long checksum(int offset, int length) {
+    if (descriptor.checksum() == JournalSegmentDescriptor.CHECKSUM_CRC32C) {
+      return Crc32c.checksum(buffer, offset, length);
+    }
+    memory.clear().limit(length);
+    buffer.read(offset, memory.array(), 0, length);
+    return checksum(memory.array(), 0, length);
+  }
+
+  /**
+   * Computes the checksum of an entry in memory.
+   */
+  private long checksum(byte[] bytes, int offset, int length) {
+    if (descriptor.checksum() == JournalSegmentDescriptor.CHECKSUM_CRC32C) {
+      return Crc32c.checksum(bytes, offset, length);
+    }
+    final CRC32 crc32 = new CRC32();
+    crc32.update(bytes, offset, length);
+    return crc32.getValue();
   }
 
   @Override
   public long getLastIndex() {
-    return lastEntry != null ? lastEntry.index() : descriptor.index() - 1;
+    return nextIndex - 1;
   }
 
   @Override
@@ -114,11 +264,7 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
 
   @Override
   public long getNextIndex() {
-    if (lastEntry != null) {
-      return lastEntry.index() + 1;
-    } else {
-      return firstIndex;
-    }
+    return nextIndex;
   }
 
   /**
@@ -136,7 +282,7 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
    * @return Indicates whether the segment is empty.
    */
   public boolean isEmpty() {
-    return lastEntry == null;
+    return nextIndex == firstIndex;
   }
 
   /**
@@ -149,6 +295,16 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
         || getNextIndex() - firstIndex >= descriptor.maxEntries();
   }
 
+  /**
+   * Returns a boolean indicating whether the segment is at least half full.
+   *
+   * @return Indicates whether the segment is at least half full.
+   */
+  boolean isHalfFull() {
+    return size() >= descriptor.maxSegmentSize() / 2
+        || getNextIndex() - firstIndex >= descriptor.maxEntries() / 2;
+  }
+
   /**
    * Returns the first index written to the segment.
    */
@@ -179,23 +335,64 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
     // Store the entry index.
     final long index = getNextIndex();
 
-    // Serialize the entry.
-    final byte[] bytes = serializer.encode(entry);
-    final int length = bytes.length;
+    // File buffers issue a system call for every read and write, so stage the entry in memory first.
+    if (staged) {
+      return appendStaged(index, entry);
+    }
+
+    // Reserve space for the entry length and checksum. The length is only written once the entry is complete so
+    // readers never observe a partially written entry.
+    final int offset = buffer.position();
+    buffer.writeInt(0).writeUnsignedInt(0);
+
+    // Serialize the entry directly into the segment.
+    final int length;
+    try {
+      serializer.encode(entry, buffer);
+      length = buffer.position() - offset - HEADER_BYTES;
+    } catch (RuntimeException e) {
+      buffer.zero(offset, buffer.position() - offset).position(offset);
+      throw e;
+    }
 
-    // Compute the checksum for the entry.
-    final Checksum crc32 = new CRC32();
-    crc32.update(bytes, 0, length);
-    final long checksum = crc32.getValue();
+    // Compute the checksum over the written entry bytes.
+    final long checksum = checksum(offset + HEADER_BYTES, length);
 
-    // Write the entry length and entry to the segment.
-    buffer.writeInt(length)
-        .writeUnsignedInt(checksum)
-        .write(bytes);
+    // Write the checksum and then the length to complete the entry.
+    buffer.writeUnsignedInt(offset + Integer.BYTES, checksum)
+        .writeInt(offset, length);
+
+    // Publish the entry to readers.
+    segment.watermark(buffer.position());
 
     // Update the last entry with the correct index/term/length.
     Indexed<E> indexedEntry = new Indexed<>(index, entry, length);
     this.lastEntry = indexedEntry;
+    this.nextIndex = index + 1;
+    return (Indexed<T>) indexedEntry;
+  }
+
+  /**
+   * Serializes the entry to memory and writes it to the segment with a single write.
+   */
+  @SuppressWarnings("unchecked")
+  private <T extends E> Indexed<T> appendStaged(long index, T entry) {
+    // Reserve space for the entry length and checksum ahead of the entry bytes.
+    memory.clear().writeInt(0).writeUnsignedInt(0);
+    serializer.encode(entry, memory);
+    final int length = memory.position() - HEADER_BYTES;
+
+    // Compute the checksum over the entry bytes and complete the entry header.
+    memory.writeUnsignedInt(Integer.BYTES, checksum(memory.array(), HEADER_BYTES, length))
+        .writeInt(0, length);
+
+    // Write the complete entry to the segment. Partially written entries fail checksum verification on reads.
+    buffer.write(memory.array(), 0, length + HEADER_BYTES);
+    segment.watermark(buffer.position());
+
+    Indexed<E> indexedEntry = new Indexed<>(index, entry, length);
+    this.lastEntry = indexedEntry;
+    this.nextIndex = index + 1;
     return (Indexed<T>) indexedEntry;
   }
 
@@ -207,8 +404,14 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
       return;
     }
 
+    // Truncated entries are hidden from readers by lowering the segment watermark, and readers are reset before the
+    // entries are zeroed. Readers that are concurrently reading truncated entries discard them.
     // If the index is less than the segment index, clear the segment buffer.
     if (index < descriptor.index()) {
+      lastEntry = null;
+      nextIndex = firstIndex;
+      segment.watermark(0);
+      journal.resetReaders(index);
       buffer.zero().clear();
       return;
     }
@@ -217,7 +420,9 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
     lastEntry = null;
 
     // Reset the writer to the given index.
-    reset(index);
+    reset(index, true);
+    segment.watermark(buffer.position());
+    journal.resetReaders(index);
 
     // Zero entries after the given index.
     buffer.zero(buffer.position());
@@ -230,18 +435,29 @@ public class JournalSegmentWriter<E> implements JournalWriter<E> {
 
   @Override
   public void close() {
-    buffer.close();
+    // The writer may be closed by both the journal writer and the segment, so only release the buffer once.
+    if (open) {
+      open = false;
+      buffer.close();
+    }
   }
 
   /**
    * Deletes the segment.
    */
   void delete() {
-    Buffer buffer = this.buffer instanceof SlicedBuffer ? ((SlicedBuffer) this.buffer).root() : this.buffer;
+    Buffer buffer = root();
     if (buffer instanceof FileBuffer) {
       ((FileBuffer) buffer).delete();
     } else if (buffer instanceof MappedBuffer) {
       ((MappedBuffer) buffer).delete();
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Returns the root of the segment buffer.
+   */
+  private Buffer root() {
+    return buffer instanceof SlicedBuffer ? ((SlicedBuffer) buffer).root() : buffer;
+  }
+}
@@ -15,23 +15,34 @@
  */
 package io.atomix.storage.journal;
 
-import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.atomix.serializer.Serializer;
 import io.atomix.storage.StorageLevel;
 import io.atomix.storage.buffer.Buffer;
 import io.atomix.storage.buffer.FileBuffer;
-import io.atomix.storage.buffer.HeapBuffer;
 import io.atomix.storage.buffer.MappedBuffer;
+import io.atomix.storage.buffer.PooledAllocator;
+import io.atomix.storage.buffer.PooledDirectAllocator;
+import io.atomix.storage.buffer.PooledHeapAllocator;
+import io.atomix.utils.AtomixIOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -39,6 +50,11 @@ import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Segmented journal implementation.
+ * <p>
+ * Entries may be removed from the journal in two ways. Segments preceding a given index may be deleted altogether
+ * by {@link #compact(long)}. Additionally, individual entries that are no longer needed may be {@link #release(long)
+ * released}. Once enough of the entries in a segment have been released, the segment is rewritten without the
+ * released entries in the background.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
@@ -62,10 +78,23 @@ public class SegmentedJournal<E> implements Journal<E> {
   private final Serializer serializer;
   private final int maxSegmentSize;
   private final int maxEntriesPerSegment;
+  private final ChecksumPolicy checksumPolicy;
+  private final double compactionThreshold;
+  private final int maxCompactionRate;
 
   private final NavigableMap<Long, JournalSegment<E>> segments = new ConcurrentSkipListMap<>();
-  private final Collection<SegmentedJournalReader<E>> readers = Sets.newConcurrentHashSet();
-  private JournalSegment<E> currentSegment;
+  private volatile JournalSegment<E> currentSegment;
+
+  // Reader resets are published by the writer and applied by each reader on its own thread.
+  private volatile long resetIndex;
+  private volatile int resets;
+
+  private final PooledAllocator allocator;
+  private final ExecutorService preallocator;
+  private Future<Buffer> nextSegmentBuffer;
+  private long nextSegmentId;
+  private File nextSegmentFile;
+  private final JournalSegmentCompactor<E> compactor;
 
   private final SegmentedJournalWriter<E> writer;
   private volatile boolean open = true;
@@ -76,17 +105,48 @@ public class SegmentedJournal<E> implements Journal<E> {
       File directory,
       Serializer serializer,
       int maxSegmentSize,
-      int maxEntriesPerSegment) {
+      int maxEntriesPerSegment,
+      ChecksumPolicy checksumPolicy,
+      double compactionThreshold,
+      int maxCompactionRate) {
     this.name = checkNotNull(name, "name cannot be null");
     this.storageLevel = checkNotNull(storageLevel, "storageLevel cannot be null");
     this.directory = checkNotNull(directory, "directory cannot be null");
     this.serializer = checkNotNull(serializer, "serializer cannot be null");
     this.maxSegmentSize = maxSegmentSize;
     this.maxEntriesPerSegment = maxEntriesPerSegment;
+    this.checksumPolicy = checkNotNull(checksumPolicy, "checksumPolicy cannot be null");
+    this.compactionThreshold = compactionThreshold;
+    this.maxCompactionRate = maxCompactionRate;
+    this.allocator = createAllocator(storageLevel);
+    this.preallocator = storageLevel == StorageLevel.DISK || storageLevel == StorageLevel.MAPPED
+        ? Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("atomix-journal-preallocator-%d")
+            .setDaemon(true)
+            .build())
+        : null;
+    this.compactor = new JournalSegmentCompactor<>(this, compactionThreshold, maxCompactionRate);
     open();
     this.writer = openWriter();
   }
 
+  /**
+   * Creates the allocator from which in-memory segment buffers are allocated.
+   * <p>
+   * Buffers are returned to the pool once a retired segment's readers and writer have released them, and are
+   * reused by later segments.
+   */
+  private static PooledAllocator createAllocator(StorageLevel storageLevel) {
+    switch (storageLevel) {
+      case MEMORY:
+        return new PooledHeapAllocator();
+      case OFF_HEAP:
+        return new PooledDirectAllocator();
+      default:
+        return null;
+    }
+  }
+
   /**
    * Returns the segment file name prefix.
    *
@@ -144,6 +204,38 @@ public class SegmentedJournal<E> implements Journal<E> {
     return maxEntriesPerSegment;
   }
 
+  /**
+   * Returns the entry checksum verification policy.
+   * <p>
+   * The checksum policy dictates when the checksums of entries read from the journal are verified.
+   *
+   * @return The entry checksum verification policy.
+   */
+  public ChecksumPolicy checksumPolicy() {
+    return checksumPolicy;
+  }
+
+  /**
+   * Returns the segment compaction threshold.
+   * <p>
+   * The compaction threshold is the fraction of the entries in a segment that must be released before the segment
+   * is compacted.
+   *
+   * @return The segment compaction threshold.
+   */
+  public double compactionThreshold() {
+    return compactionThreshold;
+  }
+
+  /**
+   * Returns the maximum rate at which segments are compacted.
+   *
+   * @return The maximum number of bytes per second copied by segment compaction.
+   */
+  public int maxCompactionRate() {
+    return maxCompactionRate;
+  }
+
   /**
    * Opens a new journal writer.
    *
@@ -216,7 +308,7 @@ public class SegmentedJournal<E> implements Journal<E> {
    * @param index the starting index of the journal
    * @return the first segment
    */
-  JournalSegment<E> resetSegments(long index) {
+  synchronized JournalSegment<E> resetSegments(long index) {
     assertOpen();
 
     // If the index already equals the first segment index, skip the reset.
@@ -229,7 +321,6 @@ public class SegmentedJournal<E> implements Journal<E> {
       segment.close();
       segment.delete();
     }
-    segments.clear();
 
     JournalSegmentDescriptor descriptor = JournalSegmentDescriptor.newBuilder()
         .withId(1)
@@ -238,7 +329,11 @@ public class SegmentedJournal<E> implements Journal<E> {
         .withMaxEntries(maxEntriesPerSegment)
         .build();
     currentSegment = createSegment(descriptor);
+
+    // Readers look up segments without locking the journal, so the closed segments are only removed once the new
+    // segment has been added, ensuring readers never find the journal empty.
     segments.put(index, currentSegment);
+    segments.keySet().removeIf(segmentIndex -> segmentIndex != index);
     return currentSegment;
   }
 
@@ -283,6 +378,7 @@ public class SegmentedJournal<E> implements Journal<E> {
    */
   synchronized JournalSegment<E> getNextSegment() {
     assertOpen();
+    JournalSegment<E> previousSegment = currentSegment;
     JournalSegment lastSegment = getLastSegment();
     JournalSegmentDescriptor descriptor = JournalSegmentDescriptor.newBuilder()
         .withId(lastSegment != null ? lastSegment.descriptor().id() + 1 : 1)
@@ -294,6 +390,9 @@ public class SegmentedJournal<E> implements Journal<E> {
     currentSegment = createSegment(descriptor);
 
     segments.put(descriptor.index(), currentSegment);
+
+    // Entries released while the previous segment was being written may be compacted now that it's complete.
+    compactor.compact(previousSegment);
     return currentSegment;
   }
 
@@ -310,13 +409,18 @@ public class SegmentedJournal<E> implements Journal<E> {
 
   /**
    * Returns the segment for the given index.
+   * <p>
+   * Segments are looked up without locking the journal, so readers never wait for the writer to roll over or for
+   * segments to be compacted. The returned segment may be closed concurrently, in which case readers of the segment
+   * read its replacement or nothing at all.
    *
    * @param index The index for which to return the segment.
    * @throws IllegalStateException if the segment manager is not open
    */
-  synchronized JournalSegment<E> getSegment(long index) {
+  JournalSegment<E> getSegment(long index) {
     assertOpen();
     // Check if the current segment contains the given index first in order to prevent an unnecessary map lookup.
+    JournalSegment<E> currentSegment = this.currentSegment;
     if (currentSegment != null && index > currentSegment.index()) {
       return currentSegment;
     }
@@ -341,6 +445,61 @@ public class SegmentedJournal<E> implements Journal<E> {
     resetCurrentSegment();
   }
 
+  /**
+   * Replaces the given segment with a compacted version of the segment.
+   * <p>
+   * The segment is not replaced if it has been removed from the journal, if it has become the journal's current
+   * segment, or if the journal has been truncated or reset since compaction began.
+   *
+   * @param segment The segment to replace.
+   * @param compactedSegment The compacted segment with which to replace the segment.
+   * @param resets The number of times readers had been reset when compaction began.
+   * @param compactedReleases The number of released entries that were removed from the compacted segment.
+   * @return Indicates whether the segment was replaced.
+   */
+  synchronized boolean replaceSegment(JournalSegment<E> segment, JournalSegment<E> compactedSegment, int resets, long compactedReleases) {
+    if (!open || resets != this.resets || segment == currentSegment || segments.get(segment.index()) != segment) {
+      return false;
+    }
+    segments.put(segment.index(), compactedSegment);
+    segment.replace(compactedSegment, compactedReleases);
+    return true;
+  }
+
+  /**
+   * Allocates a buffer for a compacted segment.
+   *
+   * @param file The segment file.
+   * @param size The initial size of the buffer.
+   * @return The allocated segment buffer.
+   */
+  Buffer allocateSegmentBuffer(File file, int size) {
+    switch (storageLevel) {
+      case MEMORY:
+      case OFF_HEAP:
+        return allocator.allocate(size, Integer.MAX_VALUE);
+      case DISK:
+        deleteFile(file);
+        return FileBuffer.allocate(file, size, Integer.MAX_VALUE);
+      case MAPPED:
+        deleteFile(file);
+        return MappedBuffer.allocate(file, size, Integer.MAX_VALUE);
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  /**
+   * Deletes the given file if it exists.
+   */
+  private static void deleteFile(File file) {
+    try {
+      Files.deleteIfExists(file.toPath());
+    } catch (IOException e) {
+      throw new AtomixIOException(e);
+    }
+  }
+
   /**
    * Creates a new segment.
    */
@@ -348,8 +507,12 @@ public class SegmentedJournal<E> implements Journal<E> {
     switch (storageLevel) {
       case MEMORY:
         return createMemorySegment(descriptor);
+      case OFF_HEAP:
+        return createOffHeapSegment(descriptor);
       case DISK:
         return createDiskSegment(descriptor);
+      case MAPPED:
+        return createMappedSegment(descriptor);
       default:
         throw new AssertionError();
     }
@@ -371,25 +534,162 @@ public class SegmentedJournal<E> implements Journal<E> {
    */
   private JournalSegment<E> createDiskSegment(JournalSegmentDescriptor descriptor) {
     File segmentFile = JournalSegmentFile.createSegmentFile(name, directory, descriptor.id(), descriptor.version());
-    Buffer buffer = MappedBuffer.allocate(segmentFile, Math.min(DEFAULT_BUFFER_SIZE, descriptor.maxSegmentSize()), Integer.MAX_VALUE);
+    Buffer buffer = takePreallocatedSegment(descriptor, segmentFile);
+    if (buffer == null) {
+      buffer = FileBuffer.allocate(segmentFile, Math.min(DEFAULT_BUFFER_SIZE, descriptor.maxSegmentSize()), Integer.MAX_VALUE);
+    }
     descriptor.copyTo(buffer);
     JournalSegment<E> segment = newSegment(new JournalSegmentFile(segmentFile), descriptor);
     log.debug("Created disk segment: {}", segment);
     return segment;
   }
 
+  /**
+   * Creates a new segment.
+   */
+  private JournalSegment<E> createMappedSegment(JournalSegmentDescriptor descriptor) {
+    File segmentFile = JournalSegmentFile.createSegmentFile(name, directory, descriptor.id(), descriptor.version());
+    Buffer buffer = takePreallocatedSegment(descriptor, segmentFile);
+    if (buffer == null) {
+      buffer = MappedBuffer.allocate(segmentFile, Math.min(DEFAULT_BUFFER_SIZE, descriptor.maxSegmentSize()), Integer.MAX_VALUE);
+    }
+    descriptor.copyTo(buffer);
+    JournalSegment<E> segment = newSegment(new JournalSegmentFile(segmentFile), descriptor);
+    log.debug("Created mapped segment: {}", segment);
+    return segment;
+  }
+
   /**
    * Creates a new segment.
    */
   private JournalSegment<E> createMemorySegment(JournalSegmentDescriptor descriptor) {
     File segmentFile = JournalSegmentFile.createSegmentFile(name, directory, descriptor.id(), descriptor.version());
-    Buffer buffer = HeapBuffer.allocate(Math.min(DEFAULT_BUFFER_SIZE, descriptor.maxSegmentSize()), Integer.MAX_VALUE);
+    Buffer buffer = allocator.allocate(Math.min(DEFAULT_BUFFER_SIZE, descriptor.maxSegmentSize()), Integer.MAX_VALUE);
     descriptor.copyTo(buffer);
     JournalSegment<E> segment = newSegment(new JournalSegmentFile(segmentFile), descriptor);
     log.debug("Created memory segment: {}", segment);
     return segment;
   }
 
+  /**
+   * Creates a new segment.
+   */
+  private JournalSegment<E> createOffHeapSegment(JournalSegmentDescriptor descriptor) {
+    File segmentFile = JournalSegmentFile.createSegmentFile(name, directory, descriptor.id(), descriptor.version());
+    Buffer buffer = allocator.allocate(Math.min(DEFAULT_BUFFER_SIZE, descriptor.maxSegmentSize()), Integer.MAX_VALUE);
+    descriptor.copyTo(buffer);
+    JournalSegment<E> segment = newSegment(new JournalSegmentFile(segmentFile), descriptor);
+    log.debug("Created off-heap segment: {}", segment);
+    return segment;
+  }
+
+  /**
+   * Begins allocating the file for the segment following the given segment in the background.
+   * <p>
+   * The writer calls this once the given segment is half full, so the allocation is done while entries are being
+   * appended rather than when the writer rolls over to the next segment. Only {@link StorageLevel#DISK disk} and
+   * {@link StorageLevel#MAPPED mapped} segment files are preallocated. Disk segment files are extended to the maximum
+   * segment size without being written, so the writer never has to grow them. Mapped segment files are created and
+   * mapped at the same initial size as segments that are allocated on demand, since a mapping of the maximum segment
+   * size makes every flush of the segment sync the whole mapping. The segment descriptor is still written when the
+   * segment is created since the segment's first index is only known then.
+   * <p>
+   * The file is allocated under a separate name and only renamed to the segment file when the segment is created,
+   * so a preallocation that is abandoned never conflicts with the segment's own file. Preallocated files left behind
+   * by a crash are removed when the journal is loaded.
+   *
+   * @param segment the segment following which to preallocate a segment
+   */
+  synchronized void preallocateNextSegment(JournalSegment<E> segment) {
+    long id = segment.id() + 1;
+    if (preallocator == null || preallocator.isShutdown() || (nextSegmentBuffer != null && nextSegmentId == id)) {
+      return;
+    }
+    discardPreallocatedSegment();
+
+    File file = JournalSegmentFile.createPreallocatedFile(name, directory, id);
+    nextSegmentId = id;
+    nextSegmentFile = file;
+    nextSegmentBuffer = preallocator.submit(() -> {
+      deleteFile(file);
+      if (storageLevel == StorageLevel.MAPPED) {
+        return MappedBuffer.allocate(file, Math.min(DEFAULT_BUFFER_SIZE, maxSegmentSize), Integer.MAX_VALUE);
+      }
+      return FileBuffer.allocate(file, maxSegmentSize, Integer.MAX_VALUE);
+    });
+  }
+
+  /**
+   * Returns the preallocated buffer for the given segment, renaming the preallocated file to the segment file.
+   * <p>
+   * The writer never waits for the preallocator. If the segment's file has not been allocated yet, the preallocation
+   * is abandoned and the segment is allocated on demand.
+   *
+   * @param descriptor the descriptor of the segment being created
+   * @param segmentFile the segment file
+   * @return the preallocated segment buffer or {@code null} if no buffer is ready for the segment
+   */
+  private Buffer takePreallocatedSegment(JournalSegmentDescriptor descriptor, File segmentFile) {
+    if (nextSegmentBuffer == null) {
+      return null;
+    }
+    if (nextSegmentId != descriptor.id() || !nextSegmentBuffer.isDone()) {
+      discardPreallocatedSegment();
+      return null;
+    }
+
+    Future<Buffer> future = nextSegmentBuffer;
+    File file = nextSegmentFile;
+    nextSegmentBuffer = null;
+    Buffer buffer;
+    try {
+      buffer = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      log.warn("Failed to preallocate segment {}", descriptor.id(), e.getCause());
+      return null;
+    }
+
+    try {
+      Files.move(file.toPath(), segmentFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("Failed to rename preallocated segment {}", descriptor.id(), e);
+      buffer.close();
+      deleteFile(file);
+      return null;
+    }
+    return buffer;
+  }
+
+  /**
+   * Abandons the preallocated segment if one exists.
+   * <p>
+   * The preallocated file is closed and deleted on the preallocator thread once its allocation completes, so the
+   * caller does not wait for an allocation that is still in progress.
+   */
+  private void discardPreallocatedSegment() {
+    if (nextSegmentBuffer == null) {
+      return;
+    }
+
+    Future<Buffer> future = nextSegmentBuffer;
+    File file = nextSegmentFile;
+    long id = nextSegmentId;
+    nextSegmentBuffer = null;
+    preallocator.execute(() -> {
+      try {
+        future.get().close();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        log.debug("Failed to preallocate segment {}", id, e.getCause());
+      }
+      deleteFile(file);
+    });
+  }
+
   /**
    * Loads a segment.
    */
@@ -397,8 +697,12 @@ public class SegmentedJournal<E> implements Journal<E> {
     switch (storageLevel) {
       case MEMORY:
         return loadMemorySegment(segmentId, segmentVersion);
+      case OFF_HEAP:
+        return loadOffHeapSegment(segmentId, segmentVersion);
       case DISK:
         return loadDiskSegment(segmentId, segmentVersion);
+      case MAPPED:
+        return loadMappedSegment(segmentId, segmentVersion);
       default:
         throw new AssertionError();
     }
@@ -409,25 +713,49 @@ public class SegmentedJournal<E> implements Journal<E> {
    */
   private JournalSegment<E> loadDiskSegment(long segmentId, long segmentVersion) {
     File file = JournalSegmentFile.createSegmentFile(name, directory, segmentId, segmentVersion);
-    Buffer buffer = MappedBuffer.allocate(file, Math.min(DEFAULT_BUFFER_SIZE, maxSegmentSize), Integer.MAX_VALUE);
+    Buffer buffer = FileBuffer.allocate(file, Math.min(DEFAULT_BUFFER_SIZE, maxSegmentSize), Integer.MAX_VALUE);
     JournalSegmentDescriptor descriptor = new JournalSegmentDescriptor(buffer);
     JournalSegment<E> segment = newSegment(new JournalSegmentFile(file), descriptor);
     log.debug("Loaded disk segment: {} ({})", descriptor.id(), file.getName());
     return segment;
   }
 
+  /**
+   * Loads a segment.
+   */
+  private JournalSegment<E> loadMappedSegment(long segmentId, long segmentVersion) {
+    File file = JournalSegmentFile.createSegmentFile(name, directory, segmentId, segmentVersion);
+    Buffer buffer = MappedBuffer.allocate(file, Math.min(DEFAULT_BUFFER_SIZE, maxSegmentSize), Integer.MAX_VALUE);
+    JournalSegmentDescriptor descriptor = new JournalSegmentDescriptor(buffer);
+    JournalSegment<E> segment = newSegment(new JournalSegmentFile(file), descriptor);
+    log.debug("Loaded mapped segment: {} ({})", descriptor.id(), file.getName());
+    return segment;
+  }
+
   /**
    * Loads a segment.
    */
   private JournalSegment<E> loadMemorySegment(long segmentId, long segmentVersion) {
     File file = JournalSegmentFile.createSegmentFile(name, directory, segmentId, segmentVersion);
-    Buffer buffer = HeapBuffer.allocate(Math.min(DEFAULT_BUFFER_SIZE, maxSegmentSize), Integer.MAX_VALUE);
+    Buffer buffer = allocator.allocate(Math.min(DEFAULT_BUFFER_SIZE, maxSegmentSize), Integer.MAX_VALUE);
     JournalSegmentDescriptor descriptor = new JournalSegmentDescriptor(buffer);
     JournalSegment<E> segment = newSegment(new JournalSegmentFile(file), descriptor);
     log.debug("Loaded memory segment: {}", descriptor.id());
     return segment;
   }
 
+  /**
+   * Loads a segment.
+   */
+  private JournalSegment<E> loadOffHeapSegment(long segmentId, long segmentVersion) {
+    File file = JournalSegmentFile.createSegmentFile(name, directory, segmentId, segmentVersion);
+    Buffer buffer = allocator.allocate(Math.min(DEFAULT_BUFFER_SIZE, maxSegmentSize), Integer.MAX_VALUE);
+    JournalSegmentDescriptor descriptor = new JournalSegmentDescriptor(buffer);
+    JournalSegment<E> segment = newSegment(new JournalSegmentFile(file), descriptor);
+    log.debug("Loaded off-heap segment: {}", descriptor.id());
+    return segment;
+  }
+
   /**
    * Loads all segments from disk.
    *
@@ -442,76 +770,106 @@ public class SegmentedJournal<E> implements Journal<E> {
     // Iterate through all files in the log directory.
     for (File file : directory.listFiles(File::isFile)) {
 
+      // Remove files that were preallocated for segments that were never created.
+      if (JournalSegmentFile.isPreallocatedFile(name, file)) {
+        log.debug("Deleting unused preallocated segment: {}", file.getName());
+        deleteFile(file);
+        continue;
+      }
+
       // If the file looks like a segment file, attempt to load the segment.
       if (JournalSegmentFile.isSegmentFile(name, file)) {
         JournalSegmentFile segmentFile = new JournalSegmentFile(file);
         JournalSegmentDescriptor descriptor = new JournalSegmentDescriptor(FileBuffer.allocate(file, JournalSegmentDescriptor.BYTES));
 
+        // If the descriptor was never written, the journal stopped while the segment was being created.
+        if (descriptor.id() == 0) {
+          log.debug("Deleting uninitialized segment: {}", file.getName());
+          descriptor.close();
+          descriptor.delete();
+          continue;
+        }
+
         // Load the segment.
         JournalSegment<E> segment = loadSegment(descriptor.id(), descriptor.version());
 
-        // If a segment with an equal or lower index has already been loaded, ensure this segment is not superseded
-        // by the earlier segment. This can occur due to segments being combined during log compaction.
-        Map.Entry<Long, JournalSegment<E>> previousEntry = segments.floorEntry(segment.index());
-        if (previousEntry != null) {
-
-          // If an existing descriptor exists with a lower index than this segment's first index, check to determine
-          // whether this segment's first index is contained in that existing index. If it is, determine which segment
-          // should take precedence based on segment versions.
-          JournalSegment previousSegment = previousEntry.getValue();
-
-          // If the two segments start at the same index, the segment with the higher version number is used.
-          if (previousSegment.index() == segment.index()) {
-            if (segment.descriptor().version() > previousSegment.descriptor().version()) {
-              log.debug("Replaced segment {} with newer version: {} ({})", previousSegment.descriptor().id(), segment.descriptor().version(), segmentFile.file().getName());
-              segments.remove(previousEntry.getKey());
-              previousSegment.close();
-              previousSegment.delete();
-            } else {
-              segment.close();
-              segment.delete();
-              continue;
-            }
-          }
-          // If the existing segment's entries overlap with the loaded segment's entries, the existing segment always
-          // supersedes the loaded segment. Log compaction processes ensure this is always the case.
-          else if (previousSegment.index() + previousSegment.length() > segment.index()) {
+        // If a segment with the same index has already been loaded, the segment with the higher version number is
+        // used. This can occur due to segments being combined during log compaction.
+        JournalSegment<E> previousSegment = segments.get(segment.index());
+        if (previousSegment != null) {
+          if (segment.descriptor().version() > previousSegment.descriptor().version()) {
+            log.debug("Replaced segment {} with newer version: {} ({})", previousSegment.descriptor().id(), segment.descriptor().version(), segmentFile.file().getName());
+            segments.remove(previousSegment.index());
+            previousSegment.close();
+            previousSegment.delete();
+          } else {
             segment.close();
             segment.delete();
             continue;
           }
         }
 
-        // Add the segment to the segments list.
+        // Segments are not scanned when they're loaded, so entries in a segment that overlap a later segment are
+        // only discarded once the segment is opened. The later segment always supersedes the earlier segment.
         log.debug("Found segment: {} ({})", segment.descriptor().id(), segmentFile.file().getName());
         segments.put(segment.index(), segment);
 
-        // Ensure any segments later in the log with which this segment overlaps are removed.
-        Map.Entry<Long, JournalSegment<E>> nextEntry = segments.higherEntry(segment.index());
-        while (nextEntry != null) {
-          if (nextEntry.getValue().index() < segment.index() + segment.length()) {
-            segments.remove(nextEntry.getKey());
-            nextEntry = segments.higherEntry(segment.index());
-          } else {
-            break;
-          }
-        }
-
         descriptor.close();
       }
     }
     return segments.values();
   }
 
+  /**
+   * Releases the entry at the given index.
+   * <p>
+   * Released entries may be removed from the journal by compaction, after which they're skipped by readers. Once the
+   * fraction of released entries in a segment other than the current segment reaches the
+   * {@link #compactionThreshold() compaction threshold}, the segment is compacted in the background. Releases are
+   * not persisted, so entries that are released but not yet compacted when the journal is closed are retained.
+   *
+   * @param index The index of the entry to release.
+   */
+  public void release(long index) {
+    Map.Entry<Long, JournalSegment<E>> segmentEntry = segments.floorEntry(index);
+    if (segmentEntry != null) {
+      JournalSegment<E> segment = segmentEntry.getValue();
+      if (segment.release(index) && segment != currentSegment) {
+        compactor.compact(segment);
+      }
+    }
+  }
+
   /**
    * Resets journal readers.
+   * <p>
+   * Readers may be accessed from threads other than the writer's, so readers are not reset directly. Instead, the
+   * reset is published to readers, and each reader resets itself to the given index the next time it's accessed.
    *
    * @param index The index at which to reset readers.
    */
   void resetReaders(long index) {
-    for (SegmentedJournalReader<E> reader : readers) {
-      reader.reset(index);
-    }
+    resetIndex = index;
+    // The count is only incremented by the writer thread.
+    resets++;
+  }
+
+  /**
+   * Returns the number of times readers have been reset.
+   *
+   * @return The number of times readers have been reset.
+   */
+  int resets() {
+    return resets;
+  }
+
+  /**
+   * Returns the index to which readers were last reset.
+   *
+   * @return The index to which readers were last reset.
+   */
+  long resetIndex() {
+    return resetIndex;
   }
 
   @Override
@@ -521,13 +879,7 @@ public class SegmentedJournal<E> implements Journal<E> {
 
   @Override
   public SegmentedJournalReader<E> openReader(long index) {
-    SegmentedJournalReader<E> reader = new SegmentedJournalReader<>(this, index);
-    readers.add(reader);
-    return reader;
-  }
-
-  void closeReader(SegmentedJournalReader<E> reader) {
-    readers.remove(reader);
+    return new SegmentedJournalReader<>(this, index);
   }
 
   @Override
@@ -564,7 +916,7 @@ public class SegmentedJournal<E> implements Journal<E> {
    *
    * @param index The index up to which to compact the journal.
    */
-  public void compact(long index) {
+  public synchronized void compact(long index) {
     Map.Entry<Long, JournalSegment<E>> segmentEntry = segments.floorEntry(index);
     if (segmentEntry != null) {
       SortedMap<Long, JournalSegment<E>> compactSegments = segments.headMap(segmentEntry.getValue().index());
@@ -582,10 +934,25 @@ public class SegmentedJournal<E> implements Journal<E> {
 
   @Override
   public void close() {
+    compactor.close();
     segments.values().forEach(segment -> {
       log.debug("Closing segment: {}", segment);
       segment.close();
     });
+    if (preallocator != null) {
+      synchronized (this) {
+        discardPreallocatedSegment();
+        preallocator.shutdown();
+      }
+      try {
+        preallocator.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (allocator != null) {
+      allocator.close();
+    }
     currentSegment = null;
     open = false;
   }
@@ -598,13 +965,18 @@ public class SegmentedJournal<E> implements Journal<E> {
     private static final String DEFAULT_DIRECTORY = System.getProperty("user.dir");
     private static final int DEFAULT_MAX_SEGMENT_SIZE = 1024 * 1024 * 32;
     private static final int DEFAULT_MAX_ENTRIES_PER_SEGMENT = 1024 * 1024;
+    private static final double DEFAULT_COMPACTION_THRESHOLD = .5;
+    private static final int DEFAULT_MAX_COMPACTION_RATE = 1024 * 1024 * 16;
 
     protected String name = DEFAULT_NAME;
-    protected StorageLevel storageLevel = StorageLevel.DISK;
+    protected StorageLevel storageLevel = StorageLevel.MAPPED;
     protected File directory = new File(DEFAULT_DIRECTORY);
     protected Serializer serializer;
     protected int maxSegmentSize = DEFAULT_MAX_SEGMENT_SIZE;
     protected int maxEntriesPerSegment = DEFAULT_MAX_ENTRIES_PER_SEGMENT;
+    protected ChecksumPolicy checksumPolicy = ChecksumPolicy.ALWAYS;
+    protected double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    protected int maxCompactionRate = DEFAULT_MAX_COMPACTION_RATE;
 
     protected Builder() {
     }
@@ -623,7 +995,8 @@ public class SegmentedJournal<E> implements Journal<E> {
     /**
      * Sets the log storage level, returning the builder for method chaining.
      * <p>
-     * The storage level indicates how individual entries should be persisted in the journal.
+     * The storage level indicates how individual entries should be persisted in the journal. Defaults to
+     * {@link StorageLevel#MAPPED}.
      *
      * @param storageLevel The log storage level.
      * @return The storage builder.
@@ -712,6 +1085,56 @@ public class SegmentedJournal<E> implements Journal<E> {
       return this;
     }
 
+    /**
+     * Sets the entry checksum verification policy, returning the builder for method chaining.
+     * <p>
+     * The checksum policy dictates when entry checksums are verified. Deployments that store the journal on a
+     * filesystem that checksums data may verify checksums only on recovery or not at all. Checksums are written
+     * with every entry regardless of the policy. Defaults to {@link ChecksumPolicy#ALWAYS}.
+     *
+     * @param checksumPolicy The entry checksum verification policy.
+     * @return The journal builder.
+     * @throws NullPointerException If the {@code checksumPolicy} is {@code null}
+     */
+    public Builder<E> withChecksumPolicy(ChecksumPolicy checksumPolicy) {
+      this.checksumPolicy = checkNotNull(checksumPolicy, "checksumPolicy cannot be null");
+      return this;
+    }
+
+    /**
+     * Sets the segment compaction threshold, returning the builder for method chaining.
+     * <p>
+     * The compaction threshold is the fraction of the entries in a segment that must be {@link
+     * SegmentedJournal#release(long) released} before the segment is rewritten without the released entries.
+     * Defaults to {@code .5}.
+     *
+     * @param compactionThreshold The fraction of entries in a segment that must be released to compact the segment.
+     * @return The journal builder.
+     * @throws IllegalArgumentException If the {@code compactionThreshold} is not in the range {@code (0, 1]}
+     */
+    public Builder<E> withCompactionThreshold(double compactionThreshold) {
+      checkArgument(compactionThreshold > 0 && compactionThreshold <= 1, "compactionThreshold must be in the range (0, 1]");
+      this.compactionThreshold = compactionThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the maximum rate at which segments are compacted, returning the builder for method chaining.
+     * <p>
+     * Compaction copies the entries retained in a segment to a new version of the segment in the background. The
+     * compaction rate limits the number of bytes copied per second so compaction doesn't compete with the journal
+     * writer for disk bandwidth. Defaults to {@code 1024 * 1024 * 16}.
+     *
+     * @param maxCompactionRate The maximum number of bytes per second to copy when compacting segments.
+     * @return The journal builder.
+     * @throws IllegalArgumentException If the {@code maxCompactionRate} is not positive
+     */
+    public Builder<E> withMaxCompactionRate(int maxCompactionRate) {
+      checkArgument(maxCompactionRate > 0, "maxCompactionRate must be positive");
+      this.maxCompactionRate = maxCompactionRate;
+      return this;
+    }
+
     /**
      * Builds the journal.
      *
@@ -719,7 +1142,7 @@ public class SegmentedJournal<E> implements Journal<E> {
      */
     @Override
     public SegmentedJournal<E> build() {
-      return new SegmentedJournal<>(name, storageLevel, directory, serializer, maxSegmentSize, maxEntriesPerSegment);
+      return new SegmentedJournal<>(name, storageLevel, directory, serializer, maxSegmentSize, maxEntriesPerSegment, checksumPolicy, compactionThreshold, maxCompactionRate);
     }
   }
 }
\ No newline at end of file
@@ -19,6 +19,10 @@ import java.util.NoSuchElementException;
 
 /**
  * Segmented journal reader.
+ * <p>
+ * A reader is not thread-safe, but it may be used on a thread other than the journal writer's thread without any
+ * locking. Readers only read entries that have been published by the writer, and when the writer truncates or resets
+ * the journal, each reader resets itself the next time it's accessed.
  *
  * @author <a href="http://github.com/kuujo>Jordan Halterman</a>
  */
@@ -27,9 +31,11 @@ public class SegmentedJournalReader<E> implements JournalReader<E> {
   private JournalSegment<E> currentSegment;
   private Indexed<E> previousEntry;
   private JournalSegmentReader<E> currentReader;
+  private int resets;
 
   public SegmentedJournalReader(SegmentedJournal<E> journal, long index) {
     this.journal = journal;
+    this.resets = journal.resets();
     initialize(index);
   }
 
@@ -55,8 +61,20 @@ public class SegmentedJournalReader<E> implements JournalReader<E> {
     return journal.getFirstSegment().index();
   }
 
+  /**
+   * Applies the last reset published by the journal writer if it has not yet been applied to this reader.
+   */
+  private void checkReset() {
+    int resets = journal.resets();
+    if (resets != this.resets) {
+      this.resets = resets;
+      seek(journal.resetIndex());
+    }
+  }
+
   @Override
   public long getCurrentIndex() {
+    checkReset();
     long currentIndex = currentReader.getCurrentIndex();
     if (currentIndex != 0) {
       return currentIndex;
@@ -69,6 +87,7 @@ public class SegmentedJournalReader<E> implements JournalReader<E> {
 
   @Override
   public Indexed<E> getCurrentEntry() {
+    checkReset();
     Indexed<E> currentEntry = currentReader.getCurrentEntry();
     if (currentEntry != null) {
       return currentEntry;
@@ -78,22 +97,29 @@ public class SegmentedJournalReader<E> implements JournalReader<E> {
 
   @Override
   public long getNextIndex() {
+    checkReset();
     return currentReader.getNextIndex();
   }
 
   @Override
   public void reset() {
-    currentReader.close();
-    currentSegment = journal.getFirstSegment();
-    currentReader = currentSegment.createReader();
-    previousEntry = null;
+    resets = journal.resets();
+    rewind();
   }
 
   @Override
   public void reset(long index) {
+    resets = journal.resets();
+    seek(index);
+  }
+
+  /**
+   * Resets the reader to the given index.
+   */
+  private void seek(long index) {
     // If the current segment is not open, it has been replaced. Reset the segments.
     if (!currentSegment.isOpen()) {
-      reset();
+      rewind();
     }
 
     if (index < currentReader.getNextIndex()) {
@@ -103,6 +129,16 @@ public class SegmentedJournalReader<E> implements JournalReader<E> {
     }
   }
 
+  /**
+   * Rewinds the journal to the first segment.
+   */
+  private void rewind() {
+    currentReader.close();
+    currentSegment = journal.getFirstSegment();
+    currentReader = currentSegment.createReader();
+    previousEntry = null;
+  }
+
   /**
    * Rewinds the journal to the given index.
    */
@@ -131,10 +167,12 @@ public class SegmentedJournalReader<E> implements JournalReader<E> {
 
   @Override
   public boolean hasNext() {
+    checkReset();
     if (!currentReader.hasNext()) {
       JournalSegment<E> nextSegment = journal.getNextSegment(currentSegment.index());
       if (nextSegment != null) {
         previousEntry = currentReader.getCurrentEntry();
+        currentReader.close();
         currentSegment = nextSegment;
         currentReader = currentSegment.createReader();
         return currentReader.hasNext();
@@ -146,10 +184,12 @@ public class SegmentedJournalReader<E> implements JournalReader<E> {
 
   @Override
   public Indexed<E> next() {
+    checkReset();
     if (!currentReader.hasNext()) {
       JournalSegment<E> nextSegment = journal.getNextSegment(currentSegment.index());
       if (nextSegment != null) {
         previousEntry = currentReader.getCurrentEntry();
+        currentReader.close();
         currentSegment = nextSegment;
         currentReader = currentSegment.createReader();
         return currentReader.next();
@@ -165,6 +205,5 @@ public class SegmentedJournalReader<E> implements JournalReader<E> {
   @Override
   public void close() {
     currentReader.close();
-    journal.closeReader(this);
   }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ public class SegmentedJournalWriter<E> implements JournalWriter<E> {
   private final SegmentedJournal<E> journal;
   private JournalSegment<E> currentSegment;
   private JournalSegmentWriter<E> currentWriter;
+  private long preallocatedSegmentId;
 
   public SegmentedJournalWriter(SegmentedJournal<E> journal) {
     this.journal = journal;
@@ -64,7 +65,9 @@ public class SegmentedJournalWriter<E> implements JournalWriter<E> {
       currentSegment = journal.getNextSegment();
       currentWriter = currentSegment.writer();
     }
-    return currentWriter.append(entry);
+    Indexed<T> indexed = currentWriter.append(entry);
+    preallocateNextSegment();
+    return indexed;
   }
 
   @Override
@@ -74,6 +77,17 @@ public class SegmentedJournalWriter<E> implements JournalWriter<E> {
       currentWriter = currentSegment.writer();
     }
     currentWriter.append(entry);
+    preallocateNextSegment();
+  }
+
+  /**
+   * Begins preallocating the next segment once the current segment is half full.
+   */
+  private void preallocateNextSegment() {
+    if (preallocatedSegmentId != currentSegment.id() && currentWriter.isHalfFull()) {
+      preallocatedSegmentId = currentSegment.id();
+      journal.preallocateNextSegment(currentSegment);
+    }
   }
 
   @Override
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.storage.journal;
+
+import io.atomix.storage.buffer.Buffer;
+import io.atomix.storage.buffer.DirectBuffer;
+import io.atomix.storage.buffer.HeapBuffer;
+import io.atomix.storage.buffer.MappedBuffer;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * CRC32C checksum test.
+ */
+public class Crc32cTest {
+
+  @Test
+  public void testKnownValue() throws Exception {
+    byte[] bytes = "123456789".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(0xE3069283L, Crc32c.checksum(bytes, 0, bytes.length));
+    assertEquals(0xE3069283L, Crc32c.software(bytes, 0, bytes.length));
+    assertEquals(0L, Crc32c.software(bytes, 0, 0));
+  }
+
+  @Test
+  public void testBufferChecksums() throws Exception {
+    byte[] bytes = new byte[1031];
+    new Random(1).nextBytes(bytes);
+
+    File file = File.createTempFile("crc32c-test", ".log");
+    file.deleteOnExit();
+    testBufferChecksum(HeapBuffer.allocate(2048), bytes);
+    testBufferChecksum(DirectBuffer.allocate(2048), bytes);
+    testBufferChecksum(MappedBuffer.allocate(file, 2048), bytes);
+  }
+
+  private void testBufferChecksum(Buffer buffer, byte[] bytes) {
+    buffer.writeInt(0).write(bytes);
+    Buffer slice = buffer.slice(3, bytes.length);
+    for (int offset = 0; offset < 16; offset++) {
+      for (int length : new int[]{0, 1, 7, 8, 9, 100, bytes.length - 16}) {
+        long expected = Crc32c.software(bytes, offset, length);
+        assertEquals(expected, Crc32c.checksum(bytes, offset, length));
+        assertEquals(expected, Crc32c.checksum(buffer, Integer.BYTES + offset, length));
+        assertEquals(expected, Crc32c.software(buffer.bytes(), buffer.offset() + Integer.BYTES + offset, length));
+        assertEquals(expected, Crc32c.checksum(slice, 1 + offset, length));
+      }
+    }
+    buffer.close();
+  }
+}
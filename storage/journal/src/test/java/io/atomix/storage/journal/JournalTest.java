@@ -15,11 +15,19 @@
  */
 package io.atomix.storage.journal;
 
+import com.google.common.primitives.Ints;
 import io.atomix.serializer.Serializer;
 import io.atomix.serializer.kryo.KryoNamespace;
 import io.atomix.storage.StorageLevel;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -136,4 +144,470 @@ public class JournalTest {
     assertEquals(reader.getCurrentIndex(), 2);
     assertFalse(reader.hasNext());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testOffHeapWriteRead() throws Exception {
+    Journal<TestEntry> journal = SegmentedJournal.<TestEntry>newBuilder()
+        .withName("test")
+        .withSerializer(serializer)
+        .withStorageLevel(StorageLevel.OFF_HEAP)
+        .withMaxEntriesPerSegment(10)
+        .build();
+    JournalWriter<TestEntry> writer = journal.writer();
+    for (int i = 1; i <= 25; i++) {
+      writer.append(new TestEntry(new byte[]{(byte) i}));
+    }
+    JournalReader<TestEntry> reader = journal.openReader(1);
+    for (int i = 1; i <= 25; i++) {
+      assertTrue(reader.hasNext());
+      assertArrayEquals(new byte[]{(byte) i}, reader.next().entry().bytes());
+    }
+    assertFalse(reader.hasNext());
+    journal.close();
+  }
+
+  @Test
+  public void testConcurrentReadWrite() throws Exception {
+    Journal<TestEntry> journal = SegmentedJournal.<TestEntry>newBuilder()
+        .withName("test")
+        .withSerializer(serializer)
+        .withStorageLevel(StorageLevel.OFF_HEAP)
+        .withMaxEntriesPerSegment(100)
+        .build();
+    JournalWriter<TestEntry> writer = journal.writer();
+    JournalReader<TestEntry> reader = journal.openReader(1);
+
+    // Read entries on another thread while they're being written.
+    int entries = 10000;
+    CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+      for (int i = 1; i <= entries; i++) {
+        while (!reader.hasNext()) {
+          Thread.yield();
+        }
+        Indexed<TestEntry> indexed = reader.next();
+        assertEquals(i, indexed.index());
+        assertArrayEquals(Ints.toByteArray(i), indexed.entry().bytes());
+      }
+    });
+
+    for (int i = 1; i <= entries; i++) {
+      writer.append(new TestEntry(Ints.toByteArray(i)));
+    }
+    future.get(30, TimeUnit.SECONDS);
+    journal.close();
+  }
+
+  @Test
+  public void testReaderResetAfterTruncate() throws Exception {
+    Journal<TestEntry> journal = SegmentedJournal.<TestEntry>newBuilder()
+        .withName("test")
+        .withSerializer(serializer)
+        .withStorageLevel(StorageLevel.MEMORY)
+        .withMaxEntriesPerSegment(10)
+        .build();
+    JournalWriter<TestEntry> writer = journal.writer();
+    for (int i = 1; i <= 25; i++) {
+      writer.append(new TestEntry(new byte[]{(byte) i}));
+    }
+    JournalReader<TestEntry> reader = journal.openReader(1);
+    while (reader.hasNext()) {
+      reader.next();
+    }
+    assertEquals(25, reader.getCurrentIndex());
+
+    // Truncating the journal resets the reader the next time it's accessed.
+    writer.truncate(15);
+    for (int i = 16; i <= 20; i++) {
+      writer.append(new TestEntry(new byte[]{(byte) -i}));
+    }
+    assertEquals(15, reader.getNextIndex());
+    for (int i = 15; i <= 20; i++) {
+      assertTrue(reader.hasNext());
+      Indexed<TestEntry> indexed = reader.next();
+      assertEquals(i, indexed.index());
+      assertArrayEquals(new byte[]{(byte) (i == 15 ? i : -i)}, indexed.entry().bytes());
+    }
+    assertFalse(reader.hasNext());
+    journal.close();
+  }
+
+  @Test
+  public void testReaderOfRemovedSegment() throws Exception {
+    SegmentedJournal<TestEntry> journal = SegmentedJournal.<TestEntry>newBuilder()
+        .withName("test")
+        .withSerializer(serializer)
+        .withStorageLevel(StorageLevel.MEMORY)
+        .withMaxEntriesPerSegment(10)
+        .build();
+    JournalWriter<TestEntry> writer = journal.writer();
+    for (int i = 1; i <= 25; i++) {
+      writer.append(new TestEntry(new byte[]{(byte) i}));
+    }
+
+    // A reader of a segment that was removed from the journal reads nothing rather than failing.
+    JournalSegment<TestEntry> segment = journal.getFirstSegment();
+    JournalReader<TestEntry> reader = journal.openReader(1);
+    journal.compact(21);
+    assertFalse(segment.isOpen());
+    JournalSegmentReader<TestEntry> segmentReader = segment.createReader();
+    assertFalse(segmentReader.hasNext());
+    segmentReader.close();
+
+    // Journal readers move on to the remaining segments.
+    long index = 0;
+    while (reader.hasNext()) {
+      index = reader.next().index();
+    }
+    assertEquals(25, index);
+    journal.close();
+  }
+
+  @Test
+  public void testConcurrentReadCompact() throws Exception {
+    SegmentedJournal<TestEntry> journal = SegmentedJournal.<TestEntry>newBuilder()
+        .withName("test")
+        .withSerializer(serializer)
+        .withStorageLevel(StorageLevel.OFF_HEAP)
+        .withMaxEntriesPerSegment(10)
+        .build();
+    JournalWriter<TestEntry> writer = journal.writer();
+    writer.append(new TestEntry(Ints.toByteArray(1)));
+
+    // Open readers at the head of the journal while segments are rolled over and removed from it.
+    int entries = 5000;
+    CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+      long lastIndex = 0;
+      while (lastIndex < entries) {
+        try (JournalReader<TestEntry> reader = journal.openReader(1)) {
+          long previousIndex = 0;
+          while (reader.hasNext()) {
+            Indexed<TestEntry> indexed = reader.next();
+            assertTrue(indexed.index() > previousIndex);
+            assertArrayEquals(Ints.toByteArray((int) indexed.index()), indexed.entry().bytes());
+            previousIndex = indexed.index();
+          }
+          lastIndex = Math.max(lastIndex, previousIndex);
+        }
+      }
+    });
+
+    for (int i = 2; i <= entries; i++) {
+      writer.append(new TestEntry(Ints.toByteArray(i)));
+      if (i % 50 == 0) {
+        journal.compact(i - 25);
+      }
+    }
+    future.get(30, TimeUnit.SECONDS);
+    journal.close();
+  }
+
+  @Test
+  public void testMemorySegmentReuseAfterCompaction() throws Exception {
+    SegmentedJournal<TestEntry> journal = SegmentedJournal.<TestEntry>newBuilder()
+        .withName("test")
+        .withSerializer(serializer)
+        .withStorageLevel(StorageLevel.MEMORY)
+        .withMaxEntriesPerSegment(10)
+        .build();
+    JournalWriter<TestEntry> writer = journal.writer();
+    for (int i = 1; i <= 25; i++) {
+      writer.append(new TestEntry(new byte[]{(byte) i}));
+    }
+
+    // Compact the first two segments and fill new segments with the recycled buffers.
+    journal.compact(21);
+    for (int i = 26; i <= 45; i++) {
+      writer.append(new TestEntry(new byte[]{(byte) i}));
+    }
+
+    JournalReader<TestEntry> reader = journal.openReader(21);
+    for (int i = 21; i <= 45; i++) {
+      assertTrue(reader.hasNext());
+      Indexed<TestEntry> indexed = reader.next();
+      assertEquals(i, indexed.index());
+      assertArrayEquals(new byte[]{(byte) i}, indexed.entry().bytes());
+    }
+    assertFalse(reader.hasNext());
+    journal.close();
+  }
+
+  @Test
+  public void testDiskWriteReadAfterReopen() throws Exception {
+    testWriteReadAfterReopen(StorageLevel.DISK);
+  }
+
+  @Test
+  public void testMappedWriteReadAfterReopen() throws Exception {
+    testWriteReadAfterReopen(StorageLevel.MAPPED);
+  }
+
+  @Test
+  public void testMappedWriteReadWithoutChecksums() throws Exception {
+    testWriteReadAfterReopen(StorageLevel.MAPPED, ChecksumPolicy.NONE);
+  }
+
+  @Test
+  public void testDiskWriteReadWithRecoveryChecksums() throws Exception {
+    testWriteReadAfterReopen(StorageLevel.DISK, ChecksumPolicy.ON_RECOVERY);
+  }
+
+  @Test
+  public void testCorruptEntryDiscardedOnRecovery() throws Exception {
+    File directory = Files.createTempDirectory("journal-test").toFile();
+    try {
+      Journal<TestEntry> journal = createJournal(directory, StorageLevel.MAPPED, ChecksumPolicy.ON_RECOVERY);
+      JournalWriter<TestEntry> writer = journal.writer();
+      for (int i = 1; i <= 5; i++) {
+        writer.append(new TestEntry(new byte[]{(byte) i}));
+      }
+      journal.close();
+
+      // Corrupt the last byte of the last entry in the segment.
+      File segment = JournalSegmentFile.createSegmentFile("test", directory, 1, JournalSegmentDescriptor.VERSION);
+      try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+        long position = JournalSegmentDescriptor.BYTES;
+        long end = position;
+        file.seek(position);
+        int length = file.readInt();
+        while (length > 0) {
+          position += Integer.BYTES + Integer.BYTES + length;
+          end = position;
+          file.seek(position);
+          length = file.readInt();
+        }
+        file.seek(end - 1);
+        int last = file.read();
+        file.seek(end - 1);
+        file.write(last ^ 0xff);
+      }
+
+      journal = createJournal(directory, StorageLevel.MAPPED, ChecksumPolicy.ON_RECOVERY);
+      assertEquals(5, journal.writer().getNextIndex());
+      JournalReader<TestEntry> reader = journal.openReader(1);
+      for (int i = 1; i <= 4; i++) {
+        assertTrue(reader.hasNext());
+        assertEquals(i, reader.next().index());
+      }
+      assertFalse(reader.hasNext());
+      journal.close();
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  @Test
+  public void testPreallocatedDiskSegmentsRemoved() throws Exception {
+    testPreallocatedSegmentsRemoved(StorageLevel.DISK);
+  }
+
+  @Test
+  public void testPreallocatedMappedSegmentsRemoved() throws Exception {
+    testPreallocatedSegmentsRemoved(StorageLevel.MAPPED);
+  }
+
+  private void testPreallocatedSegmentsRemoved(StorageLevel storageLevel) throws Exception {
+    File directory = Files.createTempDirectory("journal-test").toFile();
+    try {
+      Journal<TestEntry> journal = createJournal(directory, storageLevel, ChecksumPolicy.ALWAYS);
+      JournalWriter<TestEntry> writer = journal.writer();
+      for (int i = 1; i <= 25; i++) {
+        writer.append(new TestEntry(new byte[]{(byte) i}));
+      }
+      journal.close();
+      for (File file : directory.listFiles()) {
+        assertFalse(file.getName(), JournalSegmentFile.isPreallocatedFile("test", file));
+      }
+
+      // A file preallocated before a crash is removed when the journal is loaded.
+      File preallocated = JournalSegmentFile.createPreallocatedFile("test", directory, 10);
+      assertTrue(preallocated.createNewFile());
+      journal = createJournal(directory, storageLevel, ChecksumPolicy.ALWAYS);
+      assertFalse(preallocated.exists());
+      assertEquals(26, journal.writer().getNextIndex());
+      journal.close();
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  @Test
+  public void testTruncateAfterReopen() throws Exception {
+    File directory = Files.createTempDirectory("journal-test").toFile();
+    try {
+      Journal<TestEntry> journal = createJournal(directory, StorageLevel.DISK, ChecksumPolicy.ALWAYS);
+      JournalWriter<TestEntry> writer = journal.writer();
+      for (int i = 1; i <= 25; i++) {
+        writer.append(new TestEntry(new byte[]{(byte) i}));
+      }
+      journal.close();
+
+      // Truncate into the first segment, which is not opened until the segments following it are removed.
+      journal = createJournal(directory, StorageLevel.DISK, ChecksumPolicy.ALWAYS);
+      writer = journal.writer();
+      writer.truncate(5);
+      assertEquals(6, writer.getNextIndex());
+      for (int i = 6; i <= 8; i++) {
+        writer.append(new TestEntry(new byte[]{(byte) -i}));
+      }
+      journal.close();
+
+      journal = createJournal(directory, StorageLevel.DISK, ChecksumPolicy.ALWAYS);
+      assertEquals(9, journal.writer().getNextIndex());
+      JournalReader<TestEntry> reader = journal.openReader(1);
+      for (int i = 1; i <= 8; i++) {
+        assertTrue(reader.hasNext());
+        Indexed<TestEntry> indexed = reader.next();
+        assertEquals(i, indexed.index());
+        assertArrayEquals(new byte[]{(byte) (i <= 5 ? i : -i)}, indexed.entry().bytes());
+      }
+      assertFalse(reader.hasNext());
+      journal.close();
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  @Test
+  public void testMemoryCompactReleasedEntries() throws Exception {
+    testCompactReleasedEntries(StorageLevel.MEMORY);
+  }
+
+  @Test
+  public void testDiskCompactReleasedEntries() throws Exception {
+    testCompactReleasedEntries(StorageLevel.DISK);
+  }
+
+  @Test
+  public void testMappedCompactReleasedEntries() throws Exception {
+    testCompactReleasedEntries(StorageLevel.MAPPED);
+  }
+
+  private void testCompactReleasedEntries(StorageLevel storageLevel) throws Exception {
+    File directory = Files.createTempDirectory("journal-test").toFile();
+    try {
+      SegmentedJournal<TestEntry> journal = (SegmentedJournal<TestEntry>) createJournal(directory, storageLevel, ChecksumPolicy.ALWAYS);
+      JournalWriter<TestEntry> writer = journal.writer();
+      for (int i = 1; i <= 25; i++) {
+        writer.append(new TestEntry(new byte[]{(byte) i}));
+      }
+
+      // Open a reader on the first segment before it's compacted.
+      JournalReader<TestEntry> oldReader = journal.openReader(1);
+      assertEquals(1, oldReader.next().index());
+
+      // Release half the entries in the first segment and all but one entry in the second segment.
+      for (int i = 2; i <= 10; i += 2) {
+        journal.release(i);
+      }
+      for (int i = 11; i <= 20; i++) {
+        if (i != 15) {
+          journal.release(i);
+        }
+      }
+
+      // Releases in the current segment don't trigger compaction.
+      journal.release(21);
+
+      for (int i = 0; i < 100 && (journal.getSegment(1).version() == 1 || journal.getSegment(11).version() == 1); i++) {
+        Thread.sleep(50);
+      }
+      assertEquals(2, journal.getSegment(1).version());
+      assertEquals(2, journal.getSegment(11).version());
+      assertEquals(1, journal.getSegment(21).version());
+      assertEquals(26, writer.getNextIndex());
+
+      // The reader opened before compaction continues to read the original segment.
+      for (int i = 2; i <= 10; i++) {
+        assertEquals(i, oldReader.next().index());
+      }
+      oldReader.close();
+
+      long[] indexes = new long[]{1, 3, 5, 7, 9, 15, 21, 22, 23, 24, 25};
+      assertIndexes(journal, indexes);
+
+      // Truncate the compacted segment and append new entries following the truncated index.
+      writer.truncate(15);
+      assertEquals(16, writer.getNextIndex());
+      for (int i = 16; i <= 18; i++) {
+        writer.append(new TestEntry(new byte[]{(byte) i}));
+      }
+      indexes = new long[]{1, 3, 5, 7, 9, 15, 16, 17, 18};
+      assertIndexes(journal, indexes);
+      journal.close();
+
+      if (storageLevel.isPersistent()) {
+        assertFalse(JournalSegmentFile.createSegmentFile("test", directory, 1, 1).exists());
+        assertTrue(JournalSegmentFile.createSegmentFile("test", directory, 1, 2).exists());
+        journal = (SegmentedJournal<TestEntry>) createJournal(directory, storageLevel, ChecksumPolicy.ALWAYS);
+        assertEquals(19, journal.writer().getNextIndex());
+        assertIndexes(journal, indexes);
+        journal.close();
+      }
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  private void assertIndexes(Journal<TestEntry> journal, long[] indexes) {
+    try (JournalReader<TestEntry> reader = journal.openReader(1)) {
+      for (long index : indexes) {
+        assertTrue(reader.hasNext());
+        Indexed<TestEntry> indexed = reader.next();
+        assertEquals(index, indexed.index());
+        assertArrayEquals(new byte[]{(byte) index}, indexed.entry().bytes());
+      }
+      assertFalse(reader.hasNext());
+    }
+  }
+
+  private void testWriteReadAfterReopen(StorageLevel storageLevel) throws Exception {
+    testWriteReadAfterReopen(storageLevel, ChecksumPolicy.ALWAYS);
+  }
+
+  private void testWriteReadAfterReopen(StorageLevel storageLevel, ChecksumPolicy checksumPolicy) throws Exception {
+    File directory = Files.createTempDirectory("journal-test").toFile();
+    try {
+      Journal<TestEntry> journal = createJournal(directory, storageLevel, checksumPolicy);
+      JournalWriter<TestEntry> writer = journal.writer();
+      for (int i = 1; i <= 25; i++) {
+        writer.append(new TestEntry(new byte[]{(byte) i}));
+      }
+      journal.close();
+
+      journal = createJournal(directory, storageLevel, checksumPolicy);
+      assertEquals(26, journal.writer().getNextIndex());
+      JournalReader<TestEntry> reader = journal.openReader(1);
+      for (int i = 1; i <= 25; i++) {
+        assertTrue(reader.hasNext());
+        Indexed<TestEntry> indexed = reader.next();
+        assertEquals(i, indexed.index());
+        assertArrayEquals(new byte[]{(byte) i}, indexed.entry().bytes());
+      }
+      assertFalse(reader.hasNext());
+      journal.close();
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  private Journal<TestEntry> createJournal(File directory, StorageLevel storageLevel, ChecksumPolicy checksumPolicy) {
+    return SegmentedJournal.<TestEntry>newBuilder()
+        .withName("test")
+        .withDirectory(directory)
+        .withSerializer(serializer)
+        .withStorageLevel(storageLevel)
+        .withMaxEntriesPerSegment(10)
+        .withChecksumPolicy(checksumPolicy)
+        .build();
+  }
+
+  private void deleteDirectory(File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+}
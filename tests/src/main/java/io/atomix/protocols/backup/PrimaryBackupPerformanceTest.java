@@ -0,0 +1,340 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.backup;
+
+import com.google.common.collect.Maps;
+import io.atomix.protocols.backup.protocol.BackupProtocol;
+import io.atomix.protocols.backup.protocol.ExecuteRequest;
+import io.atomix.protocols.backup.protocol.ExecuteResponse;
+import io.atomix.protocols.backup.protocol.ReplicateRequest;
+import io.atomix.protocols.backup.protocol.ReplicateResponse;
+import io.atomix.protocols.backup.protocol.RestoreRequest;
+import io.atomix.utils.AbstractIdentifier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Primary-backup performance test.
+ * <p>
+ * Runs the same write workload as {@link io.atomix.protocols.raft.RaftPerformanceTest} against a three node
+ * primary-backup group with two backups, so the write throughput of the two protocols can be compared. Each client
+ * executes operations through a different node, so operations are forwarded to the primary as Raft commands are
+ * forwarded to the leader. Messages are passed directly between in-process protocol fakes.
+ */
+public class PrimaryBackupPerformanceTest implements Runnable {
+
+  private static final Replication REPLICATION = Replication.SYNCHRONOUS;
+
+  private static final int ITERATIONS = 10;
+
+  private static final int TOTAL_OPERATIONS = 1000000;
+  private static final int NUM_NODES = 3;
+  private static final int NUM_BACKUPS = 2;
+  private static final int NUM_CLIENTS = 5;
+
+  /**
+   * Runs the test.
+   */
+  public static void main(String[] args) {
+    new PrimaryBackupPerformanceTest().run();
+  }
+
+  private static final String[] KEYS = new String[1024];
+  private final Random random = new Random();
+  private final List<Long> iterations = new ArrayList<>();
+  private final AtomicInteger totalOperations = new AtomicInteger();
+  private final AtomicInteger writeCount = new AtomicInteger();
+  private ExecutorService executor;
+  private Map<NodeId, TestProtocol> protocols = new ConcurrentHashMap<>();
+  private List<BackupService<Map.Entry<String, String>>> services = new ArrayList<>();
+
+  static {
+    for (int i = 0; i < 1024; i++) {
+      KEYS[i] = UUID.randomUUID().toString();
+    }
+  }
+
+  @Override
+  public void run() {
+    for (int i = 0; i < ITERATIONS; i++) {
+      try {
+        iterations.add(runIteration());
+      } catch (Exception e) {
+        e.printStackTrace();
+        return;
+      }
+    }
+
+    System.out.println("Completed " + ITERATIONS + " iterations");
+    long averageRunTime = (long) iterations.stream().mapToLong(v -> v).average().getAsDouble();
+    System.out.println(String.format("averageRunTime: %dms", averageRunTime));
+
+    shutdown();
+  }
+
+  /**
+   * Runs a single performance test iteration, returning the iteration run time.
+   */
+  @SuppressWarnings("unchecked")
+  private long runIteration() throws Exception {
+    reset();
+
+    createServices();
+
+    CompletableFuture<Void>[] futures = new CompletableFuture[NUM_CLIENTS];
+    for (int i = 0; i < NUM_CLIENTS; i++) {
+      futures[i] = new CompletableFuture<>();
+    }
+
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < NUM_CLIENTS; i++) {
+      runClient(services.get(i % services.size()), futures[i]);
+    }
+    CompletableFuture.allOf(futures).join();
+    long endTime = System.currentTimeMillis();
+    long runTime = endTime - startTime;
+    System.out.println(String.format("writeCount: %d/%d, runTime: %dms",
+        writeCount.get(),
+        TOTAL_OPERATIONS,
+        runTime));
+    return runTime;
+  }
+
+  /**
+   * Runs operations for a single client.
+   */
+  private void runClient(BackupService<Map.Entry<String, String>> service, CompletableFuture<Void> future) {
+    int count = totalOperations.incrementAndGet();
+    if (count > TOTAL_OPERATIONS) {
+      future.complete(null);
+    } else {
+      service.execute(Maps.immutableEntry(randomKey(), UUID.randomUUID().toString()))
+          .whenComplete((result, error) -> {
+            if (error == null) {
+              writeCount.incrementAndGet();
+            }
+            runClient(service, future);
+          });
+    }
+  }
+
+  /**
+   * Resets the test state.
+   */
+  private void reset() {
+    totalOperations.set(0);
+    writeCount.set(0);
+
+    shutdown();
+
+    executor = Executors.newFixedThreadPool(4);
+    protocols = new ConcurrentHashMap<>();
+    services = new ArrayList<>();
+  }
+
+  /**
+   * Shuts down the services.
+   */
+  private void shutdown() {
+    services.forEach(BackupService::close);
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates the primary-backup services. The first node is the primary.
+   */
+  private void createServices() {
+    List<NodeId> nodes = new ArrayList<>();
+    for (int i = 1; i <= NUM_NODES; i++) {
+      nodes.add(NodeId.from(i));
+    }
+
+    PrimaryTerm<NodeId> term = new PrimaryTerm<>(1, nodes.get(0), nodes);
+    for (NodeId node : nodes) {
+      TestProtocol protocol = new TestProtocol();
+      protocols.put(node, protocol);
+      services.add(PrimaryBackupService.<NodeId, Map.Entry<String, String>>builder()
+          .withProtocol(protocol)
+          .withElection(new StaticElection(term))
+          .withLocalNode(node)
+          .withStateMachine(new PerformanceStateMachine())
+          .withNumBackups(NUM_BACKUPS)
+          .withReplication(REPLICATION)
+          .build());
+    }
+  }
+
+  /**
+   * Returns a random map key.
+   */
+  private String randomKey() {
+    return KEYS[random.nextInt(KEYS.length)];
+  }
+
+  /**
+   * Performance test state machine.
+   */
+  private static class PerformanceStateMachine implements BackupStateMachine<Map.Entry<String, String>> {
+    private Map<String, String> map = new HashMap<>();
+
+    @Override
+    public void apply(Map.Entry<String, String> operation) {
+      map.put(operation.getKey(), operation.getValue());
+    }
+
+    @Override
+    public Collection<Map.Entry<String, String>> snapshot() {
+      return map.entrySet().stream()
+          .map(entry -> Maps.immutableEntry(entry.getKey(), entry.getValue()))
+          .collect(Collectors.toList());
+    }
+
+    @Override
+    public void restore(Collection<Map.Entry<String, String>> snapshot) {
+      map = new HashMap<>();
+      snapshot.forEach(this::apply);
+    }
+  }
+
+  /**
+   * Election with a fixed primary.
+   */
+  private static class StaticElection implements PrimaryElection<NodeId> {
+    private final PrimaryTerm<NodeId> term;
+
+    StaticElection(PrimaryTerm<NodeId> term) {
+      this.term = term;
+    }
+
+    @Override
+    public PrimaryTerm<NodeId> enter() {
+      return term;
+    }
+
+    @Override
+    public void withdraw() {
+    }
+
+    @Override
+    public PrimaryTerm<NodeId> getTerm() {
+      return term;
+    }
+
+    @Override
+    public void addListener(Consumer<PrimaryTerm<NodeId>> listener) {
+    }
+
+    @Override
+    public void removeListener(Consumer<PrimaryTerm<NodeId>> listener) {
+    }
+  }
+
+  /**
+   * In-process protocol that passes messages between nodes on a shared executor.
+   */
+  private class TestProtocol implements BackupProtocol<NodeId, Map.Entry<String, String>> {
+    private volatile Function<ReplicateRequest<NodeId, Map.Entry<String, String>>, CompletableFuture<ReplicateResponse>> replicateHandler;
+    private volatile Function<RestoreRequest<NodeId, Map.Entry<String, String>>, CompletableFuture<ReplicateResponse>> restoreHandler;
+    private volatile Function<ExecuteRequest<Map.Entry<String, String>>, CompletableFuture<ExecuteResponse>> executeHandler;
+
+    private <T, U> CompletableFuture<U> send(NodeId nodeId, T request, Function<TestProtocol, Function<T, CompletableFuture<U>>> handler) {
+      TestProtocol protocol = protocols.get(nodeId);
+      Function<T, CompletableFuture<U>> requestHandler = protocol != null ? handler.apply(protocol) : null;
+      if (requestHandler == null) {
+        CompletableFuture<U> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalStateException("unknown node"));
+        return future;
+      }
+      return CompletableFuture.supplyAsync(() -> request, executor)
+          .thenCompose(requestHandler)
+          .thenApplyAsync(response -> response, executor);
+    }
+
+    @Override
+    public CompletableFuture<ReplicateResponse> replicate(NodeId backup, ReplicateRequest<NodeId, Map.Entry<String, String>> request) {
+      return send(backup, request, protocol -> protocol.replicateHandler);
+    }
+
+    @Override
+    public CompletableFuture<ReplicateResponse> restore(NodeId backup, RestoreRequest<NodeId, Map.Entry<String, String>> request) {
+      return send(backup, request, protocol -> protocol.restoreHandler);
+    }
+
+    @Override
+    public CompletableFuture<ExecuteResponse> execute(NodeId primary, ExecuteRequest<Map.Entry<String, String>> request) {
+      return send(primary, request, protocol -> protocol.executeHandler);
+    }
+
+    @Override
+    public void registerReplicateHandler(Function<ReplicateRequest<NodeId, Map.Entry<String, String>>, CompletableFuture<ReplicateResponse>> handler) {
+      this.replicateHandler = handler;
+    }
+
+    @Override
+    public void unregisterReplicateHandler() {
+      this.replicateHandler = null;
+    }
+
+    @Override
+    public void registerRestoreHandler(Function<RestoreRequest<NodeId, Map.Entry<String, String>>, CompletableFuture<ReplicateResponse>> handler) {
+      this.restoreHandler = handler;
+    }
+
+    @Override
+    public void unregisterRestoreHandler() {
+      this.restoreHandler = null;
+    }
+
+    @Override
+    public void registerExecuteHandler(Function<ExecuteRequest<Map.Entry<String, String>>, CompletableFuture<ExecuteResponse>> handler) {
+      this.executeHandler = handler;
+    }
+
+    @Override
+    public void unregisterExecuteHandler() {
+      this.executeHandler = null;
+    }
+  }
+
+  /**
+   * Test node identifier.
+   */
+  private static class NodeId extends AbstractIdentifier<String> {
+    static NodeId from(int id) {
+      return new NodeId(String.valueOf(id));
+    }
+
+    NodeId(String id) {
+      super(id);
+    }
+  }
+}
@@ -17,10 +17,13 @@ package io.atomix.protocols.raft;
 
 import com.google.common.collect.Maps;
 import io.atomix.messaging.Endpoint;
+import io.atomix.messaging.MessagingService;
+import io.atomix.messaging.local.LocalMessagingServiceFactory;
 import io.atomix.messaging.netty.NettyMessagingManager;
 import io.atomix.protocols.raft.cluster.MemberId;
 import io.atomix.protocols.raft.cluster.RaftMember;
 import io.atomix.protocols.raft.cluster.impl.DefaultRaftMember;
+import io.atomix.protocols.raft.codec.RaftSerializer;
 import io.atomix.protocols.raft.operation.OperationId;
 import io.atomix.protocols.raft.operation.OperationType;
 import io.atomix.protocols.raft.operation.RaftOperation;
@@ -117,7 +120,35 @@ import java.util.stream.Collectors;
  */
 public class RaftPerformanceTest implements Runnable {
 
-  private static final boolean USE_NETTY = true;
+  /**
+   * Transport used to connect servers and clients.
+   * <ul>
+   *   <li>{@code NETTY} serializes messages and sends them over TCP</li>
+   *   <li>{@code LOCAL_MESSAGING} serializes messages and passes them through the in-process messaging service</li>
+   *   <li>{@code LOCAL_PROTOCOL} passes message objects directly between the in-process protocol fakes</li>
+   * </ul>
+   */
+  private enum Transport {
+    NETTY,
+    LOCAL_MESSAGING,
+    LOCAL_PROTOCOL,
+  }
+
+  private static final Transport TRANSPORT = Transport.NETTY;
+
+  /**
+   * Serializer used for protocol messages and log entries.
+   * <ul>
+   *   <li>{@code KRYO} uses Kryo namespaces registering the Raft types</li>
+   *   <li>{@code RAFT} uses the reflection-free {@link RaftSerializer}</li>
+   * </ul>
+   */
+  private enum SerializerType {
+    KRYO,
+    RAFT,
+  }
+
+  private static final SerializerType SERIALIZER = SerializerType.RAFT;
 
   private static final int ITERATIONS = 10;
 
@@ -135,7 +166,7 @@ public class RaftPerformanceTest implements Runnable {
     new RaftPerformanceTest().run();
   }
 
-  private static final Serializer protocolSerializer = Serializer.using(KryoNamespace.newBuilder()
+  private static final Serializer protocolSerializer = SERIALIZER == SerializerType.RAFT ? new RaftSerializer() : Serializer.using(KryoNamespace.newBuilder()
       .register(OpenSessionRequest.class)
       .register(OpenSessionResponse.class)
       .register(CloseSessionRequest.class)
@@ -194,9 +225,10 @@ public class RaftPerformanceTest implements Runnable {
       .register(RaftMember.Type.class)
       .register(Instant.class)
       .register(Configuration.class)
+      .setPoolMode(KryoNamespace.PoolMode.THREAD_LOCAL)
       .build());
 
-  private static final Serializer storageSerializer = Serializer.using(KryoNamespace.newBuilder()
+  private static final Serializer storageSerializer = SERIALIZER == SerializerType.RAFT ? new RaftSerializer() : Serializer.using(KryoNamespace.newBuilder()
       .register(CloseSessionEntry.class)
       .register(CommandEntry.class)
       .register(ConfigurationEntry.class)
@@ -218,6 +250,7 @@ public class RaftPerformanceTest implements Runnable {
       .register(Configuration.class)
       .register(byte[].class)
       .register(long[].class)
+      .setPoolMode(KryoNamespace.PoolMode.THREAD_LOCAL)
       .build());
 
   private static final Serializer clientSerializer = Serializer.using(KryoNamespace.newBuilder()
@@ -231,6 +264,7 @@ public class RaftPerformanceTest implements Runnable {
   private List<RaftClient> clients = new ArrayList<>();
   private List<RaftServer> servers = new ArrayList<>();
   private LocalRaftProtocolFactory protocolFactory;
+  private LocalMessagingServiceFactory messagingFactory;
   private List<NettyMessagingManager> messagingManagers = new ArrayList<>();
   private Map<MemberId, Endpoint> endpointMap = new ConcurrentHashMap<>();
   private static final String[] KEYS = new String[1024];
@@ -343,6 +377,7 @@ public class RaftPerformanceTest implements Runnable {
     messagingManagers = new ArrayList<>();
     endpointMap = new ConcurrentHashMap<>();
     protocolFactory = new LocalRaftProtocolFactory(protocolSerializer);
+    messagingFactory = new LocalMessagingServiceFactory();
   }
 
   /**
@@ -372,6 +407,10 @@ public class RaftPerformanceTest implements Runnable {
       }
     });
 
+    if (messagingFactory != null) {
+      messagingFactory.close();
+    }
+
     Path directory = Paths.get("target/perf-logs/");
     if (Files.exists(directory)) {
       Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
@@ -450,21 +489,19 @@ public class RaftPerformanceTest implements Runnable {
    */
   private RaftServer createServer(RaftMember member) throws UnknownHostException {
     RaftServerProtocol protocol;
-    if (USE_NETTY) {
+    if (TRANSPORT == Transport.LOCAL_PROTOCOL) {
+      protocol = protocolFactory.newServerProtocol(member.memberId());
+    } else {
       Endpoint endpoint = new Endpoint(InetAddress.getLocalHost(), ++port);
-      NettyMessagingManager messagingManager = new NettyMessagingManager(endpoint);
-      messagingManagers.add(messagingManager);
       endpointMap.put(member.memberId(), endpoint);
-      protocol = new RaftServerMessagingProtocol(messagingManager, protocolSerializer, endpointMap::get);
-    } else {
-      protocol = protocolFactory.newServerProtocol(member.memberId());
+      protocol = new RaftServerMessagingProtocol(newMessagingService(endpoint), protocolSerializer, endpointMap::get);
     }
 
     RaftServer.Builder builder = RaftServer.newBuilder(member.memberId())
         .withType(member.getType())
         .withProtocol(protocol)
         .withStorage(RaftStorage.newBuilder()
-            .withStorageLevel(StorageLevel.DISK)
+            .withStorageLevel(StorageLevel.MAPPED)
             .withDirectory(new File(String.format("target/perf-logs/%s", member.memberId())))
             .withSerializer(storageSerializer)
             .withMaxSegmentSize(1024 * 1024)
@@ -476,6 +513,18 @@ public class RaftPerformanceTest implements Runnable {
     return server;
   }
 
+  /**
+   * Creates a messaging service for the configured transport.
+   */
+  private MessagingService newMessagingService(Endpoint endpoint) {
+    if (TRANSPORT == Transport.LOCAL_MESSAGING) {
+      return messagingFactory.newMessagingService(endpoint);
+    }
+    NettyMessagingManager messagingManager = new NettyMessagingManager(endpoint);
+    messagingManagers.add(messagingManager);
+    return messagingManager;
+  }
+
   /**
    * Creates a Raft client.
    */
@@ -483,13 +532,12 @@ public class RaftPerformanceTest implements Runnable {
     MemberId memberId = nextMemberId();
 
     RaftClientProtocol protocol;
-    if (USE_NETTY) {
+    if (TRANSPORT == Transport.LOCAL_PROTOCOL) {
+      protocol = protocolFactory.newClientProtocol(memberId);
+    } else {
       Endpoint endpoint = new Endpoint(InetAddress.getLocalHost(), ++port);
-      NettyMessagingManager messagingManager = new NettyMessagingManager(endpoint);
       endpointMap.put(memberId, endpoint);
-      protocol = new RaftClientMessagingProtocol(messagingManager, protocolSerializer, endpointMap::get);
-    } else {
-      protocol = protocolFactory.newClientProtocol(memberId);
+      protocol = new RaftClientMessagingProtocol(newMessagingService(endpoint), protocolSerializer, endpointMap::get);
     }
 
     RaftClient client = RaftClient.newBuilder()
@@ -511,7 +559,9 @@ public class RaftPerformanceTest implements Runnable {
         .withServiceType("test")
         .withReadConsistency(READ_CONSISTENCY)
         .withCommunicationStrategy(COMMUNICATION_STRATEGY)
-        .build();
+        .build()
+        .open()
+        .join();
   }
 
   private static final OperationId PUT = OperationId.command("put");
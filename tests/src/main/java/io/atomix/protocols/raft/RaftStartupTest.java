@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft;
+
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.codec.RaftSerializer;
+import io.atomix.protocols.raft.operation.OperationId;
+import io.atomix.protocols.raft.operation.RaftOperation;
+import io.atomix.protocols.raft.protocol.LocalRaftProtocolFactory;
+import io.atomix.protocols.raft.service.AbstractRaftService;
+import io.atomix.protocols.raft.service.RaftServiceExecutor;
+import io.atomix.protocols.raft.storage.RaftStorage;
+import io.atomix.protocols.raft.storage.log.RaftLog;
+import io.atomix.protocols.raft.storage.log.RaftLogWriter;
+import io.atomix.protocols.raft.storage.log.entry.CommandEntry;
+import io.atomix.protocols.raft.storage.log.entry.InitializeEntry;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotReader;
+import io.atomix.protocols.raft.storage.snapshot.SnapshotWriter;
+import io.atomix.serializer.Serializer;
+import io.atomix.storage.StorageLevel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raft server startup test.
+ * <p>
+ * Writes a log spanning many segments and measures the time it takes to open the log and to bootstrap a single
+ * server from it.
+ */
+public class RaftStartupTest implements Runnable {
+
+  private static final StorageLevel STORAGE_LEVEL = StorageLevel.MAPPED;
+
+  private static final int ITERATIONS = 10;
+
+  private static final int NUM_SEGMENTS = 500;
+  private static final int ENTRIES_PER_SEGMENT = 1000;
+  private static final int ENTRY_SIZE = 128;
+  private static final int MAX_SEGMENT_SIZE = 256 * 1024;
+
+  /**
+   * Runs the test.
+   */
+  public static void main(String[] args) {
+    new RaftStartupTest().run();
+  }
+
+  private static final Serializer serializer = new RaftSerializer();
+
+  private static final OperationId WRITE = OperationId.command("write");
+
+  private static final File DIRECTORY = new File("target/startup-logs/");
+
+  private final List<Long> openTimes = new ArrayList<>();
+  private final List<Long> startupTimes = new ArrayList<>();
+
+  @Override
+  public void run() {
+    try {
+      deleteDirectory();
+      writeLog();
+      for (int i = 0; i < ITERATIONS; i++) {
+        runIteration();
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      return;
+    } finally {
+      try {
+        deleteDirectory();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+
+    System.out.println("Completed " + ITERATIONS + " iterations");
+    System.out.println(String.format("averageOpenTime: %dms", average(openTimes)));
+    System.out.println(String.format("averageStartupTime: %dms", average(startupTimes)));
+  }
+
+  /**
+   * Writes the log from which servers are started.
+   */
+  private void writeLog() {
+    long startTime = System.currentTimeMillis();
+    RaftLog log = createStorage().openLog();
+    RaftLogWriter writer = log.writer();
+    writer.append(new InitializeEntry(1, System.currentTimeMillis()));
+    byte[] bytes = new byte[ENTRY_SIZE];
+    for (long i = 1; i < (long) NUM_SEGMENTS * ENTRIES_PER_SEGMENT; i++) {
+      writer.append(new CommandEntry(1, System.currentTimeMillis(), 1, i, new RaftOperation(WRITE, bytes)));
+    }
+    writer.flush();
+    log.close();
+    System.out.println(String.format("Wrote %d segments in %dms", NUM_SEGMENTS, System.currentTimeMillis() - startTime));
+  }
+
+  /**
+   * Runs a single startup test iteration.
+   */
+  private void runIteration() throws Exception {
+    // Open the log alone.
+    long startTime = System.nanoTime();
+    RaftLog log = createStorage().openLog();
+    long lastIndex = log.writer().getLastIndex();
+    long openTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    log.close();
+    openTimes.add(openTime);
+
+    // Start a server from the log.
+    MemberId memberId = MemberId.from("1");
+    RaftServer server = RaftServer.newBuilder(memberId)
+        .withProtocol(new LocalRaftProtocolFactory(serializer).newServerProtocol(memberId))
+        .withStorage(createStorage())
+        .addService("test", StartupStateMachine::new)
+        .build();
+
+    startTime = System.nanoTime();
+    server.bootstrap(Collections.singletonList(memberId)).get(60, TimeUnit.SECONDS);
+    long startupTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    startupTimes.add(startupTime);
+    server.shutdown().get(10, TimeUnit.SECONDS);
+
+    System.out.println(String.format("lastIndex: %d, openTime: %dms, startupTime: %dms", lastIndex, openTime, startupTime));
+  }
+
+  /**
+   * Creates the server storage.
+   */
+  private RaftStorage createStorage() {
+    return RaftStorage.newBuilder()
+        .withStorageLevel(STORAGE_LEVEL)
+        .withDirectory(DIRECTORY)
+        .withSerializer(serializer)
+        .withMaxSegmentSize(MAX_SEGMENT_SIZE)
+        .withMaxEntriesPerSegment(ENTRIES_PER_SEGMENT)
+        .build();
+  }
+
+  /**
+   * Returns the average of the given times.
+   */
+  private long average(List<Long> times) {
+    return (long) times.stream().mapToLong(v -> v).average().orElse(0);
+  }
+
+  /**
+   * Deletes the log directory.
+   */
+  private void deleteDirectory() throws IOException {
+    Path directory = Paths.get(DIRECTORY.getPath());
+    if (Files.exists(directory)) {
+      Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          Files.delete(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+          Files.delete(dir);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+  }
+
+  /**
+   * Startup test state machine.
+   */
+  public static class StartupStateMachine extends AbstractRaftService {
+    @Override
+    protected void configure(RaftServiceExecutor executor) {
+      executor.register(WRITE, commit -> {
+      });
+    }
+
+    @Override
+    public void snapshot(SnapshotWriter writer) {
+    }
+
+    @Override
+    public void install(SnapshotReader reader) {
+    }
+  }
+}
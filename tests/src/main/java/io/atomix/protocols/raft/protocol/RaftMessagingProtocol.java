@@ -15,6 +15,7 @@
  */
 package io.atomix.protocols.raft.protocol;
 
+import io.atomix.messaging.DispatchPolicy;
 import io.atomix.messaging.Endpoint;
 import io.atomix.messaging.MessagingService;
 import io.atomix.protocols.raft.cluster.MemberId;
@@ -71,7 +72,7 @@ public abstract class RaftMessagingProtocol {
         }
       });
       return future;
-    });
+    }, DispatchPolicy.ordered());
   }
 
   protected void unregisterHandler(String type) {
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.protocols.raft.protocol;
+
+import io.atomix.messaging.Endpoint;
+import io.atomix.messaging.local.LocalMessagingServiceFactory;
+import io.atomix.protocols.raft.cluster.MemberId;
+import io.atomix.protocols.raft.codec.RaftSerializer;
+import io.atomix.serializer.Serializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Raft messaging protocol test.
+ */
+public class RaftMessagingProtocolTest {
+  private static final int SENDERS = 4;
+  private static final int REQUESTS = 500;
+
+  private final Serializer serializer = new RaftSerializer();
+  private final Map<MemberId, Endpoint> endpoints = new ConcurrentHashMap<>();
+  private LocalMessagingServiceFactory messagingFactory;
+
+  @Before
+  public void setUp() {
+    messagingFactory = new LocalMessagingServiceFactory();
+  }
+
+  @After
+  public void tearDown() {
+    messagingFactory.close();
+  }
+
+  private RaftServerMessagingProtocol newProtocol(MemberId memberId, int port) {
+    Endpoint endpoint = new Endpoint(InetAddress.getLoopbackAddress(), port);
+    endpoints.put(memberId, endpoint);
+    return new RaftServerMessagingProtocol(messagingFactory.newMessagingService(endpoint), serializer, endpoints::get);
+  }
+
+  /**
+   * Tests that append requests from each sender are handled in the order in which they were sent while requests
+   * from different senders are dispatched concurrently.
+   */
+  @Test
+  public void testOrderedDispatchPerSender() throws Exception {
+    MemberId receiverId = MemberId.from("receiver");
+    RaftServerMessagingProtocol receiver = newProtocol(receiverId, 5100);
+
+    Map<MemberId, List<Long>> received = new ConcurrentHashMap<>();
+    receiver.registerAppendHandler(request -> {
+      // Randomize handler latency so that reordering would be visible if the dispatcher permitted it.
+      LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(50_000));
+      received.computeIfAbsent(request.leader(), l -> new CopyOnWriteArrayList<>()).add(request.prevLogIndex());
+      return CompletableFuture.completedFuture(AppendResponse.newBuilder()
+          .withStatus(RaftResponse.Status.OK)
+          .withTerm(1)
+          .withSucceeded(true)
+          .withLastLogIndex(request.prevLogIndex())
+          .build());
+    });
+
+    List<MemberId> senderIds = new ArrayList<>();
+    List<RaftServerMessagingProtocol> senders = new ArrayList<>();
+    for (int i = 0; i < SENDERS; i++) {
+      MemberId senderId = MemberId.from("sender" + i);
+      senderIds.add(senderId);
+      senders.add(newProtocol(senderId, 5101 + i));
+    }
+
+    List<CompletableFuture<AppendResponse>> futures = new ArrayList<>();
+    for (long index = 1; index <= REQUESTS; index++) {
+      for (int i = 0; i < SENDERS; i++) {
+        futures.add(senders.get(i).append(receiverId, AppendRequest.newBuilder()
+            .withTerm(1)
+            .withLeader(senderIds.get(i))
+            .withPrevLogIndex(index)
+            .withPrevLogTerm(1)
+            .withEntries(Collections.emptyList())
+            .withCommitIndex(0)
+            .build()));
+      }
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).get(30, TimeUnit.SECONDS);
+
+    assertEquals(SENDERS, received.size());
+    for (MemberId senderId : senderIds) {
+      List<Long> indexes = received.get(senderId);
+      assertEquals(REQUESTS, indexes.size());
+      for (int i = 0; i < REQUESTS; i++) {
+        assertEquals(senderId + " handled out of order", i + 1, (long) indexes.get(i));
+      }
+    }
+  }
+}
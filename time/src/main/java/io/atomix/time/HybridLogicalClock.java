@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.time;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Hybrid logical clock.
+ * <p>
+ * The clock tracks the greatest {@link HybridTimestamp} it has issued or observed. Each new timestamp is the greater
+ * of the current physical time and the previous timestamp plus one logical tick, so timestamps are strictly increasing,
+ * respect causality like a {@link LogicalClock}, and stay within the clock skew of the physical time on every node.
+ * Because the physical and logical time are packed into a single {@code long}, the clock is updated with a
+ * compare-and-set rather than a lock. If more than {@code 65535} timestamps are issued within a millisecond, the
+ * logical time carries into the physical time.
+ */
+public class HybridLogicalClock implements Clock<HybridTimestamp> {
+  private final LongSupplier physicalClock;
+  private final AtomicLong currentTime = new AtomicLong();
+
+  public HybridLogicalClock() {
+    this(System::currentTimeMillis);
+  }
+
+  /**
+   * @param physicalClock supplies the physical time in milliseconds since the epoch
+   * @throws NullPointerException if {@code physicalClock} is null
+   */
+  public HybridLogicalClock(LongSupplier physicalClock) {
+    this.physicalClock = checkNotNull(physicalClock, "physicalClock cannot be null");
+  }
+
+  @Override
+  public HybridTimestamp getTime() {
+    return new HybridTimestamp(currentTime.get());
+  }
+
+  /**
+   * Increments the clock and returns the new timestamp.
+   * <p>
+   * The new timestamp is the current physical time if it's ahead of the clock. Otherwise, the logical time is
+   * incremented.
+   *
+   * @return the updated clock time
+   */
+  public HybridTimestamp increment() {
+    long physicalTime = physicalTime();
+    long current;
+    long next;
+    do {
+      current = currentTime.get();
+      next = Math.max(physicalTime, current + 1);
+    } while (!currentTime.compareAndSet(current, next));
+    return new HybridTimestamp(next);
+  }
+
+  /**
+   * Updates the clock using the given timestamp and returns the new timestamp.
+   * <p>
+   * The new timestamp is greater than both the given timestamp and the previous clock time, so events timestamped
+   * after receiving a message are ordered after the message.
+   *
+   * @param timestamp the timestamp with which to update the clock
+   * @return the updated clock time
+   */
+  public HybridTimestamp update(HybridTimestamp timestamp) {
+    long physicalTime = physicalTime();
+    long current;
+    long next;
+    do {
+      current = currentTime.get();
+      next = Math.max(physicalTime, Math.max(current, timestamp.value()) + 1);
+    } while (!currentTime.compareAndSet(current, next));
+    return new HybridTimestamp(next);
+  }
+
+  /**
+   * Returns the current physical time as a packed timestamp value with a zero logical time.
+   */
+  private long physicalTime() {
+    return physicalClock.getAsLong() << HybridTimestamp.LOGICAL_BITS;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("time", getTime())
+        .toString();
+  }
+}
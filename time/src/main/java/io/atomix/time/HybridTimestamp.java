@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.time;
+
+import com.google.common.base.Preconditions;
+import io.atomix.utils.TimestampPrinter;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hybrid logical timestamp.
+ * <p>
+ * A hybrid timestamp combines a physical time in milliseconds since the epoch with a logical counter that orders
+ * events within the same millisecond. Both are packed into a single 64-bit value: the high 48 bits hold the physical
+ * time and the low 16 bits hold the logical counter, so timestamps are compared and serialized as a {@code long}.
+ */
+public class HybridTimestamp implements Timestamp {
+  static final int LOGICAL_BITS = 16;
+  static final long MAX_LOGICAL_TIME = (1L << LOGICAL_BITS) - 1;
+
+  /**
+   * Returns a new hybrid timestamp for the given physical and logical time.
+   *
+   * @param physicalTime the physical time in milliseconds since the epoch
+   * @param logicalTime the logical time
+   * @return the hybrid timestamp
+   */
+  public static HybridTimestamp of(long physicalTime, int logicalTime) {
+    checkArgument(physicalTime >= 0 && physicalTime >>> (Long.SIZE - LOGICAL_BITS) == 0, "physicalTime out of range");
+    checkArgument(logicalTime >= 0 && logicalTime <= MAX_LOGICAL_TIME, "logicalTime out of range");
+    return new HybridTimestamp(physicalTime << LOGICAL_BITS | logicalTime);
+  }
+
+  /**
+   * Returns a new hybrid timestamp for the given packed value.
+   *
+   * @param value the packed value for which to create a new hybrid timestamp
+   * @return the hybrid timestamp
+   */
+  public static HybridTimestamp from(long value) {
+    return new HybridTimestamp(value);
+  }
+
+  private final long value;
+
+  public HybridTimestamp(long value) {
+    this.value = value;
+  }
+
+  /**
+   * Returns the packed value of the timestamp.
+   *
+   * @return the packed physical and logical time
+   */
+  public long value() {
+    return value;
+  }
+
+  /**
+   * Returns the physical component of the timestamp.
+   *
+   * @return the physical time in milliseconds since the epoch
+   */
+  public long physicalTime() {
+    return value >>> LOGICAL_BITS;
+  }
+
+  /**
+   * Returns the logical component of the timestamp.
+   *
+   * @return the logical time
+   */
+  public int logicalTime() {
+    return (int) (value & MAX_LOGICAL_TIME);
+  }
+
+  /**
+   * Returns the timestamp as a version.
+   *
+   * @return the timestamp as a version
+   */
+  public Version asVersion() {
+    return new Version(value);
+  }
+
+  @Override
+  public int compareTo(Timestamp o) {
+    Preconditions.checkArgument(o instanceof HybridTimestamp,
+        "Must be HybridTimestamp", o);
+    return Long.compare(value, ((HybridTimestamp) o).value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(value);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof HybridTimestamp)) {
+      return false;
+    }
+    HybridTimestamp that = (HybridTimestamp) obj;
+    return this.value == that.value;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(getClass())
+        .add("physicalTime", new TimestampPrinter(physicalTime()))
+        .add("logicalTime", logicalTime())
+        .toString();
+  }
+}
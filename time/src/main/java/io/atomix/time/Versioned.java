@@ -57,6 +57,20 @@ public class Versioned<V> {
     this(value, version, System.currentTimeMillis());
   }
 
+  /**
+   * Constructs a new versioned value from a hybrid timestamp.
+   * <p>
+   * The version is the packed value of the timestamp, so versions are ordered
+   * consistently with causality, and the creation time is the physical time
+   * of the timestamp.
+   *
+   * @param value     value
+   * @param timestamp hybrid timestamp of the creation event
+   */
+  public Versioned(V value, HybridTimestamp timestamp) {
+    this(value, timestamp.value(), timestamp.physicalTime());
+  }
+
   /**
    * Returns the value.
    *
@@ -82,7 +96,8 @@ public class Versioned<V> {
    * implement any behavior in a distributed setting. Due
    * to the possibility of clock skew it is likely that
    * even creationTimes of causally related versions can be
-   * out or order.
+   * out or order. Versions created from a {@link HybridTimestamp}
+   * are the exception: their creation times are causally ordered.
    *
    * @return creation time
    */
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.time;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hybrid logical clock test.
+ */
+public class HybridLogicalClockTest {
+  @Test
+  public void testHybridLogicalClock() throws Exception {
+    AtomicLong physicalTime = new AtomicLong(100);
+    HybridLogicalClock clock = new HybridLogicalClock(physicalTime::get);
+    assertEquals(HybridTimestamp.of(100, 0), clock.increment());
+    assertEquals(HybridTimestamp.of(100, 1), clock.increment());
+    assertEquals(HybridTimestamp.of(100, 1), clock.getTime());
+
+    // The physical time resets the logical time once it passes the clock.
+    physicalTime.set(101);
+    assertEquals(HybridTimestamp.of(101, 0), clock.increment());
+
+    // The clock does not go backwards if the physical time does.
+    physicalTime.set(50);
+    assertEquals(HybridTimestamp.of(101, 1), clock.increment());
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    AtomicLong physicalTime = new AtomicLong(100);
+    HybridLogicalClock clock = new HybridLogicalClock(physicalTime::get);
+    clock.increment();
+
+    // A remote timestamp ahead of the clock moves the clock past it.
+    assertEquals(HybridTimestamp.of(200, 4), clock.update(HybridTimestamp.of(200, 3)));
+    assertEquals(HybridTimestamp.of(200, 5), clock.increment());
+
+    // A remote timestamp behind the clock still advances the logical time.
+    assertEquals(HybridTimestamp.of(200, 6), clock.update(HybridTimestamp.of(150, 0)));
+
+    physicalTime.set(300);
+    assertEquals(HybridTimestamp.of(300, 0), clock.update(HybridTimestamp.of(200, 10)));
+  }
+
+  @Test
+  public void testLogicalOverflow() throws Exception {
+    HybridLogicalClock clock = new HybridLogicalClock(() -> 100);
+    clock.update(HybridTimestamp.of(100, (int) HybridTimestamp.MAX_LOGICAL_TIME - 1));
+    assertEquals(HybridTimestamp.of(101, 0), clock.increment());
+  }
+
+  @Test
+  public void testConcurrentIncrement() throws Exception {
+    HybridLogicalClock clock = new HybridLogicalClock();
+    Set<HybridTimestamp> timestamps = ConcurrentHashMap.newKeySet();
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 10000; j++) {
+          timestamps.add(clock.increment());
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(40000, timestamps.size());
+    for (HybridTimestamp timestamp : timestamps) {
+      assertTrue(clock.getTime().compareTo(timestamp) >= 0);
+    }
+  }
+}
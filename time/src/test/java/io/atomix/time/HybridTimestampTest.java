@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.time;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hybrid timestamp test.
+ */
+public class HybridTimestampTest {
+  @Test
+  public void testHybridTimestamp() throws Exception {
+    HybridTimestamp timestamp = HybridTimestamp.of(1000, 2);
+    assertEquals(1000, timestamp.physicalTime());
+    assertEquals(2, timestamp.logicalTime());
+    assertEquals(timestamp, HybridTimestamp.from(timestamp.value()));
+    assertTrue(timestamp.isNewerThan(HybridTimestamp.of(1000, 1)));
+    assertTrue(timestamp.isNewerThan(HybridTimestamp.of(999, 5)));
+    assertFalse(timestamp.isNewerThan(HybridTimestamp.of(1001, 0)));
+    assertTrue(timestamp.isOlderThan(HybridTimestamp.of(1000, 3)));
+    assertFalse(timestamp.isOlderThan(HybridTimestamp.of(1000, 2)));
+  }
+}
@@ -40,6 +40,17 @@ public class VersionedTest {
     assertThat(stats1.creationTime(), is(3L));
   }
 
+  /**
+   * Tests creating a versioned value from a hybrid timestamp.
+   */
+  @Test
+  public void testHybridTimestampConstruction() {
+    HybridTimestamp timestamp = HybridTimestamp.of(1000, 2);
+    Versioned<Integer> versioned = new Versioned<>(1, timestamp);
+    assertThat(versioned.version(), is(timestamp.value()));
+    assertThat(versioned.creationTime(), is(1000L));
+  }
+
   /**
    * Maps an Integer to a String - Utility function to test the map function.
    *
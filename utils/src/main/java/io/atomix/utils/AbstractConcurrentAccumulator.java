@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.utils;
+
+import io.atomix.utils.concurrent.WheelTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Item accumulator backed by a shared {@link WheelTimer}.
+ * <p>
+ * Like {@link AbstractAccumulator}, the accumulator triggers processing based on the item inter-arrival time, the
+ * maximum batch age and the maximum batch size. Rather than synchronizing on every add and rescheduling timer tasks
+ * for each item, items are added to a lock-free queue and their arrival times recorded. A single check is scheduled
+ * on the timer per batch, which processes the batch if either time threshold has passed or otherwise reschedules
+ * itself for the earlier of the two deadlines.
+ * <p>
+ * Batches are processed on the timer's ticker threads, and calls to {@link #processItems(List)} for a single
+ * accumulator are never concurrent.
+ */
+public abstract class AbstractConcurrentAccumulator<T> implements Accumulator<T> {
+  private static final int DEFAULT_TICKER_THREADS = Math.max(Runtime.getRuntime().availableProcessors() / 4, 1);
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  private final WheelTimer timer;
+  private final int maxItems;
+  private final long maxBatchNanos;
+  private final long maxIdleNanos;
+
+  private final Queue<T> items = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicBoolean checkScheduled = new AtomicBoolean();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final Runnable checkTask = this::check;
+  private final Runnable flushTask = this::flushNow;
+  private final Object processLock = new Object();
+  private volatile long firstItemTime;
+  private volatile long lastItemTime;
+
+  /**
+   * Creates an item accumulator on the default shared timer.
+   *
+   * @param maxItems maximum number of items to accumulate before processing is triggered
+   * @param maxBatchMillis maximum number of millis allowed since the first item before processing is triggered
+   * @param maxIdleMillis maximum number millis between items before processing is triggered
+   */
+  protected AbstractConcurrentAccumulator(int maxItems, int maxBatchMillis, int maxIdleMillis) {
+    this(DefaultTimer.TIMER, maxItems, maxBatchMillis, maxIdleMillis);
+  }
+
+  /**
+   * Creates an item accumulator capable of triggering on the specified thresholds.
+   *
+   * @param timer timer to use for scheduling check-points
+   * @param maxItems maximum number of items to accumulate before processing is triggered
+   * @param maxBatchMillis maximum number of millis allowed since the first item before processing is triggered
+   * @param maxIdleMillis maximum number millis between items before processing is triggered
+   */
+  protected AbstractConcurrentAccumulator(WheelTimer timer, int maxItems, int maxBatchMillis, int maxIdleMillis) {
+    this.timer = checkNotNull(timer, "timer cannot be null");
+    checkArgument(maxItems > 1, "Maximum number of items must be > 1");
+    checkArgument(maxBatchMillis > 0, "Maximum millis must be positive");
+    checkArgument(maxIdleMillis > 0, "Maximum idle millis must be positive");
+    this.maxItems = maxItems;
+    this.maxBatchNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchMillis);
+    this.maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(maxIdleMillis);
+  }
+
+  @Override
+  public void add(T item) {
+    long time = System.nanoTime();
+    lastItemTime = time;
+    items.add(item);
+    int sizeAtTimeOfAdd = size.incrementAndGet();
+    if (sizeAtTimeOfAdd == 1) {
+      firstItemTime = time;
+    }
+
+    // If the max item threshold was hit, process the batch on the next tick. Otherwise, ensure a check is scheduled.
+    if (sizeAtTimeOfAdd >= maxItems) {
+      if (flushScheduled.compareAndSet(false, true)) {
+        timer.schedule(flushTask, 0, TimeUnit.NANOSECONDS);
+      }
+    } else {
+      scheduleCheck(Math.min(maxIdleNanos, maxBatchNanos));
+    }
+  }
+
+  /**
+   * Schedules a check of the batch thresholds if one is not already scheduled.
+   *
+   * @param delay the delay in nanoseconds after which to check the thresholds
+   */
+  private void scheduleCheck(long delay) {
+    if (!checkScheduled.get() && checkScheduled.compareAndSet(false, true)) {
+      timer.schedule(checkTask, delay, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Processes the batch if either time threshold has passed, otherwise reschedules the check.
+   */
+  private void check() {
+    checkScheduled.set(false);
+    if (size.get() == 0) {
+      return;
+    }
+
+    long time = System.nanoTime();
+    long batchRemaining = maxBatchNanos - (time - firstItemTime);
+    long idleRemaining = maxIdleNanos - (time - lastItemTime);
+    if (batchRemaining <= 0 || idleRemaining <= 0) {
+      process();
+    } else {
+      scheduleCheck(Math.min(batchRemaining, idleRemaining));
+    }
+  }
+
+  /**
+   * Processes the batch once the max item threshold has been hit.
+   */
+  private void flushNow() {
+    flushScheduled.set(false);
+    process();
+  }
+
+  /**
+   * Processes the accumulated items.
+   */
+  private void process() {
+    synchronized (processLock) {
+      if (!isReady()) {
+        scheduleCheck(maxIdleNanos);
+        return;
+      }
+
+      int count = size.get();
+      List<T> batch = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        T item = items.poll();
+        if (item == null) {
+          break;
+        }
+        batch.add(item);
+      }
+      firstItemTime = System.nanoTime();
+      int remaining = size.addAndGet(-batch.size());
+
+      if (!batch.isEmpty()) {
+        try {
+          processItems(batch);
+        } catch (Exception e) {
+          log.warn("Unable to process batch due to", e);
+        }
+      }
+
+      // Items added while the batch was being processed are handled by a subsequent batch.
+      if (remaining >= maxItems) {
+        if (flushScheduled.compareAndSet(false, true)) {
+          timer.schedule(flushTask, 0, TimeUnit.NANOSECONDS);
+        }
+      } else if (remaining > 0) {
+        scheduleCheck(Math.min(maxIdleNanos, maxBatchNanos));
+      }
+    }
+  }
+
+  @Override
+  public boolean isReady() {
+    return true;
+  }
+
+  /**
+   * Returns the backing timer.
+   *
+   * @return backing timer
+   */
+  public WheelTimer timer() {
+    return timer;
+  }
+
+  /**
+   * Returns the maximum number of items allowed to accumulate before processing is triggered.
+   *
+   * @return max number of items
+   */
+  public int maxItems() {
+    return maxItems;
+  }
+
+  /**
+   * Returns the maximum number of millis allowed to expire since the first item before processing is triggered.
+   *
+   * @return max number of millis a batch is allowed to last
+   */
+  public int maxBatchMillis() {
+    return (int) TimeUnit.NANOSECONDS.toMillis(maxBatchNanos);
+  }
+
+  /**
+   * Returns the maximum number of millis allowed to expire since the last item arrival before processing is
+   * triggered.
+   *
+   * @return max number of millis since the last item
+   */
+  public int maxIdleMillis() {
+    return (int) TimeUnit.NANOSECONDS.toMillis(maxIdleNanos);
+  }
+
+  /**
+   * Holder for the default timer, created when first used.
+   */
+  private static final class DefaultTimer {
+    private static final WheelTimer TIMER = new WheelTimer(
+        "atomix-accumulator-timer-%d", Duration.ofMillis(1), 512, DEFAULT_TICKER_THREADS);
+  }
+}
@@ -51,6 +51,15 @@ public class ReferencePool<T extends ReferenceCounted<?>> implements ReferenceMa
     return reference;
   }
 
+  /**
+   * Returns a boolean indicating whether the pool is closed.
+   *
+   * @return Indicates whether the pool is closed.
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
   @Override
   public void release(T reference) {
     if (!closed)
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.utils.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.atomix.utils.concurrent.Threads.namedThreads;
+
+/**
+ * Hashed timing wheel timer.
+ * <p>
+ * The timer is composed of one or more wheels, each of which is advanced by its own ticker thread. Timeouts are
+ * distributed across the wheels, so the number of ticker threads bounds the rate at which timeouts can be expired
+ * rather than a single shared timer thread. Scheduling a timeout adds it to a lock-free queue which is drained by the
+ * ticker on its next tick, so scheduling never contends with expiration. Cancelled timeouts are discarded when their
+ * bucket is reached.
+ * <p>
+ * Timeouts are expired on the ticker threads and so must not block. The precision of the timer is one tick.
+ */
+public class WheelTimer implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(WheelTimer.class);
+
+  private final long tickNanos;
+  private final Wheel[] wheels;
+  private final AtomicInteger nextWheel = new AtomicInteger();
+  private volatile boolean running = true;
+
+  /**
+   * Creates a new timer.
+   *
+   * @param nameFormat the ticker thread name format, which will be formatted with a thread number
+   * @param tickDuration the duration of a tick
+   * @param ticksPerWheel the number of ticks in each wheel, which will be rounded up to a power of two
+   * @param tickerThreads the number of ticker threads
+   */
+  public WheelTimer(String nameFormat, Duration tickDuration, int ticksPerWheel, int tickerThreads) {
+    this(namedThreads(checkNotNull(nameFormat, "nameFormat cannot be null"), LOGGER), tickDuration, ticksPerWheel, tickerThreads);
+  }
+
+  /**
+   * Creates a new timer.
+   *
+   * @param threadFactory the ticker thread factory
+   * @param tickDuration the duration of a tick
+   * @param ticksPerWheel the number of ticks in each wheel, which will be rounded up to a power of two
+   * @param tickerThreads the number of ticker threads
+   */
+  public WheelTimer(ThreadFactory threadFactory, Duration tickDuration, int ticksPerWheel, int tickerThreads) {
+    checkNotNull(threadFactory, "threadFactory cannot be null");
+    checkNotNull(tickDuration, "tickDuration cannot be null");
+    checkArgument(!tickDuration.isNegative() && !tickDuration.isZero(), "tickDuration must be positive");
+    checkArgument(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "ticksPerWheel must be positive");
+    checkArgument(tickerThreads > 0, "tickerThreads must be positive");
+    this.tickNanos = tickDuration.toNanos();
+    int wheelSize = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+    this.wheels = new Wheel[tickerThreads];
+    for (int i = 0; i < tickerThreads; i++) {
+      wheels[i] = new Wheel(Math.max(wheelSize, 1));
+      Thread thread = threadFactory.newThread(wheels[i]);
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * Schedules a task to run after the given delay.
+   *
+   * @param task the task to run
+   * @param delay the delay after which to run the task
+   * @param unit the delay time unit
+   * @return the scheduled timeout
+   * @throws IllegalStateException if the timer is closed
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    checkNotNull(task, "task cannot be null");
+    checkState(running, "timer is closed");
+    Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(Math.max(delay, 0)));
+    wheels[Math.floorMod(nextWheel.getAndIncrement(), wheels.length)].pending.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Returns the number of ticker threads.
+   *
+   * @return the number of ticker threads
+   */
+  public int tickerThreads() {
+    return wheels.length;
+  }
+
+  /**
+   * Stops the ticker threads. Pending timeouts are not expired.
+   */
+  @Override
+  public void close() {
+    running = false;
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("tickNanos", tickNanos)
+        .add("tickerThreads", wheels.length)
+        .toString();
+  }
+
+  /**
+   * Scheduled timeout.
+   */
+  public static final class Timeout {
+    private static final int SCHEDULED = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(SCHEDULED);
+    private long rounds;
+    private Timeout next;
+
+    private Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancels the timeout.
+     *
+     * @return indicates whether the timeout was cancelled before it expired
+     */
+    public boolean cancel() {
+      return state.compareAndSet(SCHEDULED, CANCELLED);
+    }
+
+    /**
+     * Returns a boolean indicating whether the timeout has been cancelled.
+     *
+     * @return indicates whether the timeout has been cancelled
+     */
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    /**
+     * Returns a boolean indicating whether the timeout has expired.
+     *
+     * @return indicates whether the timeout has expired
+     */
+    public boolean isExpired() {
+      return state.get() == EXPIRED;
+    }
+
+    /**
+     * Expires the timeout, running its task if it has not been cancelled.
+     */
+    private void expire() {
+      if (state.compareAndSet(SCHEDULED, EXPIRED)) {
+        try {
+          task.run();
+        } catch (Throwable t) {
+          LOGGER.warn("An exception was thrown by timer task {}", task, t);
+        }
+      }
+    }
+  }
+
+  /**
+   * Timing wheel advanced by a single ticker thread.
+   */
+  private final class Wheel implements Runnable {
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Timeout[] buckets;
+    private final int mask;
+    private long startTime;
+    private long tick;
+
+    private Wheel(int size) {
+      this.buckets = new Timeout[size];
+      this.mask = size - 1;
+    }
+
+    @Override
+    public void run() {
+      startTime = System.nanoTime();
+      while (running) {
+        awaitTick();
+        transferPending();
+        expireBucket((int) (tick & mask));
+        tick++;
+      }
+    }
+
+    /**
+     * Waits until the end of the current tick.
+     */
+    private void awaitTick() {
+      long deadline = startTime + (tick + 1) * tickNanos;
+      long now = System.nanoTime();
+      while (now < deadline && running) {
+        LockSupport.parkNanos(deadline - now);
+        now = System.nanoTime();
+      }
+    }
+
+    /**
+     * Adds newly scheduled timeouts to their buckets.
+     */
+    private void transferPending() {
+      Timeout timeout;
+      while ((timeout = pending.poll()) != null) {
+        if (timeout.isCancelled()) {
+          continue;
+        }
+        long expirationTick = Math.max((timeout.deadline - startTime) / tickNanos, tick);
+        timeout.rounds = (expirationTick - tick) / buckets.length;
+        int bucket = (int) (expirationTick & mask);
+        timeout.next = buckets[bucket];
+        buckets[bucket] = timeout;
+      }
+    }
+
+    /**
+     * Expires the timeouts in the given bucket whose remaining rounds have elapsed.
+     */
+    private void expireBucket(int bucket) {
+      Timeout previous = null;
+      Timeout timeout = buckets[bucket];
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.rounds <= 0 || timeout.isCancelled()) {
+          if (previous == null) {
+            buckets[bucket] = next;
+          } else {
+            previous.next = next;
+          }
+          timeout.next = null;
+          timeout.expire();
+        } else {
+          timeout.rounds--;
+          previous = timeout;
+        }
+        timeout = next;
+      }
+    }
+  }
+}
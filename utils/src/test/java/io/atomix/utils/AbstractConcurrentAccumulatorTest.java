@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.utils;
+
+import io.atomix.utils.concurrent.WheelTimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Concurrent accumulator test.
+ */
+public class AbstractConcurrentAccumulatorTest {
+  private WheelTimer timer;
+
+  @Before
+  public void setup() {
+    timer = new WheelTimer("test-timer-%d", Duration.ofMillis(1), 64, 2);
+  }
+
+  @After
+  public void teardown() {
+    timer.close();
+  }
+
+  @Test
+  public void testMaxItems() throws Exception {
+    TestAccumulator accumulator = new TestAccumulator(10, 10000, 10000);
+    for (int i = 0; i < 10; i++) {
+      accumulator.add(i);
+    }
+    List<Integer> batch = accumulator.batches.poll(5, TimeUnit.SECONDS);
+    assertEquals(10, batch.size());
+  }
+
+  @Test
+  public void testMaxIdle() throws Exception {
+    TestAccumulator accumulator = new TestAccumulator(1000, 10000, 20);
+    accumulator.add(1);
+    accumulator.add(2);
+    List<Integer> batch = accumulator.batches.poll(5, TimeUnit.SECONDS);
+    assertEquals(2, batch.size());
+    assertNull(accumulator.batches.poll(50, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testMaxBatch() throws Exception {
+    TestAccumulator accumulator = new TestAccumulator(100000, 50, 20);
+    long start = System.nanoTime();
+    AtomicInteger count = new AtomicInteger();
+    while (accumulator.batches.isEmpty()) {
+      accumulator.add(count.incrementAndGet());
+      Thread.sleep(5);
+    }
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void testConcurrentAdds() throws Exception {
+    TestAccumulator accumulator = new TestAccumulator(100, 50, 10);
+    CountDownLatch latch = new CountDownLatch(4);
+    for (int i = 0; i < 4; i++) {
+      new Thread(() -> {
+        for (int j = 0; j < 10000; j++) {
+          accumulator.add(j);
+        }
+        latch.countDown();
+      }).start();
+    }
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+    int total = 0;
+    while (total < 40000) {
+      List<Integer> batch = accumulator.batches.poll(5, TimeUnit.SECONDS);
+      assertTrue(batch != null);
+      total += batch.size();
+    }
+    assertEquals(40000, total);
+    assertEquals(0, accumulator.concurrentBatches.get());
+  }
+
+  /**
+   * Test accumulator.
+   */
+  private class TestAccumulator extends AbstractConcurrentAccumulator<Integer> {
+    private final BlockingQueue<List<Integer>> batches = new LinkedBlockingQueue<>();
+    private final AtomicInteger processing = new AtomicInteger();
+    private final AtomicInteger concurrentBatches = new AtomicInteger();
+
+    TestAccumulator(int maxItems, int maxBatchMillis, int maxIdleMillis) {
+      super(timer, maxItems, maxBatchMillis, maxIdleMillis);
+    }
+
+    @Override
+    public void processItems(List<Integer> items) {
+      if (processing.incrementAndGet() > 1) {
+        concurrentBatches.incrementAndGet();
+      }
+      batches.add(items);
+      processing.decrementAndGet();
+    }
+  }
+}
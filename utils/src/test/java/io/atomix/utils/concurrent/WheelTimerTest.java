@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.atomix.utils.concurrent;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Wheel timer test.
+ */
+public class WheelTimerTest {
+
+  @Test
+  public void testSchedule() throws Exception {
+    try (WheelTimer timer = new WheelTimer("test-timer-%d", Duration.ofMillis(1), 8, 2)) {
+      CountDownLatch latch = new CountDownLatch(3);
+      long start = System.nanoTime();
+      WheelTimer.Timeout timeout = timer.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+
+      // Timeouts longer than a rotation of the wheel are expired after the remaining rounds.
+      timer.schedule(latch::countDown, 20, TimeUnit.MILLISECONDS);
+      timer.schedule(latch::countDown, 0, TimeUnit.MILLISECONDS);
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+      assertTrue(timeout.isExpired());
+      assertFalse(timeout.cancel());
+    }
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    try (WheelTimer timer = new WheelTimer("test-timer-%d", Duration.ofMillis(1), 8, 1)) {
+      CountDownLatch cancelled = new CountDownLatch(1);
+      CountDownLatch latch = new CountDownLatch(1);
+      WheelTimer.Timeout timeout = timer.schedule(cancelled::countDown, 10, TimeUnit.MILLISECONDS);
+      assertTrue(timeout.cancel());
+      timer.schedule(latch::countDown, 20, TimeUnit.MILLISECONDS);
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertFalse(cancelled.await(0, TimeUnit.MILLISECONDS));
+      assertTrue(timeout.isCancelled());
+    }
+  }
+}